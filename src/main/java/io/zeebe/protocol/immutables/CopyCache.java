@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Remembers the copies made by the {@link ImmutableRecordCopier} while copying a batch of records,
+ * such that an object which is referenced multiple times within the batch is only copied once, and
+ * all references share the same copy. Objects are compared by identity, not equality.
+ */
+interface CopyCache {
+
+  /** A cache which remembers nothing, used when copying single records. */
+  CopyCache NONE =
+      new CopyCache() {
+        @Override
+        public <T, I> I copy(final T source, final Function<T, I> copier) {
+          return copier.apply(source);
+        }
+      };
+
+  /**
+   * Returns the copy previously made for the given source, or copies it with the given function and
+   * remembers the result.
+   */
+  <T, I> I copy(T source, Function<T, I> copier);
+
+  /** @return a cache for a single thread */
+  static CopyCache local() {
+    return new LocalCopyCache();
+  }
+
+  /** @return a cache which can be shared by multiple threads copying the same batch */
+  static CopyCache concurrent() {
+    return new ConcurrentCopyCache();
+  }
+
+  final class LocalCopyCache implements CopyCache {
+    private final Map<Object, Object> copies = new IdentityHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T, I> I copy(final T source, final Function<T, I> copier) {
+      // do not use computeIfAbsent, as copying may recursively copy nested values
+      final Object existing = copies.get(source);
+      if (existing != null) {
+        return (I) existing;
+      }
+
+      final I copy = copier.apply(source);
+      copies.put(source, copy);
+      return copy;
+    }
+  }
+
+  final class ConcurrentCopyCache implements CopyCache {
+    private final Map<IdentityKey, Object> copies = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T, I> I copy(final T source, final Function<T, I> copier) {
+      if (source == null) {
+        return copier.apply(null);
+      }
+
+      // do not use computeIfAbsent, as copying may recursively copy nested values, which the
+      // ConcurrentHashMap does not support; if two threads race to copy the same source, both
+      // copies are equal and only the first one is kept and shared
+      final IdentityKey key = new IdentityKey(source);
+      final Object existing = copies.get(key);
+      if (existing != null) {
+        return (I) existing;
+      }
+
+      final I copy = copier.apply(source);
+      final Object previous = copies.putIfAbsent(key, copy);
+      return previous != null ? (I) previous : copy;
+    }
+  }
+
+  final class IdentityKey {
+    private final Object value;
+
+    private IdentityKey(final Object value) {
+      this.value = value;
+    }
+
+    @Override
+    public int hashCode() {
+      return System.identityHashCode(value);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      return other instanceof IdentityKey && ((IdentityKey) other).value == value;
+    }
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an abstract {@link org.immutables.value.Value.Immutable} type for which a streaming JSON
+ * codec is generated at build time, named after the type without its {@code Abstract} prefix, e.g.
+ * {@code JobRecordValueJsonCodec} for {@code AbstractJobRecordValue}. The codecs read and write
+ * every attribute directly from and to the Jackson parser and generator, without introspection, and
+ * are registered by the generated {@code JsonCodecModule}.
+ *
+ * <p>The attributes of the type must be primitives, strings, enums, byte arrays, maps of strings to
+ * strings or objects, lists of longs or of other types annotated with this, or be typed via an
+ * external type id property, as the value and intent of a record.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.SOURCE)
+public @interface GenerateJsonCodec {
+
+  /**
+   * Whether the generated reader passes every instance it reads through {@link
+   * ResourceCache#intern(Object)}, such that repeated equal values share a single instance.
+   */
+  boolean interned() default false;
+}
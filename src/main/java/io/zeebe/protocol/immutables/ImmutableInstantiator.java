@@ -0,0 +1,403 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import io.camunda.zeebe.protocol.record.value.JobBatchRecordValue;
+import io.camunda.zeebe.protocol.record.value.JobRecordValue;
+import io.camunda.zeebe.protocol.record.value.deployment.DeploymentResource;
+import io.camunda.zeebe.protocol.record.value.deployment.ProcessMetadataValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableDeploymentRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableJobBatchRecordValue;
+import io.zeebe.protocol.immutables.record.value.deployment.ImmutableDeploymentResource;
+import io.zeebe.protocol.immutables.record.value.deployment.ImmutableProcess;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Creates {@code Immutable*} instances for the {@link ImmutableRecordCopier} without going through
+ * the generated builders.
+ *
+ * <p>The builders copy every collection into their own list, and copy it once more when building
+ * the instance; the {@code with*} methods copy it as well. The generated classes also have a
+ * private constructor which takes all attributes as is, which this class calls via a {@link
+ * MethodHandle}, such that the lists built by the copier are owned by the new instance instead of
+ * being copied again. If the constructor cannot be accessed, e.g. because the generated code
+ * changed, the builders are used instead.
+ *
+ * <p>The same goes for the byte arrays of deployment resources and processes, which the getters and
+ * the builders clone: the {@link ResourceCache} reads and passes them as is, such that equal
+ * resources can share a single array.
+ *
+ * <p>Nothing guarantees the order of the parameters of a private constructor, nor the name of a
+ * private field, so every handle is checked once with sample values when this class is initialized,
+ * and dropped if it does not assign them to the expected attributes (see {@link
+ * #verifyConstructor(MethodHandle, Class, Function)}).
+ *
+ * <p>Lists passed to the constructors must be unmodifiable and must not be referenced by anyone
+ * else, see {@link #ownedList(List)}.
+ */
+final class ImmutableInstantiator {
+
+  private static final MethodHandle JOB_BATCH_CONSTRUCTOR =
+      verifyConstructor(
+          findConstructor(
+              ImmutableJobBatchRecordValue.class,
+              String.class,
+              String.class,
+              long.class,
+              int.class,
+              boolean.class,
+              List.class,
+              List.class),
+          ImmutableJobBatchRecordValue.class,
+          value ->
+              new Object[] {
+                value.getType(),
+                value.getWorker(),
+                value.getTimeout(),
+                value.getMaxJobsToActivate(),
+                value.isTruncated(),
+                value.getJobKeys(),
+                value.getJobs()
+              });
+  private static final MethodHandle DEPLOYMENT_CONSTRUCTOR =
+      verifyConstructor(
+          findConstructor(ImmutableDeploymentRecordValue.class, List.class, List.class),
+          ImmutableDeploymentRecordValue.class,
+          value -> new Object[] {value.getResources(), value.getProcessesMetadata()});
+  private static final MethodHandle DEPLOYMENT_RESOURCE_CONSTRUCTOR =
+      verifyConstructor(
+          findConstructor(ImmutableDeploymentResource.class, byte[].class, String.class),
+          ImmutableDeploymentResource.class,
+          value -> new Object[] {value.getResource(), value.getResourceName()});
+  private static final MethodHandle PROCESS_CONSTRUCTOR =
+      verifyConstructor(
+          findConstructor(
+              ImmutableProcess.class,
+              String.class,
+              int.class,
+              long.class,
+              String.class,
+              byte[].class,
+              byte[].class),
+          ImmutableProcess.class,
+          value ->
+              new Object[] {
+                value.getBpmnProcessId(),
+                value.getVersion(),
+                value.getProcessDefinitionKey(),
+                value.getResourceName(),
+                value.getChecksum(),
+                value.getResource()
+              });
+  private static final MethodHandle DEPLOYMENT_RESOURCE_GETTER =
+      verifyBytesGetter(
+          findGetter(ImmutableDeploymentResource.class, "resource", byte[].class),
+          resource ->
+              ImmutableDeploymentResource.builder()
+                  .resource(resource)
+                  .resourceName("resourceName")
+                  .build());
+  private static final MethodHandle PROCESS_RESOURCE_GETTER =
+      verifyBytesGetter(
+          findGetter(ImmutableProcess.class, "resource", byte[].class),
+          resource ->
+              ImmutableProcess.builder()
+                  .bpmnProcessId("bpmnProcessId")
+                  .resourceName("resourceName")
+                  .checksum(new byte[] {1})
+                  .resource(resource)
+                  .build());
+
+  private ImmutableInstantiator() {}
+
+  /** @return true if the private constructors are used, false if falling back to the builders */
+  static boolean isConstructingDirectly() {
+    return JOB_BATCH_CONSTRUCTOR != null && DEPLOYMENT_CONSTRUCTOR != null;
+  }
+
+  /** @return true if resource arrays can be shared, false if they are always cloned */
+  static boolean isSharingResources() {
+    return DEPLOYMENT_RESOURCE_CONSTRUCTOR != null
+        && PROCESS_CONSTRUCTOR != null
+        && DEPLOYMENT_RESOURCE_GETTER != null
+        && PROCESS_RESOURCE_GETTER != null;
+  }
+
+  /**
+   * Wraps the given list, which the caller just built and hands over, the same way the generated
+   * classes wrap their lists. The list must not be modified afterwards.
+   */
+  static <T> List<T> ownedList(final List<T> list) {
+    switch (list.size()) {
+      case 0:
+        return Collections.emptyList();
+      case 1:
+        return Collections.singletonList(list.get(0));
+      default:
+        return Collections.unmodifiableList(list);
+    }
+  }
+
+  /** Returns an unmodifiable copy of the given list, which is owned by someone else. */
+  static <T> List<T> copiedList(final List<T> list) {
+    return list.size() <= 1 ? ownedList(list) : ownedList(new ArrayList<>(list));
+  }
+
+  /**
+   * Returns a job batch with the scalar attributes of the given value, and the given unmodifiable
+   * lists.
+   */
+  static ImmutableJobBatchRecordValue newJobBatchRecordValue(
+      final JobBatchRecordValue value, final List<Long> jobKeys, final List<JobRecordValue> jobs) {
+    if (JOB_BATCH_CONSTRUCTOR == null) {
+      return ImmutableJobBatchRecordValue.builder().from(value).jobKeys(jobKeys).jobs(jobs).build();
+    }
+
+    try {
+      return (ImmutableJobBatchRecordValue)
+          JOB_BATCH_CONSTRUCTOR.invokeExact(
+              value.getType(),
+              value.getWorker(),
+              value.getTimeout(),
+              value.getMaxJobsToActivate(),
+              value.isTruncated(),
+              jobKeys,
+              jobs);
+    } catch (final RuntimeException | Error e) {
+      throw e;
+    } catch (final Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /** Returns a deployment with the given unmodifiable lists. */
+  static ImmutableDeploymentRecordValue newDeploymentRecordValue(
+      final List<DeploymentResource> resources,
+      final List<ProcessMetadataValue> processesMetadata) {
+    if (DEPLOYMENT_CONSTRUCTOR == null) {
+      return ImmutableDeploymentRecordValue.builder()
+          .resources(resources)
+          .processesMetadata(processesMetadata)
+          .build();
+    }
+
+    try {
+      return (ImmutableDeploymentRecordValue)
+          DEPLOYMENT_CONSTRUCTOR.invokeExact(resources, processesMetadata);
+    } catch (final RuntimeException | Error e) {
+      throw e;
+    } catch (final Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns the array held by the given resource, without cloning it; it must not be modified. Only
+   * call this if {@link #isSharingResources()}.
+   */
+  static byte[] resourceOf(final ImmutableDeploymentResource value) {
+    try {
+      return (byte[]) DEPLOYMENT_RESOURCE_GETTER.invokeExact(value);
+    } catch (final RuntimeException | Error e) {
+      throw e;
+    } catch (final Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns the resource array held by the given process, without cloning it; it must not be
+   * modified. Only call this if {@link #isSharingResources()}.
+   */
+  static byte[] resourceOf(final ImmutableProcess value) {
+    try {
+      return (byte[]) PROCESS_RESOURCE_GETTER.invokeExact(value);
+    } catch (final RuntimeException | Error e) {
+      throw e;
+    } catch (final Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns a resource which holds the given array as is. Only call this if {@link
+   * #isSharingResources()}.
+   */
+  static ImmutableDeploymentResource newDeploymentResource(
+      final byte[] resource, final String resourceName) {
+    try {
+      return (ImmutableDeploymentResource)
+          DEPLOYMENT_RESOURCE_CONSTRUCTOR.invokeExact(resource, resourceName);
+    } catch (final RuntimeException | Error e) {
+      throw e;
+    } catch (final Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns a copy of the given process which holds the given resource array as is. Only call this
+   * if {@link #isSharingResources()}.
+   */
+  static ImmutableProcess newProcess(final ImmutableProcess value, final byte[] resource) {
+    try {
+      return (ImmutableProcess)
+          PROCESS_CONSTRUCTOR.invokeExact(
+              value.getBpmnProcessId(),
+              value.getVersion(),
+              value.getProcessDefinitionKey(),
+              value.getResourceName(),
+              value.getChecksum(),
+              resource);
+    } catch (final RuntimeException | Error e) {
+      throw e;
+    } catch (final Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns the given constructor if it takes the attributes in the order in which the given
+   * function returns them, or null otherwise, e.g. if it was not found.
+   *
+   * <p>Nothing guarantees the order of the parameters of a private constructor, and a constructor
+   * which takes two attributes of the same type the other way around would silently swap them. This
+   * constructs samples with a distinct value per parameter, and checks that the function returns
+   * each of them in the same position.
+   *
+   * @param attributes returns the attributes of an instance, in the order of the constructor
+   */
+  static <T> MethodHandle verifyConstructor(
+      final MethodHandle constructor, final Class<T> type, final Function<T, Object[]> attributes) {
+    if (constructor == null) {
+      return null;
+    }
+
+    final Class<?>[] parameterTypes = constructor.type().parameterArray();
+    int booleanCount = 0;
+    for (final Class<?> parameterType : parameterTypes) {
+      if (parameterType == boolean.class) {
+        booleanCount++;
+      }
+    }
+
+    // booleans only have two values, so each round sets another one of them
+    for (int round = 0; round < Math.max(1, booleanCount); round++) {
+      final Object[] sample = new Object[parameterTypes.length];
+      int booleanIndex = 0;
+      for (int i = 0; i < parameterTypes.length; i++) {
+        final Class<?> parameterType = parameterTypes[i];
+        if (parameterType == boolean.class) {
+          sample[i] = booleanIndex++ == round;
+        } else {
+          sample[i] = sampleValue(parameterType, i, parameterTypes);
+          if (sample[i] == null) {
+            return null;
+          }
+        }
+      }
+
+      try {
+        final Object[] actual =
+            attributes.apply(type.cast(constructor.invokeWithArguments(sample)));
+        if (!Arrays.deepEquals(sample, actual)) {
+          return null;
+        }
+      } catch (final Throwable e) {
+        return null;
+      }
+    }
+
+    return constructor;
+  }
+
+  /**
+   * Returns the given getter of a byte array field if it reads the array of an instance created by
+   * the given function, or null otherwise.
+   */
+  static MethodHandle verifyBytesGetter(
+      final MethodHandle getter, final Function<byte[], Object> instantiate) {
+    if (getter == null) {
+      return null;
+    }
+
+    final byte[] sample = "sample".getBytes(StandardCharsets.UTF_8);
+    try {
+      return Arrays.equals(sample, (byte[]) getter.invoke(instantiate.apply(sample)))
+          ? getter
+          : null;
+    } catch (final Throwable e) {
+      return null;
+    }
+  }
+
+  static MethodHandle findConstructor(final Class<?> type, final Class<?>... parameterTypes) {
+    try {
+      return MethodHandles.privateLookupIn(type, MethodHandles.lookup())
+          .findConstructor(type, MethodType.methodType(void.class, parameterTypes));
+    } catch (final ReflectiveOperationException | SecurityException e) {
+      return null;
+    }
+  }
+
+  static MethodHandle findGetter(final Class<?> type, final String name, final Class<?> fieldType) {
+    try {
+      return MethodHandles.privateLookupIn(type, MethodHandles.lookup())
+          .findGetter(type, name, fieldType);
+    } catch (final ReflectiveOperationException | SecurityException e) {
+      return null;
+    }
+  }
+
+  /** @return a value of the given type which no other parameter gets, or null if unsupported */
+  private static Object sampleValue(
+      final Class<?> type, final int index, final Class<?>[] parameterTypes) {
+    final String text = "attribute" + index;
+    if (type == int.class) {
+      return index + 1;
+    } else if (type == long.class) {
+      return index + 1L;
+    } else if (type == String.class) {
+      return text;
+    } else if (type == byte[].class) {
+      return text.getBytes(StandardCharsets.UTF_8);
+    } else if (type == Map.class) {
+      return Map.of(text, text);
+    } else if (type == List.class) {
+      return List.of(text);
+    } else if (type.isEnum()) {
+      // take the next constant for each parameter of the same enum type
+      int occurrence = 0;
+      for (int i = 0; i < index; i++) {
+        occurrence += parameterTypes[i] == type ? 1 : 0;
+      }
+
+      final Object[] constants = type.getEnumConstants();
+      return constants.length > occurrence ? constants[occurrence] : null;
+    }
+
+    return null;
+  }
+}
@@ -18,50 +18,34 @@ package io.zeebe.protocol.immutables;
 import io.camunda.zeebe.protocol.record.Record;
 import io.camunda.zeebe.protocol.record.RecordValue;
 import io.camunda.zeebe.protocol.record.ValueType;
-import io.camunda.zeebe.protocol.record.value.DeploymentDistributionRecordValue;
 import io.camunda.zeebe.protocol.record.value.DeploymentRecordValue;
-import io.camunda.zeebe.protocol.record.value.ErrorRecordValue;
-import io.camunda.zeebe.protocol.record.value.IncidentRecordValue;
 import io.camunda.zeebe.protocol.record.value.JobBatchRecordValue;
 import io.camunda.zeebe.protocol.record.value.JobRecordValue;
-import io.camunda.zeebe.protocol.record.value.MessageRecordValue;
-import io.camunda.zeebe.protocol.record.value.MessageStartEventSubscriptionRecordValue;
-import io.camunda.zeebe.protocol.record.value.MessageSubscriptionRecordValue;
-import io.camunda.zeebe.protocol.record.value.ProcessEventRecordValue;
-import io.camunda.zeebe.protocol.record.value.ProcessInstanceCreationRecordValue;
-import io.camunda.zeebe.protocol.record.value.ProcessInstanceRecordValue;
-import io.camunda.zeebe.protocol.record.value.ProcessInstanceResultRecordValue;
-import io.camunda.zeebe.protocol.record.value.ProcessMessageSubscriptionRecordValue;
-import io.camunda.zeebe.protocol.record.value.TimerRecordValue;
-import io.camunda.zeebe.protocol.record.value.VariableDocumentRecordValue;
-import io.camunda.zeebe.protocol.record.value.VariableRecordValue;
 import io.camunda.zeebe.protocol.record.value.deployment.DeploymentResource;
-import io.camunda.zeebe.protocol.record.value.deployment.Process;
 import io.camunda.zeebe.protocol.record.value.deployment.ProcessMetadataValue;
-import io.zeebe.protocol.immutables.record.value.ImmutableDeploymentDistributionRecordValue;
+import io.zeebe.protocol.immutables.jfr.RecordCopyEvent;
+import io.zeebe.protocol.immutables.jfr.RecordEvents;
+import io.zeebe.protocol.immutables.metrics.RecordMetrics;
+import io.zeebe.protocol.immutables.metrics.RecordMetricsListener;
+import io.zeebe.protocol.immutables.metrics.RecordOperation;
 import io.zeebe.protocol.immutables.record.value.ImmutableDeploymentRecordValue;
-import io.zeebe.protocol.immutables.record.value.ImmutableErrorRecordValue;
-import io.zeebe.protocol.immutables.record.value.ImmutableIncidentRecordValue;
 import io.zeebe.protocol.immutables.record.value.ImmutableJobBatchRecordValue;
 import io.zeebe.protocol.immutables.record.value.ImmutableJobRecordValue;
-import io.zeebe.protocol.immutables.record.value.ImmutableMessageRecordValue;
-import io.zeebe.protocol.immutables.record.value.ImmutableMessageStartEventSubscriptionRecordValue;
-import io.zeebe.protocol.immutables.record.value.ImmutableMessageSubscriptionRecordValue;
-import io.zeebe.protocol.immutables.record.value.ImmutableProcessEventRecordValue;
-import io.zeebe.protocol.immutables.record.value.ImmutableProcessInstanceCreationRecordValue;
-import io.zeebe.protocol.immutables.record.value.ImmutableProcessInstanceRecordValue;
-import io.zeebe.protocol.immutables.record.value.ImmutableProcessInstanceResultRecordValue;
-import io.zeebe.protocol.immutables.record.value.ImmutableProcessMessageSubscriptionRecordValue;
 import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
 import io.zeebe.protocol.immutables.record.value.ImmutableRecord.Builder;
-import io.zeebe.protocol.immutables.record.value.ImmutableTimerRecordValue;
-import io.zeebe.protocol.immutables.record.value.ImmutableVariableDocumentRecordValue;
-import io.zeebe.protocol.immutables.record.value.ImmutableVariableRecordValue;
 import io.zeebe.protocol.immutables.record.value.deployment.ImmutableDeploymentResource;
-import io.zeebe.protocol.immutables.record.value.deployment.ImmutableProcess;
 import io.zeebe.protocol.immutables.record.value.deployment.ImmutableProcessMetadata;
+import io.zeebe.protocol.immutables.record.value.deployment.OffHeapDeploymentResource;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 
 /**
  * Utility class to perform deep copy of any {@link Record} implementation to an equivalent {@link
@@ -73,145 +57,341 @@ import java.util.List;
  *
  * <p>If you want to perform deep copies, for example to compare two implementations, you can use
  * the methods below.
+ *
+ * <p>Parts of the given graph which are already immutable are reused as is, and only the mutable
+ * parts are copied. In particular, copying a record which is already a fully immutable graph (e.g.
+ * the result of a previous copy) returns the same instance, without allocating anything. Lists
+ * built while copying job batches and deployments are handed over to the copies, instead of being
+ * copied once more by the generated builders.
  */
 public final class ImmutableRecordCopier {
 
+  /**
+   * Number of records copied by a single task when copying in parallel; small enough to spread
+   * heavy records (e.g. large job batches or deployments) across cores, large enough to amortize
+   * the cost of scheduling a task for the small ones.
+   */
+  private static final int PARALLEL_CHUNK_SIZE = 64;
+
   private ImmutableRecordCopier() {}
 
-  @SuppressWarnings("unchecked")
   public static <T extends RecordValue, U extends T> ImmutableRecord<U> deepCopyOfRecord(
       final Record<T> record) {
-    final U value = (U) deepCopyOfRecordValue(record.getValueType(), record.getValue());
+    return deepCopyOfRecord(record, CopyCache.NONE);
+  }
+
+  /**
+   * Copies the given records one after the other on the calling thread, see {@link
+   * #deepCopyOfRecord(Record)}. The copies are returned in the same order as the given records.
+   *
+   * <p>Any object which is referenced more than once within the batch (e.g. the same mutable job
+   * within multiple job batches) is only copied once, and all copies share it.
+   */
+  public static <T extends RecordValue> List<ImmutableRecord<T>> deepCopyOfRecords(
+      final Iterable<? extends Record<T>> records) {
+    final CopyCache cache = CopyCache.local();
+    final List<ImmutableRecord<T>> copies =
+        records instanceof Collection
+            ? new ArrayList<>(((Collection<?>) records).size())
+            : new ArrayList<>();
+    for (final Record<T> record : records) {
+      copies.add(deepCopyOfBatchedRecord(record, cache));
+    }
+
+    return copies;
+  }
+
+  /**
+   * Same as {@link #deepCopyOfRecords(Iterable, Executor)}, using the {@link
+   * ForkJoinPool#commonPool()}.
+   */
+  public static <T extends RecordValue> List<ImmutableRecord<T>> deepCopyOfRecordsInParallel(
+      final Iterable<? extends Record<T>> records) {
+    return deepCopyOfRecords(records, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Copies the given records in parallel, by splitting them in chunks which are copied on the given
+   * executor, and blocks until all chunks have been copied. Batches which are too small to be worth
+   * splitting are copied on the calling thread. The copies are returned in the same order as the
+   * given records, and objects referenced more than once within the batch are shared just like with
+   * {@link #deepCopyOfRecords(Iterable)}.
+   *
+   * <p>If copying any record fails, the exception is rethrown on the calling thread once all chunks
+   * are done.
+   */
+  @SuppressWarnings("unchecked")
+  public static <T extends RecordValue> List<ImmutableRecord<T>> deepCopyOfRecords(
+      final Iterable<? extends Record<T>> records, final Executor executor) {
+    final List<? extends Record<T>> batch = asList(records);
+    if (batch.size() <= PARALLEL_CHUNK_SIZE) {
+      return deepCopyOfRecords(batch);
+    }
+
+    final CopyCache cache = CopyCache.concurrent();
+    final Object[] copies = new Object[batch.size()];
+    final List<CompletableFuture<Void>> chunks = new ArrayList<>();
+    for (int start = 0; start < batch.size(); start += PARALLEL_CHUNK_SIZE) {
+      final int from = start;
+      final int to = Math.min(start + PARALLEL_CHUNK_SIZE, batch.size());
+      chunks.add(
+          CompletableFuture.runAsync(
+              () -> {
+                for (int i = from; i < to; i++) {
+                  copies[i] = deepCopyOfBatchedRecord(batch.get(i), cache);
+                }
+              },
+              executor));
+    }
+
+    try {
+      CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).join();
+    } catch (final CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+
+      throw e;
+    }
+
+    return (List<ImmutableRecord<T>>) (List<?>) Arrays.asList(copies);
+  }
+
+  private static <T extends RecordValue, U extends T> ImmutableRecord<U> deepCopyOfRecord(
+      final Record<T> record, final CopyCache cache) {
+    final RecordMetricsListener listener = RecordMetrics.getListener();
+    final RecordCopyEvent event =
+        RecordEvents.isRecording() ? RecordCopyEvent.beginIfEnabled() : null;
+    if (listener == RecordMetricsListener.NONE && event == null) {
+      return copyRecord(record, cache);
+    }
+
+    final long start = System.nanoTime();
+    final ImmutableRecord<U> copy = copyRecord(record, cache);
+    listener.onRecord(
+        RecordOperation.COPY,
+        record.getValueType(),
+        record.getIntent(),
+        System.nanoTime() - start,
+        0);
+    if (event != null) {
+      event.complete(copy);
+    }
+
+    return copy;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T extends RecordValue, U extends T> ImmutableRecord<U> copyRecord(
+      final Record<T> record, final CopyCache cache) {
+    final U value = (U) deepCopyOfRecordValue(record.getValueType(), record.getValue(), cache);
+    return copyOfRecordWithValue(record, value);
+  }
+
+  /**
+   * Returns an immutable copy of the given record whose value is replaced by the given one, which
+   * must already be immutable; the value of the given record itself is not copied.
+   */
+  @SuppressWarnings("unchecked")
+  static <T extends RecordValue, U extends T> ImmutableRecord<U> copyOfRecordWithValue(
+      final Record<T> record, final U value) {
+    if (record instanceof ImmutableRecord) {
+      // withValue returns the same instance if the value was already immutable
+      return ((ImmutableRecord<U>) record).withValue(value);
+    }
+
     final Builder<T> originalBuilder = ImmutableRecord.<T>builder().from(record);
     final Builder<U> convertedBuilder = (Builder<U>) originalBuilder;
 
     return convertedBuilder.value(value).build();
   }
 
-  // allow  high cyclomatic complexity due to large switch case which is still easy to reason about
-  @SuppressWarnings({"unchecked", "java:S138", "java:S1541"})
   public static <T extends RecordValue, U extends T> T deepCopyOfRecordValue(
       final ValueType type, final T value) {
-    switch (type) {
-      case JOB:
-        return (U) ImmutableJobRecordValue.builder().from((JobRecordValue) value).build();
-      case DEPLOYMENT:
-        return (U) deepCopyOfDeploymentRecordValue((DeploymentRecordValue) value);
-      case PROCESS_INSTANCE:
-        return (U)
-            ImmutableProcessInstanceRecordValue.builder()
-                .from((ProcessInstanceRecordValue) value)
-                .build();
-      case INCIDENT:
-        return (U) ImmutableIncidentRecordValue.builder().from((IncidentRecordValue) value).build();
-      case MESSAGE:
-        return (U) ImmutableMessageRecordValue.builder().from((MessageRecordValue) value).build();
-      case MESSAGE_SUBSCRIPTION:
-        return (U)
-            ImmutableMessageSubscriptionRecordValue.builder()
-                .from((MessageSubscriptionRecordValue) value)
-                .build();
-      case PROCESS_MESSAGE_SUBSCRIPTION:
-        return (U)
-            ImmutableProcessMessageSubscriptionRecordValue.builder()
-                .from((ProcessMessageSubscriptionRecordValue) value)
-                .build();
-      case JOB_BATCH:
-        return (U) deepCopyOfJobBatchRecordValue((JobBatchRecordValue) value);
-      case TIMER:
-        return (U) ImmutableTimerRecordValue.builder().from((TimerRecordValue) value).build();
-      case MESSAGE_START_EVENT_SUBSCRIPTION:
-        return (U)
-            ImmutableMessageStartEventSubscriptionRecordValue.builder()
-                .from((MessageStartEventSubscriptionRecordValue) value)
-                .build();
-      case VARIABLE:
-        return (U) ImmutableVariableRecordValue.builder().from((VariableRecordValue) value).build();
-      case VARIABLE_DOCUMENT:
-        return (U)
-            ImmutableVariableDocumentRecordValue.builder()
-                .from((VariableDocumentRecordValue) value)
-                .build();
-      case PROCESS_INSTANCE_CREATION:
-        return (U)
-            ImmutableProcessInstanceCreationRecordValue.builder()
-                .from((ProcessInstanceCreationRecordValue) value)
-                .build();
-      case ERROR:
-        return (U) ImmutableErrorRecordValue.builder().from((ErrorRecordValue) value).build();
-      case PROCESS_INSTANCE_RESULT:
-        return (U)
-            ImmutableProcessInstanceResultRecordValue.builder()
-                .from((ProcessInstanceResultRecordValue) value)
-                .build();
-      case PROCESS:
-        return (U) ImmutableProcess.builder().from((Process) value).build();
-      case DEPLOYMENT_DISTRIBUTION:
-        return (U)
-            ImmutableDeploymentDistributionRecordValue.builder()
-                .from((DeploymentDistributionRecordValue) value)
-                .build();
-      case PROCESS_EVENT:
-        return (U)
-            ImmutableProcessEventRecordValue.builder()
-                .from((ProcessEventRecordValue) value)
-                .build();
-      case SBE_UNKNOWN:
-      case NULL_VAL:
-      default:
-        throw new IllegalArgumentException("Unknown value type " + type);
-    }
-  }
-
-  private static ImmutableDeploymentRecordValue deepCopyOfDeploymentRecordValue(
-      final DeploymentRecordValue value) {
-    final List<ProcessMetadataValue> processes = new ArrayList<>();
-    final List<DeploymentResource> resources = new ArrayList<>();
-
-    for (final ProcessMetadataValue process : value.getProcessesMetadata()) {
-      final ImmutableProcessMetadata immutableProcess;
-      if (process instanceof ImmutableProcessMetadata) {
-        immutableProcess = (ImmutableProcessMetadata) process;
-      } else {
-        immutableProcess = ImmutableProcessMetadata.builder().from(process).build();
-      }
+    final RecordCopyEvent event =
+        RecordEvents.isRecording() ? RecordCopyEvent.beginIfEnabled() : null;
+    final T copy = deepCopyOfRecordValue(type, value, CopyCache.NONE);
+    if (event != null) {
+      event.complete(type, copy);
+    }
 
-      processes.add(immutableProcess);
+    return copy;
+  }
+
+  private static <T extends RecordValue> ImmutableRecord<T> deepCopyOfBatchedRecord(
+      final Record<T> record, final CopyCache cache) {
+    if (record instanceof ImmutableRecord) {
+      return deepCopyOfRecord(record, cache);
     }
 
-    for (final DeploymentResource resource : value.getResources()) {
-      final ImmutableDeploymentResource immutableResource;
-      if (resource instanceof ImmutableDeploymentResource) {
-        immutableResource = (ImmutableDeploymentResource) resource;
-      } else {
-        immutableResource = ImmutableDeploymentResource.builder().from(resource).build();
+    return cache.copy(record, r -> deepCopyOfRecord(r, cache));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> List<T> asList(final Iterable<T> values) {
+    if (values instanceof List && values instanceof RandomAccess) {
+      return (List<T>) values;
+    }
+
+    final List<T> list = new ArrayList<>();
+    values.forEach(list::add);
+    return list;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T extends RecordValue, U extends T> T deepCopyOfRecordValue(
+      final ValueType type, final T value, final CopyCache cache) {
+    return (U) ValueTypeMapping.of(type).copy(value, cache);
+  }
+
+  static ImmutableDeploymentRecordValue deepCopyOfDeploymentRecordValue(
+      final DeploymentRecordValue value, final CopyCache cache) {
+    if (!(value instanceof ImmutableDeploymentRecordValue)) {
+      return ImmutableInstantiator.newDeploymentRecordValue(
+          copyResources(value.getResources(), cache),
+          copyProcessesMetadata(value.getProcessesMetadata(), cache));
+    }
+
+    // the lists of an immutable value are unmodifiable, so they can be shared as long as their
+    // elements are immutable as well
+    final boolean immutableResources =
+        areAllInstancesOf(
+            value.getResources(),
+            ImmutableDeploymentResource.class,
+            OffHeapDeploymentResource.class);
+    final boolean immutableProcesses =
+        areAllInstancesOf(value.getProcessesMetadata(), ImmutableProcessMetadata.class);
+    if (immutableResources && immutableProcesses) {
+      return (ImmutableDeploymentRecordValue) value;
+    }
+
+    return ImmutableInstantiator.newDeploymentRecordValue(
+        immutableResources ? value.getResources() : copyResources(value.getResources(), cache),
+        immutableProcesses
+            ? value.getProcessesMetadata()
+            : copyProcessesMetadata(value.getProcessesMetadata(), cache));
+  }
+
+  private static List<DeploymentResource> copyResources(
+      final List<DeploymentResource> resources, final CopyCache cache) {
+    final List<DeploymentResource> copies = new ArrayList<>(resources.size());
+    for (final DeploymentResource resource : resources) {
+      if (resource instanceof OffHeapDeploymentResource) {
+        copies.add(resource);
+        continue;
       }
 
-      resources.add(immutableResource);
+      copies.add(
+          copyIfMutable(
+              resource,
+              ImmutableDeploymentResource.class,
+              r ->
+                  ResourceCache.getDefault()
+                      .intern(ImmutableDeploymentResource.builder().from(r).build()),
+              cache));
     }
 
-    return ImmutableDeploymentRecordValue.builder()
-        .from(value)
-        .resources(resources)
-        .processesMetadata(processes)
-        .build();
+    return ImmutableInstantiator.ownedList(copies);
   }
 
-  private static ImmutableJobBatchRecordValue deepCopyOfJobBatchRecordValue(
-      final JobBatchRecordValue value) {
-    final List<JobRecordValue> jobs = new ArrayList<>();
+  private static List<ProcessMetadataValue> copyProcessesMetadata(
+      final List<ProcessMetadataValue> processes, final CopyCache cache) {
+    final List<ProcessMetadataValue> copies = new ArrayList<>(processes.size());
+    for (final ProcessMetadataValue process : processes) {
+      copies.add(
+          copyIfMutable(
+              process,
+              ImmutableProcessMetadata.class,
+              p ->
+                  ResourceCache.getDefault()
+                      .intern(ImmutableProcessMetadata.builder().from(p).build()),
+              cache));
+    }
+
+    return ImmutableInstantiator.ownedList(copies);
+  }
+
+  static ImmutableJobBatchRecordValue deepCopyOfJobBatchRecordValue(
+      final JobBatchRecordValue value, final CopyCache cache) {
+    if (!(value instanceof ImmutableJobBatchRecordValue)) {
+      return ImmutableInstantiator.newJobBatchRecordValue(
+          value,
+          ImmutableInstantiator.copiedList(value.getJobKeys()),
+          copyJobs(value.getJobs(), cache));
+    }
 
-    for (final JobRecordValue job : value.getJobs()) {
-      final ImmutableJobRecordValue immutableJob;
-      if (job instanceof ImmutableJobRecordValue) {
-        immutableJob = (ImmutableJobRecordValue) job;
-      } else {
-        immutableJob = ImmutableJobRecordValue.builder().from(job).build();
+    if (areAllInstancesOf(value.getJobs(), ImmutableJobRecordValue.class)) {
+      return (ImmutableJobBatchRecordValue) value;
+    }
+
+    return ImmutableInstantiator.newJobBatchRecordValue(
+        value, value.getJobKeys(), copyJobs(value.getJobs(), cache));
+  }
+
+  private static List<JobRecordValue> copyJobs(
+      final List<JobRecordValue> jobs, final CopyCache cache) {
+    final List<JobRecordValue> copies = new ArrayList<>(jobs.size());
+    for (final JobRecordValue job : jobs) {
+      copies.add(deepCopyOfJobRecordValue(job, cache));
+    }
+
+    return ImmutableInstantiator.ownedList(copies);
+  }
+
+  static ImmutableJobRecordValue deepCopyOfJobRecordValue(
+      final JobRecordValue value, final CopyCache cache) {
+    return copyIfMutable(
+        value,
+        ImmutableJobRecordValue.class,
+        v -> ImmutableJobRecordValue.builder().from(v).build(),
+        cache);
+  }
+
+  /**
+   * Returns the given value as is if it is already of the given immutable type, otherwise returns
+   * an immutable copy of it. The generated {@code Immutable*} types only ever hold immutable
+   * collections and clone their arrays, so they are safe to share as long as they don't contain
+   * nested values which can be mutable themselves; those are handled separately.
+   */
+  static <T, I extends T> I copyIfMutable(
+      final T value,
+      final Class<I> immutableType,
+      final Function<T, I> copier,
+      final CopyCache cache) {
+    if (immutableType.isInstance(value)) {
+      return immutableType.cast(value);
+    }
+
+    return cache.copy(value, copier);
+  }
+
+  private static boolean areAllInstancesOf(final List<?> values, final Class<?> type) {
+    return areAllInstancesOf(values, type, type);
+  }
+
+  private static boolean areAllInstancesOf(
+      final List<?> values, final Class<?> type, final Class<?> otherType) {
+    // avoid allocating an iterator on the hot path, as generated lists are always random access
+    if (values instanceof RandomAccess) {
+      for (int i = 0; i < values.size(); i++) {
+        final Object value = values.get(i);
+        if (!type.isInstance(value) && !otherType.isInstance(value)) {
+          return false;
+        }
       }
 
-      jobs.add(immutableJob);
+      return true;
+    }
+
+    for (final Object value : values) {
+      if (!type.isInstance(value) && !otherType.isInstance(value)) {
+        return false;
+      }
     }
 
-    return ImmutableJobBatchRecordValue.builder().from(value).jobs(jobs).build();
+    return true;
   }
 }
@@ -0,0 +1,457 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.Function;
+
+/**
+ * Shared reading and writing logic of the codecs generated for the types annotated with {@link
+ * GenerateJsonCodec}. Not meant to be used directly.
+ *
+ * <p>The read methods handle the tokens produced by the codecs themselves directly, and delegate
+ * anything else to the {@link DeserializationContext}, such that scalar values are coerced the same
+ * way as by the default Jackson deserializers, e.g. a number given as a string.
+ */
+public final class JsonCodecs {
+
+  /** Deserialization features which change the types of untyped values, see {@link LazyJsonMap} */
+  private static final int UNTYPED_VALUE_FEATURES =
+      DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS.getMask()
+          | DeserializationFeature.USE_BIG_INTEGER_FOR_INTS.getMask()
+          | DeserializationFeature.USE_LONG_FOR_INTS.getMask()
+          | DeserializationFeature.USE_JAVA_ARRAY_FOR_JSON_ARRAY.getMask();
+
+  private JsonCodecs() {}
+
+  /**
+   * Returns a handle to the private constructor of a generated {@code Immutable*} class which takes
+   * all attributes as is, or null if it cannot be accessed.
+   */
+  public static MethodHandle findConstructor(
+      final Class<?> type, final Class<?>... parameterTypes) {
+    return ImmutableInstantiator.findConstructor(type, parameterTypes);
+  }
+
+  /**
+   * Returns the given constructor if it takes the attributes in the order in which the given
+   * function returns them, or null otherwise; see {@link
+   * ImmutableInstantiator#verifyConstructor(MethodHandle, Class, Function)}.
+   */
+  public static <T> MethodHandle verifyConstructor(
+      final MethodHandle constructor, final Class<T> type, final Function<T, Object[]> attributes) {
+    return ImmutableInstantiator.verifyConstructor(constructor, type, attributes);
+  }
+
+  /**
+   * Returns a handle to a private byte array field of a generated {@code Immutable*} class, whose
+   * getter returns a copy, or null if it cannot be accessed.
+   */
+  public static MethodHandle findBytesField(final Class<?> type, final String name) {
+    return ImmutableInstantiator.findGetter(type, name, byte[].class);
+  }
+
+  /**
+   * Returns the array held by the given instance, without copying it; it must not be modified.
+   *
+   * @param field the handle returned by {@link #findBytesField} for the class of the instance
+   */
+  public static byte[] readBytesField(final MethodHandle field, final Object instance) {
+    try {
+      return (byte[]) field.invoke(instance);
+    } catch (final RuntimeException | Error e) {
+      throw e;
+    } catch (final Throwable e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public static void writeEnum(
+      final JsonGenerator generator, final Enum<?> value, final SerializerProvider provider)
+      throws IOException {
+    if (value == null) {
+      generator.writeNull();
+    } else if (provider.isEnabled(SerializationFeature.WRITE_ENUMS_USING_INDEX)) {
+      generator.writeNumber(value.ordinal());
+    } else if (provider.isEnabled(SerializationFeature.WRITE_ENUMS_USING_TO_STRING)) {
+      generator.writeString(value.toString());
+    } else {
+      generator.writeString(value.name());
+    }
+  }
+
+  public static void writeBytes(
+      final JsonGenerator generator, final byte[] value, final SerializerProvider provider)
+      throws IOException {
+    if (value == null) {
+      generator.writeNull();
+    } else {
+      generator.writeBinary(provider.getConfig().getBase64Variant(), value, 0, value.length);
+    }
+  }
+
+  /**
+   * Writes the byte array attribute of the given name from the buffer of a {@link BufferedBytes}
+   * value, and returns false if the value keeps it in an array instead, which is then to be written
+   * with {@link #writeBytes(JsonGenerator, byte[], SerializerProvider)}.
+   */
+  public static boolean writeBufferedBytes(
+      final JsonGenerator generator,
+      final Object value,
+      final String attribute,
+      final SerializerProvider provider)
+      throws IOException {
+    if (!(value instanceof BufferedBytes)) {
+      return false;
+    }
+
+    final ByteBuffer buffer = ((BufferedBytes) value).getBytesBuffer(attribute);
+    if (buffer == null) {
+      return false;
+    }
+
+    final int length = buffer.remaining();
+    if (buffer.hasArray()) {
+      generator.writeBinary(
+          provider.getConfig().getBase64Variant(),
+          buffer.array(),
+          buffer.arrayOffset() + buffer.position(),
+          length);
+    } else {
+      generator.writeBinary(
+          provider.getConfig().getBase64Variant(), new ByteBufferInputStream(buffer), length);
+    }
+
+    return true;
+  }
+
+  public static void writeStringMap(final JsonGenerator generator, final Map<String, String> map)
+      throws IOException {
+    if (map == null) {
+      generator.writeNull();
+      return;
+    }
+
+    generator.writeStartObject(map);
+    for (final Map.Entry<String, String> entry : map.entrySet()) {
+      generator.writeFieldName(entry.getKey());
+      generator.writeString(entry.getValue());
+    }
+    generator.writeEndObject();
+  }
+
+  public static void writeObjectMap(
+      final JsonGenerator generator, final Map<String, ?> map, final SerializerProvider provider)
+      throws IOException {
+    if (map == null) {
+      generator.writeNull();
+      return;
+    }
+
+    if (map instanceof LazyJsonMap) {
+      ((LazyJsonMap) map).writeTo(generator, provider);
+      return;
+    }
+
+    generator.writeStartObject(map);
+    for (final Map.Entry<String, ?> entry : map.entrySet()) {
+      generator.writeFieldName(entry.getKey());
+
+      final Object value = entry.getValue();
+      if (value instanceof String) {
+        generator.writeString((String) value);
+      } else {
+        provider.defaultSerializeValue(value, generator);
+      }
+    }
+    generator.writeEndObject();
+  }
+
+  public static void writeLongList(final JsonGenerator generator, final List<Long> list)
+      throws IOException {
+    if (list == null) {
+      generator.writeNull();
+      return;
+    }
+
+    generator.writeStartArray(list, list.size());
+    if (list instanceof RandomAccess) {
+      for (int i = 0; i < list.size(); i++) {
+        writeLong(generator, list.get(i));
+      }
+    } else {
+      for (final Long element : list) {
+        writeLong(generator, element);
+      }
+    }
+    generator.writeEndArray();
+  }
+
+  private static void writeLong(final JsonGenerator generator, final Long value)
+      throws IOException {
+    if (value == null) {
+      generator.writeNull();
+    } else {
+      generator.writeNumber(value);
+    }
+  }
+
+  /** Writes a value whose type is only known at runtime, e.g. the value of a record. */
+  public static void writeTyped(
+      final JsonGenerator generator, final Object value, final SerializerProvider provider)
+      throws IOException {
+    if (value instanceof Enum) {
+      writeEnum(generator, (Enum<?>) value, provider);
+    } else {
+      provider.defaultSerializeValue(value, generator);
+    }
+  }
+
+  /**
+   * Moves the parser from the start of an object to its first field.
+   *
+   * @return the first {@link JsonToken#FIELD_NAME}, or {@link JsonToken#END_OBJECT} if the object
+   *     is empty
+   */
+  public static JsonToken startFields(
+      final JsonParser parser, final DeserializationContext context, final Class<?> type)
+      throws IOException {
+    final JsonToken token = parser.currentToken();
+    if (token == JsonToken.START_OBJECT) {
+      return parser.nextToken();
+    }
+
+    if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+      context.reportWrongTokenException(type, JsonToken.START_OBJECT, null);
+    }
+
+    return token;
+  }
+
+  /**
+   * @return true if the parser is at the start of an object, false if it is at null, which is
+   *     treated as an absent attribute
+   */
+  public static boolean startObject(
+      final JsonParser parser, final DeserializationContext context, final Class<?> type)
+      throws IOException {
+    return start(parser, context, type, JsonToken.START_OBJECT);
+  }
+
+  /**
+   * @return true if the parser is at the start of an array, false if it is at null, which is
+   *     treated as an absent attribute
+   */
+  public static boolean startArray(
+      final JsonParser parser, final DeserializationContext context, final Class<?> type)
+      throws IOException {
+    return start(parser, context, type, JsonToken.START_ARRAY);
+  }
+
+  public static boolean readBoolean(final JsonParser parser, final DeserializationContext context)
+      throws IOException {
+    final JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_TRUE) {
+      return true;
+    }
+
+    if (token == JsonToken.VALUE_FALSE) {
+      return false;
+    }
+
+    return context.readValue(parser, Boolean.TYPE);
+  }
+
+  public static int readInt(final JsonParser parser, final DeserializationContext context)
+      throws IOException {
+    if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+      return parser.getIntValue();
+    }
+
+    return context.readValue(parser, Integer.TYPE);
+  }
+
+  public static long readLong(final JsonParser parser, final DeserializationContext context)
+      throws IOException {
+    if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+      return parser.getLongValue();
+    }
+
+    return context.readValue(parser, Long.TYPE);
+  }
+
+  public static String readString(final JsonParser parser, final DeserializationContext context)
+      throws IOException {
+    final JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_STRING) {
+      return parser.getText();
+    }
+
+    if (token == JsonToken.VALUE_NULL) {
+      return null;
+    }
+
+    return context.readValue(parser, String.class);
+  }
+
+  /** Reads an untyped value, e.g. a variable, as {@link Object} would be by Jackson. */
+  public static Object readObject(final JsonParser parser, final DeserializationContext context)
+      throws IOException {
+    if (parser.currentToken() == JsonToken.VALUE_STRING) {
+      return parser.getText();
+    }
+
+    return context.readValue(parser, Object.class);
+  }
+
+  /**
+   * @return true if objects of untyped values can be read as a {@link LazyJsonMap}, false if the
+   *     context is configured to read them into other types than the lazy map would
+   */
+  public static boolean readsObjectMapsLazily(final DeserializationContext context) {
+    return !context.hasSomeOfFeatures(UNTYPED_VALUE_FEATURES);
+  }
+
+  /** Reads the object the parser is at as a {@link LazyJsonMap}. */
+  public static Map<String, Object> readLazyObjectMap(final JsonParser parser) throws IOException {
+    return LazyJsonMap.read(parser);
+  }
+
+  public static byte[] readBytes(final JsonParser parser, final DeserializationContext context)
+      throws IOException {
+    final JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_STRING) {
+      return parser.getBinaryValue(context.getBase64Variant());
+    }
+
+    if (token == JsonToken.VALUE_NULL) {
+      return null;
+    }
+
+    return context.readValue(parser, byte[].class);
+  }
+
+  public static <E extends Enum<E>> E readEnum(
+      final JsonParser parser, final DeserializationContext context, final Class<E> type)
+      throws IOException {
+    final JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_STRING) {
+      try {
+        return Enum.valueOf(type, parser.getText());
+      } catch (final IllegalArgumentException e) {
+        // let the context decide how to handle unknown constants
+        return context.readValue(parser, type);
+      }
+    }
+
+    if (token == JsonToken.VALUE_NULL) {
+      return null;
+    }
+
+    return context.readValue(parser, type);
+  }
+
+  /**
+   * Reads a value whose type is given by an external type id property, e.g. the value of a record,
+   * whose type is given by its value type.
+   */
+  public static Object readTyped(
+      final JsonParser parser,
+      final DeserializationContext context,
+      final TypeIdResolver resolver,
+      final String typeId)
+      throws IOException {
+    final JavaType type = resolver.typeFromId(context, typeId);
+    return context.findRootValueDeserializer(type).deserialize(parser, context);
+  }
+
+  /**
+   * Copies the current value, such that it can be read once its external type id property is known,
+   * if the property comes after the value.
+   */
+  public static TokenBuffer buffer(final JsonParser parser, final DeserializationContext context)
+      throws IOException {
+    final TokenBuffer buffer = new TokenBuffer(parser, context);
+    buffer.copyCurrentStructure(parser);
+    return buffer;
+  }
+
+  /** Reads a value previously copied via {@link #buffer(JsonParser, DeserializationContext)}. */
+  public static Object readBuffered(
+      final TokenBuffer buffer,
+      final JsonParser parser,
+      final DeserializationContext context,
+      final TypeIdResolver resolver,
+      final String typeProperty,
+      final String typeId)
+      throws IOException {
+    if (typeId == null) {
+      return context.reportInputMismatch(
+          Object.class, "Missing external type id property '%s'", typeProperty);
+    }
+
+    try (final JsonParser bufferedParser = buffer.asParser(parser)) {
+      bufferedParser.nextToken();
+      return readTyped(bufferedParser, context, resolver, typeId);
+    }
+  }
+
+  private static boolean start(
+      final JsonParser parser,
+      final DeserializationContext context,
+      final Class<?> type,
+      final JsonToken expected)
+      throws IOException {
+    final JsonToken token = parser.currentToken();
+    if (token == expected) {
+      return true;
+    }
+
+    if (token != JsonToken.VALUE_NULL) {
+      context.reportWrongTokenException(type, expected, null);
+    }
+
+    return false;
+  }
+
+  /**
+   * Implemented by values which keep byte array attributes in buffers, e.g. outside of the Java
+   * heap, such that the generated codecs write them without copying them into arrays first.
+   */
+  public interface BufferedBytes {
+
+    /**
+     * @return a buffer of which the remaining bytes are the value of the given attribute, and which
+     *     may be consumed by the caller, or null if the attribute is not kept in a buffer
+     */
+    ByteBuffer getBytesBuffer(String attribute);
+  }
+}
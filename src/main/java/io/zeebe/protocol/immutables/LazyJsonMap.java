@@ -0,0 +1,490 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable {@code Map<String, Object>} which keeps the raw JSON of an object, e.g. the
+ * variables of a record value, and only parses it the first time its content is accessed. Most
+ * consumers forward variables without ever looking at them, and this avoids building the map, its
+ * nested maps and lists, and all their keys and values for nothing.
+ *
+ * <p>When serialized, the raw JSON is written as is, so forwarding a record never parses its
+ * variables. The raw JSON is the object as captured from the source, without insignificant
+ * whitespace; it is exactly what Jackson would write for the parsed map as UTF-8 bytes.
+ *
+ * <p>Since the generated {@code Immutable*} classes compute their hash code on construction, the
+ * hash code of the parsed map is computed while capturing the raw JSON, following the types Jackson
+ * uses by default for untyped values ({@link Integer}, {@link Long} or {@link java.math.BigInteger}
+ * for integers, {@link Double} for floating point numbers, {@link LinkedHashMap} and {@link
+ * ArrayList} for containers). Objects with duplicate keys, where the last value wins, are parsed
+ * right away instead.
+ *
+ * <p>The parsed map is unmodifiable and keeps the order of the JSON object; as with any map read by
+ * Jackson, its nested maps and lists are not.
+ */
+@JsonSerialize(using = LazyJsonMap.Serializer.class)
+public final class LazyJsonMap extends AbstractMap<String, Object> {
+  private static final JsonFactory FACTORY = new JsonFactory();
+  private static final ObjectReader READER =
+      new ObjectMapper(FACTORY).readerFor(LinkedHashMap.class);
+  private static final byte[] EMPTY_OBJECT = {'{', '}'};
+  // the key set and values view of AbstractMap, plus the fields below
+  private static final long SHALLOW_SIZE = RetainedSize.ofInstance(0, 1, 0, 4);
+
+  private final byte[] json;
+  private final int hashCode;
+  private volatile Map<String, Object> parsed;
+
+  private LazyJsonMap(final byte[] json, final int hashCode, final Map<String, Object> parsed) {
+    this.json = json;
+    this.hashCode = hashCode;
+    this.parsed = parsed;
+  }
+
+  /**
+   * Captures the object the given parser currently points at, i.e. the parser must be at a {@link
+   * JsonToken#START_OBJECT} token. The parser is left at the matching {@link JsonToken#END_OBJECT}.
+   */
+  public static LazyJsonMap read(final JsonParser parser) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      throw new IllegalArgumentException(
+          "Expected the parser to be at the start of an object, but it is at "
+              + parser.currentToken());
+    }
+
+    final ContentHasher hasher = new ContentHasher();
+    try (final ByteArrayBuilder buffer = new ByteArrayBuilder();
+        final JsonGenerator generator = FACTORY.createGenerator(buffer)) {
+      for (JsonToken token = parser.currentToken(); ; token = parser.nextToken()) {
+        generator.copyCurrentEvent(parser);
+        if (hasher.accept(parser, token)) {
+          break;
+        }
+      }
+
+      generator.flush();
+      return of(buffer.toByteArray(), hasher);
+    }
+  }
+
+  /** Captures the given UTF-8 encoded JSON object. */
+  public static LazyJsonMap ofJson(final byte[] json) throws IOException {
+    try (final JsonParser parser = FACTORY.createParser(json)) {
+      parser.nextToken();
+      return read(parser);
+    }
+  }
+
+  private static LazyJsonMap of(final byte[] json, final ContentHasher hasher) throws IOException {
+    if (hasher.hasDuplicateKeys()) {
+      final Map<String, Object> parsed = parse(json);
+      return new LazyJsonMap(json, parsed.hashCode(), parsed);
+    }
+
+    return new LazyJsonMap(json, hasher.getHashCode(), null);
+  }
+
+  /** @return true if the content was accessed, false if it is still only kept as raw JSON */
+  public boolean isParsed() {
+    return parsed != null;
+  }
+
+  /** @return the approximate number of bytes retained by this map, see {@link RetainedSize} */
+  long retainedSize() {
+    final Map<String, Object> map = parsed;
+    return SHALLOW_SIZE + RetainedSize.ofBytes(json) + (map == null ? 0 : RetainedSize.ofMap(map));
+  }
+
+  /** @return a copy of the raw UTF-8 encoded JSON object */
+  public byte[] toJson() {
+    return json.clone();
+  }
+
+  /**
+   * Writes the object to the given generator. The raw JSON is written as is whenever the output
+   * would be the same as for the parsed map, i.e. unless the generator or the provider are
+   * configured to write maps differently, in which case the map is parsed and serialized as usual.
+   *
+   * @param provider the provider used for the enclosing value, or null if there is none
+   */
+  public void writeTo(final JsonGenerator generator, final SerializerProvider provider)
+      throws IOException {
+    if (provider != null && !writesMapsVerbatim(provider)) {
+      provider.defaultSerializeValue(getParsed(), generator);
+    } else if (writesRawVerbatim(generator)) {
+      generator.writeRawValue(new RawJson(json));
+    } else {
+      try (final JsonParser parser = FACTORY.createParser(json)) {
+        parser.nextToken();
+        generator.copyCurrentStructure(parser);
+      }
+    }
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    return getParsed().entrySet();
+  }
+
+  @Override
+  public int size() {
+    return getParsed().size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return parsed == null ? Arrays.equals(json, EMPTY_OBJECT) : parsed.isEmpty();
+  }
+
+  @Override
+  public boolean containsKey(final Object key) {
+    return getParsed().containsKey(key);
+  }
+
+  @Override
+  public Object get(final Object key) {
+    return getParsed().get(key);
+  }
+
+  @Override
+  public boolean equals(final Object other) {
+    if (other == this) {
+      return true;
+    }
+
+    if (other instanceof LazyJsonMap) {
+      final LazyJsonMap otherMap = (LazyJsonMap) other;
+      if (hashCode != otherMap.hashCode) {
+        return false;
+      }
+
+      if (Arrays.equals(json, otherMap.json)) {
+        return true;
+      }
+    }
+
+    return super.equals(other);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  private Map<String, Object> getParsed() {
+    Map<String, Object> map = parsed;
+    if (map == null) {
+      // parsing twice when racing is harmless, as both results are equal
+      try {
+        map = parse(json);
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      parsed = map;
+    }
+
+    return map;
+  }
+
+  private static Map<String, Object> parse(final byte[] json) throws IOException {
+    return Collections.unmodifiableMap(READER.<Map<String, Object>>readValue(json));
+  }
+
+  private static boolean writesMapsVerbatim(final SerializerProvider provider) {
+    if (provider.isEnabled(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)) {
+      return false;
+    }
+
+    final JsonInclude.Include inclusion =
+        provider.getConfig().getDefaultPropertyInclusion(Map.class).getContentInclusion();
+    return inclusion == JsonInclude.Include.ALWAYS || inclusion == JsonInclude.Include.USE_DEFAULTS;
+  }
+
+  private static boolean writesRawVerbatim(final JsonGenerator generator) {
+    return generator instanceof JsonGeneratorImpl
+        && generator.getPrettyPrinter() == null
+        && generator.getCharacterEscapes() == null
+        && ((JsonGeneratorImpl) generator).getHighestEscapedChar() == 0
+        && generator.isEnabled(JsonGenerator.Feature.QUOTE_FIELD_NAMES)
+        && !generator.isEnabled(JsonGenerator.Feature.WRITE_NUMBERS_AS_STRINGS);
+  }
+
+  /**
+   * Serializes the map for mappers which do not use the generated codecs, which would otherwise
+   * treat it as any other map.
+   */
+  static final class Serializer extends StdSerializer<LazyJsonMap> {
+    Serializer() {
+      super(LazyJsonMap.class);
+    }
+
+    @Override
+    public boolean isEmpty(final SerializerProvider provider, final LazyJsonMap value) {
+      return value == null || value.isEmpty();
+    }
+
+    @Override
+    public void serialize(
+        final LazyJsonMap value, final JsonGenerator generator, final SerializerProvider provider)
+        throws IOException {
+      value.writeTo(generator, provider);
+    }
+  }
+
+  /**
+   * Computes the hash code of the map Jackson would build for an object, token by token, and
+   * detects whether any object has duplicate keys, in which case the hash code cannot be computed
+   * this way. Keys are compared linearly within an object, which is cheap for the usual sizes of
+   * variable documents.
+   */
+  private static final class ContentHasher {
+    private int[] hashes = new int[8];
+    private int[] keyHashes = new int[8];
+    private int[] keyStarts = new int[8];
+    private boolean[] arrays = new boolean[8];
+    private final List<String> keys = new ArrayList<>();
+    private int depth;
+    private int hashCode;
+    private boolean duplicateKeys;
+
+    /** @return true if the token ends the root object */
+    private boolean accept(final JsonParser parser, final JsonToken token) throws IOException {
+      switch (token) {
+        case START_OBJECT:
+          push(false, 0);
+          keyStarts[depth] = keys.size();
+          return false;
+        case START_ARRAY:
+          push(true, 1);
+          return false;
+        case END_OBJECT:
+          keys.subList(keyStarts[depth], keys.size()).clear();
+          return pop();
+        case END_ARRAY:
+          return pop();
+        case FIELD_NAME:
+          final String key = parser.currentName();
+          for (int i = keyStarts[depth]; i < keys.size() && !duplicateKeys; i++) {
+            duplicateKeys = keys.get(i).equals(key);
+          }
+          keys.add(key);
+          keyHashes[depth] = key.hashCode();
+          return false;
+        case VALUE_STRING:
+          complete(hashText(parser));
+          return false;
+        case VALUE_NUMBER_INT:
+          complete(hashInteger(parser));
+          return false;
+        case VALUE_NUMBER_FLOAT:
+          complete(Double.hashCode(parser.getDoubleValue()));
+          return false;
+        case VALUE_TRUE:
+          complete(Boolean.hashCode(true));
+          return false;
+        case VALUE_FALSE:
+          complete(Boolean.hashCode(false));
+          return false;
+        case VALUE_NULL:
+          complete(0);
+          return false;
+        default:
+          throw new IOException("Unexpected token " + token + " in a JSON object");
+      }
+    }
+
+    private boolean hasDuplicateKeys() {
+      return duplicateKeys;
+    }
+
+    private int getHashCode() {
+      return hashCode;
+    }
+
+    private void push(final boolean array, final int initialHash) {
+      depth++;
+      if (depth == hashes.length) {
+        hashes = Arrays.copyOf(hashes, depth * 2);
+        keyHashes = Arrays.copyOf(keyHashes, depth * 2);
+        keyStarts = Arrays.copyOf(keyStarts, depth * 2);
+        arrays = Arrays.copyOf(arrays, depth * 2);
+      }
+
+      arrays[depth] = array;
+      hashes[depth] = initialHash;
+    }
+
+    private boolean pop() {
+      final int hash = hashes[depth];
+      depth--;
+      complete(hash);
+      return depth == 0;
+    }
+
+    /** Adds the hash code of a completed value to its parent container, as the map or list would */
+    private void complete(final int valueHash) {
+      if (depth == 0) {
+        hashCode = valueHash;
+      } else if (arrays[depth]) {
+        hashes[depth] = 31 * hashes[depth] + valueHash;
+      } else {
+        hashes[depth] += keyHashes[depth] ^ valueHash;
+      }
+    }
+
+    private static int hashText(final JsonParser parser) throws IOException {
+      // same as String#hashCode, without creating the string
+      final char[] text = parser.getTextCharacters();
+      final int end = parser.getTextOffset() + parser.getTextLength();
+      int hash = 0;
+      for (int i = parser.getTextOffset(); i < end; i++) {
+        hash = 31 * hash + text[i];
+      }
+
+      return hash;
+    }
+
+    private static int hashInteger(final JsonParser parser) throws IOException {
+      switch (parser.getNumberType()) {
+        case INT:
+          return Integer.hashCode(parser.getIntValue());
+        case LONG:
+          return Long.hashCode(parser.getLongValue());
+        default:
+          return parser.getBigIntegerValue().hashCode();
+      }
+    }
+  }
+
+  /** Raw UTF-8 encoded JSON, which byte based generators can write without decoding it first. */
+  private static final class RawJson implements SerializableString {
+    private final byte[] json;
+
+    private RawJson(final byte[] json) {
+      this.json = json;
+    }
+
+    @Override
+    public String getValue() {
+      return new String(json, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int charLength() {
+      return getValue().length();
+    }
+
+    @Override
+    public char[] asQuotedChars() {
+      return getValue().toCharArray();
+    }
+
+    @Override
+    public byte[] asUnquotedUTF8() {
+      return json;
+    }
+
+    @Override
+    public byte[] asQuotedUTF8() {
+      return json;
+    }
+
+    @Override
+    public int appendQuotedUTF8(final byte[] buffer, final int offset) {
+      return appendUnquotedUTF8(buffer, offset);
+    }
+
+    @Override
+    public int appendQuoted(final char[] buffer, final int offset) {
+      return appendUnquoted(buffer, offset);
+    }
+
+    @Override
+    public int appendUnquotedUTF8(final byte[] buffer, final int offset) {
+      if (offset + json.length > buffer.length) {
+        return -1;
+      }
+
+      System.arraycopy(json, 0, buffer, offset, json.length);
+      return json.length;
+    }
+
+    @Override
+    public int appendUnquoted(final char[] buffer, final int offset) {
+      final String value = getValue();
+      if (offset + value.length() > buffer.length) {
+        return -1;
+      }
+
+      value.getChars(0, value.length(), buffer, offset);
+      return value.length();
+    }
+
+    @Override
+    public int writeQuotedUTF8(final OutputStream output) throws IOException {
+      return writeUnquotedUTF8(output);
+    }
+
+    @Override
+    public int writeUnquotedUTF8(final OutputStream output) throws IOException {
+      output.write(json);
+      return json.length;
+    }
+
+    @Override
+    public int putQuotedUTF8(final ByteBuffer buffer) {
+      return putUnquotedUTF8(buffer);
+    }
+
+    @Override
+    public int putUnquotedUTF8(final ByteBuffer buffer) {
+      if (buffer.remaining() < json.length) {
+        return -1;
+      }
+
+      buffer.put(json);
+      return json.length;
+    }
+  }
+}
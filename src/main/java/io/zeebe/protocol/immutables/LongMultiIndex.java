@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash index from primitive long keys to the indexes of the records of a {@link
+ * RecordStore} with that key, in insertion order. Every record can be added at most once, as the
+ * records with the same key are linked through an array indexed by record.
+ *
+ * <p>This class is not thread safe.
+ */
+final class LongMultiIndex {
+  static final int NONE = -1;
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final long MIX = 0x9E3779B97F4A7C15L;
+
+  // the slots of the table; a slot is free if its head is NONE
+  private long[] keys = new long[INITIAL_CAPACITY];
+  private int[] heads = newSlots(INITIAL_CAPACITY);
+  private int[] tails = new int[INITIAL_CAPACITY];
+  private int[] counts = new int[INITIAL_CAPACITY];
+  private int keyCount;
+
+  // the next record with the same key, by record
+  private int[] next = new int[INITIAL_CAPACITY];
+
+  /** Adds the given record, which must be greater than all records added before, to the key. */
+  void add(final long key, final int record) {
+    if (record >= next.length) {
+      next = Arrays.copyOf(next, Math.max(next.length * 2, record + 1));
+    }
+    next[record] = NONE;
+
+    final int slot = findSlot(key);
+    if (heads[slot] == NONE) {
+      keys[slot] = key;
+      heads[slot] = record;
+      tails[slot] = record;
+      counts[slot] = 1;
+      if (++keyCount * 2 > keys.length) {
+        resize();
+      }
+      return;
+    }
+
+    next[tails[slot]] = record;
+    tails[slot] = record;
+    counts[slot]++;
+  }
+
+  /** @return the first record with the given key, or {@link #NONE} */
+  int first(final long key) {
+    return heads[findSlot(key)];
+  }
+
+  /** @return the record after the given one with the same key, or {@link #NONE} */
+  int next(final int record) {
+    return next[record];
+  }
+
+  /** @return the number of records with the given key */
+  int count(final long key) {
+    final int slot = findSlot(key);
+    return heads[slot] == NONE ? 0 : counts[slot];
+  }
+
+  /** @return the slot of the given key, or the free slot where it would be inserted */
+  private int findSlot(final long key) {
+    final int mask = keys.length - 1;
+    int slot = (int) ((key * MIX) >>> 32) & mask;
+    while (heads[slot] != NONE && keys[slot] != key) {
+      slot = (slot + 1) & mask;
+    }
+
+    return slot;
+  }
+
+  private void resize() {
+    final long[] oldKeys = keys;
+    final int[] oldHeads = heads;
+    final int[] oldTails = tails;
+    final int[] oldCounts = counts;
+
+    final int capacity = oldKeys.length * 2;
+    keys = new long[capacity];
+    heads = newSlots(capacity);
+    tails = new int[capacity];
+    counts = new int[capacity];
+
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldHeads[i] != NONE) {
+        final int slot = findSlot(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        heads[slot] = oldHeads[i];
+        tails[slot] = oldTails[i];
+        counts[slot] = oldCounts[i];
+      }
+    }
+  }
+
+  private static int[] newSlots(final int capacity) {
+    final int[] slots = new int[capacity];
+    Arrays.fill(slots, NONE);
+    return slots;
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link ResourceStore} which appends resources to temporary spill files and maps each of them
+ * read-only, such that their pages are managed by the operating system instead of the garbage
+ * collector. The files are never read back through their channels, only through the mappings.
+ *
+ * <p>Resources are appended to the current segment until it would exceed the segment size; the
+ * segment is then closed and a new one is started. The spill files are opened with {@link
+ * StandardOpenOption#DELETE_ON_CLOSE}, which deletes each file when its segment is closed at the
+ * latest; on Unix-like systems the JDK already unlinks it right after opening it. Either way, the
+ * operating system only frees its space once the segment is closed and the mappings into it were
+ * released, i.e. garbage collected.
+ *
+ * <p>The store keeps track of the mappings it handed out, and counts the bytes of every segment
+ * towards its {@link #size()} until the segment is closed and all of its mappings were collected.
+ * Resources which would make it exceed the maximum size are copied into direct buffers instead, see
+ * {@link ResourceStore#direct()}. Mappings which were handed out stay readable until they are
+ * garbage collected, even after the store was closed, but no further resources can be stored.
+ */
+public final class MappedResourceStore implements ResourceStore, Closeable {
+  static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+  static final long DEFAULT_MAX_SIZE = 1024L * 1024 * 1024;
+
+  private static final Cleaner CLEANER = Cleaner.create();
+
+  private final Path directory;
+  private final long segmentSize;
+  private final long maxSize;
+  private final ResourceStore fallback = ResourceStore.direct();
+
+  private Segment segment;
+  private long size;
+  private boolean closed;
+
+  MappedResourceStore(final Path directory, final long segmentSize, final long maxSize)
+      throws IOException {
+    if (segmentSize <= 0 || maxSize < 0) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Expected a positive segment size and a non-negative maximum size, but got %d and %d",
+              segmentSize, maxSize));
+    }
+
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.maxSize = maxSize;
+    segment = new Segment(directory);
+  }
+
+  /**
+   * @return the number of bytes in spill files which were not reclaimed yet, i.e. of the current
+   *     segment and of closed segments which are still mapped
+   */
+  public synchronized long size() {
+    return size;
+  }
+
+  @Override
+  public synchronized ByteBuffer store(final byte[] resource) {
+    if (closed) {
+      throw new IllegalStateException("Expected the store to be open, but it was closed");
+    }
+
+    if (size + resource.length > maxSize) {
+      return fallback.store(resource);
+    }
+
+    try {
+      if (segment.position > 0 && segment.position + resource.length > segmentSize) {
+        rotate();
+      }
+
+      final ByteBuffer mapping = segment.append(resource);
+      size += resource.length;
+      segment.mappings++;
+      CLEANER.register(mapping, new Release(this, segment));
+      return mapping;
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      retire(segment);
+    }
+  }
+
+  private void rotate() throws IOException {
+    final Segment next = new Segment(directory);
+    retire(segment);
+    segment = next;
+  }
+
+  private void retire(final Segment retired) throws IOException {
+    retired.channel.close();
+    if (retired.mappings == 0) {
+      size -= retired.position;
+    }
+  }
+
+  private synchronized void release(final Segment released) {
+    released.mappings--;
+    if (released.mappings == 0 && !released.channel.isOpen()) {
+      size -= released.position;
+    }
+  }
+
+  private static final class Segment {
+    private final FileChannel channel;
+    private long position;
+    private int mappings;
+
+    private Segment(final Path directory) throws IOException {
+      channel =
+          FileChannel.open(
+              Files.createTempFile(directory, "resources-", ".spill"),
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE,
+              StandardOpenOption.DELETE_ON_CLOSE);
+    }
+
+    private ByteBuffer append(final byte[] resource) throws IOException {
+      final long offset = position;
+      final ByteBuffer source = ByteBuffer.wrap(resource);
+      while (source.hasRemaining()) {
+        channel.write(source, offset + source.position());
+      }
+
+      position += resource.length;
+      return channel.map(MapMode.READ_ONLY, offset, resource.length);
+    }
+  }
+
+  /** Must not reference the mapping, otherwise it would never become unreachable. */
+  private static final class Release implements Runnable {
+    private final MappedResourceStore store;
+    private final Segment segment;
+
+    private Release(final MappedResourceStore store, final Segment segment) {
+      this.store = store;
+      this.segment = segment;
+    }
+
+    @Override
+    public void run() {
+      store.release(segment);
+    }
+  }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordType;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.RejectionType;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import io.zeebe.protocol.immutables.record.value.AbstractJsonSerializable;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import io.zeebe.protocol.immutables.record.value.RecordJsonCodec;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A reusable {@link Record} for stages which only read records, e.g. to derive a few numbers from
+ * them, and which should not allocate a copy per record. It is refilled in place, either {@link
+ * #wrap(Record) from another record} or by a {@link RecordStreamReader#readNext(MutableRecord)},
+ * and only holds on to the value of its source, which is never copied. Records which must be kept
+ * are copied explicitly via {@link #toImmutable()}.
+ *
+ * <p>When refilled by a reader, the value is kept as raw JSON in a buffer which is reused for every
+ * record, and only deserialized the first time {@link #getValue()} is called; stages which only
+ * look at the metadata of the records never build their values.
+ *
+ * <p>As the record changes whenever it is refilled, it must not be kept or shared with other
+ * threads, and it is only equal to itself. It serializes to the same JSON as {@link
+ * ImmutableRecord}.
+ */
+@JsonSerialize(using = MutableRecord.Serializer.class)
+public final class MutableRecord<T extends RecordValue> extends AbstractJsonSerializable
+    implements Record<T>, RecordMetadata {
+  private static final int INITIAL_RAW_VALUE_CAPACITY = 1024;
+
+  private long position;
+  private long sourceRecordPosition;
+  private long key;
+  private long timestamp;
+  private Intent intent;
+  private int partitionId;
+  private RecordType recordType;
+  private RejectionType rejectionType;
+  private String rejectionReason;
+  private String brokerVersion;
+  private ValueType valueType;
+  private T value;
+
+  private ObjectReader rawValueReader;
+  private byte[] rawValue;
+  private int rawValueLength;
+
+  public MutableRecord() {
+    reset();
+  }
+
+  /** Refills this record with the properties and the value of the given record. */
+  public MutableRecord<T> wrap(final Record<? extends T> source) {
+    position = source.getPosition();
+    sourceRecordPosition = source.getSourceRecordPosition();
+    key = source.getKey();
+    timestamp = source.getTimestamp();
+    intent = source.getIntent();
+    partitionId = source.getPartitionId();
+    recordType = source.getRecordType();
+    rejectionType = source.getRejectionType();
+    rejectionReason = source.getRejectionReason();
+    brokerVersion = source.getBrokerVersion();
+    valueType = source.getValueType();
+    value = source.getValue();
+    rawValueReader = null;
+    return this;
+  }
+
+  /** Refills this record with the given metadata and value. */
+  public MutableRecord<T> wrap(final RecordMetadata metadata, final T value) {
+    position = metadata.getPosition();
+    sourceRecordPosition = metadata.getSourceRecordPosition();
+    key = metadata.getKey();
+    timestamp = metadata.getTimestamp();
+    intent = metadata.getIntent();
+    partitionId = metadata.getPartitionId();
+    recordType = metadata.getRecordType();
+    rejectionType = metadata.getRejectionType();
+    rejectionReason = metadata.getRejectionReason();
+    brokerVersion = metadata.getBrokerVersion();
+    valueType = metadata.getValueType();
+    this.value = value;
+    rawValueReader = null;
+    return this;
+  }
+
+  /**
+   * Refills this record with the given metadata, and a value which is only read from the given raw
+   * JSON with the given reader when accessed. The bytes are copied into the buffer of this record.
+   */
+  void wrap(
+      final RecordMetadata metadata,
+      final ObjectReader valueReader,
+      final byte[] rawValue,
+      final int length) {
+    wrap(metadata, null);
+    if (this.rawValue == null || this.rawValue.length < length) {
+      this.rawValue = new byte[Math.max(length, INITIAL_RAW_VALUE_CAPACITY)];
+    }
+
+    System.arraycopy(rawValue, 0, this.rawValue, 0, length);
+    rawValueLength = length;
+    rawValueReader = valueReader;
+  }
+
+  /**
+   * Clears this record, such that it does not hold on to the value of its last source anymore. The
+   * enums are reset to the same defaults as the ones of {@link ImmutableRecord}.
+   */
+  public MutableRecord<T> reset() {
+    position = 0;
+    sourceRecordPosition = 0;
+    key = 0;
+    timestamp = 0;
+    intent = Intent.UNKNOWN;
+    partitionId = 0;
+    recordType = RecordType.NULL_VAL;
+    rejectionType = RejectionType.NULL_VAL;
+    rejectionReason = null;
+    brokerVersion = null;
+    valueType = null;
+    value = null;
+    rawValueReader = null;
+    return this;
+  }
+
+  /**
+   * @return an immutable deep copy of the current state of this record, which can be kept
+   * @see ImmutableRecordCopier#deepCopyOfRecord(Record)
+   */
+  public ImmutableRecord<T> toImmutable() {
+    return ImmutableRecordCopier.deepCopyOfRecord(this);
+  }
+
+  @Override
+  public long getPosition() {
+    return position;
+  }
+
+  @Override
+  public long getSourceRecordPosition() {
+    return sourceRecordPosition;
+  }
+
+  @Override
+  public long getKey() {
+    return key;
+  }
+
+  @Override
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  @Override
+  public Intent getIntent() {
+    return intent;
+  }
+
+  @Override
+  public int getPartitionId() {
+    return partitionId;
+  }
+
+  @Override
+  public RecordType getRecordType() {
+    return recordType;
+  }
+
+  @Override
+  public RejectionType getRejectionType() {
+    return rejectionType;
+  }
+
+  @Override
+  public String getRejectionReason() {
+    return rejectionReason;
+  }
+
+  @Override
+  public String getBrokerVersion() {
+    return brokerVersion;
+  }
+
+  @Override
+  public ValueType getValueType() {
+    return valueType;
+  }
+
+  /**
+   * @return the value of the record; a value which was read as raw JSON is deserialized the first
+   *     time it is accessed
+   */
+  @Override
+  public T getValue() {
+    if (rawValueReader != null) {
+      value = readRawValue();
+      rawValueReader = null;
+    }
+
+    return value;
+  }
+
+  private T readRawValue() {
+    try {
+      return rawValueReader.readValue(rawValue, 0, rawValueLength);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** @return the same as {@link #toImmutable()}, as a mutable clone would be of little use */
+  @SuppressWarnings({"MethodDoesntCallSuperMethod", "squid:S2975", "squid:S1182"})
+  @Override
+  public Record<T> clone() {
+    return toImmutable();
+  }
+
+  @Override
+  public String toString() {
+    return "MutableRecord{position="
+        + position
+        + ", key="
+        + key
+        + ", partitionId="
+        + partitionId
+        + ", valueType="
+        + valueType
+        + ", intent="
+        + intent
+        + ", recordType="
+        + recordType
+        + "}";
+  }
+
+  public static final class Serializer extends StdSerializer<MutableRecord<?>> {
+    private static final long serialVersionUID = 1L;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Serializer() {
+      super((Class) MutableRecord.class);
+    }
+
+    @Override
+    public void serialize(
+        final MutableRecord<?> value,
+        final JsonGenerator generator,
+        final SerializerProvider provider)
+        throws IOException {
+      RecordJsonCodec.write(generator, value, provider);
+    }
+  }
+}
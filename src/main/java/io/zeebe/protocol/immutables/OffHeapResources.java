@@ -0,0 +1,169 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.value.DeploymentRecordValue;
+import io.camunda.zeebe.protocol.record.value.deployment.DeploymentResource;
+import io.camunda.zeebe.protocol.record.value.deployment.Process;
+import io.zeebe.protocol.immutables.record.value.ImmutableDeploymentRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import io.zeebe.protocol.immutables.record.value.deployment.ImmutableDeploymentResource;
+import io.zeebe.protocol.immutables.record.value.deployment.ImmutableProcess;
+import io.zeebe.protocol.immutables.record.value.deployment.OffHeapDeploymentResource;
+import io.zeebe.protocol.immutables.record.value.deployment.OffHeapProcess;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves the bytes of large deployment resources out of the Java heap, such that deployments which
+ * are kept around for a while do not fill up the old generation. Resources of at least the given
+ * threshold are copied into a {@link ResourceStore}, and their values are replaced by {@link
+ * OffHeapDeploymentResource} or {@link OffHeapProcess}; smaller resources stay on the heap.
+ *
+ * <p>The off-heap values are immutable and serialize to the same JSON, so they can be used in place
+ * of the generated {@code Immutable*} values, and the {@link ImmutableRecordCopier} shares them
+ * as-is. Their {@code getResource()} returns a heap copy of the bytes for compatibility, whereas
+ * {@code getResourceBuffer()} gives zero-copy access; the JSON codecs write the bytes straight from
+ * the buffer, see {@link JsonCodecs.BufferedBytes}.
+ */
+public final class OffHeapResources {
+  private final ResourceStore store;
+  private final int threshold;
+
+  private OffHeapResources(final ResourceStore store, final int threshold) {
+    this.store = store;
+    this.threshold = threshold;
+  }
+
+  /**
+   * @param store where to keep the bytes of offloaded resources
+   * @param threshold the size in bytes from which on resources are offloaded
+   */
+  public static OffHeapResources of(final ResourceStore store, final int threshold) {
+    if (threshold < 0) {
+      throw new IllegalArgumentException(
+          "Expected the threshold to be non-negative, but got " + threshold);
+    }
+
+    return new OffHeapResources(store, threshold);
+  }
+
+  /**
+   * Returns an immutable copy of the given record, where the resources of deployment and process
+   * values are moved off-heap if they are large enough. Records of other types are only copied.
+   *
+   * <p>Large resources are offloaded straight from the given record, so their bytes are neither
+   * copied into an immutable value first nor interned in the {@link ResourceCache}.
+   */
+  @SuppressWarnings("unchecked")
+  public <T extends RecordValue> ImmutableRecord<T> offload(final Record<T> record) {
+    final T value = record.getValue();
+    final RecordValue offloaded;
+    if (value instanceof DeploymentRecordValue) {
+      offloaded = offloadResources((DeploymentRecordValue) value);
+    } else if (value instanceof Process) {
+      offloaded = offload((Process) value);
+    } else {
+      return ImmutableRecordCopier.deepCopyOfRecord(record);
+    }
+
+    if (offloaded == value) {
+      return ImmutableRecordCopier.deepCopyOfRecord(record);
+    }
+
+    // copies the remaining mutable parts, e.g. resources which were too small to be offloaded
+    final T copy =
+        ImmutableRecordCopier.deepCopyOfRecordValue(record.getValueType(), (T) offloaded);
+    return ImmutableRecordCopier.copyOfRecordWithValue(record, copy);
+  }
+
+  /**
+   * @return an off-heap copy of the given resource if it is large enough, otherwise the resource
+   *     itself
+   */
+  public DeploymentResource offload(final DeploymentResource resource) {
+    if (resource instanceof OffHeapDeploymentResource) {
+      return resource;
+    }
+
+    final byte[] bytes = bytesOf(resource);
+    if (bytes == null || bytes.length < threshold) {
+      return resource;
+    }
+
+    return OffHeapDeploymentResource.of(store.store(bytes), resource.getResourceName());
+  }
+
+  /**
+   * @return an off-heap copy of the given process if its resource is large enough, otherwise the
+   *     process itself
+   */
+  public Process offload(final Process process) {
+    if (process instanceof OffHeapProcess) {
+      return process;
+    }
+
+    final byte[] bytes = bytesOf(process);
+    if (bytes == null || bytes.length < threshold) {
+      return process;
+    }
+
+    return OffHeapProcess.of(process, store.store(bytes));
+  }
+
+  private DeploymentRecordValue offloadResources(final DeploymentRecordValue value) {
+    final List<DeploymentResource> resources = value.getResources();
+    List<DeploymentResource> offloaded = null;
+    for (int i = 0; i < resources.size(); i++) {
+      final DeploymentResource resource = resources.get(i);
+      final DeploymentResource copy = offload(resource);
+      if (copy != resource && offloaded == null) {
+        offloaded = new ArrayList<>(resources.subList(0, i));
+      }
+
+      if (offloaded != null) {
+        offloaded.add(copy);
+      }
+    }
+
+    if (offloaded == null) {
+      return value;
+    }
+
+    // may still hold mutable resources and processes, which the copier takes care of
+    return ImmutableInstantiator.newDeploymentRecordValue(
+        ImmutableInstantiator.ownedList(offloaded),
+        value instanceof ImmutableDeploymentRecordValue
+            ? value.getProcessesMetadata()
+            : ImmutableInstantiator.copiedList(value.getProcessesMetadata()));
+  }
+
+  // the store copies the bytes anyway, so there is no need to clone the array of immutable values
+  private static byte[] bytesOf(final DeploymentResource resource) {
+    return resource instanceof ImmutableDeploymentResource
+            && ImmutableInstantiator.isSharingResources()
+        ? ImmutableInstantiator.resourceOf((ImmutableDeploymentResource) resource)
+        : resource.getResource();
+  }
+
+  private static byte[] bytesOf(final Process process) {
+    return process instanceof ImmutableProcess && ImmutableInstantiator.isSharingResources()
+        ? ImmutableInstantiator.resourceOf((ImmutableProcess) process)
+        : process.getResource();
+  }
+}
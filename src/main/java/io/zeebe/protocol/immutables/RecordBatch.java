@@ -0,0 +1,395 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordType;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.RejectionType;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceRelated;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A columnar batch of records, for scans and aggregations over many records which only look at a
+ * few of their properties. The properties of the records are stored in one primitive array per
+ * property, with the value type, intent, record type and rejection type as their protocol values,
+ * and the process instance key of the value in a column of its own. The values themselves are only
+ * materialized when they are accessed.
+ *
+ * <p>A batch is built either {@link #of(Iterable) from records}, or by a {@link
+ * RecordStreamReader#readBatch(int)}, in which case the values are kept as raw JSON until they are
+ * accessed.
+ *
+ * <p>Once built, a batch cannot be modified; however, materializing values is not thread safe, so a
+ * batch must not be shared by multiple threads unless all of its values have been accessed once.
+ */
+public final class RecordBatch implements Iterable<ImmutableRecord<RecordValue>> {
+
+  /** The process instance key of records whose value is not related to a process instance. */
+  public static final long NO_PROCESS_INSTANCE_KEY = -1L;
+
+  private final int size;
+  private final long[] positions;
+  private final long[] sourceRecordPositions;
+  private final long[] keys;
+  private final long[] timestamps;
+  private final long[] processInstanceKeys;
+  private final int[] partitionIds;
+  private final short[] valueTypes;
+  private final short[] intents;
+  private final short[] recordTypes;
+  private final short[] rejectionTypes;
+  private final String[] rejectionReasons;
+  private final String[] brokerVersions;
+  private final RecordValue[] values;
+  private final byte[][] rawValues;
+
+  private RecordBatch(final Builder builder) {
+    size = builder.size;
+    positions = Arrays.copyOf(builder.positions, size);
+    sourceRecordPositions = Arrays.copyOf(builder.sourceRecordPositions, size);
+    keys = Arrays.copyOf(builder.keys, size);
+    timestamps = Arrays.copyOf(builder.timestamps, size);
+    processInstanceKeys = Arrays.copyOf(builder.processInstanceKeys, size);
+    partitionIds = Arrays.copyOf(builder.partitionIds, size);
+    valueTypes = Arrays.copyOf(builder.valueTypes, size);
+    intents = Arrays.copyOf(builder.intents, size);
+    recordTypes = Arrays.copyOf(builder.recordTypes, size);
+    rejectionTypes = Arrays.copyOf(builder.rejectionTypes, size);
+    rejectionReasons = Arrays.copyOf(builder.rejectionReasons, size);
+    brokerVersions = Arrays.copyOf(builder.brokerVersions, size);
+    values = Arrays.copyOf(builder.values, size);
+    rawValues = Arrays.copyOf(builder.rawValues, size);
+  }
+
+  /** @return a batch of the given records, whose values are copied if they are mutable */
+  public static RecordBatch of(final Iterable<? extends Record<? extends RecordValue>> records) {
+    final Builder builder = builder();
+    for (final Record<? extends RecordValue> record : records) {
+      builder.add(record);
+    }
+
+    return builder.build();
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public long getPosition(final int index) {
+    return positions[index];
+  }
+
+  public long getSourceRecordPosition(final int index) {
+    return sourceRecordPositions[index];
+  }
+
+  public long getKey(final int index) {
+    return keys[index];
+  }
+
+  public long getTimestamp(final int index) {
+    return timestamps[index];
+  }
+
+  /**
+   * @return the process instance key of the value of the record, or {@link
+   *     #NO_PROCESS_INSTANCE_KEY} if its value is not {@link ProcessInstanceRelated}
+   */
+  public long getProcessInstanceKey(final int index) {
+    return processInstanceKeys[index];
+  }
+
+  public int getPartitionId(final int index) {
+    return partitionIds[index];
+  }
+
+  public ValueType getValueType(final int index) {
+    return ValueType.get(valueTypes[index]);
+  }
+
+  public Intent getIntent(final int index) {
+    return Intent.fromProtocolValue(getValueType(index), intents[index]);
+  }
+
+  public RecordType getRecordType(final int index) {
+    return RecordType.get(recordTypes[index]);
+  }
+
+  public RejectionType getRejectionType(final int index) {
+    return RejectionType.get(rejectionTypes[index]);
+  }
+
+  public String getRejectionReason(final int index) {
+    return rejectionReasons[index];
+  }
+
+  public String getBrokerVersion(final int index) {
+    return brokerVersions[index];
+  }
+
+  /** @return the value of the record, which is deserialized the first time it is accessed */
+  public RecordValue getValue(final int index) {
+    RecordValue value = values[index];
+    if (value == null && rawValues[index] != null) {
+      try {
+        value =
+            RecordMapper.getDefault()
+                .getValueReader(getValueType(index))
+                .readValue(rawValues[index]);
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+
+      values[index] = value;
+      rawValues[index] = null;
+    }
+
+    return value;
+  }
+
+  /** @return the record at the given index, with its value materialized */
+  public ImmutableRecord<RecordValue> getRecord(final int index) {
+    return ImmutableRecord.<RecordValue>builder()
+        .position(positions[index])
+        .sourceRecordPosition(sourceRecordPositions[index])
+        .key(keys[index])
+        .timestamp(timestamps[index])
+        .partitionId(partitionIds[index])
+        .valueType(getValueType(index))
+        .intent(getIntent(index))
+        .recordType(getRecordType(index))
+        .rejectionType(getRejectionType(index))
+        .rejectionReason(rejectionReasons[index])
+        .brokerVersion(brokerVersions[index])
+        .value(getValue(index))
+        .build();
+  }
+
+  /** Iterates over the records of this batch, materializing each of them. */
+  @Override
+  public Iterator<ImmutableRecord<RecordValue>> iterator() {
+    return new Iterator<>() {
+      private int index;
+
+      @Override
+      public boolean hasNext() {
+        return index < size;
+      }
+
+      @Override
+      public ImmutableRecord<RecordValue> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+
+        return getRecord(index++);
+      }
+    };
+  }
+
+  /** Collects records into a {@link RecordBatch}; a builder can only be used once. */
+  public static final class Builder {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final String PROCESS_INSTANCE_KEY = "processInstanceKey";
+
+    // the same few broker versions and rejection reasons are repeated by every record
+    private final Map<String, String> strings = new HashMap<>();
+    private ByteArrayBuilder rawValueBuffer;
+
+    private int size;
+    private long[] positions = new long[INITIAL_CAPACITY];
+    private long[] sourceRecordPositions = new long[INITIAL_CAPACITY];
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private long[] processInstanceKeys = new long[INITIAL_CAPACITY];
+    private int[] partitionIds = new int[INITIAL_CAPACITY];
+    private short[] valueTypes = new short[INITIAL_CAPACITY];
+    private short[] intents = new short[INITIAL_CAPACITY];
+    private short[] recordTypes = new short[INITIAL_CAPACITY];
+    private short[] rejectionTypes = new short[INITIAL_CAPACITY];
+    private String[] rejectionReasons = new String[INITIAL_CAPACITY];
+    private String[] brokerVersions = new String[INITIAL_CAPACITY];
+    private RecordValue[] values = new RecordValue[INITIAL_CAPACITY];
+    private byte[][] rawValues = new byte[INITIAL_CAPACITY][];
+
+    private Builder() {}
+
+    /** Adds the given record, whose value is copied if it is mutable. */
+    public Builder add(final Record<? extends RecordValue> record) {
+      final RecordValue value =
+          ImmutableRecordCopier.deepCopyOfRecordValue(record.getValueType(), record.getValue());
+      final int index = addMetadata(record.getValueType(), record.getIntent());
+      positions[index] = record.getPosition();
+      sourceRecordPositions[index] = record.getSourceRecordPosition();
+      keys[index] = record.getKey();
+      timestamps[index] = record.getTimestamp();
+      partitionIds[index] = record.getPartitionId();
+      recordTypes[index] = record.getRecordType().value();
+      rejectionTypes[index] = record.getRejectionType().value();
+      rejectionReasons[index] = share(record.getRejectionReason());
+      brokerVersions[index] = share(record.getBrokerVersion());
+      processInstanceKeys[index] =
+          value instanceof ProcessInstanceRelated
+              ? ((ProcessInstanceRelated) value).getProcessInstanceKey()
+              : NO_PROCESS_INSTANCE_KEY;
+      values[index] = value;
+      return this;
+    }
+
+    /** @return the number of records added so far */
+    public int size() {
+      return size;
+    }
+
+    public RecordBatch build() {
+      return new RecordBatch(this);
+    }
+
+    /**
+     * Adds a record with the given metadata, whose value is the structure the given parser is on.
+     * The value is kept as raw JSON, except for its process instance key.
+     */
+    void add(final RecordMetadata metadata, final JsonParser valueParser) throws IOException {
+      final ValueType valueType = metadata.getValueType();
+      final boolean processInstanceRelated =
+          ProcessInstanceRelated.class.isAssignableFrom(
+              ValueTypeMapping.of(valueType).getImmutableClass());
+      final long processInstanceKey = copyRawValue(valueParser, processInstanceRelated);
+      final byte[] rawValue = rawValueBuffer.toByteArray();
+
+      final int index = addMetadata(valueType, metadata.getIntent());
+      positions[index] = metadata.getPosition();
+      sourceRecordPositions[index] = metadata.getSourceRecordPosition();
+      keys[index] = metadata.getKey();
+      timestamps[index] = metadata.getTimestamp();
+      partitionIds[index] = metadata.getPartitionId();
+      recordTypes[index] = metadata.getRecordType().value();
+      rejectionTypes[index] = metadata.getRejectionType().value();
+      rejectionReasons[index] = share(metadata.getRejectionReason());
+      brokerVersions[index] = share(metadata.getBrokerVersion());
+      processInstanceKeys[index] = processInstanceKey;
+      rawValues[index] = rawValue;
+    }
+
+    /**
+     * Copies the structure the parser is on into the raw value buffer, picking up the process
+     * instance key on the way.
+     */
+    private long copyRawValue(final JsonParser parser, final boolean processInstanceRelated)
+        throws IOException {
+      if (rawValueBuffer == null) {
+        rawValueBuffer = new ByteArrayBuilder();
+      } else {
+        rawValueBuffer.reset();
+      }
+
+      long processInstanceKey = NO_PROCESS_INSTANCE_KEY;
+      try (final JsonGenerator generator =
+          RecordMapper.getDefault()
+              .getObjectMapper()
+              .getFactory()
+              .createGenerator(rawValueBuffer)) {
+        int depth = 0;
+        for (JsonToken token = parser.currentToken(); ; token = parser.nextToken()) {
+          if (token == null) {
+            throw new JsonEOFException(parser, null, "Expected the end of the record value");
+          }
+
+          if (processInstanceRelated
+              && depth == 1
+              && token == JsonToken.VALUE_NUMBER_INT
+              && PROCESS_INSTANCE_KEY.equals(parser.getCurrentName())) {
+            processInstanceKey = parser.getLongValue();
+          }
+
+          generator.copyCurrentEvent(parser);
+          if (token.isStructStart()) {
+            depth++;
+          } else if (token.isStructEnd()) {
+            depth--;
+          }
+
+          if (depth == 0) {
+            break;
+          }
+        }
+      }
+
+      return processInstanceKey;
+    }
+
+    private int addMetadata(final ValueType valueType, final Intent intent) {
+      if (size == positions.length) {
+        grow();
+      }
+
+      final int index = size++;
+      valueTypes[index] = valueType.value();
+      intents[index] = intent.value();
+      return index;
+    }
+
+    private String share(final String value) {
+      if (value == null) {
+        return null;
+      }
+
+      final String shared = strings.putIfAbsent(value, value);
+      return shared != null ? shared : value;
+    }
+
+    private void grow() {
+      final int capacity = positions.length * 2;
+      positions = Arrays.copyOf(positions, capacity);
+      sourceRecordPositions = Arrays.copyOf(sourceRecordPositions, capacity);
+      keys = Arrays.copyOf(keys, capacity);
+      timestamps = Arrays.copyOf(timestamps, capacity);
+      processInstanceKeys = Arrays.copyOf(processInstanceKeys, capacity);
+      partitionIds = Arrays.copyOf(partitionIds, capacity);
+      valueTypes = Arrays.copyOf(valueTypes, capacity);
+      intents = Arrays.copyOf(intents, capacity);
+      recordTypes = Arrays.copyOf(recordTypes, capacity);
+      rejectionTypes = Arrays.copyOf(rejectionTypes, capacity);
+      rejectionReasons = Arrays.copyOf(rejectionReasons, capacity);
+      brokerVersions = Arrays.copyOf(brokerVersions, capacity);
+      values = Arrays.copyOf(values, capacity);
+      rawValues = Arrays.copyOf(rawValues, capacity);
+    }
+  }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.camunda.zeebe.protocol.record.JsonSerializable;
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.zeebe.protocol.immutables.jfr.RecordEvents;
+import io.zeebe.protocol.immutables.jfr.RecordSerializationEvent;
+import io.zeebe.protocol.immutables.metrics.RecordMetrics;
+import io.zeebe.protocol.immutables.metrics.RecordMetricsListener;
+import io.zeebe.protocol.immutables.metrics.RecordMetricsModule;
+import io.zeebe.protocol.immutables.metrics.RecordOperation;
+import java.io.FilterOutputStream;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.ServiceConfigurationError;
+
+/**
+ * Holds an {@link ObjectMapper} for the types of this library, along with readers and writers
+ * prebuilt from it, such that their root types do not have to be resolved on every call.
+ *
+ * <p>The {@link #getDefault() default instance} is used by this library wherever it serializes or
+ * deserializes records, e.g. {@link JsonSerializable#toJson()}, and can be used by consumers
+ * instead of building their own mapper. It can be replaced via {@link #setDefault(RecordMapper)},
+ * e.g. to register additional modules.
+ *
+ * <p>The mapper returned by {@link #newObjectMapper()} ignores unknown properties, so that records
+ * exported by newer brokers can still be read, and does not flush after every value written to a
+ * stream. It registers the {@link JsonCodecModule}, which reads and writes records and their values
+ * with codecs generated at build time instead of introspecting them. If either the Blackbird or the
+ * Afterburner module is on the class path, it is registered as well to replace reflection with
+ * generated accessors for any other type; neither is a dependency of this library.
+ *
+ * <p>Records serialized by this class and deserialized by its mapper are reported to the {@link
+ * RecordMetrics#getListener() metrics listener}, if one is set. Serializing a record also emits a
+ * {@link RecordSerializationEvent} while it is enabled in a flight recording.
+ */
+public final class RecordMapper {
+  private static final List<String> ACCESSOR_MODULES =
+      List.of(
+          "com.fasterxml.jackson.module.blackbird.BlackbirdModule",
+          "com.fasterxml.jackson.module.afterburner.AfterburnerModule");
+
+  private static volatile RecordMapper defaultMapper = new RecordMapper(newObjectMapper());
+
+  private final ObjectMapper mapper;
+  private final ObjectWriter writer;
+  private final ObjectWriter streamWriter;
+  private final ObjectReader recordReader;
+  private final ObjectReader lazyRecordReader;
+  private final Map<ValueType, ObjectReader> valueReaders = new EnumMap<>(ValueType.class);
+
+  /**
+   * @param mapper the mapper to build the readers and writers from; it must not be reconfigured
+   *     afterwards
+   */
+  public RecordMapper(final ObjectMapper mapper) {
+    this.mapper = Objects.requireNonNull(mapper, "must specify a mapper");
+    writer = mapper.writer();
+    streamWriter = writer.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    recordReader = mapper.readerFor(new ImmutableRecordTypeReference<>());
+    lazyRecordReader = mapper.readerFor(new LazyRecordTypeReference<>());
+
+    for (final ValueType valueType : ValueTypeMapping.getSupportedValueTypes()) {
+      valueReaders.put(
+          valueType, mapper.readerFor(ValueTypeMapping.of(valueType).getImmutableJavaType()));
+    }
+  }
+
+  /** @return the instance used by this library */
+  public static RecordMapper getDefault() {
+    return defaultMapper;
+  }
+
+  /** Replaces the instance used by this library, e.g. by {@link JsonSerializable#toJson()}. */
+  public static void setDefault(final RecordMapper mapper) {
+    defaultMapper = Objects.requireNonNull(mapper, "must specify a mapper");
+  }
+
+  /** @return a new mapper configured for the types of this library, as described above */
+  public static ObjectMapper newObjectMapper() {
+    final ObjectMapper mapper =
+        new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .registerModule(new JsonCodecModule())
+            .registerModule(new RecordMetricsModule());
+
+    final Module accessorModule = findAccessorModule();
+    if (accessorModule != null) {
+      mapper.registerModule(accessorModule);
+    }
+
+    return mapper;
+  }
+
+  public ObjectMapper getObjectMapper() {
+    return mapper;
+  }
+
+  /** @return a writer for records, values, or anything else */
+  public ObjectWriter getWriter() {
+    return writer;
+  }
+
+  /** @return a reader for {@link io.zeebe.protocol.immutables.record.value.ImmutableRecord} */
+  public ObjectReader getRecordReader() {
+    return recordReader;
+  }
+
+  /** @return a reader for {@link io.zeebe.protocol.immutables.record.value.ImmutableLazyRecord} */
+  public ObjectReader getLazyRecordReader() {
+    return lazyRecordReader;
+  }
+
+  /**
+   * @return a reader for the immutable value class of the given value type
+   * @throws IllegalArgumentException if the value type is not supported
+   */
+  public ObjectReader getValueReader(final ValueType valueType) {
+    final ObjectReader reader = valueReaders.get(valueType);
+    if (reader == null) {
+      throw new IllegalArgumentException("Unknown value type " + valueType);
+    }
+
+    return reader;
+  }
+
+  /** @return the given value serialized to JSON */
+  public String toJson(final Object value) {
+    final RecordMetricsListener listener = RecordMetrics.getListener();
+    final RecordSerializationEvent event = beginSerializationEvent(value);
+    if (!isMeasured(listener, event, value)) {
+      return writeString(value);
+    }
+
+    final long start = System.nanoTime();
+    final String json = writeString(value);
+    onSerialized(listener, event, (Record<?>) value, start, json.length());
+    return json;
+  }
+
+  /**
+   * Writes the given value as UTF-8 encoded JSON to the given stream, without building an
+   * intermediate string. The stream is flushed, but not closed.
+   */
+  public void writeJson(final Object value, final OutputStream output) throws IOException {
+    final RecordMetricsListener listener = RecordMetrics.getListener();
+    final RecordSerializationEvent event = beginSerializationEvent(value);
+    if (!isMeasured(listener, event, value)) {
+      streamWriter.writeValue(output, value);
+      return;
+    }
+
+    final long start = System.nanoTime();
+    final CountingOutputStream countingOutput = new CountingOutputStream(output);
+    streamWriter.writeValue(countingOutput, value);
+    onSerialized(listener, event, (Record<?>) value, start, countingOutput.count);
+  }
+
+  /**
+   * Writes the given value as JSON to the given writer, without building an intermediate string.
+   * The writer is flushed, but not closed.
+   */
+  public void writeJson(final Object value, final Writer output) throws IOException {
+    final RecordMetricsListener listener = RecordMetrics.getListener();
+    final RecordSerializationEvent event = beginSerializationEvent(value);
+    if (!isMeasured(listener, event, value)) {
+      streamWriter.writeValue(output, value);
+      return;
+    }
+
+    final long start = System.nanoTime();
+    final CountingWriter countingOutput = new CountingWriter(output);
+    streamWriter.writeValue(countingOutput, value);
+    onSerialized(listener, event, (Record<?>) value, start, countingOutput.count);
+  }
+
+  /**
+   * Writes the given value as UTF-8 encoded JSON into the given buffer, starting at its position,
+   * and advances the position past the JSON.
+   *
+   * @throws BufferOverflowException if the JSON does not fit the remaining space of the buffer, in
+   *     which case its position is left unchanged
+   */
+  public void writeJson(final Object value, final ByteBuffer buffer) {
+    final RecordMetricsListener listener = RecordMetrics.getListener();
+    final RecordSerializationEvent event = beginSerializationEvent(value);
+    final long start = isMeasured(listener, event, value) ? System.nanoTime() : -1;
+    final int position = buffer.position();
+    try {
+      streamWriter.writeValue(new ByteBufferOutputStream(buffer), value);
+    } catch (final BufferOverflowException e) {
+      buffer.position(position);
+      throw e;
+    } catch (final IOException e) {
+      buffer.position(position);
+      throw new UncheckedIOException(e);
+    }
+
+    if (start != -1) {
+      onSerialized(listener, event, (Record<?>) value, start, buffer.position() - position);
+    }
+  }
+
+  private String writeString(final Object value) {
+    try {
+      return writer.writeValueAsString(value);
+    } catch (final JsonProcessingException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static RecordSerializationEvent beginSerializationEvent(final Object value) {
+    return value instanceof Record && RecordEvents.isRecording()
+        ? RecordSerializationEvent.beginIfEnabled()
+        : null;
+  }
+
+  private static boolean isMeasured(
+      final RecordMetricsListener listener,
+      final RecordSerializationEvent event,
+      final Object value) {
+    return event != null || (listener != RecordMetricsListener.NONE && value instanceof Record);
+  }
+
+  private static void onSerialized(
+      final RecordMetricsListener listener,
+      final RecordSerializationEvent event,
+      final Record<?> record,
+      final long start,
+      final long bytes) {
+    listener.onRecord(
+        RecordOperation.SERIALIZE,
+        record.getValueType(),
+        record.getIntent(),
+        System.nanoTime() - start,
+        bytes);
+    if (event != null) {
+      event.complete(record, bytes);
+    }
+  }
+
+  private static Module findAccessorModule() {
+    final List<Module> modules;
+    try {
+      modules = ObjectMapper.findModules();
+    } catch (final ServiceConfigurationError e) {
+      return null;
+    }
+
+    for (final String moduleClass : ACCESSOR_MODULES) {
+      for (final Module module : modules) {
+        if (module.getClass().getName().equals(moduleClass)) {
+          return module;
+        }
+      }
+    }
+
+    return null;
+  }
+
+  private static final class CountingOutputStream extends FilterOutputStream {
+    private long count;
+
+    private CountingOutputStream(final OutputStream output) {
+      super(output);
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      out.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+    }
+  }
+
+  private static final class CountingWriter extends FilterWriter {
+    private long count;
+
+    private CountingWriter(final Writer output) {
+      super(output);
+    }
+
+    @Override
+    public void write(final int c) throws IOException {
+      out.write(c);
+      count++;
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+      out.write(cbuf, off, len);
+      count += len;
+    }
+
+    @Override
+    public void write(final String str, final int off, final int len) throws IOException {
+      out.write(str, off, len);
+      count += len;
+    }
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordType;
+import io.camunda.zeebe.protocol.record.RejectionType;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+
+/**
+ * The properties of a {@link Record} except its value, i.e. everything which is cheap to read and
+ * typically used to decide whether a record is of interest.
+ *
+ * @see RecordStreamReader
+ */
+public interface RecordMetadata {
+
+  /** @see Record#getPosition() */
+  long getPosition();
+
+  /** @see Record#getSourceRecordPosition() */
+  long getSourceRecordPosition();
+
+  /** @see Record#getKey() */
+  long getKey();
+
+  /** @see Record#getTimestamp() */
+  long getTimestamp();
+
+  /** @see Record#getIntent() */
+  Intent getIntent();
+
+  /** @see Record#getPartitionId() */
+  int getPartitionId();
+
+  /** @see Record#getRecordType() */
+  RecordType getRecordType();
+
+  /** @see Record#getRejectionType() */
+  RejectionType getRejectionType();
+
+  /** @see Record#getRejectionReason() */
+  String getRejectionReason();
+
+  /** @see Record#getBrokerVersion() */
+  String getBrokerVersion();
+
+  /** @see Record#getValueType() */
+  ValueType getValueType();
+}
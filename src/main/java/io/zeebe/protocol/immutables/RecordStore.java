@@ -0,0 +1,282 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import io.camunda.zeebe.protocol.record.value.IncidentRecordValue;
+import io.camunda.zeebe.protocol.record.value.JobRecordValue;
+import io.camunda.zeebe.protocol.record.value.MessageSubscriptionRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceRelated;
+import io.camunda.zeebe.protocol.record.value.ProcessMessageSubscriptionRecordValue;
+import io.camunda.zeebe.protocol.record.value.TimerRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An append-only, in-memory store of records, e.g. for test harnesses and debugging tools which
+ * keep all exported records and query them over and over. The records are indexed by position, by
+ * key, by the process instance key and element instance key of their value, by value type and by
+ * intent, such that looking them up takes constant time instead of scanning all records; records
+ * can also be scanned by a range of positions.
+ *
+ * <p>The element instance key of a process instance record is its key, as these records describe
+ * the element instance itself; jobs, incidents, timers and message subscriptions refer to it by an
+ * element instance key of their own. Other records have neither.
+ *
+ * <p>All lookups return the matching records in the order in which they were added, except for the
+ * range scans which return them ordered by position. This class is thread safe.
+ */
+public final class RecordStore {
+  private static final long NO_ELEMENT_INSTANCE_KEY = -1L;
+
+  private final List<ImmutableRecord<RecordValue>> records = new ArrayList<>();
+  private final LongMultiIndex byPosition = new LongMultiIndex();
+  private final LongMultiIndex byKey = new LongMultiIndex();
+  private final LongMultiIndex byProcessInstanceKey = new LongMultiIndex();
+  private final LongMultiIndex byElementInstanceKey = new LongMultiIndex();
+  private final LongMultiIndex byValueType = new LongMultiIndex();
+  private final LongMultiIndex byIntent = new LongMultiIndex();
+
+  // intents of different value types can have the same protocol value, so they get ids of their own
+  private final Map<Intent, Integer> intentIds = new HashMap<>();
+
+  private long[] positions = new long[16];
+  private boolean addedInPositionOrder = true;
+  private int[] positionOrder;
+
+  /** Adds an immutable copy of the given record, see {@link ImmutableRecordCopier}. */
+  @SuppressWarnings("unchecked")
+  public synchronized void add(final Record<? extends RecordValue> record) {
+    final ImmutableRecord<RecordValue> copy =
+        ImmutableRecordCopier.deepCopyOfRecord((Record<RecordValue>) record);
+    final int index = records.size();
+    records.add(copy);
+
+    if (index == positions.length) {
+      positions = Arrays.copyOf(positions, index * 2);
+    }
+    positions[index] = copy.getPosition();
+    addedInPositionOrder &= index == 0 || positions[index - 1] <= copy.getPosition();
+    positionOrder = null;
+
+    byPosition.add(copy.getPosition(), index);
+    byKey.add(copy.getKey(), index);
+    byValueType.add(copy.getValueType().ordinal(), index);
+    byIntent.add(intentIds.computeIfAbsent(copy.getIntent(), intent -> intentIds.size()), index);
+
+    final RecordValue value = copy.getValue();
+    if (value instanceof ProcessInstanceRelated) {
+      byProcessInstanceKey.add(((ProcessInstanceRelated) value).getProcessInstanceKey(), index);
+    }
+
+    final long elementInstanceKey = getElementInstanceKey(copy);
+    if (elementInstanceKey != NO_ELEMENT_INSTANCE_KEY) {
+      byElementInstanceKey.add(elementInstanceKey, index);
+    }
+  }
+
+  /** Adds immutable copies of all given records, in order. */
+  public synchronized void addAll(final Iterable<? extends Record<? extends RecordValue>> records) {
+    for (final Record<? extends RecordValue> record : records) {
+      add(record);
+    }
+  }
+
+  public synchronized int size() {
+    return records.size();
+  }
+
+  /** @return the record which was added at the given index */
+  public synchronized ImmutableRecord<RecordValue> get(final int index) {
+    return records.get(index);
+  }
+
+  /** @return all records, in the order in which they were added */
+  public synchronized List<ImmutableRecord<RecordValue>> getRecords() {
+    return Collections.unmodifiableList(new ArrayList<>(records));
+  }
+
+  /** @return the records with the given position, usually one per partition */
+  public synchronized List<ImmutableRecord<RecordValue>> findByPosition(final long position) {
+    return collect(byPosition, position);
+  }
+
+  public synchronized List<ImmutableRecord<RecordValue>> findByKey(final long key) {
+    return collect(byKey, key);
+  }
+
+  public synchronized List<ImmutableRecord<RecordValue>> findByProcessInstanceKey(
+      final long processInstanceKey) {
+    return collect(byProcessInstanceKey, processInstanceKey);
+  }
+
+  public synchronized List<ImmutableRecord<RecordValue>> findByElementInstanceKey(
+      final long elementInstanceKey) {
+    return collect(byElementInstanceKey, elementInstanceKey);
+  }
+
+  public synchronized List<ImmutableRecord<RecordValue>> findByValueType(
+      final ValueType valueType) {
+    return collect(byValueType, valueType.ordinal());
+  }
+
+  public synchronized List<ImmutableRecord<RecordValue>> findByIntent(final Intent intent) {
+    final Integer id = intentIds.get(intent);
+    return id == null ? Collections.emptyList() : collect(byIntent, id);
+  }
+
+  /** @return the number of records of the given value type, without collecting them */
+  public synchronized int countByValueType(final ValueType valueType) {
+    return byValueType.count(valueType.ordinal());
+  }
+
+  /** @return the number of records with the given intent, without collecting them */
+  public synchronized int countByIntent(final Intent intent) {
+    final Integer id = intentIds.get(intent);
+    return id == null ? 0 : byIntent.count(id);
+  }
+
+  /**
+   * @param fromPosition the lowest position to return, inclusive
+   * @param toPosition the highest position to return, exclusive
+   * @return the records within the given range of positions, ordered by position
+   */
+  public synchronized List<ImmutableRecord<RecordValue>> findByPositionRange(
+      final long fromPosition, final long toPosition) {
+    final int size = records.size();
+    final List<ImmutableRecord<RecordValue>> result = new ArrayList<>();
+    if (addedInPositionOrder) {
+      for (int i = lowerBound(fromPosition, size, null); i < size; i++) {
+        if (positions[i] >= toPosition) {
+          break;
+        }
+        result.add(records.get(i));
+      }
+
+      return Collections.unmodifiableList(result);
+    }
+
+    final int[] order = getPositionOrder();
+    for (int i = lowerBound(fromPosition, size, order); i < size; i++) {
+      if (positions[order[i]] >= toPosition) {
+        break;
+      }
+      result.add(records.get(order[i]));
+    }
+
+    return Collections.unmodifiableList(result);
+  }
+
+  private List<ImmutableRecord<RecordValue>> collect(final LongMultiIndex index, final long key) {
+    final int count = index.count(key);
+    if (count == 0) {
+      return Collections.emptyList();
+    }
+
+    final List<ImmutableRecord<RecordValue>> result = new ArrayList<>(count);
+    for (int i = index.first(key); i != LongMultiIndex.NONE; i = index.next(i)) {
+      result.add(records.get(i));
+    }
+
+    return Collections.unmodifiableList(result);
+  }
+
+  /** @return the first index in position order whose position is not lower than the given one */
+  private int lowerBound(final long position, final int size, final int[] order) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+      final long middlePosition = positions[order == null ? middle : order[middle]];
+      if (middlePosition < position) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+
+    return low;
+  }
+
+  /** @return the indexes of the records, stably sorted by position */
+  private int[] getPositionOrder() {
+    if (positionOrder == null) {
+      final int size = records.size();
+      final int[] order = new int[size];
+      for (int i = 0; i < size; i++) {
+        order[i] = i;
+      }
+
+      sortByPosition(order, new int[size], 0, size);
+      positionOrder = order;
+    }
+
+    return positionOrder;
+  }
+
+  /** A stable merge sort of the given range of indexes, as there is no primitive sort for them. */
+  private void sortByPosition(final int[] order, final int[] buffer, final int from, final int to) {
+    if (to - from < 2) {
+      return;
+    }
+
+    final int middle = (from + to) >>> 1;
+    sortByPosition(order, buffer, from, middle);
+    sortByPosition(order, buffer, middle, to);
+    if (positions[order[middle - 1]] <= positions[order[middle]]) {
+      return;
+    }
+
+    System.arraycopy(order, from, buffer, from, to - from);
+    int left = from;
+    int right = middle;
+    for (int i = from; i < to; i++) {
+      if (right >= to || (left < middle && positions[buffer[left]] <= positions[buffer[right]])) {
+        order[i] = buffer[left++];
+      } else {
+        order[i] = buffer[right++];
+      }
+    }
+  }
+
+  private static long getElementInstanceKey(final Record<RecordValue> record) {
+    final RecordValue value = record.getValue();
+    if (value instanceof ProcessInstanceRecordValue) {
+      return record.getKey();
+    } else if (value instanceof JobRecordValue) {
+      return ((JobRecordValue) value).getElementInstanceKey();
+    } else if (value instanceof IncidentRecordValue) {
+      return ((IncidentRecordValue) value).getElementInstanceKey();
+    } else if (value instanceof TimerRecordValue) {
+      return ((TimerRecordValue) value).getElementInstanceKey();
+    } else if (value instanceof MessageSubscriptionRecordValue) {
+      return ((MessageSubscriptionRecordValue) value).getElementInstanceKey();
+    } else if (value instanceof ProcessMessageSubscriptionRecordValue) {
+      return ((ProcessMessageSubscriptionRecordValue) value).getElementInstanceKey();
+    }
+
+    return NO_ELEMENT_INSTANCE_KEY;
+  }
+}
@@ -0,0 +1,548 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import io.camunda.zeebe.protocol.record.RecordType;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.RejectionType;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import io.zeebe.protocol.immutables.metrics.RecordMetrics;
+import io.zeebe.protocol.immutables.metrics.RecordMetricsListener;
+import io.zeebe.protocol.immutables.metrics.RecordMetricsModule;
+import io.zeebe.protocol.immutables.metrics.RecordOperation;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads a stream of JSON records, as written by {@link ImmutableRecord#toJson()}, and returns only
+ * those whose {@link RecordMetadata} match a given filter. The input can either be a sequence of
+ * root level records (e.g. newline delimited JSON) or a single JSON array of records.
+ *
+ * <p>The filter is evaluated while parsing, before the value of the record is built: the value of a
+ * record which does not match is skipped without creating any object. This only works if the value
+ * comes after all the other properties of the record, which is always the case for records
+ * serialized by this library; otherwise the value is buffered until the end of the record.
+ *
+ * <p>The {@link RecordMetadata} passed to the filter is reused for every record, so the filter must
+ * not hold on to it.
+ *
+ * <p>Read-only consumers which do not keep the records can also use {@link
+ * #readNext(MutableRecord)}, which refills the same record every time instead of creating one, and
+ * only deserializes its value when it is accessed. Scans over many records can read them with
+ * {@link #readBatch(int)} into a columnar {@link RecordBatch}.
+ *
+ * <p>This class is not thread safe.
+ */
+public final class RecordStreamReader implements Iterator<ImmutableRecord<RecordValue>>, Closeable {
+  private final RecordMapper mapper = RecordMapper.getDefault();
+  private final JsonParser parser;
+  private final Predicate<RecordMetadata> filter;
+  private final MutableRecordMetadata metadata = new MutableRecordMetadata();
+
+  private boolean started;
+  private boolean inArray;
+  private RecordValue value;
+  private RecordBatch.Builder batch;
+  private boolean readingRawValue;
+  private RawValueBuffer rawValueBuffer;
+  private JsonGenerator rawValueGenerator;
+  private ImmutableRecord<RecordValue> nextRecord;
+  private long skippedCount;
+
+  public RecordStreamReader(final InputStream input, final Predicate<RecordMetadata> filter)
+      throws IOException {
+    this(RecordMapper.getDefault().getObjectMapper().getFactory().createParser(input), filter);
+  }
+
+  public RecordStreamReader(final Reader input, final Predicate<RecordMetadata> filter)
+      throws IOException {
+    this(RecordMapper.getDefault().getObjectMapper().getFactory().createParser(input), filter);
+  }
+
+  private RecordStreamReader(final JsonParser parser, final Predicate<RecordMetadata> filter) {
+    this.parser = parser;
+    this.filter = filter;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (nextRecord == null) {
+      try {
+        if (readNextRecord()) {
+          nextRecord = metadata.toRecord(value);
+          value = null;
+        }
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    return nextRecord != null;
+  }
+
+  @Override
+  public ImmutableRecord<RecordValue> next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    final ImmutableRecord<RecordValue> record = nextRecord;
+    nextRecord = null;
+    return record;
+  }
+
+  /**
+   * Reads the next matching record into the given one, instead of creating a new {@link
+   * ImmutableRecord}. Its value is copied as raw JSON into the given record, and only deserialized
+   * when accessed, such that reading the metadata of a record does not create its value. The given
+   * record is only refilled if there is a next record.
+   *
+   * @return true if the given record was refilled, false if there are no more matching records
+   */
+  public boolean readNext(final MutableRecord<RecordValue> target) throws IOException {
+    if (nextRecord != null) {
+      target.wrap(nextRecord);
+      nextRecord = null;
+      return true;
+    }
+
+    final boolean read;
+    readingRawValue = true;
+    try {
+      read = readNextRecord();
+    } finally {
+      readingRawValue = false;
+    }
+
+    if (!read) {
+      return false;
+    }
+
+    target.wrap(
+        metadata,
+        mapper.getValueReader(metadata.valueType),
+        rawValueBuffer.bytes(),
+        rawValueBuffer.size());
+    return true;
+  }
+
+  /**
+   * Reads up to the given number of the next matching records into a columnar batch. The values of
+   * the records are not deserialized, but kept as raw JSON until they are accessed.
+   *
+   * @return the batch of the next records, which is only empty if there are no more matching
+   *     records
+   */
+  public RecordBatch readBatch(final int maximumSize) throws IOException {
+    final RecordBatch.Builder builder = RecordBatch.builder();
+    if (nextRecord != null && maximumSize > 0) {
+      builder.add(nextRecord);
+      nextRecord = null;
+    }
+
+    batch = builder;
+    try {
+      // matching records are added to the batch while they are read
+      boolean hasMore = true;
+      while (hasMore && builder.size() < maximumSize) {
+        hasMore = readNextRecord();
+      }
+    } finally {
+      batch = null;
+    }
+
+    return builder.build();
+  }
+
+  /** @return a sequential stream of the remaining matching records, which closes this reader */
+  public Stream<ImmutableRecord<RecordValue>> stream() {
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(
+                this, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE),
+            false)
+        .onClose(
+            () -> {
+              try {
+                close();
+              } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+  }
+
+  /** @return how many records have been read so far which did not match the filter */
+  public long getSkippedCount() {
+    return skippedCount;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      parser.close();
+    } finally {
+      if (rawValueGenerator != null) {
+        rawValueGenerator.close();
+      }
+    }
+  }
+
+  /** @return true if the metadata and value of the next matching record were read */
+  private boolean readNextRecord() throws IOException {
+    JsonToken token = nextRecordToken();
+    while (token != null) {
+      if (token != JsonToken.START_OBJECT) {
+        throw new JsonParseException(parser, "Expected the start of a record, but got " + token);
+      }
+
+      if (readMeasuredRecord()) {
+        return true;
+      }
+
+      skippedCount++;
+      token = nextRecordToken();
+    }
+
+    return false;
+  }
+
+  private JsonToken nextRecordToken() throws IOException {
+    JsonToken token = parser.nextToken();
+    if (!started) {
+      started = true;
+      if (token == JsonToken.START_ARRAY) {
+        inArray = true;
+        token = parser.nextToken();
+      }
+    }
+
+    return inArray && token == JsonToken.END_ARRAY ? null : token;
+  }
+
+  /** Same as {@link #readRecord()}, reporting the record to the metrics listener if one is set. */
+  private boolean readMeasuredRecord() throws IOException {
+    final RecordMetricsListener listener = RecordMetrics.getListener();
+    if (listener == RecordMetricsListener.NONE) {
+      return readRecord();
+    }
+
+    final long start = System.nanoTime();
+    final long startOffset = RecordMetricsModule.offsetOf(parser.getTokenLocation());
+    final boolean accepted = readRecord();
+    final long nanos = System.nanoTime() - start;
+    final long bytes =
+        startOffset < 0
+            ? 0
+            : RecordMetricsModule.offsetOf(parser.getCurrentLocation()) - startOffset;
+    listener.onRecord(
+        RecordOperation.DESERIALIZE, metadata.getValueType(), metadata.getIntent(), nanos, bytes);
+    return accepted;
+  }
+
+  /**
+   * Reads the record the parser is on into the metadata and the value.
+   *
+   * @return true if it matches the filter, false otherwise
+   */
+  private boolean readRecord() throws IOException {
+    Boolean accepted = null;
+    TokenBuffer bufferedValue = null;
+
+    metadata.reset();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String field = parser.getCurrentName();
+      parser.nextToken();
+
+      if (!"value".equals(field)) {
+        metadata.readField(field, parser);
+      } else if (metadata.isComplete()) {
+        accepted = accept();
+        if (accepted) {
+          readValue(parser);
+        } else {
+          parser.skipChildren();
+        }
+      } else {
+        bufferedValue = new TokenBuffer(parser);
+        bufferedValue.copyCurrentStructure(parser);
+      }
+    }
+
+    if (accepted == null && bufferedValue != null) {
+      accepted = accept();
+      if (accepted) {
+        try (final JsonParser valueParser = bufferedValue.asParser()) {
+          valueParser.nextToken();
+          readValue(valueParser);
+        }
+      }
+    }
+
+    if (accepted == null) {
+      throw new JsonParseException(parser, "Expected the record to have a value, but it has none");
+    }
+
+    if (accepted && !metadata.hasRequiredFields()) {
+      throw new JsonParseException(parser, "Expected the record to have all required properties");
+    }
+
+    return accepted;
+  }
+
+  private boolean accept() throws IOException {
+    metadata.resolveIntent(parser);
+    return filter.test(metadata);
+  }
+
+  private void readValue(final JsonParser valueParser) throws IOException {
+    if (batch != null) {
+      batch.add(metadata, valueParser);
+    } else if (readingRawValue) {
+      copyRawValue(valueParser);
+    } else {
+      value = mapper.getValueReader(metadata.valueType).readValue(valueParser);
+    }
+  }
+
+  /** Copies the value the parser is on into the raw value buffer, reusing the same generator. */
+  private void copyRawValue(final JsonParser valueParser) throws IOException {
+    if (rawValueGenerator == null) {
+      rawValueBuffer = new RawValueBuffer();
+      rawValueGenerator = mapper.getObjectMapper().getFactory().createGenerator(rawValueBuffer);
+      // values are written one after the other as root values, but each one on its own
+      rawValueGenerator.setRootValueSeparator(null);
+    }
+
+    rawValueBuffer.reset();
+    rawValueGenerator.copyCurrentStructure(valueParser);
+    rawValueGenerator.flush();
+  }
+
+  private static final class RawValueBuffer extends ByteArrayOutputStream {
+    private byte[] bytes() {
+      return buf;
+    }
+  }
+
+  private static final class MutableRecordMetadata implements RecordMetadata {
+    private static final int POSITION = 1;
+    private static final int SOURCE_RECORD_POSITION = 1 << 1;
+    private static final int KEY = 1 << 2;
+    private static final int TIMESTAMP = 1 << 3;
+    private static final int PARTITION_ID = 1 << 4;
+    private static final int REJECTION_REASON = 1 << 5;
+    private static final int BROKER_VERSION = 1 << 6;
+    private static final int VALUE_TYPE = 1 << 7;
+    private static final int INTENT = 1 << 8;
+    private static final int RECORD_TYPE = 1 << 9;
+    private static final int REJECTION_TYPE = 1 << 10;
+
+    private static final int REQUIRED = (1 << 8) - 1;
+    private static final int ALL = (1 << 11) - 1;
+
+    private int readFields;
+    private long position;
+    private long sourceRecordPosition;
+    private long key;
+    private long timestamp;
+    private int partitionId;
+    private String rejectionReason;
+    private String brokerVersion;
+    private ValueType valueType;
+    private String intentName;
+    private Intent intent;
+    private RecordType recordType;
+    private RejectionType rejectionType;
+
+    private void reset() {
+      readFields = 0;
+      rejectionReason = null;
+      brokerVersion = null;
+      valueType = null;
+      intentName = null;
+      intent = Intent.UNKNOWN;
+      recordType = RecordType.NULL_VAL;
+      rejectionType = RejectionType.NULL_VAL;
+    }
+
+    private boolean isComplete() {
+      return readFields == ALL;
+    }
+
+    // allow  high cyclomatic complexity due to large switch case which is still easy to reason
+    // about
+    @SuppressWarnings({"java:S138", "java:S1541"})
+    private void readField(final String field, final JsonParser parser) throws IOException {
+      switch (field) {
+        case "position":
+          position = parser.getLongValue();
+          readFields |= POSITION;
+          break;
+        case "sourceRecordPosition":
+          sourceRecordPosition = parser.getLongValue();
+          readFields |= SOURCE_RECORD_POSITION;
+          break;
+        case "key":
+          key = parser.getLongValue();
+          readFields |= KEY;
+          break;
+        case "timestamp":
+          timestamp = parser.getLongValue();
+          readFields |= TIMESTAMP;
+          break;
+        case "partitionId":
+          partitionId = parser.getIntValue();
+          readFields |= PARTITION_ID;
+          break;
+        case "rejectionReason":
+          rejectionReason = parser.getValueAsString();
+          readFields |= REJECTION_REASON;
+          break;
+        case "brokerVersion":
+          brokerVersion = parser.getValueAsString();
+          readFields |= BROKER_VERSION;
+          break;
+        case "valueType":
+          valueType = ValueType.valueOf(parser.getText());
+          readFields |= VALUE_TYPE;
+          break;
+        case "intent":
+          intentName = parser.getText();
+          readFields |= INTENT;
+          break;
+        case "recordType":
+          recordType = RecordType.valueOf(parser.getText());
+          readFields |= RECORD_TYPE;
+          break;
+        case "rejectionType":
+          rejectionType = RejectionType.valueOf(parser.getText());
+          readFields |= REJECTION_TYPE;
+          break;
+        default:
+          parser.skipChildren();
+          break;
+      }
+    }
+
+    /** Resolves the intent, which can only be done once the value type is known. */
+    private void resolveIntent(final JsonParser parser) throws IOException {
+      if (intentName == null) {
+        return;
+      }
+
+      final ValueTypeMapping mapping =
+          valueType == null ? null : ValueTypeMapping.ofName(valueType.name());
+      intent = mapping == null ? Intent.UNKNOWN : mapping.getIntent(intentName);
+      if (intent == null) {
+        throw new JsonParseException(
+            parser, "Expected a known intent of value type " + valueType + ", got " + intentName);
+      }
+    }
+
+    private boolean hasRequiredFields() {
+      return (readFields & REQUIRED) == REQUIRED;
+    }
+
+    private ImmutableRecord<RecordValue> toRecord(final RecordValue value) {
+      return ImmutableRecord.<RecordValue>builder()
+          .position(position)
+          .sourceRecordPosition(sourceRecordPosition)
+          .key(key)
+          .timestamp(timestamp)
+          .partitionId(partitionId)
+          .rejectionReason(rejectionReason)
+          .brokerVersion(brokerVersion)
+          .valueType(valueType)
+          .intent(intent)
+          .recordType(recordType)
+          .rejectionType(rejectionType)
+          .value(value)
+          .build();
+    }
+
+    @Override
+    public long getPosition() {
+      return position;
+    }
+
+    @Override
+    public long getSourceRecordPosition() {
+      return sourceRecordPosition;
+    }
+
+    @Override
+    public long getKey() {
+      return key;
+    }
+
+    @Override
+    public long getTimestamp() {
+      return timestamp;
+    }
+
+    @Override
+    public Intent getIntent() {
+      return intent;
+    }
+
+    @Override
+    public int getPartitionId() {
+      return partitionId;
+    }
+
+    @Override
+    public RecordType getRecordType() {
+      return recordType;
+    }
+
+    @Override
+    public RejectionType getRejectionType() {
+      return rejectionType;
+    }
+
+    @Override
+    public String getRejectionReason() {
+      return rejectionReason;
+    }
+
+    @Override
+    public String getBrokerVersion() {
+      return brokerVersion;
+    }
+
+    @Override
+    public ValueType getValueType() {
+      return valueType;
+    }
+  }
+}
@@ -0,0 +1,407 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import io.zeebe.protocol.immutables.record.value.deployment.ImmutableDeploymentResource;
+import io.zeebe.protocol.immutables.record.value.deployment.ImmutableProcess;
+import io.zeebe.protocol.immutables.record.value.deployment.ImmutableProcessMetadata;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A content-addressed cache for deployment resources and process metadata, which are repeated in
+ * deployment and process records, across partitions and across redeployments of unchanged models.
+ *
+ * <p>Values passed to {@link #intern(Object)} are replaced by a previously interned equal value, if
+ * any. Processes are looked up by their checksum and identifying attributes, and deployment
+ * resources by their name, length and the content hash they computed when they were built, such
+ * that a lookup never hashes the resource bytes again; a hit is only taken if the bytes are
+ * actually equal. On top of that, deployment resources and processes with the same resource bytes
+ * share a single array, which is looked up by the resource checksum. The checksum of a process is
+ * taken as is, whereas the one of a deployment resource is computed as the MD5 digest of its bytes,
+ * as done by the broker, when it is first interned.
+ *
+ * <p>The cache is bounded by the approximate size of the interned values, where every shared array
+ * is counted once, and evicts the least recently used values first; an array is released with the
+ * last value which refers to it. The {@link ImmutableRecordCopier} and the JSON and binary
+ * deserializers use the {@link #getDefault() default cache}, which is {@link #disabled()} unless
+ * configured, e.g.
+ *
+ * <pre>{@code
+ * ResourceCache.setDefault(ResourceCache.bounded(64 * 1024 * 1024));
+ * }</pre>
+ */
+public final class ResourceCache {
+  private static final ResourceCache DISABLED = new ResourceCache(0);
+  private static final long ENTRY_WEIGHT = 64;
+
+  private static volatile ResourceCache defaultCache = DISABLED;
+
+  private final long maximumWeight;
+  private final Map<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<Checksum, Resource> resources = new HashMap<>();
+  private long weight;
+
+  private ResourceCache(final long maximumWeight) {
+    this.maximumWeight = maximumWeight;
+  }
+
+  /** @return a cache which never shares anything, and returns every value as is */
+  public static ResourceCache disabled() {
+    return DISABLED;
+  }
+
+  /**
+   * @param maximumWeight the approximate number of bytes which the interned values may retain
+   * @return a cache which evicts the least recently used values once they exceed the given weight
+   */
+  public static ResourceCache bounded(final long maximumWeight) {
+    if (maximumWeight <= 0) {
+      throw new IllegalArgumentException(
+          "Expected the maximum weight to be positive, but got " + maximumWeight);
+    }
+
+    return new ResourceCache(maximumWeight);
+  }
+
+  /** @return the cache used by the copier and the deserializers */
+  public static ResourceCache getDefault() {
+    return defaultCache;
+  }
+
+  /** Replaces the cache used by the copier and the deserializers. */
+  public static void setDefault(final ResourceCache cache) {
+    defaultCache = Objects.requireNonNull(cache, "must specify a cache");
+  }
+
+  /**
+   * Returns a previously interned value equal to the given one, or remembers and returns the given
+   * value, possibly with its resource bytes replaced by an equal shared array. Only the generated
+   * {@code ImmutableDeploymentResource}, {@code ImmutableProcess} and {@code
+   * ImmutableProcessMetadata} are interned; any other value is returned as is.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T intern(final T value) {
+    if (this == DISABLED) {
+      return value;
+    }
+
+    if (value instanceof ImmutableProcessMetadata) {
+      return (T) internProcessMetadata((ImmutableProcessMetadata) value);
+    } else if (value instanceof ImmutableProcess) {
+      return (T) internProcess((ImmutableProcess) value);
+    } else if (value instanceof ImmutableDeploymentResource) {
+      return (T) internDeploymentResource((ImmutableDeploymentResource) value);
+    }
+
+    return value;
+  }
+
+  /** @return the number of values and resource arrays held by the cache */
+  public synchronized int size() {
+    return entries.size() + resources.size();
+  }
+
+  /** @return the approximate number of bytes retained by the cache */
+  public synchronized long weight() {
+    return weight;
+  }
+
+  /** Evicts everything. */
+  public synchronized void clear() {
+    entries.clear();
+    resources.clear();
+    weight = 0;
+  }
+
+  private synchronized ImmutableProcessMetadata internProcessMetadata(
+      final ImmutableProcessMetadata metadata) {
+    final Entry existing = entries.get(metadata);
+    if (existing != null) {
+      return (ImmutableProcessMetadata) existing.value;
+    }
+
+    put(metadata, new Entry(metadata, ENTRY_WEIGHT, null));
+    return metadata;
+  }
+
+  private ImmutableProcess internProcess(final ImmutableProcess process) {
+    if (!ImmutableInstantiator.isSharingResources()) {
+      return process;
+    }
+
+    final byte[] resource = ImmutableInstantiator.resourceOf(process);
+    final byte[] checksum = process.getChecksum();
+    final ProcessKey key = new ProcessKey(process, checksum);
+    synchronized (this) {
+      final Entry existing = entries.get(key);
+      if (existing != null) {
+        final ImmutableProcess interned = (ImmutableProcess) existing.value;
+        return hasResource(existing, resource) ? interned : process;
+      }
+
+      final Resource shared = checksum != null ? share(new Checksum(checksum), resource) : null;
+      final ImmutableProcess canonical =
+          shared == null || shared.bytes == resource
+              ? process
+              : ImmutableInstantiator.newProcess(process, shared.bytes);
+      put(key, newEntry(canonical, resource, shared));
+      return canonical;
+    }
+  }
+
+  private ImmutableDeploymentResource internDeploymentResource(
+      final ImmutableDeploymentResource deploymentResource) {
+    if (!ImmutableInstantiator.isSharingResources()) {
+      return deploymentResource;
+    }
+
+    final byte[] resource = ImmutableInstantiator.resourceOf(deploymentResource);
+    final DeploymentResourceKey key = new DeploymentResourceKey(deploymentResource, resource);
+    final ImmutableDeploymentResource interned = lookUp(key, resource);
+    if (interned != null) {
+      return interned;
+    }
+
+    final Checksum checksum = resource != null ? new Checksum(digest(resource)) : null;
+    synchronized (this) {
+      final Entry existing = entries.get(key);
+      if (existing != null) {
+        return hasResource(existing, resource)
+            ? (ImmutableDeploymentResource) existing.value
+            : deploymentResource;
+      }
+
+      final Resource shared = checksum != null ? share(checksum, resource) : null;
+      final ImmutableDeploymentResource canonical =
+          shared == null || shared.bytes == resource
+              ? deploymentResource
+              : ImmutableInstantiator.newDeploymentResource(
+                  shared.bytes, deploymentResource.getResourceName());
+      put(key, newEntry(canonical, resource, shared));
+      return canonical;
+    }
+  }
+
+  private synchronized ImmutableDeploymentResource lookUp(
+      final DeploymentResourceKey key, final byte[] resource) {
+    final Entry existing = entries.get(key);
+    return existing != null && hasResource(existing, resource)
+        ? (ImmutableDeploymentResource) existing.value
+        : null;
+  }
+
+  /**
+   * Returns the shared array registered for the given checksum, or registers the given one. The
+   * caller must hand the result to {@link #newEntry}, which takes the reference.
+   */
+  private Resource share(final Checksum checksum, final byte[] resource) {
+    if (resource == null) {
+      return null;
+    }
+
+    final Resource existing = resources.get(checksum);
+    if (existing != null) {
+      return existing;
+    }
+
+    final Resource added = new Resource(checksum, resource);
+    resources.put(checksum, added);
+    weight += added.weight();
+    return added;
+  }
+
+  /** Only refers to the shared array if it is actually equal; the checksum is read from records. */
+  private Entry newEntry(final Object value, final byte[] resource, final Resource shared) {
+    if (shared != null && (shared.bytes == resource || Arrays.equals(shared.bytes, resource))) {
+      shared.references++;
+      return new Entry(value, ENTRY_WEIGHT, shared);
+    }
+
+    if (shared != null && shared.references == 0) {
+      release(shared);
+    }
+
+    return new Entry(value, resource != null ? ENTRY_WEIGHT + resource.length : ENTRY_WEIGHT, null);
+  }
+
+  private void put(final Object key, final Entry entry) {
+    entries.put(key, entry);
+    weight += entry.weight;
+
+    final Iterator<Entry> eldest = entries.values().iterator();
+    while (weight > maximumWeight && eldest.hasNext()) {
+      final Entry evicted = eldest.next();
+      eldest.remove();
+      weight -= evicted.weight;
+      if (evicted.resource != null && --evicted.resource.references == 0) {
+        release(evicted.resource);
+      }
+    }
+  }
+
+  private void release(final Resource resource) {
+    resources.remove(resource.checksum);
+    weight -= resource.weight();
+  }
+
+  private static boolean hasResource(final Entry entry, final byte[] resource) {
+    final byte[] interned =
+        entry.value instanceof ImmutableProcess
+            ? ImmutableInstantiator.resourceOf((ImmutableProcess) entry.value)
+            : ImmutableInstantiator.resourceOf((ImmutableDeploymentResource) entry.value);
+    return Arrays.equals(interned, resource);
+  }
+
+  private static byte[] digest(final byte[] resource) {
+    try {
+      return MessageDigest.getInstance("MD5").digest(resource);
+    } catch (final NoSuchAlgorithmException e) {
+      // every Java platform is required to support MD5
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static final class Entry {
+    private final Object value;
+    private final long weight;
+    private final Resource resource;
+
+    private Entry(final Object value, final long weight, final Resource resource) {
+      this.value = value;
+      this.weight = weight;
+      this.resource = resource;
+    }
+  }
+
+  /** A shared resource array, counted once and kept for as long as any entry refers to it. */
+  private static final class Resource {
+    private final Checksum checksum;
+    private final byte[] bytes;
+    private int references;
+
+    private Resource(final Checksum checksum, final byte[] bytes) {
+      this.checksum = checksum;
+      this.bytes = bytes;
+    }
+
+    private long weight() {
+      return ENTRY_WEIGHT + bytes.length;
+    }
+  }
+
+  private static final class ProcessKey {
+    private final String bpmnProcessId;
+    private final int version;
+    private final long processDefinitionKey;
+    private final String resourceName;
+    private final byte[] checksum;
+    private final int hashCode;
+
+    private ProcessKey(final ImmutableProcess process, final byte[] checksum) {
+      bpmnProcessId = process.getBpmnProcessId();
+      version = process.getVersion();
+      processDefinitionKey = process.getProcessDefinitionKey();
+      resourceName = process.getResourceName();
+      this.checksum = checksum;
+      int hash = Objects.hashCode(bpmnProcessId);
+      hash = 31 * hash + version;
+      hash = 31 * hash + Long.hashCode(processDefinitionKey);
+      hash = 31 * hash + Objects.hashCode(resourceName);
+      hashCode = 31 * hash + Arrays.hashCode(checksum);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      if (!(other instanceof ProcessKey)) {
+        return false;
+      }
+
+      final ProcessKey that = (ProcessKey) other;
+      return hashCode == that.hashCode
+          && version == that.version
+          && processDefinitionKey == that.processDefinitionKey
+          && Objects.equals(bpmnProcessId, that.bpmnProcessId)
+          && Objects.equals(resourceName, that.resourceName)
+          && Arrays.equals(checksum, that.checksum);
+    }
+  }
+
+  /**
+   * Uses the content hash which the generated class computed when it was built, so the bytes are
+   * not hashed again; equal keys do not imply equal bytes.
+   */
+  private static final class DeploymentResourceKey {
+    private final String resourceName;
+    private final int length;
+    private final int contentHash;
+
+    private DeploymentResourceKey(
+        final ImmutableDeploymentResource deploymentResource, final byte[] resource) {
+      resourceName = deploymentResource.getResourceName();
+      length = resource != null ? resource.length : -1;
+      contentHash = deploymentResource.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return contentHash;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      if (!(other instanceof DeploymentResourceKey)) {
+        return false;
+      }
+
+      final DeploymentResourceKey that = (DeploymentResourceKey) other;
+      return contentHash == that.contentHash
+          && length == that.length
+          && Objects.equals(resourceName, that.resourceName);
+    }
+  }
+
+  private static final class Checksum {
+    private final byte[] bytes;
+    private final int hashCode;
+
+    private Checksum(final byte[] bytes) {
+      this.bytes = bytes;
+      hashCode = Arrays.hashCode(bytes);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      return other instanceof Checksum && Arrays.equals(bytes, ((Checksum) other).bytes);
+    }
+  }
+}
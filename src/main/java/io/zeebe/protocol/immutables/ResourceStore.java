@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Holds the bytes of deployment resources outside of the Java heap, see {@link OffHeapResources}.
+ */
+@FunctionalInterface
+public interface ResourceStore {
+
+  /**
+   * Stores a copy of the given bytes and returns a read-only view of it. The view must stay valid
+   * for as long as it is referenced.
+   */
+  ByteBuffer store(byte[] resource);
+
+  /** @return a store which copies every resource into its own direct buffer */
+  static ResourceStore direct() {
+    return resource -> {
+      final ByteBuffer buffer = ByteBuffer.allocateDirect(resource.length);
+      buffer.put(resource).flip();
+      return buffer.asReadOnlyBuffer();
+    };
+  }
+
+  /**
+   * Returns a store which appends every resource to temporary spill files of 64 MiB in the given
+   * directory, and maps the written regions of the files into memory. Once 1 GiB are mapped,
+   * further resources are copied into direct buffers.
+   *
+   * @see MappedResourceStore
+   */
+  static MappedResourceStore mapped(final Path directory) throws IOException {
+    return mapped(
+        directory, MappedResourceStore.DEFAULT_SEGMENT_SIZE, MappedResourceStore.DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * Returns a store which appends every resource to temporary spill files in the given directory,
+   * and maps the written regions of the files into memory.
+   *
+   * @param segmentSize the size in bytes from which on a new spill file is started
+   * @param maxSize the number of bytes in spill files from which on resources are copied into
+   *     direct buffers instead, until the space of older spill files was reclaimed
+   * @see MappedResourceStore
+   */
+  static MappedResourceStore mapped(
+      final Path directory, final long segmentSize, final long maxSize) throws IOException {
+    return new MappedResourceStore(directory, segmentSize, maxSize);
+  }
+}
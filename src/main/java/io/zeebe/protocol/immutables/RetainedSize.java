@@ -0,0 +1,309 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.zeebe.protocol.immutables.record.value.RecordJsonCodec;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates the number of bytes retained by records, e.g. to bound caches or queues of records by
+ * their memory footprint rather than their count. The estimate walks the record and its value
+ * through the codecs generated for the types annotated with {@link GenerateJsonCodec}, without any
+ * reflection, and adds up the sizes of the objects it reaches: the immutable classes themselves,
+ * their strings, byte arrays, maps and lists, and the nested maps and lists of their variables.
+ *
+ * <p>The sizes are those of a 64-bit HotSpot JVM with compressed references and compact strings,
+ * i.e. a heap smaller than 32 GB: 12 bytes of object header, 4 bytes per reference, and objects
+ * aligned to 8 bytes. Collections are assumed to be sized exactly to their content, as built by the
+ * generated {@code Immutable*} classes.
+ *
+ * <p>Objects shared across records are counted by every record which references them, e.g.
+ * resources shared through the {@link ResourceCache}. The exceptions are objects which are shared
+ * by virtually all records, and are thus never counted: enum constants, booleans, empty strings,
+ * the cached boxes and empty collections of the JDK, and the string keys of maps, which Jackson
+ * interns when reading records. Resources held off-heap only count the buffer object referencing
+ * them.
+ */
+public final class RetainedSize {
+  private static final int HEADER = 12;
+  private static final int ARRAY_HEADER = 16;
+  private static final int REFERENCE = 4;
+  private static final int ALIGNMENT = 8;
+
+  private static final long STRING = ofInstance(0, 1, 1, 1);
+  private static final long BOX = ofInstance(1, 0, 0, 0);
+  private static final long UNKNOWN = ofInstance(0, 0, 0, 0);
+  private static final long BIG_INTEGER = ofInstance(0, 5, 0, 1);
+  private static final long BIG_DECIMAL = ofInstance(1, 2, 0, 2);
+  // a direct buffer: Buffer, ByteBuffer and DirectByteBuffer fields
+  private static final long BYTE_BUFFER = ofInstance(1, 5, 3, 4);
+
+  private static final Class<?> UNMODIFIABLE_MAP = Collections.unmodifiableMap(Map.of()).getClass();
+  private static final Class<?> SINGLETON_MAP = Collections.singletonMap(1, 1).getClass();
+  private static final Class<?> IMMUTABLE_MAP_1 = Map.of(1, 1).getClass();
+  private static final Class<?> IMMUTABLE_MAP_N = Map.of(1, 1, 2, 2).getClass();
+  private static final long UNMODIFIABLE_MAP_SIZE = ofInstance(0, 0, 0, 4);
+  private static final long SINGLETON_MAP_SIZE = ofInstance(0, 0, 0, 5);
+  private static final long IMMUTABLE_MAP_1_SIZE = ofInstance(0, 0, 0, 4);
+  private static final long IMMUTABLE_MAP_N_SIZE = ofInstance(0, 1, 0, 3);
+  private static final long HASH_MAP_SIZE = ofInstance(0, 4, 0, 4);
+  private static final long HASH_MAP_NODE = ofInstance(0, 1, 0, 3);
+  private static final long LINKED_HASH_MAP_SIZE = ofInstance(0, 4, 1, 6);
+  private static final long LINKED_HASH_MAP_ENTRY = ofInstance(0, 1, 0, 5);
+
+  private static final Class<?> UNMODIFIABLE_LIST =
+      Collections.unmodifiableList(new ArrayList<>()).getClass();
+  private static final Class<?> SINGLETON_LIST = Collections.singletonList(1).getClass();
+  private static final Class<?> IMMUTABLE_LIST_12 = List.of(1).getClass();
+  private static final Class<?> IMMUTABLE_LIST_N = List.of(1, 2, 3).getClass();
+  private static final Class<?> ARRAYS_LIST = Arrays.asList(1, 2).getClass();
+  private static final long UNMODIFIABLE_LIST_SIZE = ofInstance(0, 0, 0, 2);
+  private static final long SINGLETON_LIST_SIZE = ofInstance(0, 0, 0, 1);
+  private static final long IMMUTABLE_LIST_12_SIZE = ofInstance(0, 0, 0, 2);
+  private static final long IMMUTABLE_LIST_N_SIZE = ofInstance(0, 0, 0, 1);
+  private static final long ARRAYS_LIST_SIZE = ofInstance(0, 0, 0, 1);
+  private static final long ARRAY_LIST_SIZE = ofInstance(0, 2, 0, 1);
+
+  private RetainedSize() {}
+
+  /** @return the approximate number of bytes retained by the given record and its value */
+  public static long of(final Record<?> record) {
+    return RecordJsonCodec.retainedSize(record);
+  }
+
+  /**
+   * @return the approximate number of bytes retained by the given value of the given type, or 0 if
+   *     it is null
+   * @throws IllegalArgumentException if the value type is not supported
+   */
+  public static long ofValue(final ValueType valueType, final RecordValue value) {
+    return value == null ? 0 : ValueTypeMapping.of(valueType).retainedSize(value);
+  }
+
+  /**
+   * @return the size of an object with the given number of fields of 8 bytes, 4 bytes, 1 byte and
+   *     of references, e.g. the shallow size of a generated {@code Immutable*} class
+   */
+  public static long ofInstance(
+      final int longs, final int ints, final int bytes, final int references) {
+    return align(HEADER + longs * 8L + ints * 4L + bytes + references * (long) REFERENCE);
+  }
+
+  /** @return the size of the given string, including its array */
+  public static long ofString(final String value) {
+    if (value == null || value.isEmpty()) {
+      // empty strings are usually the interned literal, as returned by Jackson
+      return 0;
+    }
+
+    return STRING + align(ARRAY_HEADER + (long) value.length() * (isLatin1(value) ? 1 : 2));
+  }
+
+  public static long ofBytes(final byte[] value) {
+    return value == null ? 0 : align(ARRAY_HEADER + (long) value.length);
+  }
+
+  /** @return the size of a buffer object, plus its array if it is a heap buffer */
+  public static long ofBuffer(final ByteBuffer value) {
+    if (value == null) {
+      return 0;
+    }
+
+    return BYTE_BUFFER + (value.isDirect() ? 0 : align(ARRAY_HEADER + (long) value.capacity()));
+  }
+
+  /** @return the size of the given map, including its keys and values */
+  public static long ofMap(final Map<?, ?> map) {
+    if (map == null) {
+      return 0;
+    } else if (map.isEmpty()) {
+      // empty immutable maps are shared, and empty hash maps have no table yet
+      return map instanceof LinkedHashMap
+          ? LINKED_HASH_MAP_SIZE
+          : map instanceof HashMap ? HASH_MAP_SIZE : 0;
+    }
+
+    if (map instanceof LazyJsonMap) {
+      return ((LazyJsonMap) map).retainedSize();
+    }
+
+    if (map.getClass() == UNMODIFIABLE_MAP) {
+      // the wrapped map is not accessible, assume the one built by the generated classes
+      return UNMODIFIABLE_MAP_SIZE + ofHashMap(map, LINKED_HASH_MAP_SIZE, LINKED_HASH_MAP_ENTRY);
+    }
+
+    final long size;
+    if (map.getClass() == IMMUTABLE_MAP_1) {
+      size = IMMUTABLE_MAP_1_SIZE;
+    } else if (map.getClass() == IMMUTABLE_MAP_N) {
+      // entries are stored in a table twice the size of the keys and values
+      size = IMMUTABLE_MAP_N_SIZE + ofReferences(4L * map.size());
+    } else if (map.getClass() == SINGLETON_MAP) {
+      size = SINGLETON_MAP_SIZE;
+    } else if (map instanceof LinkedHashMap) {
+      return ofHashMap(map, LINKED_HASH_MAP_SIZE, LINKED_HASH_MAP_ENTRY);
+    } else {
+      return ofHashMap(map, HASH_MAP_SIZE, HASH_MAP_NODE);
+    }
+
+    return size + ofEntries(map);
+  }
+
+  /** @return the size of the given list, including its elements */
+  public static long ofList(final List<?> list) {
+    long size = ofListStructure(list);
+    if (size > 0) {
+      for (final Object element : list) {
+        size += ofUntyped(element);
+      }
+    }
+
+    return size;
+  }
+
+  /**
+   * @return the size of the given list without its elements, for lists whose elements are estimated
+   *     by their own codec
+   */
+  public static long ofListStructure(final List<?> list) {
+    if (list == null) {
+      return 0;
+    } else if (list.isEmpty()) {
+      // empty immutable lists are shared, and empty array lists share an empty array
+      return list instanceof ArrayList ? ARRAY_LIST_SIZE : 0;
+    }
+
+    final Class<?> type = list.getClass();
+    if (type == IMMUTABLE_LIST_12) {
+      return IMMUTABLE_LIST_12_SIZE;
+    } else if (type == IMMUTABLE_LIST_N) {
+      return IMMUTABLE_LIST_N_SIZE + ofReferences(list.size());
+    } else if (type == SINGLETON_LIST) {
+      return SINGLETON_LIST_SIZE;
+    } else if (type == UNMODIFIABLE_LIST) {
+      // the wrapped list is not accessible, assume the one built by the generated classes
+      return UNMODIFIABLE_LIST_SIZE + ARRAY_LIST_SIZE + ofReferences(list.size());
+    } else if (type == ARRAYS_LIST) {
+      return ARRAYS_LIST_SIZE + ofReferences(list.size());
+    }
+
+    return ARRAY_LIST_SIZE + ofReferences(list.size());
+  }
+
+  /**
+   * @param value a typed attribute, i.e. a record value or an intent
+   * @param type the type of the attribute, i.e. the value type of the record
+   * @return the size of the given record value, or 0 for anything else
+   */
+  public static long ofTyped(final Object value, final Object type) {
+    if (value instanceof RecordValue && type instanceof ValueType) {
+      return ofValue((ValueType) type, (RecordValue) value);
+    }
+
+    return 0;
+  }
+
+  /** @return the size of an untyped value, e.g. of a variable */
+  public static long ofUntyped(final Object value) {
+    if (value == null || value instanceof Boolean || value instanceof Enum) {
+      return 0;
+    } else if (value instanceof String) {
+      return ofString((String) value);
+    } else if (value instanceof Map) {
+      return ofMap((Map<?, ?>) value);
+    } else if (value instanceof List) {
+      return ofList((List<?>) value);
+    } else if (value instanceof Integer || value instanceof Long) {
+      final long number = ((Number) value).longValue();
+      return number >= -128 && number <= 127 ? 0 : BOX;
+    } else if (value instanceof BigInteger) {
+      // the magnitude is an int array
+      return BIG_INTEGER + align(ARRAY_HEADER + (((BigInteger) value).bitLength() + 31) / 32 * 4L);
+    } else if (value instanceof BigDecimal) {
+      return BIG_DECIMAL;
+    } else if (value instanceof Number) {
+      return BOX;
+    } else if (value instanceof byte[]) {
+      return ofBytes((byte[]) value);
+    }
+
+    return UNKNOWN;
+  }
+
+  private static long ofHashMap(final Map<?, ?> map, final long size, final long entry) {
+    // the table grows by doubling from 16 entries, once it is more than three quarters full
+    int capacity = 16;
+    while (map.size() > capacity / 4 * 3) {
+      capacity <<= 1;
+    }
+
+    return size + ofReferences(capacity) + map.size() * entry + ofEntries(map);
+  }
+
+  private static long ofEntries(final Map<?, ?> map) {
+    long size = 0;
+    for (final Map.Entry<?, ?> entry : map.entrySet()) {
+      size += ofKey(entry.getKey()) + ofUntyped(entry.getValue());
+    }
+
+    return size;
+  }
+
+  private static long ofKey(final Object key) {
+    // Jackson interns the field names it reads, such that keys are shared by all maps read
+    return key instanceof String ? 0 : ofUntyped(key);
+  }
+
+  private static long ofReferences(final long count) {
+    return align(ARRAY_HEADER + count * REFERENCE);
+  }
+
+  private static boolean isLatin1(final String value) {
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) > 0xFF) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static long align(final long size) {
+    return (size + ALIGNMENT - 1) & -ALIGNMENT;
+  }
+
+  /**
+   * Implemented by values which are not {@code Immutable*} classes, e.g. off-heap resources, which
+   * the generated codecs cannot estimate from their attributes.
+   */
+  public interface Estimable {
+
+    /** @return the approximate number of bytes retained by this value, see {@link RetainedSize} */
+    long estimateRetainedSize();
+  }
+}
@@ -0,0 +1,415 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.DeploymentDistributionIntent;
+import io.camunda.zeebe.protocol.record.intent.DeploymentIntent;
+import io.camunda.zeebe.protocol.record.intent.ErrorIntent;
+import io.camunda.zeebe.protocol.record.intent.IncidentIntent;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import io.camunda.zeebe.protocol.record.intent.JobBatchIntent;
+import io.camunda.zeebe.protocol.record.intent.JobIntent;
+import io.camunda.zeebe.protocol.record.intent.MessageIntent;
+import io.camunda.zeebe.protocol.record.intent.MessageStartEventSubscriptionIntent;
+import io.camunda.zeebe.protocol.record.intent.MessageSubscriptionIntent;
+import io.camunda.zeebe.protocol.record.intent.ProcessEventIntent;
+import io.camunda.zeebe.protocol.record.intent.ProcessInstanceCreationIntent;
+import io.camunda.zeebe.protocol.record.intent.ProcessInstanceIntent;
+import io.camunda.zeebe.protocol.record.intent.ProcessInstanceResultIntent;
+import io.camunda.zeebe.protocol.record.intent.ProcessIntent;
+import io.camunda.zeebe.protocol.record.intent.ProcessMessageSubscriptionIntent;
+import io.camunda.zeebe.protocol.record.intent.TimerIntent;
+import io.camunda.zeebe.protocol.record.intent.VariableDocumentIntent;
+import io.camunda.zeebe.protocol.record.intent.VariableIntent;
+import io.camunda.zeebe.protocol.record.value.DeploymentDistributionRecordValue;
+import io.camunda.zeebe.protocol.record.value.DeploymentRecordValue;
+import io.camunda.zeebe.protocol.record.value.ErrorRecordValue;
+import io.camunda.zeebe.protocol.record.value.IncidentRecordValue;
+import io.camunda.zeebe.protocol.record.value.JobBatchRecordValue;
+import io.camunda.zeebe.protocol.record.value.JobRecordValue;
+import io.camunda.zeebe.protocol.record.value.MessageRecordValue;
+import io.camunda.zeebe.protocol.record.value.MessageStartEventSubscriptionRecordValue;
+import io.camunda.zeebe.protocol.record.value.MessageSubscriptionRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessEventRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceCreationRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceResultRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessMessageSubscriptionRecordValue;
+import io.camunda.zeebe.protocol.record.value.TimerRecordValue;
+import io.camunda.zeebe.protocol.record.value.VariableDocumentRecordValue;
+import io.camunda.zeebe.protocol.record.value.VariableRecordValue;
+import io.camunda.zeebe.protocol.record.value.deployment.Process;
+import io.zeebe.protocol.immutables.record.value.DeploymentDistributionRecordValueJsonCodec;
+import io.zeebe.protocol.immutables.record.value.DeploymentRecordValueJsonCodec;
+import io.zeebe.protocol.immutables.record.value.ErrorRecordValueJsonCodec;
+import io.zeebe.protocol.immutables.record.value.ImmutableDeploymentDistributionRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableDeploymentRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableErrorRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableIncidentRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableJobBatchRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableJobRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableMessageRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableMessageStartEventSubscriptionRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableMessageSubscriptionRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableProcessEventRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableProcessInstanceCreationRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableProcessInstanceRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableProcessInstanceResultRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableProcessMessageSubscriptionRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableTimerRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableVariableDocumentRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableVariableRecordValue;
+import io.zeebe.protocol.immutables.record.value.IncidentRecordValueJsonCodec;
+import io.zeebe.protocol.immutables.record.value.JobBatchRecordValueJsonCodec;
+import io.zeebe.protocol.immutables.record.value.JobRecordValueJsonCodec;
+import io.zeebe.protocol.immutables.record.value.MessageRecordValueJsonCodec;
+import io.zeebe.protocol.immutables.record.value.MessageStartEventSubscriptionRecordValueJsonCodec;
+import io.zeebe.protocol.immutables.record.value.MessageSubscriptionRecordValueJsonCodec;
+import io.zeebe.protocol.immutables.record.value.ProcessEventRecordValueJsonCodec;
+import io.zeebe.protocol.immutables.record.value.ProcessInstanceCreationRecordValueJsonCodec;
+import io.zeebe.protocol.immutables.record.value.ProcessInstanceRecordValueJsonCodec;
+import io.zeebe.protocol.immutables.record.value.ProcessInstanceResultRecordValueJsonCodec;
+import io.zeebe.protocol.immutables.record.value.ProcessMessageSubscriptionRecordValueJsonCodec;
+import io.zeebe.protocol.immutables.record.value.TimerRecordValueJsonCodec;
+import io.zeebe.protocol.immutables.record.value.VariableDocumentRecordValueJsonCodec;
+import io.zeebe.protocol.immutables.record.value.VariableRecordValueJsonCodec;
+import io.zeebe.protocol.immutables.record.value.deployment.ImmutableProcess;
+import io.zeebe.protocol.immutables.record.value.deployment.OffHeapProcess;
+import io.zeebe.protocol.immutables.record.value.deployment.ProcessJsonCodec;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Describes how a {@link ValueType} maps to the types of this library: the immutable class of its
+ * record values, the enum of its intents, how to deep copy its values and how to estimate their
+ * size. This is the single place to update when a new value type is added to the protocol - the
+ * copier, the JSON type resolvers and the record generator all look up their types here.
+ *
+ * <p>The mappings are computed once, and looking them up (by value type or by name) does not
+ * allocate.
+ */
+public final class ValueTypeMapping {
+
+  private static final Map<ValueType, ValueTypeMapping> MAPPINGS = new EnumMap<>(ValueType.class);
+  private static final Map<String, ValueTypeMapping> MAPPINGS_BY_NAME = new HashMap<>();
+  private static final Set<ValueType> SUPPORTED_VALUE_TYPES =
+      Collections.unmodifiableSet(MAPPINGS.keySet());
+
+  static {
+    register(
+        ValueType.JOB,
+        ImmutableJobRecordValue.class,
+        JobIntent.class,
+        JobRecordValueJsonCodec::retainedSize,
+        (JobRecordValue v, CopyCache cache) ->
+            ImmutableRecordCopier.deepCopyOfJobRecordValue(v, cache));
+    register(
+        ValueType.DEPLOYMENT,
+        ImmutableDeploymentRecordValue.class,
+        DeploymentIntent.class,
+        DeploymentRecordValueJsonCodec::retainedSize,
+        (DeploymentRecordValue v, CopyCache cache) ->
+            ImmutableRecordCopier.deepCopyOfDeploymentRecordValue(v, cache));
+    register(
+        ValueType.PROCESS_INSTANCE,
+        ImmutableProcessInstanceRecordValue.class,
+        ProcessInstanceIntent.class,
+        ProcessInstanceRecordValueJsonCodec::retainedSize,
+        flatCopy(
+            ImmutableProcessInstanceRecordValue.class,
+            (ProcessInstanceRecordValue v) ->
+                ImmutableProcessInstanceRecordValue.builder().from(v).build()));
+    register(
+        ValueType.INCIDENT,
+        ImmutableIncidentRecordValue.class,
+        IncidentIntent.class,
+        IncidentRecordValueJsonCodec::retainedSize,
+        flatCopy(
+            ImmutableIncidentRecordValue.class,
+            (IncidentRecordValue v) -> ImmutableIncidentRecordValue.builder().from(v).build()));
+    register(
+        ValueType.MESSAGE,
+        ImmutableMessageRecordValue.class,
+        MessageIntent.class,
+        MessageRecordValueJsonCodec::retainedSize,
+        flatCopy(
+            ImmutableMessageRecordValue.class,
+            (MessageRecordValue v) -> ImmutableMessageRecordValue.builder().from(v).build()));
+    register(
+        ValueType.MESSAGE_SUBSCRIPTION,
+        ImmutableMessageSubscriptionRecordValue.class,
+        MessageSubscriptionIntent.class,
+        MessageSubscriptionRecordValueJsonCodec::retainedSize,
+        flatCopy(
+            ImmutableMessageSubscriptionRecordValue.class,
+            (MessageSubscriptionRecordValue v) ->
+                ImmutableMessageSubscriptionRecordValue.builder().from(v).build()));
+    register(
+        ValueType.PROCESS_MESSAGE_SUBSCRIPTION,
+        ImmutableProcessMessageSubscriptionRecordValue.class,
+        ProcessMessageSubscriptionIntent.class,
+        ProcessMessageSubscriptionRecordValueJsonCodec::retainedSize,
+        flatCopy(
+            ImmutableProcessMessageSubscriptionRecordValue.class,
+            (ProcessMessageSubscriptionRecordValue v) ->
+                ImmutableProcessMessageSubscriptionRecordValue.builder().from(v).build()));
+    register(
+        ValueType.JOB_BATCH,
+        ImmutableJobBatchRecordValue.class,
+        JobBatchIntent.class,
+        JobBatchRecordValueJsonCodec::retainedSize,
+        (JobBatchRecordValue v, CopyCache cache) ->
+            ImmutableRecordCopier.deepCopyOfJobBatchRecordValue(v, cache));
+    register(
+        ValueType.TIMER,
+        ImmutableTimerRecordValue.class,
+        TimerIntent.class,
+        TimerRecordValueJsonCodec::retainedSize,
+        flatCopy(
+            ImmutableTimerRecordValue.class,
+            (TimerRecordValue v) -> ImmutableTimerRecordValue.builder().from(v).build()));
+    register(
+        ValueType.MESSAGE_START_EVENT_SUBSCRIPTION,
+        ImmutableMessageStartEventSubscriptionRecordValue.class,
+        MessageStartEventSubscriptionIntent.class,
+        MessageStartEventSubscriptionRecordValueJsonCodec::retainedSize,
+        flatCopy(
+            ImmutableMessageStartEventSubscriptionRecordValue.class,
+            (MessageStartEventSubscriptionRecordValue v) ->
+                ImmutableMessageStartEventSubscriptionRecordValue.builder().from(v).build()));
+    register(
+        ValueType.VARIABLE,
+        ImmutableVariableRecordValue.class,
+        VariableIntent.class,
+        VariableRecordValueJsonCodec::retainedSize,
+        flatCopy(
+            ImmutableVariableRecordValue.class,
+            (VariableRecordValue v) -> ImmutableVariableRecordValue.builder().from(v).build()));
+    register(
+        ValueType.VARIABLE_DOCUMENT,
+        ImmutableVariableDocumentRecordValue.class,
+        VariableDocumentIntent.class,
+        VariableDocumentRecordValueJsonCodec::retainedSize,
+        flatCopy(
+            ImmutableVariableDocumentRecordValue.class,
+            (VariableDocumentRecordValue v) ->
+                ImmutableVariableDocumentRecordValue.builder().from(v).build()));
+    register(
+        ValueType.PROCESS_INSTANCE_CREATION,
+        ImmutableProcessInstanceCreationRecordValue.class,
+        ProcessInstanceCreationIntent.class,
+        ProcessInstanceCreationRecordValueJsonCodec::retainedSize,
+        flatCopy(
+            ImmutableProcessInstanceCreationRecordValue.class,
+            (ProcessInstanceCreationRecordValue v) ->
+                ImmutableProcessInstanceCreationRecordValue.builder().from(v).build()));
+    register(
+        ValueType.ERROR,
+        ImmutableErrorRecordValue.class,
+        ErrorIntent.class,
+        ErrorRecordValueJsonCodec::retainedSize,
+        flatCopy(
+            ImmutableErrorRecordValue.class,
+            (ErrorRecordValue v) -> ImmutableErrorRecordValue.builder().from(v).build()));
+    register(
+        ValueType.PROCESS_INSTANCE_RESULT,
+        ImmutableProcessInstanceResultRecordValue.class,
+        ProcessInstanceResultIntent.class,
+        ProcessInstanceResultRecordValueJsonCodec::retainedSize,
+        flatCopy(
+            ImmutableProcessInstanceResultRecordValue.class,
+            (ProcessInstanceResultRecordValue v) ->
+                ImmutableProcessInstanceResultRecordValue.builder().from(v).build()));
+    register(
+        ValueType.PROCESS,
+        ImmutableProcess.class,
+        ProcessIntent.class,
+        ProcessJsonCodec::retainedSize,
+        (Process value, CopyCache cache) ->
+            value instanceof OffHeapProcess
+                ? value
+                : ImmutableRecordCopier.copyIfMutable(
+                    value,
+                    ImmutableProcess.class,
+                    v ->
+                        ResourceCache.getDefault()
+                            .intern(ImmutableProcess.builder().from(v).build()),
+                    cache));
+    register(
+        ValueType.DEPLOYMENT_DISTRIBUTION,
+        ImmutableDeploymentDistributionRecordValue.class,
+        DeploymentDistributionIntent.class,
+        DeploymentDistributionRecordValueJsonCodec::retainedSize,
+        flatCopy(
+            ImmutableDeploymentDistributionRecordValue.class,
+            (DeploymentDistributionRecordValue v) ->
+                ImmutableDeploymentDistributionRecordValue.builder().from(v).build()));
+    register(
+        ValueType.PROCESS_EVENT,
+        ImmutableProcessEventRecordValue.class,
+        ProcessEventIntent.class,
+        ProcessEventRecordValueJsonCodec::retainedSize,
+        flatCopy(
+            ImmutableProcessEventRecordValue.class,
+            (ProcessEventRecordValue v) ->
+                ImmutableProcessEventRecordValue.builder().from(v).build()));
+  }
+
+  private final ValueType valueType;
+  private final Class<? extends RecordValue> immutableClass;
+  private final JavaType immutableJavaType;
+  private final Class<? extends Enum<? extends Intent>> intentClass;
+  private final JavaType intentJavaType;
+  private final List<Intent> intents;
+  private final Map<String, Intent> intentsByName;
+  private final ToLongFunction<RecordValue> sizer;
+  private final Copier<RecordValue> copier;
+
+  private ValueTypeMapping(
+      final ValueType valueType,
+      final Class<? extends RecordValue> immutableClass,
+      final Class<? extends Enum<? extends Intent>> intentClass,
+      final ToLongFunction<RecordValue> sizer,
+      final Copier<RecordValue> copier) {
+    final TypeFactory typeFactory = TypeFactory.defaultInstance();
+
+    this.valueType = valueType;
+    this.immutableClass = immutableClass;
+    this.intentClass = intentClass;
+    this.sizer = sizer;
+    this.copier = copier;
+    immutableJavaType = typeFactory.constructType(immutableClass);
+    intentJavaType = typeFactory.constructType(intentClass);
+    intents = List.of((Intent[]) intentClass.getEnumConstants());
+    intentsByName = new HashMap<>();
+    for (final Intent intent : intents) {
+      intentsByName.put(((Enum<?>) intent).name(), intent);
+    }
+  }
+
+  /**
+   * @return the mapping of the given value type
+   * @throws IllegalArgumentException if the value type is not supported, e.g. {@link
+   *     ValueType#SBE_UNKNOWN}
+   */
+  public static ValueTypeMapping of(final ValueType valueType) {
+    final ValueTypeMapping mapping = MAPPINGS.get(valueType);
+    if (mapping == null) {
+      throw new IllegalArgumentException("Unknown value type " + valueType);
+    }
+
+    return mapping;
+  }
+
+  /**
+   * @return the mapping of the value type with the given {@link ValueType#name()}, or null if there
+   *     is no such value type or if it is not supported
+   */
+  public static ValueTypeMapping ofName(final String name) {
+    return MAPPINGS_BY_NAME.get(name);
+  }
+
+  /** @return every value type which has a mapping, i.e. all except the special ones */
+  public static Set<ValueType> getSupportedValueTypes() {
+    return SUPPORTED_VALUE_TYPES;
+  }
+
+  public ValueType getValueType() {
+    return valueType;
+  }
+
+  /** @return the {@code Immutable*} class used for the values of this type */
+  public Class<? extends RecordValue> getImmutableClass() {
+    return immutableClass;
+  }
+
+  /** @return the {@link #getImmutableClass()} as resolved by the default Jackson type factory */
+  public JavaType getImmutableJavaType() {
+    return immutableJavaType;
+  }
+
+  /** @return the enum of the intents of this type */
+  public Class<? extends Enum<? extends Intent>> getIntentClass() {
+    return intentClass;
+  }
+
+  /** @return the {@link #getIntentClass()} as resolved by the default Jackson type factory */
+  public JavaType getIntentJavaType() {
+    return intentJavaType;
+  }
+
+  /** @return all intents of this type, in declaration order */
+  public List<Intent> getIntents() {
+    return intents;
+  }
+
+  /** @return the intent of this type with the given name, or null if there is no such intent */
+  public Intent getIntent(final String name) {
+    return intentsByName.get(name);
+  }
+
+  /** Deep copies the given value of this type, see {@link ImmutableRecordCopier}. */
+  RecordValue copy(final RecordValue value, final CopyCache cache) {
+    return copier.copy(value, cache);
+  }
+
+  /**
+   * Estimates the number of bytes retained by the given value of this type, see {@link
+   * RetainedSize}.
+   */
+  long retainedSize(final RecordValue value) {
+    return sizer.applyAsLong(value);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T extends RecordValue> void register(
+      final ValueType valueType,
+      final Class<? extends T> immutableClass,
+      final Class<? extends Enum<? extends Intent>> intentClass,
+      final ToLongFunction<T> sizer,
+      final Copier<T> copier) {
+    final ValueTypeMapping mapping =
+        new ValueTypeMapping(
+            valueType,
+            immutableClass,
+            intentClass,
+            (ToLongFunction<RecordValue>) sizer,
+            (Copier<RecordValue>) copier);
+    MAPPINGS.put(valueType, mapping);
+    MAPPINGS_BY_NAME.put(valueType.name(), mapping);
+  }
+
+  private static <T extends RecordValue, I extends T> Copier<T> flatCopy(
+      final Class<I> immutableClass, final Function<T, I> copier) {
+    return (value, cache) ->
+        ImmutableRecordCopier.copyIfMutable(value, immutableClass, copier, cache);
+  }
+
+  @FunctionalInterface
+  private interface Copier<T extends RecordValue> {
+    T copy(T value, CopyCache cache);
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.codec;
+
+/** Tags written in front of arbitrary values, e.g. variables, to preserve their Java type. */
+final class AnyType {
+  static final int NULL = 0;
+  static final int FALSE = 1;
+  static final int TRUE = 2;
+  static final int INT = 3;
+  static final int LONG = 4;
+  static final int DOUBLE = 5;
+  static final int STRING = 6;
+  static final int MAP = 7;
+  static final int LIST = 8;
+  static final int FLOAT = 9;
+  static final int BIG_INTEGER = 10;
+  static final int BIG_DECIMAL = 11;
+
+  private AnyType() {}
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Buffered reader of the primitives written by {@link BinaryOutput}. */
+final class BinaryInput implements FieldInput {
+  private final InputStream input;
+  private final byte[] buffer;
+  private final List<String> strings = new ArrayList<>();
+  private int position;
+  private int limit;
+
+  BinaryInput(final InputStream input, final int bufferSize) {
+    this.input = input;
+    buffer = new byte[bufferSize];
+  }
+
+  /** Forgets all strings read so far, mirroring {@link BinaryOutput#clearStrings()}. */
+  void clearStrings() {
+    strings.clear();
+  }
+
+  /** @return true if there is nothing left to read */
+  boolean isAtEnd() throws IOException {
+    return position == limit && !fillBuffer();
+  }
+
+  int readByte() throws IOException {
+    if (position == limit && !fillBuffer()) {
+      throw new EOFException("Expected more bytes, but reached the end of the stream");
+    }
+
+    return buffer[position++] & 0xFF;
+  }
+
+  @Override
+  public boolean readBoolean() throws IOException {
+    return readByte() != 0;
+  }
+
+  @Override
+  public long readLong() throws IOException {
+    final long value = readUnsignedLong();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  @Override
+  public int readInt() throws IOException {
+    return (int) readLong();
+  }
+
+  @Override
+  public long readUnsignedLong() throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      final int current = readByte();
+      value |= (long) (current & 0x7F) << shift;
+      if ((current & 0x80) == 0) {
+        return value;
+      }
+    }
+
+    throw new IOException("Expected a variable length integer of at most 10 bytes");
+  }
+
+  double readDouble() throws IOException {
+    long bits = 0;
+    for (int i = 0; i < Long.BYTES; i++) {
+      bits = (bits << 8) | readByte();
+    }
+
+    return Double.longBitsToDouble(bits);
+  }
+
+  float readFloat() throws IOException {
+    int bits = 0;
+    for (int i = 0; i < Integer.BYTES; i++) {
+      bits = (bits << 8) | readByte();
+    }
+
+    return Float.intBitsToFloat(bits);
+  }
+
+  @Override
+  public byte[] readBytes() throws IOException {
+    final int length = readLength();
+    if (length == 0) {
+      return null;
+    }
+
+    final byte[] bytes = new byte[length - 1];
+    readRaw(bytes);
+    return bytes;
+  }
+
+  @Override
+  public String readString() throws IOException {
+    final long header = readUnsignedLong();
+    if (header == 0) {
+      return null;
+    }
+
+    if ((header & 1) == 1) {
+      final long index = header >>> 1;
+      if (index >= strings.size()) {
+        throw new IOException("Expected a reference to a known string, got " + index);
+      }
+
+      return strings.get((int) index);
+    }
+
+    final byte[] bytes = new byte[(int) (header >>> 1) - 1];
+    readRaw(bytes);
+    final String value = new String(bytes, StandardCharsets.UTF_8);
+    if (StringTable.shouldAdd(bytes.length, strings.size())) {
+      strings.add(value);
+    }
+
+    return value;
+  }
+
+  @Override
+  public Map<String, String> readStringMap() throws IOException {
+    final int size = readLength();
+    final Map<String, String> map = new LinkedHashMap<>();
+    for (int i = 0; i < size; i++) {
+      map.put(readString(), readString());
+    }
+
+    return map;
+  }
+
+  @Override
+  public <T extends Enum<T>> T readEnum(final T[] values) throws IOException {
+    final int ordinal = readLength();
+    if (ordinal == 0) {
+      return null;
+    }
+
+    if (ordinal > values.length) {
+      throw new IOException("Expected an ordinal lower than " + values.length + ", got " + ordinal);
+    }
+
+    return values[ordinal - 1];
+  }
+
+  /** Reads a value written by {@link BinaryOutput#writeAny(Object)}. */
+  Object readAny() throws IOException {
+    final int type = readByte();
+    switch (type) {
+      case AnyType.NULL:
+        return null;
+      case AnyType.FALSE:
+        return Boolean.FALSE;
+      case AnyType.TRUE:
+        return Boolean.TRUE;
+      case AnyType.INT:
+        return readInt();
+      case AnyType.LONG:
+        return readLong();
+      case AnyType.DOUBLE:
+        return readDouble();
+      case AnyType.STRING:
+        return readString();
+      case AnyType.MAP:
+        return readMap();
+      case AnyType.LIST:
+        return readList();
+      case AnyType.FLOAT:
+        return readFloat();
+      case AnyType.BIG_INTEGER:
+        return new BigInteger(readBytes());
+      case AnyType.BIG_DECIMAL:
+        return new BigDecimal(readString());
+      default:
+        throw new IOException("Expected a known value type tag, got " + type);
+    }
+  }
+
+  @Override
+  public Map<String, Object> readMap() throws IOException {
+    final int size = readLength();
+    final Map<String, Object> map = new LinkedHashMap<>();
+    for (int i = 0; i < size; i++) {
+      map.put(readString(), readAny());
+    }
+
+    return map;
+  }
+
+  private List<Object> readList() throws IOException {
+    final int size = readLength();
+    final List<Object> list = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      list.add(readAny());
+    }
+
+    return list;
+  }
+
+  private void readRaw(final byte[] bytes) throws IOException {
+    int offset = 0;
+    while (offset < bytes.length) {
+      if (position == limit && !fillBuffer()) {
+        throw new EOFException("Expected more bytes, but reached the end of the stream");
+      }
+
+      final int length = Math.min(bytes.length - offset, limit - position);
+      System.arraycopy(buffer, position, bytes, offset, length);
+      position += length;
+      offset += length;
+    }
+  }
+
+  private boolean fillBuffer() throws IOException {
+    final int read = input.read(buffer, 0, buffer.length);
+    if (read <= 0) {
+      return false;
+    }
+
+    position = 0;
+    limit = read;
+    return true;
+  }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Buffered writer of the primitives of the binary format: zig-zag encoded variable length integers,
+ * length prefixed byte arrays, and strings which are written only once per stream and referenced by
+ * their index in the {@link StringTable} afterwards.
+ */
+final class BinaryOutput implements FieldOutput {
+  private final OutputStream output;
+  private final byte[] buffer;
+  private final Map<String, Integer> stringIndexes = new HashMap<>();
+  private int position;
+  private long flushedBytes;
+
+  BinaryOutput(final OutputStream output, final int bufferSize) {
+    this.output = output;
+    buffer = new byte[bufferSize];
+  }
+
+  void writeByte(final int value) throws IOException {
+    if (position == buffer.length) {
+      flushBuffer();
+    }
+
+    buffer[position++] = (byte) value;
+  }
+
+  @Override
+  public void writeBoolean(final boolean value) throws IOException {
+    writeByte(value ? 1 : 0);
+  }
+
+  @Override
+  public void writeLong(final long value) throws IOException {
+    writeUnsignedLong((value << 1) ^ (value >> 63));
+  }
+
+  @Override
+  public void writeInt(final int value) throws IOException {
+    writeLong(value);
+  }
+
+  @Override
+  public void writeUnsignedLong(final long value) throws IOException {
+    if (buffer.length - position < 10) {
+      flushBuffer();
+    }
+
+    long remaining = value;
+    while ((remaining & ~0x7FL) != 0) {
+      buffer[position++] = (byte) ((remaining & 0x7F) | 0x80);
+      remaining >>>= 7;
+    }
+    buffer[position++] = (byte) remaining;
+  }
+
+  void writeDouble(final double value) throws IOException {
+    writeFixedLong(Double.doubleToRawLongBits(value));
+  }
+
+  void writeFloat(final float value) throws IOException {
+    final int bits = Float.floatToRawIntBits(value);
+    for (int shift = 24; shift >= 0; shift -= 8) {
+      writeByte(bits >>> shift);
+    }
+  }
+
+  @Override
+  public void writeBytes(final byte[] value) throws IOException {
+    if (value == null) {
+      writeUnsignedLong(0);
+      return;
+    }
+
+    writeUnsignedLong(value.length + 1L);
+    writeRaw(value);
+  }
+
+  @Override
+  public void writeString(final String value) throws IOException {
+    if (value == null) {
+      writeUnsignedLong(0);
+      return;
+    }
+
+    final Integer index = stringIndexes.get(value);
+    if (index != null) {
+      writeUnsignedLong(((long) index << 1) | 1);
+      return;
+    }
+
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeUnsignedLong((bytes.length + 1L) << 1);
+    writeRaw(bytes);
+    if (StringTable.shouldAdd(bytes.length, stringIndexes.size())) {
+      stringIndexes.put(value, stringIndexes.size());
+    }
+  }
+
+  @Override
+  public void writeStringMap(final Map<String, String> map) throws IOException {
+    writeUnsignedLong(map.size());
+    for (final Map.Entry<String, String> entry : map.entrySet()) {
+      writeString(entry.getKey());
+      writeString(entry.getValue());
+    }
+  }
+
+  @Override
+  public void writeEnum(final Enum<?> value) throws IOException {
+    writeUnsignedLong(value == null ? 0 : value.ordinal() + 1L);
+  }
+
+  /**
+   * Writes an arbitrary value as found in variables, i.e. anything which can be read from or
+   * written to JSON, preserving its Java type.
+   */
+  void writeAny(final Object value) throws IOException {
+    if (value == null) {
+      writeByte(AnyType.NULL);
+    } else if (value instanceof String) {
+      writeByte(AnyType.STRING);
+      writeString((String) value);
+    } else if (value instanceof Boolean) {
+      writeByte((Boolean) value ? AnyType.TRUE : AnyType.FALSE);
+    } else if (value instanceof Integer) {
+      writeByte(AnyType.INT);
+      writeInt((Integer) value);
+    } else if (value instanceof Long) {
+      writeByte(AnyType.LONG);
+      writeLong((Long) value);
+    } else if (value instanceof Double) {
+      writeByte(AnyType.DOUBLE);
+      writeDouble((Double) value);
+    } else if (value instanceof Map) {
+      writeByte(AnyType.MAP);
+      writeMap((Map<?, ?>) value);
+    } else if (value instanceof List) {
+      writeByte(AnyType.LIST);
+      writeList((List<?>) value);
+    } else if (value instanceof Float) {
+      writeByte(AnyType.FLOAT);
+      writeFloat((Float) value);
+    } else if (value instanceof BigInteger) {
+      writeByte(AnyType.BIG_INTEGER);
+      writeBytes(((BigInteger) value).toByteArray());
+    } else if (value instanceof BigDecimal) {
+      writeByte(AnyType.BIG_DECIMAL);
+      writeString(value.toString());
+    } else {
+      throw new IllegalArgumentException(
+          "Expected a JSON compatible value, but got an instance of " + value.getClass());
+    }
+  }
+
+  /** @return how many bytes were written so far, including those which are still buffered */
+  long getBytesWritten() {
+    return flushedBytes + position;
+  }
+
+  /** Forgets all strings written so far, such that they are written again on their next use. */
+  void clearStrings() {
+    stringIndexes.clear();
+  }
+
+  void flush() throws IOException {
+    flushBuffer();
+    output.flush();
+  }
+
+  @Override
+  public void writeMap(final Map<?, ?> map) throws IOException {
+    writeUnsignedLong(map.size());
+    for (final Map.Entry<?, ?> entry : map.entrySet()) {
+      writeString((String) entry.getKey());
+      writeAny(entry.getValue());
+    }
+  }
+
+  private void writeList(final List<?> list) throws IOException {
+    writeUnsignedLong(list.size());
+    for (final Object item : list) {
+      writeAny(item);
+    }
+  }
+
+  private void writeFixedLong(final long value) throws IOException {
+    for (int shift = 56; shift >= 0; shift -= 8) {
+      writeByte((int) (value >>> shift));
+    }
+  }
+
+  private void writeRaw(final byte[] bytes) throws IOException {
+    if (bytes.length > buffer.length - position) {
+      flushBuffer();
+      if (bytes.length > buffer.length) {
+        output.write(bytes);
+        flushedBytes += bytes.length;
+        return;
+      }
+    }
+
+    System.arraycopy(bytes, 0, buffer, position, bytes.length);
+    position += bytes.length;
+  }
+
+  private void flushBuffer() throws IOException {
+    output.write(buffer, 0, position);
+    flushedBytes += position;
+    position = 0;
+  }
+}
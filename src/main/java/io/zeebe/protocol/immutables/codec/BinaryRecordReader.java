@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.codec;
+
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads records written by a {@link BinaryRecordWriter}. The records read are equal to the ones
+ * which would have been deserialized from their JSON representation.
+ *
+ * <p>This class is not thread safe.
+ */
+public final class BinaryRecordReader implements Iterator<ImmutableRecord<RecordValue>>, Closeable {
+  private final InputStream input;
+  private final BinaryInput binaryInput;
+
+  private ImmutableRecord<RecordValue> nextRecord;
+
+  /**
+   * @throws IOException if the input does not start with the expected header, or if it was written
+   *     with another version of the format
+   */
+  public BinaryRecordReader(final InputStream input) throws IOException {
+    this.input = input;
+    binaryInput = new BinaryInput(input, BinaryRecordWriter.BUFFER_SIZE);
+
+    if (binaryInput.isAtEnd() || binaryInput.readUnsignedLong() != BinaryRecordWriter.MAGIC) {
+      throw new IOException("Expected the input to start with a binary record stream header");
+    }
+
+    final long version = binaryInput.readUnsignedLong();
+    if (version != BinaryRecordWriter.FORMAT_VERSION) {
+      throw new IOException(
+          "Expected format version "
+              + BinaryRecordWriter.FORMAT_VERSION
+              + ", but the input was written with version "
+              + version);
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (nextRecord == null) {
+      try {
+        nextRecord = read();
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    return nextRecord != null;
+  }
+
+  @Override
+  public ImmutableRecord<RecordValue> next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    final ImmutableRecord<RecordValue> record = nextRecord;
+    nextRecord = null;
+    return record;
+  }
+
+  /** @return a sequential stream of the remaining records, which closes this reader */
+  public Stream<ImmutableRecord<RecordValue>> stream() {
+    return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(
+                this, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE),
+            false)
+        .onClose(
+            () -> {
+              try {
+                close();
+              } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+  }
+
+  @Override
+  public void close() throws IOException {
+    input.close();
+  }
+
+  private ImmutableRecord<RecordValue> read() throws IOException {
+    if (binaryInput.isAtEnd()) {
+      return null;
+    }
+
+    return RecordCodec.read(binaryInput);
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.codec;
+
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes records in a compact binary format, which can be read back by a {@link
+ * BinaryRecordReader}. Compared to {@link Record#toJson()}, property names are never written, enums
+ * and intents are written as their protocol value, numbers as variable length integers, and strings
+ * which repeat across records (e.g. BPMN process IDs, element IDs, job types) are only written once
+ * per stream and referenced afterwards.
+ *
+ * <p>The format is tied to the version of the Zeebe protocol this library is built against, and is
+ * meant to pass records between processes using the same version of this library (e.g. an exporter
+ * and its consumer), not as long term storage.
+ *
+ * <p>The output is buffered, so make sure to {@link #flush()} or {@link #close()} the writer once
+ * done. This class is not thread safe.
+ */
+public final class BinaryRecordWriter implements Closeable, Flushable {
+  static final int MAGIC = 0x5A524543;
+  static final int FORMAT_VERSION = 1;
+  static final int BUFFER_SIZE = 8 * 1024;
+
+  private final OutputStream output;
+  private final BinaryOutput binaryOutput;
+
+  public BinaryRecordWriter(final OutputStream output) throws IOException {
+    this.output = output;
+    binaryOutput = new BinaryOutput(output, BUFFER_SIZE);
+
+    binaryOutput.writeUnsignedLong(MAGIC);
+    binaryOutput.writeUnsignedLong(FORMAT_VERSION);
+  }
+
+  /**
+   * Writes the given record; it can be any implementation of {@link Record}, not only an immutable
+   * one.
+   *
+   * @throws IllegalArgumentException if the value type of the record is not supported, or if its
+   *     variables contain something which cannot be represented as JSON
+   */
+  public void write(final Record<? extends RecordValue> record) throws IOException {
+    RecordCodec.write(binaryOutput, record);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    binaryOutput.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      output.close();
+    }
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.codec;
+
+import io.camunda.zeebe.protocol.Protocol;
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceRelated;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes records in a delta encoded binary format meant for archival, which can be read back by a
+ * {@link DeltaRecordReader}. It builds on the format of the {@link BinaryRecordWriter}, but each
+ * record is written as the difference to a previous record: the last record of the same value type
+ * and process instance (or with the same key, if its value is not related to a process instance),
+ * or else the record just before it. Properties which did not change are not written at all, and
+ * numbers which changed are written as the difference to the previous number.
+ *
+ * <p>Unlike the {@link BinaryRecordWriter}, enums are written by name instead of by ordinal, and
+ * the format has its own {@link #FORMAT_VERSION}, so that an archive does not silently change
+ * meaning when the protocol or the binary format evolves. Each segment header also records the
+ * {@link Protocol#PROTOCOL_VERSION} the archive was written with.
+ *
+ * <p>The stream is cut into segments: every {@code snapshotInterval} records, or whenever {@link
+ * #snapshot()} is called, a new segment starts whose first record is written in full, and which
+ * does not refer to anything written before it. A reader can then start reading at the beginning of
+ * any segment, e.g. to resume replaying an archive, or after skipping a corrupted part.
+ *
+ * <p>The writer keeps references to the properties of the last {@value #WINDOW_SIZE} records it
+ * wrote, which must therefore not be modified afterwards. The output is buffered, so make sure to
+ * {@link #flush()} or {@link #close()} the writer once done. This class is not thread safe.
+ */
+public final class DeltaRecordWriter implements Closeable, Flushable {
+  public static final int DEFAULT_SNAPSHOT_INTERVAL = 4096;
+
+  static final int MAGIC = 0x5A524544;
+  /** Version 1 was shared with the {@link BinaryRecordWriter}, and wrote enums by ordinal. */
+  static final int FORMAT_VERSION = 2;
+
+  static final int WINDOW_SIZE = 1024;
+  static final int SEGMENT_START = 0;
+  static final int NO_REFERENCE = 1;
+
+  private final OutputStream output;
+  private final BinaryOutput binaryOutput;
+  private final int snapshotInterval;
+  private final FieldTokens[] window = new FieldTokens[WINDOW_SIZE];
+  private final Map<ValueType, Map<Long, Integer>> lastSequenceByContext =
+      new EnumMap<>(ValueType.class);
+
+  private long segmentOffset;
+  private int sequence;
+
+  public DeltaRecordWriter(final OutputStream output) throws IOException {
+    this(output, DEFAULT_SNAPSHOT_INTERVAL);
+  }
+
+  /**
+   * @param snapshotInterval how many records are written at most per segment; the smaller, the
+   *     quicker a reader can resync, but the larger the output
+   */
+  public DeltaRecordWriter(final OutputStream output, final int snapshotInterval)
+      throws IOException {
+    if (snapshotInterval < 1) {
+      throw new IllegalArgumentException(
+          "Expected a snapshot interval of at least 1, got " + snapshotInterval);
+    }
+
+    this.output = output;
+    this.snapshotInterval = snapshotInterval;
+    binaryOutput = new BinaryOutput(output, BinaryRecordWriter.BUFFER_SIZE);
+    startSegment();
+  }
+
+  /**
+   * Writes the given record; it can be any implementation of {@link Record}, not only an immutable
+   * one.
+   *
+   * @throws IllegalArgumentException if the value type of the record is not supported, or if its
+   *     variables contain something which cannot be represented as JSON
+   */
+  public void write(final Record<? extends RecordValue> record) throws IOException {
+    if (sequence == snapshotInterval) {
+      startSegment();
+    }
+
+    final FieldTokens tokens = getTokens(window, sequence);
+    tokens.clear();
+    RecordCodec.write(tokens, record);
+
+    final Integer previousSequence =
+        lastSequenceByContext
+            .computeIfAbsent(record.getValueType(), valueType -> new HashMap<>())
+            .put(getContext(record), sequence);
+    final int distance = getReferenceDistance(previousSequence);
+    binaryOutput.writeUnsignedLong(NO_REFERENCE + (long) distance);
+    tokens.writeDelta(
+        binaryOutput, distance == 0 ? null : window[(sequence - distance) % WINDOW_SIZE]);
+    sequence++;
+  }
+
+  /**
+   * Starts a new segment, unless nothing was written since the current one started.
+   *
+   * @return the offset of the segment in the output, from which a {@link DeltaRecordReader} can
+   *     start reading
+   */
+  public long snapshot() throws IOException {
+    if (sequence > 0) {
+      startSegment();
+    }
+
+    return segmentOffset;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    binaryOutput.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      output.close();
+    }
+  }
+
+  static FieldTokens getTokens(final FieldTokens[] window, final int sequence) {
+    final int slot = sequence % WINDOW_SIZE;
+    if (window[slot] == null) {
+      window[slot] = new FieldTokens();
+    }
+
+    return window[slot];
+  }
+
+  private void startSegment() throws IOException {
+    segmentOffset = binaryOutput.getBytesWritten();
+    binaryOutput.writeUnsignedLong(SEGMENT_START);
+    binaryOutput.writeUnsignedLong(MAGIC);
+    binaryOutput.writeUnsignedLong(FORMAT_VERSION);
+    binaryOutput.writeUnsignedLong(Protocol.PROTOCOL_VERSION);
+    binaryOutput.clearStrings();
+    lastSequenceByContext.clear();
+    sequence = 0;
+  }
+
+  private int getReferenceDistance(final Integer previousSequence) {
+    if (previousSequence != null && sequence - previousSequence < WINDOW_SIZE) {
+      return sequence - previousSequence;
+    }
+
+    return sequence > 0 ? 1 : 0;
+  }
+
+  private static long getContext(final Record<? extends RecordValue> record) {
+    final RecordValue value = record.getValue();
+    if (value instanceof ProcessInstanceRelated) {
+      final long processInstanceKey = ((ProcessInstanceRelated) value).getProcessInstanceKey();
+      if (processInstanceKey > 0) {
+        return processInstanceKey;
+      }
+    }
+
+    return record.getKey();
+  }
+}
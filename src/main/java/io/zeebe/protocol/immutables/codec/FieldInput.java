@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.codec;
+
+import java.io.IOException;
+import java.util.Map;
+
+/** Reads back the properties written to a {@link FieldOutput}, in the same order. */
+interface FieldInput {
+
+  boolean readBoolean() throws IOException;
+
+  int readInt() throws IOException;
+
+  long readLong() throws IOException;
+
+  long readUnsignedLong() throws IOException;
+
+  /** Reads a value written via {@link FieldOutput#writeUnsignedLong(long)} which fits an int. */
+  default int readLength() throws IOException {
+    final long length = readUnsignedLong();
+    if (length > Integer.MAX_VALUE) {
+      throw new IOException(
+          "Expected a length of at most " + Integer.MAX_VALUE + ", got " + length);
+    }
+
+    return (int) length;
+  }
+
+  byte[] readBytes() throws IOException;
+
+  String readString() throws IOException;
+
+  Map<String, String> readStringMap() throws IOException;
+
+  <T extends Enum<T>> T readEnum(T[] values) throws IOException;
+
+  Map<String, Object> readMap() throws IOException;
+}
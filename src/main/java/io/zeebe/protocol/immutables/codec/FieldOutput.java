@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.codec;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * The properties which make up an encoded record, in the order they are written by the {@link
+ * RecordCodec}. Implemented by {@link BinaryOutput} to write them as is, and by {@link FieldTokens}
+ * to record them for delta encoding.
+ */
+interface FieldOutput {
+
+  void writeBoolean(boolean value) throws IOException;
+
+  void writeInt(int value) throws IOException;
+
+  void writeLong(long value) throws IOException;
+
+  /** Writes a non negative number, e.g. the size of a collection or a protocol value. */
+  void writeUnsignedLong(long value) throws IOException;
+
+  void writeBytes(byte[] value) throws IOException;
+
+  void writeString(String value) throws IOException;
+
+  void writeStringMap(Map<String, String> map) throws IOException;
+
+  void writeEnum(Enum<?> value) throws IOException;
+
+  /** Writes a map of variables, i.e. of anything which can be read from or written to JSON. */
+  void writeMap(Map<?, ?> map) throws IOException;
+}
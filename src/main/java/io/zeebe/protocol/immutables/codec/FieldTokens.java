@@ -0,0 +1,361 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.codec;
+
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The properties of a single record, in the order they are written by the {@link RecordCodec}, as
+ * recorded by the delta writer and reader. A record is encoded as the properties which differ from
+ * those of a reference record at the same index; numbers which differ are written as the difference
+ * to the reference number, since keys, positions and timestamps of related records are close.
+ *
+ * <p>Numbers and booleans are kept unboxed; enums are kept, and written, by name rather than by
+ * ordinal, such that archives stay readable when constants are added to or reordered in the
+ * protocol. Instances are meant to be reused.
+ */
+final class FieldTokens implements FieldOutput {
+  private static final int INITIAL_CAPACITY = 32;
+
+  private static final byte LONG = 0;
+  private static final byte UNSIGNED_LONG = 1;
+  private static final byte BOOLEAN = 2;
+  private static final byte ENUM = 3;
+  private static final byte BYTES = 4;
+  private static final byte STRING = 5;
+  private static final byte STRING_MAP = 6;
+  private static final byte MAP = 7;
+
+  private byte[] kinds = new byte[INITIAL_CAPACITY];
+  private long[] numbers = new long[INITIAL_CAPACITY];
+  private Object[] objects = new Object[INITIAL_CAPACITY];
+  private int size;
+
+  void clear() {
+    Arrays.fill(objects, 0, size, null);
+    size = 0;
+  }
+
+  @Override
+  public void writeBoolean(final boolean value) {
+    addNumber(BOOLEAN, value ? 1 : 0);
+  }
+
+  @Override
+  public void writeInt(final int value) {
+    addNumber(LONG, value);
+  }
+
+  @Override
+  public void writeLong(final long value) {
+    addNumber(LONG, value);
+  }
+
+  @Override
+  public void writeUnsignedLong(final long value) {
+    addNumber(UNSIGNED_LONG, value);
+  }
+
+  @Override
+  public void writeBytes(final byte[] value) {
+    addObject(BYTES, value);
+  }
+
+  @Override
+  public void writeString(final String value) {
+    addObject(STRING, value);
+  }
+
+  @Override
+  public void writeStringMap(final Map<String, String> map) {
+    addObject(STRING_MAP, map);
+  }
+
+  @Override
+  public void writeEnum(final Enum<?> value) {
+    addObject(ENUM, value == null ? null : value.name());
+  }
+
+  @Override
+  public void writeMap(final Map<?, ?> map) {
+    addObject(MAP, map);
+  }
+
+  /**
+   * Writes these tokens as a delta against the given reference: the number of tokens and a bit set
+   * of the tokens which changed, followed by the changed tokens. Without a reference, all tokens
+   * are written as is.
+   */
+  void writeDelta(final BinaryOutput output, final FieldTokens reference) throws IOException {
+    if (reference == null) {
+      for (int i = 0; i < size; i++) {
+        writeToken(output, i, null);
+      }
+
+      return;
+    }
+
+    output.writeUnsignedLong(size);
+    for (int offset = 0; offset < size; offset += Byte.SIZE) {
+      int changedBits = 0;
+      for (int bit = 0; bit < Byte.SIZE && offset + bit < size; bit++) {
+        if (!isSameAs(reference, offset + bit)) {
+          changedBits |= 1 << bit;
+        }
+      }
+
+      output.writeByte(changedBits);
+    }
+
+    for (int i = 0; i < size; i++) {
+      if (!isSameAs(reference, i)) {
+        writeToken(output, i, reference);
+      }
+    }
+  }
+
+  /**
+   * Reads a record written by {@link #writeDelta(BinaryOutput, FieldTokens)} against the given
+   * reference, and records its tokens into this instance.
+   */
+  ImmutableRecord<RecordValue> readDelta(final BinaryInput input, final FieldTokens reference)
+      throws IOException {
+    clear();
+
+    final DeltaInput deltaInput = new DeltaInput(input, reference);
+    final ImmutableRecord<RecordValue> record = RecordCodec.read(deltaInput);
+    if (reference != null && size != deltaInput.expectedSize) {
+      throw new IOException(
+          "Expected " + deltaInput.expectedSize + " properties, but read only " + size);
+    }
+
+    return record;
+  }
+
+  private boolean isSameAs(final FieldTokens reference, final int index) {
+    if (index >= reference.size || reference.kinds[index] != kinds[index]) {
+      return false;
+    }
+
+    return isNumber(kinds[index])
+        ? reference.numbers[index] == numbers[index]
+        : Objects.deepEquals(reference.objects[index], objects[index]);
+  }
+
+  private boolean hasKindAt(final int index, final byte kind) {
+    return index < size && kinds[index] == kind;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void writeToken(final BinaryOutput output, final int index, final FieldTokens reference)
+      throws IOException {
+    switch (kinds[index]) {
+      case LONG:
+        final long base =
+            reference != null && reference.hasKindAt(index, LONG) ? reference.numbers[index] : 0;
+        output.writeLong(numbers[index] - base);
+        break;
+      case UNSIGNED_LONG:
+        output.writeUnsignedLong(numbers[index]);
+        break;
+      case BOOLEAN:
+        output.writeBoolean(numbers[index] != 0);
+        break;
+      case BYTES:
+        output.writeBytes((byte[]) objects[index]);
+        break;
+      case ENUM:
+      case STRING:
+        output.writeString((String) objects[index]);
+        break;
+      case STRING_MAP:
+        output.writeStringMap((Map<String, String>) objects[index]);
+        break;
+      case MAP:
+        output.writeMap((Map<?, ?>) objects[index]);
+        break;
+      default:
+        throw new IllegalStateException("Unknown token kind " + kinds[index]);
+    }
+  }
+
+  private static boolean isNumber(final byte kind) {
+    return kind <= BOOLEAN;
+  }
+
+  private void addNumber(final byte kind, final long value) {
+    ensureCapacity();
+    kinds[size] = kind;
+    numbers[size] = value;
+    size++;
+  }
+
+  private void addObject(final byte kind, final Object value) {
+    ensureCapacity();
+    kinds[size] = kind;
+    objects[size] = value;
+    size++;
+  }
+
+  private void ensureCapacity() {
+    if (size == kinds.length) {
+      final int capacity = size * 2;
+      kinds = Arrays.copyOf(kinds, capacity);
+      numbers = Arrays.copyOf(numbers, capacity);
+      objects = Arrays.copyOf(objects, capacity);
+    }
+  }
+
+  private final class DeltaInput implements FieldInput {
+    private final BinaryInput input;
+    private final FieldTokens reference;
+    private final byte[] changedBits;
+    private final int expectedSize;
+
+    private DeltaInput(final BinaryInput input, final FieldTokens reference) throws IOException {
+      this.input = input;
+      this.reference = reference;
+
+      if (reference == null) {
+        changedBits = null;
+        expectedSize = -1;
+      } else {
+        expectedSize = input.readLength();
+        changedBits = new byte[(expectedSize + Byte.SIZE - 1) / Byte.SIZE];
+        for (int i = 0; i < changedBits.length; i++) {
+          changedBits[i] = (byte) input.readByte();
+        }
+      }
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+      final long value = isUnchanged(BOOLEAN) ? referenceNumber() : (input.readBoolean() ? 1 : 0);
+      addNumber(BOOLEAN, value);
+      return value != 0;
+    }
+
+    @Override
+    public int readInt() throws IOException {
+      return (int) readLong();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+      final long value;
+      if (isUnchanged(LONG)) {
+        value = referenceNumber();
+      } else if (reference != null && reference.hasKindAt(size, LONG)) {
+        value = referenceNumber() + input.readLong();
+      } else {
+        value = input.readLong();
+      }
+
+      addNumber(LONG, value);
+      return value;
+    }
+
+    @Override
+    public long readUnsignedLong() throws IOException {
+      final long value = isUnchanged(UNSIGNED_LONG) ? referenceNumber() : input.readUnsignedLong();
+      addNumber(UNSIGNED_LONG, value);
+      return value;
+    }
+
+    @Override
+    public byte[] readBytes() throws IOException {
+      final byte[] value = isUnchanged(BYTES) ? referenceObject() : input.readBytes();
+      addObject(BYTES, value);
+      return value;
+    }
+
+    @Override
+    public String readString() throws IOException {
+      final String value = isUnchanged(STRING) ? referenceObject() : input.readString();
+      addObject(STRING, value);
+      return value;
+    }
+
+    @Override
+    public Map<String, String> readStringMap() throws IOException {
+      final Map<String, String> value =
+          isUnchanged(STRING_MAP) ? referenceObject() : input.readStringMap();
+      addObject(STRING_MAP, value);
+      return value;
+    }
+
+    @Override
+    public <T extends Enum<T>> T readEnum(final T[] values) throws IOException {
+      final String name = isUnchanged(ENUM) ? referenceObject() : input.readString();
+      addObject(ENUM, name);
+      if (name == null) {
+        return null;
+      }
+
+      for (final T value : values) {
+        if (value.name().equals(name)) {
+          return value;
+        }
+      }
+
+      throw new IOException(
+          "Expected one of " + Arrays.toString(values) + ", but got unknown constant " + name);
+    }
+
+    @Override
+    public Map<String, Object> readMap() throws IOException {
+      final Map<String, Object> value = isUnchanged(MAP) ? referenceObject() : input.readMap();
+      addObject(MAP, value);
+      return value;
+    }
+
+    private boolean isUnchanged(final byte kind) throws IOException {
+      if (reference == null) {
+        return false;
+      }
+
+      final int index = size;
+      if (index >= expectedSize) {
+        throw new IOException("Expected at most " + expectedSize + " properties, but read more");
+      }
+
+      if ((changedBits[index / Byte.SIZE] & (1 << (index % Byte.SIZE))) != 0) {
+        return false;
+      }
+
+      if (!reference.hasKindAt(index, kind)) {
+        throw new IOException(
+            "Expected the reference record to have a property of the same kind at " + index);
+      }
+
+      return true;
+    }
+
+    private long referenceNumber() {
+      return reference.numbers[size];
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T referenceObject() {
+      return (T) reference.objects[size];
+    }
+  }
+}
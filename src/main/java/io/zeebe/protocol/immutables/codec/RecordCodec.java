@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.codec;
+
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordType;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.RejectionType;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.io.IOException;
+
+/**
+ * The binary layout of a record: its metadata, with the value type first such that the rest can be
+ * decoded, followed by its value as laid out by the {@link ValueCodecs}.
+ */
+final class RecordCodec {
+
+  private RecordCodec() {}
+
+  /**
+   * @throws IllegalArgumentException if the value type of the record is not supported, or if its
+   *     variables contain something which cannot be represented as JSON
+   */
+  static void write(final FieldOutput output, final Record<? extends RecordValue> record)
+      throws IOException {
+    output.writeUnsignedLong(record.getValueType().value());
+    output.writeUnsignedLong(record.getIntent().value());
+    output.writeUnsignedLong(record.getRecordType().value());
+    output.writeUnsignedLong(record.getRejectionType().value());
+    output.writeLong(record.getPosition());
+    output.writeLong(record.getSourceRecordPosition());
+    output.writeLong(record.getKey());
+    output.writeLong(record.getTimestamp());
+    output.writeInt(record.getPartitionId());
+    output.writeString(record.getRejectionReason());
+    output.writeString(record.getBrokerVersion());
+    ValueCodecs.of(record.getValueType()).write(output, record.getValue());
+  }
+
+  static ImmutableRecord<RecordValue> read(final FieldInput input) throws IOException {
+    final ValueType valueType = ValueType.get(readShort(input));
+    final Intent intent = Intent.fromProtocolValue(valueType, readShort(input));
+    return ImmutableRecord.<RecordValue>builder()
+        .valueType(valueType)
+        .intent(intent)
+        .recordType(RecordType.get(readShort(input)))
+        .rejectionType(RejectionType.get(readShort(input)))
+        .position(input.readLong())
+        .sourceRecordPosition(input.readLong())
+        .key(input.readLong())
+        .timestamp(input.readLong())
+        .partitionId(input.readInt())
+        .rejectionReason(input.readString())
+        .brokerVersion(input.readString())
+        .value(readValue(input, valueType))
+        .build();
+  }
+
+  private static RecordValue readValue(final FieldInput input, final ValueType valueType)
+      throws IOException {
+    final ValueCodecs.ValueCodec<RecordValue> codec;
+    try {
+      codec = ValueCodecs.of(valueType);
+    } catch (final IllegalArgumentException e) {
+      throw new IOException("Expected a record with a known value type, got " + valueType, e);
+    }
+
+    return codec.read(input);
+  }
+
+  private static short readShort(final FieldInput input) throws IOException {
+    return (short) input.readUnsignedLong();
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.codec;
+
+/**
+ * The rule shared by the writer and the reader to decide which strings are remembered, such that
+ * both sides build the same table without having to write it. Only short strings are remembered, as
+ * those are the ones which repeat (e.g. BPMN process IDs, element IDs, job types, variable names),
+ * and the table is bounded to keep the memory of long streams in check.
+ */
+final class StringTable {
+  static final int MAX_STRING_LENGTH = 128;
+  static final int MAX_SIZE = 1 << 16;
+
+  private StringTable() {}
+
+  static boolean shouldAdd(final int byteLength, final int tableSize) {
+    return byteLength <= MAX_STRING_LENGTH && tableSize < MAX_SIZE;
+  }
+}
@@ -0,0 +1,634 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.codec;
+
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.value.BpmnElementType;
+import io.camunda.zeebe.protocol.record.value.DeploymentDistributionRecordValue;
+import io.camunda.zeebe.protocol.record.value.DeploymentRecordValue;
+import io.camunda.zeebe.protocol.record.value.ErrorRecordValue;
+import io.camunda.zeebe.protocol.record.value.ErrorType;
+import io.camunda.zeebe.protocol.record.value.IncidentRecordValue;
+import io.camunda.zeebe.protocol.record.value.JobBatchRecordValue;
+import io.camunda.zeebe.protocol.record.value.JobRecordValue;
+import io.camunda.zeebe.protocol.record.value.MessageRecordValue;
+import io.camunda.zeebe.protocol.record.value.MessageStartEventSubscriptionRecordValue;
+import io.camunda.zeebe.protocol.record.value.MessageSubscriptionRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessEventRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceCreationRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceResultRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessMessageSubscriptionRecordValue;
+import io.camunda.zeebe.protocol.record.value.TimerRecordValue;
+import io.camunda.zeebe.protocol.record.value.VariableDocumentRecordValue;
+import io.camunda.zeebe.protocol.record.value.VariableDocumentUpdateSemantic;
+import io.camunda.zeebe.protocol.record.value.VariableRecordValue;
+import io.camunda.zeebe.protocol.record.value.deployment.DeploymentResource;
+import io.camunda.zeebe.protocol.record.value.deployment.Process;
+import io.camunda.zeebe.protocol.record.value.deployment.ProcessMetadataValue;
+import io.zeebe.protocol.immutables.ResourceCache;
+import io.zeebe.protocol.immutables.record.value.ImmutableDeploymentDistributionRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableDeploymentRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableErrorRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableIncidentRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableJobBatchRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableJobRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableMessageRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableMessageStartEventSubscriptionRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableMessageSubscriptionRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableProcessEventRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableProcessInstanceCreationRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableProcessInstanceRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableProcessInstanceResultRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableProcessMessageSubscriptionRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableTimerRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableVariableDocumentRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableVariableRecordValue;
+import io.zeebe.protocol.immutables.record.value.deployment.ImmutableDeploymentResource;
+import io.zeebe.protocol.immutables.record.value.deployment.ImmutableProcess;
+import io.zeebe.protocol.immutables.record.value.deployment.ImmutableProcessMetadata;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The binary layout of every record value type: each value is written as the sequence of its
+ * properties, in a fixed order, without any name or tag. Any change to the order or the properties
+ * is therefore a breaking change of the format, and requires bumping both {@link
+ * BinaryRecordWriter#FORMAT_VERSION} and {@link DeltaRecordWriter#FORMAT_VERSION}.
+ */
+final class ValueCodecs {
+  private static final Map<ValueType, ValueCodec<?>> CODECS = new EnumMap<>(ValueType.class);
+
+  private static final BpmnElementType[] BPMN_ELEMENT_TYPES = BpmnElementType.values();
+  private static final ErrorType[] ERROR_TYPES = ErrorType.values();
+  private static final VariableDocumentUpdateSemantic[] UPDATE_SEMANTICS =
+      VariableDocumentUpdateSemantic.values();
+
+  static {
+    register(ValueType.JOB, ValueCodecs::writeJob, ValueCodecs::readJob);
+    register(ValueType.DEPLOYMENT, ValueCodecs::writeDeployment, ValueCodecs::readDeployment);
+    register(
+        ValueType.PROCESS_INSTANCE,
+        ValueCodecs::writeProcessInstance,
+        ValueCodecs::readProcessInstance);
+    register(ValueType.INCIDENT, ValueCodecs::writeIncident, ValueCodecs::readIncident);
+    register(ValueType.MESSAGE, ValueCodecs::writeMessage, ValueCodecs::readMessage);
+    register(
+        ValueType.MESSAGE_SUBSCRIPTION,
+        ValueCodecs::writeMessageSubscription,
+        ValueCodecs::readMessageSubscription);
+    register(
+        ValueType.PROCESS_MESSAGE_SUBSCRIPTION,
+        ValueCodecs::writeProcessMessageSubscription,
+        ValueCodecs::readProcessMessageSubscription);
+    register(ValueType.JOB_BATCH, ValueCodecs::writeJobBatch, ValueCodecs::readJobBatch);
+    register(ValueType.TIMER, ValueCodecs::writeTimer, ValueCodecs::readTimer);
+    register(
+        ValueType.MESSAGE_START_EVENT_SUBSCRIPTION,
+        ValueCodecs::writeMessageStartEventSubscription,
+        ValueCodecs::readMessageStartEventSubscription);
+    register(ValueType.VARIABLE, ValueCodecs::writeVariable, ValueCodecs::readVariable);
+    register(
+        ValueType.VARIABLE_DOCUMENT,
+        ValueCodecs::writeVariableDocument,
+        ValueCodecs::readVariableDocument);
+    register(
+        ValueType.PROCESS_INSTANCE_CREATION,
+        ValueCodecs::writeProcessInstanceCreation,
+        ValueCodecs::readProcessInstanceCreation);
+    register(ValueType.ERROR, ValueCodecs::writeError, ValueCodecs::readError);
+    register(
+        ValueType.PROCESS_INSTANCE_RESULT,
+        ValueCodecs::writeProcessInstanceResult,
+        ValueCodecs::readProcessInstanceResult);
+    register(ValueType.PROCESS, ValueCodecs::writeProcess, ValueCodecs::readProcess);
+    register(
+        ValueType.DEPLOYMENT_DISTRIBUTION,
+        ValueCodecs::writeDeploymentDistribution,
+        ValueCodecs::readDeploymentDistribution);
+    register(
+        ValueType.PROCESS_EVENT, ValueCodecs::writeProcessEvent, ValueCodecs::readProcessEvent);
+  }
+
+  private ValueCodecs() {}
+
+  /**
+   * @return the codec of the given value type
+   * @throws IllegalArgumentException if the value type is not supported
+   */
+  @SuppressWarnings("unchecked")
+  static ValueCodec<RecordValue> of(final ValueType valueType) {
+    final ValueCodec<?> codec = CODECS.get(valueType);
+    if (codec == null) {
+      throw new IllegalArgumentException("Unknown value type " + valueType);
+    }
+
+    return (ValueCodec<RecordValue>) codec;
+  }
+
+  private static <T extends RecordValue> void register(
+      final ValueType valueType, final Writer<T> writer, final Reader<T> reader) {
+    CODECS.put(valueType, new ValueCodec<>(writer, reader));
+  }
+
+  private static void writeJob(final FieldOutput output, final JobRecordValue value)
+      throws IOException {
+    output.writeString(value.getType());
+    output.writeStringMap(value.getCustomHeaders());
+    output.writeString(value.getWorker());
+    output.writeInt(value.getRetries());
+    output.writeLong(value.getDeadline());
+    output.writeString(value.getErrorMessage());
+    output.writeString(value.getErrorCode());
+    output.writeString(value.getElementId());
+    output.writeLong(value.getElementInstanceKey());
+    output.writeString(value.getBpmnProcessId());
+    output.writeInt(value.getProcessDefinitionVersion());
+    output.writeLong(value.getProcessDefinitionKey());
+    output.writeLong(value.getProcessInstanceKey());
+    output.writeMap(value.getVariables());
+  }
+
+  private static ImmutableJobRecordValue readJob(final FieldInput input) throws IOException {
+    return ImmutableJobRecordValue.builder()
+        .type(input.readString())
+        .customHeaders(input.readStringMap())
+        .worker(input.readString())
+        .retries(input.readInt())
+        .deadline(input.readLong())
+        .errorMessage(input.readString())
+        .errorCode(input.readString())
+        .elementId(input.readString())
+        .elementInstanceKey(input.readLong())
+        .bpmnProcessId(input.readString())
+        .processDefinitionVersion(input.readInt())
+        .processDefinitionKey(input.readLong())
+        .processInstanceKey(input.readLong())
+        .variables(input.readMap())
+        .build();
+  }
+
+  private static void writeDeployment(final FieldOutput output, final DeploymentRecordValue value)
+      throws IOException {
+    output.writeUnsignedLong(value.getResources().size());
+    for (final DeploymentResource resource : value.getResources()) {
+      output.writeBytes(resource.getResource());
+      output.writeString(resource.getResourceName());
+    }
+
+    output.writeUnsignedLong(value.getProcessesMetadata().size());
+    for (final ProcessMetadataValue process : value.getProcessesMetadata()) {
+      writeProcessMetadata(output, process);
+    }
+  }
+
+  private static ImmutableDeploymentRecordValue readDeployment(final FieldInput input)
+      throws IOException {
+    final ImmutableDeploymentRecordValue.Builder builder = ImmutableDeploymentRecordValue.builder();
+    final ResourceCache cache = ResourceCache.getDefault();
+
+    final int resourceCount = input.readLength();
+    for (int i = 0; i < resourceCount; i++) {
+      builder.addResources(
+          cache.intern(
+              ImmutableDeploymentResource.builder()
+                  .resource(input.readBytes())
+                  .resourceName(input.readString())
+                  .build()));
+    }
+
+    final int processCount = input.readLength();
+    for (int i = 0; i < processCount; i++) {
+      builder.addProcessesMetadata(
+          cache.intern(
+              ImmutableProcessMetadata.builder()
+                  .bpmnProcessId(input.readString())
+                  .version(input.readInt())
+                  .processDefinitionKey(input.readLong())
+                  .resourceName(input.readString())
+                  .checksum(input.readBytes())
+                  .build()));
+    }
+
+    return builder.build();
+  }
+
+  private static void writeProcessMetadata(
+      final FieldOutput output, final ProcessMetadataValue value) throws IOException {
+    output.writeString(value.getBpmnProcessId());
+    output.writeInt(value.getVersion());
+    output.writeLong(value.getProcessDefinitionKey());
+    output.writeString(value.getResourceName());
+    output.writeBytes(value.getChecksum());
+  }
+
+  private static void writeProcessInstance(
+      final FieldOutput output, final ProcessInstanceRecordValue value) throws IOException {
+    output.writeString(value.getBpmnProcessId());
+    output.writeInt(value.getVersion());
+    output.writeLong(value.getProcessDefinitionKey());
+    output.writeLong(value.getProcessInstanceKey());
+    output.writeString(value.getElementId());
+    output.writeLong(value.getFlowScopeKey());
+    output.writeEnum(value.getBpmnElementType());
+    output.writeLong(value.getParentProcessInstanceKey());
+    output.writeLong(value.getParentElementInstanceKey());
+  }
+
+  private static ImmutableProcessInstanceRecordValue readProcessInstance(final FieldInput input)
+      throws IOException {
+    return ImmutableProcessInstanceRecordValue.builder()
+        .bpmnProcessId(input.readString())
+        .version(input.readInt())
+        .processDefinitionKey(input.readLong())
+        .processInstanceKey(input.readLong())
+        .elementId(input.readString())
+        .flowScopeKey(input.readLong())
+        .bpmnElementType(input.readEnum(BPMN_ELEMENT_TYPES))
+        .parentProcessInstanceKey(input.readLong())
+        .parentElementInstanceKey(input.readLong())
+        .build();
+  }
+
+  private static void writeIncident(final FieldOutput output, final IncidentRecordValue value)
+      throws IOException {
+    output.writeEnum(value.getErrorType());
+    output.writeString(value.getErrorMessage());
+    output.writeString(value.getBpmnProcessId());
+    output.writeLong(value.getProcessDefinitionKey());
+    output.writeLong(value.getProcessInstanceKey());
+    output.writeString(value.getElementId());
+    output.writeLong(value.getElementInstanceKey());
+    output.writeLong(value.getJobKey());
+    output.writeLong(value.getVariableScopeKey());
+  }
+
+  private static ImmutableIncidentRecordValue readIncident(final FieldInput input)
+      throws IOException {
+    return ImmutableIncidentRecordValue.builder()
+        .errorType(input.readEnum(ERROR_TYPES))
+        .errorMessage(input.readString())
+        .bpmnProcessId(input.readString())
+        .processDefinitionKey(input.readLong())
+        .processInstanceKey(input.readLong())
+        .elementId(input.readString())
+        .elementInstanceKey(input.readLong())
+        .jobKey(input.readLong())
+        .variableScopeKey(input.readLong())
+        .build();
+  }
+
+  private static void writeMessage(final FieldOutput output, final MessageRecordValue value)
+      throws IOException {
+    output.writeString(value.getName());
+    output.writeString(value.getCorrelationKey());
+    output.writeString(value.getMessageId());
+    output.writeLong(value.getTimeToLive());
+    output.writeLong(value.getDeadline());
+    output.writeMap(value.getVariables());
+  }
+
+  private static ImmutableMessageRecordValue readMessage(final FieldInput input)
+      throws IOException {
+    return ImmutableMessageRecordValue.builder()
+        .name(input.readString())
+        .correlationKey(input.readString())
+        .messageId(input.readString())
+        .timeToLive(input.readLong())
+        .deadline(input.readLong())
+        .variables(input.readMap())
+        .build();
+  }
+
+  private static void writeMessageSubscription(
+      final FieldOutput output, final MessageSubscriptionRecordValue value) throws IOException {
+    output.writeLong(value.getProcessInstanceKey());
+    output.writeLong(value.getElementInstanceKey());
+    output.writeString(value.getBpmnProcessId());
+    output.writeString(value.getMessageName());
+    output.writeString(value.getCorrelationKey());
+    output.writeLong(value.getMessageKey());
+    output.writeBoolean(value.isInterrupting());
+    output.writeMap(value.getVariables());
+  }
+
+  private static ImmutableMessageSubscriptionRecordValue readMessageSubscription(
+      final FieldInput input) throws IOException {
+    return ImmutableMessageSubscriptionRecordValue.builder()
+        .processInstanceKey(input.readLong())
+        .elementInstanceKey(input.readLong())
+        .bpmnProcessId(input.readString())
+        .messageName(input.readString())
+        .correlationKey(input.readString())
+        .messageKey(input.readLong())
+        .interrupting(input.readBoolean())
+        .variables(input.readMap())
+        .build();
+  }
+
+  private static void writeProcessMessageSubscription(
+      final FieldOutput output, final ProcessMessageSubscriptionRecordValue value)
+      throws IOException {
+    output.writeLong(value.getProcessInstanceKey());
+    output.writeLong(value.getElementInstanceKey());
+    output.writeString(value.getBpmnProcessId());
+    output.writeLong(value.getMessageKey());
+    output.writeString(value.getMessageName());
+    output.writeString(value.getCorrelationKey());
+    output.writeString(value.getElementId());
+    output.writeBoolean(value.isInterrupting());
+    output.writeMap(value.getVariables());
+  }
+
+  private static ImmutableProcessMessageSubscriptionRecordValue readProcessMessageSubscription(
+      final FieldInput input) throws IOException {
+    return ImmutableProcessMessageSubscriptionRecordValue.builder()
+        .processInstanceKey(input.readLong())
+        .elementInstanceKey(input.readLong())
+        .bpmnProcessId(input.readString())
+        .messageKey(input.readLong())
+        .messageName(input.readString())
+        .correlationKey(input.readString())
+        .elementId(input.readString())
+        .interrupting(input.readBoolean())
+        .variables(input.readMap())
+        .build();
+  }
+
+  private static void writeJobBatch(final FieldOutput output, final JobBatchRecordValue value)
+      throws IOException {
+    output.writeString(value.getType());
+    output.writeString(value.getWorker());
+    output.writeLong(value.getTimeout());
+    output.writeInt(value.getMaxJobsToActivate());
+    output.writeBoolean(value.isTruncated());
+
+    output.writeUnsignedLong(value.getJobKeys().size());
+    for (final Long jobKey : value.getJobKeys()) {
+      output.writeLong(jobKey);
+    }
+
+    output.writeUnsignedLong(value.getJobs().size());
+    for (final JobRecordValue job : value.getJobs()) {
+      writeJob(output, job);
+    }
+  }
+
+  private static ImmutableJobBatchRecordValue readJobBatch(final FieldInput input)
+      throws IOException {
+    final ImmutableJobBatchRecordValue.Builder builder =
+        ImmutableJobBatchRecordValue.builder()
+            .type(input.readString())
+            .worker(input.readString())
+            .timeout(input.readLong())
+            .maxJobsToActivate(input.readInt())
+            .truncated(input.readBoolean());
+
+    final int jobKeyCount = input.readLength();
+    for (int i = 0; i < jobKeyCount; i++) {
+      builder.addJobKeys(input.readLong());
+    }
+
+    final int jobCount = input.readLength();
+    for (int i = 0; i < jobCount; i++) {
+      builder.addJobs(readJob(input));
+    }
+
+    return builder.build();
+  }
+
+  private static void writeTimer(final FieldOutput output, final TimerRecordValue value)
+      throws IOException {
+    output.writeLong(value.getProcessDefinitionKey());
+    output.writeLong(value.getElementInstanceKey());
+    output.writeLong(value.getProcessInstanceKey());
+    output.writeLong(value.getDueDate());
+    output.writeString(value.getTargetElementId());
+    output.writeInt(value.getRepetitions());
+  }
+
+  private static ImmutableTimerRecordValue readTimer(final FieldInput input) throws IOException {
+    return ImmutableTimerRecordValue.builder()
+        .processDefinitionKey(input.readLong())
+        .elementInstanceKey(input.readLong())
+        .processInstanceKey(input.readLong())
+        .dueDate(input.readLong())
+        .targetElementId(input.readString())
+        .repetitions(input.readInt())
+        .build();
+  }
+
+  private static void writeMessageStartEventSubscription(
+      final FieldOutput output, final MessageStartEventSubscriptionRecordValue value)
+      throws IOException {
+    output.writeLong(value.getProcessDefinitionKey());
+    output.writeString(value.getBpmnProcessId());
+    output.writeString(value.getStartEventId());
+    output.writeString(value.getMessageName());
+    output.writeLong(value.getProcessInstanceKey());
+    output.writeString(value.getCorrelationKey());
+    output.writeLong(value.getMessageKey());
+    output.writeMap(value.getVariables());
+  }
+
+  private static ImmutableMessageStartEventSubscriptionRecordValue
+      readMessageStartEventSubscription(final FieldInput input) throws IOException {
+    return ImmutableMessageStartEventSubscriptionRecordValue.builder()
+        .processDefinitionKey(input.readLong())
+        .bpmnProcessId(input.readString())
+        .startEventId(input.readString())
+        .messageName(input.readString())
+        .processInstanceKey(input.readLong())
+        .correlationKey(input.readString())
+        .messageKey(input.readLong())
+        .variables(input.readMap())
+        .build();
+  }
+
+  private static void writeVariable(final FieldOutput output, final VariableRecordValue value)
+      throws IOException {
+    output.writeString(value.getName());
+    output.writeString(value.getValue());
+    output.writeLong(value.getScopeKey());
+    output.writeLong(value.getProcessInstanceKey());
+    output.writeLong(value.getProcessDefinitionKey());
+  }
+
+  private static ImmutableVariableRecordValue readVariable(final FieldInput input)
+      throws IOException {
+    return ImmutableVariableRecordValue.builder()
+        .name(input.readString())
+        .value(input.readString())
+        .scopeKey(input.readLong())
+        .processInstanceKey(input.readLong())
+        .processDefinitionKey(input.readLong())
+        .build();
+  }
+
+  private static void writeVariableDocument(
+      final FieldOutput output, final VariableDocumentRecordValue value) throws IOException {
+    output.writeLong(value.getScopeKey());
+    output.writeEnum(value.getUpdateSemantics());
+    output.writeMap(value.getVariables());
+  }
+
+  private static ImmutableVariableDocumentRecordValue readVariableDocument(final FieldInput input)
+      throws IOException {
+    return ImmutableVariableDocumentRecordValue.builder()
+        .scopeKey(input.readLong())
+        .updateSemantics(input.readEnum(UPDATE_SEMANTICS))
+        .variables(input.readMap())
+        .build();
+  }
+
+  private static void writeProcessInstanceCreation(
+      final FieldOutput output, final ProcessInstanceCreationRecordValue value) throws IOException {
+    output.writeString(value.getBpmnProcessId());
+    output.writeInt(value.getVersion());
+    output.writeLong(value.getProcessDefinitionKey());
+    output.writeLong(value.getProcessInstanceKey());
+    output.writeMap(value.getVariables());
+  }
+
+  private static ImmutableProcessInstanceCreationRecordValue readProcessInstanceCreation(
+      final FieldInput input) throws IOException {
+    return ImmutableProcessInstanceCreationRecordValue.builder()
+        .bpmnProcessId(input.readString())
+        .version(input.readInt())
+        .processDefinitionKey(input.readLong())
+        .processInstanceKey(input.readLong())
+        .variables(input.readMap())
+        .build();
+  }
+
+  private static void writeError(final FieldOutput output, final ErrorRecordValue value)
+      throws IOException {
+    output.writeString(value.getExceptionMessage());
+    output.writeString(value.getStacktrace());
+    output.writeLong(value.getErrorEventPosition());
+    output.writeLong(value.getProcessInstanceKey());
+  }
+
+  private static ImmutableErrorRecordValue readError(final FieldInput input) throws IOException {
+    return ImmutableErrorRecordValue.builder()
+        .exceptionMessage(input.readString())
+        .stacktrace(input.readString())
+        .errorEventPosition(input.readLong())
+        .processInstanceKey(input.readLong())
+        .build();
+  }
+
+  private static void writeProcessInstanceResult(
+      final FieldOutput output, final ProcessInstanceResultRecordValue value) throws IOException {
+    output.writeString(value.getBpmnProcessId());
+    output.writeInt(value.getVersion());
+    output.writeLong(value.getProcessDefinitionKey());
+    output.writeLong(value.getProcessInstanceKey());
+    output.writeMap(value.getVariables());
+  }
+
+  private static ImmutableProcessInstanceResultRecordValue readProcessInstanceResult(
+      final FieldInput input) throws IOException {
+    return ImmutableProcessInstanceResultRecordValue.builder()
+        .bpmnProcessId(input.readString())
+        .version(input.readInt())
+        .processDefinitionKey(input.readLong())
+        .processInstanceKey(input.readLong())
+        .variables(input.readMap())
+        .build();
+  }
+
+  private static void writeProcess(final FieldOutput output, final Process value)
+      throws IOException {
+    writeProcessMetadata(output, value);
+    output.writeBytes(value.getResource());
+  }
+
+  private static ImmutableProcess readProcess(final FieldInput input) throws IOException {
+    return ResourceCache.getDefault()
+        .intern(
+            ImmutableProcess.builder()
+                .bpmnProcessId(input.readString())
+                .version(input.readInt())
+                .processDefinitionKey(input.readLong())
+                .resourceName(input.readString())
+                .checksum(input.readBytes())
+                .resource(input.readBytes())
+                .build());
+  }
+
+  private static void writeDeploymentDistribution(
+      final FieldOutput output, final DeploymentDistributionRecordValue value) throws IOException {
+    output.writeInt(value.getPartitionId());
+  }
+
+  private static ImmutableDeploymentDistributionRecordValue readDeploymentDistribution(
+      final FieldInput input) throws IOException {
+    return ImmutableDeploymentDistributionRecordValue.builder()
+        .partitionId(input.readInt())
+        .build();
+  }
+
+  private static void writeProcessEvent(
+      final FieldOutput output, final ProcessEventRecordValue value) throws IOException {
+    output.writeLong(value.getScopeKey());
+    output.writeString(value.getTargetElementId());
+    output.writeLong(value.getProcessDefinitionKey());
+    output.writeLong(value.getProcessInstanceKey());
+    output.writeMap(value.getVariables());
+  }
+
+  private static ImmutableProcessEventRecordValue readProcessEvent(final FieldInput input)
+      throws IOException {
+    return ImmutableProcessEventRecordValue.builder()
+        .scopeKey(input.readLong())
+        .targetElementId(input.readString())
+        .processDefinitionKey(input.readLong())
+        .processInstanceKey(input.readLong())
+        .variables(input.readMap())
+        .build();
+  }
+
+  @FunctionalInterface
+  interface Writer<T extends RecordValue> {
+    void write(FieldOutput output, T value) throws IOException;
+  }
+
+  @FunctionalInterface
+  interface Reader<T extends RecordValue> {
+    T read(FieldInput input) throws IOException;
+  }
+
+  static final class ValueCodec<T extends RecordValue> {
+    private final Writer<T> writer;
+    private final Reader<T> reader;
+
+    private ValueCodec(final Writer<T> writer, final Reader<T> reader) {
+      this.writer = writer;
+      this.reader = reader;
+    }
+
+    void write(final FieldOutput output, final T value) throws IOException {
+      writer.write(output, value);
+    }
+
+    T read(final FieldInput input) throws IOException {
+      return reader.read(input);
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.generator;
+
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import io.zeebe.protocol.immutables.ZeebeStyle;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import org.immutables.value.Value;
+
+/**
+ * Describes the shape of the records produced by a {@link RecordGenerator}. Every attribute has a
+ * default, so {@code ImmutableRecordGeneratorConfig.builder().build()} produces a uniform mix of
+ * small records of every supported value type.
+ */
+@Value.Immutable
+@ZeebeStyle
+public abstract class AbstractRecordGeneratorConfig {
+
+  /** @return the seed of the random source; two generators with the same config are identical */
+  @Value.Default
+  public long getSeed() {
+    return 0;
+  }
+
+  /** @return the partition ID of all generated records, also encoded in all generated keys */
+  @Value.Default
+  public int getPartitionId() {
+    return 1;
+  }
+
+  /**
+   * @return the relative weight of each value type in the generated stream; types which are not
+   *     present are never generated
+   */
+  @Value.Default
+  public Map<ValueType, Integer> getValueTypeWeights() {
+    final Map<ValueType, Integer> weights = new EnumMap<>(ValueType.class);
+    for (final ValueType valueType : RecordGenerator.SUPPORTED_VALUE_TYPES) {
+      weights.put(valueType, 1);
+    }
+
+    return weights;
+  }
+
+  /**
+   * @return the relative weight of each intent; if a value type has no intent in this map, all of
+   *     its intents are equally likely, otherwise only the intents present are generated
+   */
+  @Value.Default
+  public Map<Intent, Integer> getIntentWeights() {
+    return Collections.emptyMap();
+  }
+
+  /** @return the number of distinct processes that generated records refer to */
+  @Value.Default
+  public int getProcessCount() {
+    return 8;
+  }
+
+  /** @return the number of variables in each variables document, e.g. of jobs or messages */
+  @Value.Default
+  public int getVariableCount() {
+    return 4;
+  }
+
+  /** @return the length of each variable value, including the value of {@code VARIABLE} records */
+  @Value.Default
+  public int getVariableValueSize() {
+    return 16;
+  }
+
+  /** @return the number of custom headers of each job */
+  @Value.Default
+  public int getCustomHeaderCount() {
+    return 2;
+  }
+
+  /** @return the number of jobs in each {@code JOB_BATCH} record */
+  @Value.Default
+  public int getJobBatchSize() {
+    return 10;
+  }
+
+  /** @return the number of resources in each {@code DEPLOYMENT} record */
+  @Value.Default
+  public int getDeploymentResourceCount() {
+    return 1;
+  }
+
+  /** @return the size in bytes of each deployed resource, including those of {@code PROCESS} */
+  @Value.Default
+  public int getDeploymentResourceSize() {
+    return 4 * 1024;
+  }
+}
@@ -0,0 +1,563 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.generator;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.camunda.zeebe.protocol.Protocol;
+import io.camunda.zeebe.protocol.record.RecordType;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.RejectionType;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import io.camunda.zeebe.protocol.record.value.BpmnElementType;
+import io.camunda.zeebe.protocol.record.value.ErrorType;
+import io.camunda.zeebe.protocol.record.value.VariableDocumentUpdateSemantic;
+import io.zeebe.protocol.immutables.RecordMapper;
+import io.zeebe.protocol.immutables.ValueTypeMapping;
+import io.zeebe.protocol.immutables.record.value.ImmutableDeploymentDistributionRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableDeploymentRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableErrorRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableIncidentRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableJobBatchRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableJobRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableMessageRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableMessageStartEventSubscriptionRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableMessageSubscriptionRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableProcessEventRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableProcessInstanceCreationRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableProcessInstanceRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableProcessInstanceResultRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableProcessMessageSubscriptionRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import io.zeebe.protocol.immutables.record.value.ImmutableTimerRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableVariableDocumentRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableVariableRecordValue;
+import io.zeebe.protocol.immutables.record.value.deployment.ImmutableDeploymentResource;
+import io.zeebe.protocol.immutables.record.value.deployment.ImmutableProcess;
+import io.zeebe.protocol.immutables.record.value.deployment.ImmutableProcessMetadata;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+/**
+ * Generates synthetic {@link ImmutableRecord} instances without a broker, e.g. to feed benchmarks
+ * or soak tests with production-like volumes. The records are fully deterministic: two generators
+ * created with the same {@link ImmutableRecordGeneratorConfig} produce the same sequence of
+ * records.
+ *
+ * <p>Records are loosely correlated like a real log would be: positions and timestamps are
+ * increasing, keys are unique and encode the configured partition ID, and consecutive records tend
+ * to refer to the same few process instances.
+ *
+ * <p>Instances are not thread-safe; use one generator per thread, with different seeds if the
+ * streams should differ.
+ */
+public final class RecordGenerator implements Iterator<ImmutableRecord<RecordValue>> {
+
+  /** All value types which can be generated, i.e. all those handled by the copier. */
+  public static final Set<ValueType> SUPPORTED_VALUE_TYPES =
+      ValueTypeMapping.getSupportedValueTypes();
+
+  private static final String BROKER_VERSION = "1.0.1";
+  private static final long START_TIMESTAMP = 1625140800000L;
+  // must be a power of two, such that the slot index can wrap around with a mask
+  private static final int ACTIVE_PROCESS_INSTANCES = 16;
+  private static final char[] ALPHABET =
+      "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".toCharArray();
+
+  private final ImmutableRecordGeneratorConfig config;
+  private final SplittableRandom random;
+  private final WeightedChoice<ValueType> valueTypes;
+  private final Map<ValueType, WeightedChoice<Intent>> intents;
+  private final long[] activeProcessInstances = new long[ACTIVE_PROCESS_INSTANCES];
+
+  private long position = 1;
+  private long timestamp = START_TIMESTAMP;
+  private long nextKey = 1;
+  // how many slots of activeProcessInstances are filled, and the slot of the next new instance
+  private int activeProcessInstanceCount;
+  private int nextActiveProcessInstance;
+
+  public RecordGenerator(final ImmutableRecordGeneratorConfig config) {
+    this.config = config;
+    random = new SplittableRandom(config.getSeed());
+    // always choose in the order of the value types: the iteration order of the map passed to the
+    // config, e.g. Map.of, may differ from one JVM to the next
+    final Map<ValueType, Integer> valueTypeWeights = new EnumMap<>(ValueType.class);
+    valueTypeWeights.putAll(config.getValueTypeWeights());
+    valueTypes = new WeightedChoice<>(valueTypeWeights);
+    intents = new EnumMap<>(ValueType.class);
+
+    for (final ValueType valueType : valueTypes.choices) {
+      if (!SUPPORTED_VALUE_TYPES.contains(valueType)) {
+        throw new IllegalArgumentException("Unknown value type " + valueType);
+      }
+
+      intents.put(valueType, createIntentChoice(valueType));
+    }
+  }
+
+  /** @return always true, as the generator produces an infinite sequence of records */
+  @Override
+  public boolean hasNext() {
+    return true;
+  }
+
+  @Override
+  public ImmutableRecord<RecordValue> next() {
+    final long recordPosition = position++;
+    final ValueType valueType = valueTypes.next(random);
+    final Intent intent = intents.get(valueType).next(random);
+    final long processInstanceKey = nextProcessInstanceKey();
+
+    timestamp += random.nextInt(5);
+    final RecordValue value = generateValue(valueType, recordPosition, processInstanceKey);
+    return ImmutableRecord.<RecordValue>builder()
+        .position(recordPosition)
+        .sourceRecordPosition(recordPosition - 1)
+        .key(isProcessInstanceScoped(valueType) ? processInstanceKey : generateKey())
+        .timestamp(timestamp)
+        .intent(intent)
+        .partitionId(config.getPartitionId())
+        .recordType(getRecordType(intent))
+        .rejectionType(RejectionType.NULL_VAL)
+        .rejectionReason("")
+        .brokerVersion(BROKER_VERSION)
+        .valueType(valueType)
+        .value(value)
+        .build();
+  }
+
+  /** @return an infinite, sequential stream of generated records */
+  public Stream<ImmutableRecord<RecordValue>> stream() {
+    return Stream.generate(this::next);
+  }
+
+  /** @return a sequential stream of the next {@code count} generated records */
+  public Stream<ImmutableRecord<RecordValue>> stream(final long count) {
+    return stream().limit(count);
+  }
+
+  /**
+   * Writes the next {@code count} generated records to the given output as newline delimited JSON,
+   * i.e. one record per line, in the same format as {@link ImmutableRecord#toJson()}. The output is
+   * not closed.
+   *
+   * @param output the stream to write to; should be buffered
+   * @param count the number of records to write
+   * @throws IOException if writing to the output fails
+   */
+  public void writeJson(final OutputStream output, final long count) throws IOException {
+    if (count <= 0) {
+      return;
+    }
+
+    final ObjectWriter ndjsonWriter =
+        RecordMapper.getDefault()
+            .getWriter()
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+            .withRootValueSeparator("\n");
+    try (final SequenceWriter writer = ndjsonWriter.writeValues(output)) {
+      for (long i = 0; i < count; i++) {
+        writer.write(next());
+      }
+    }
+
+    output.write('\n');
+  }
+
+  // allow  high cyclomatic complexity due to large switch case which is still easy to reason about
+  @SuppressWarnings({"java:S138", "java:S1541"})
+  private RecordValue generateValue(
+      final ValueType valueType, final long recordPosition, final long processInstanceKey) {
+    switch (valueType) {
+      case JOB:
+        return generateJob(processInstanceKey);
+      case DEPLOYMENT:
+        return generateDeployment();
+      case PROCESS_INSTANCE:
+        return ImmutableProcessInstanceRecordValue.builder()
+            .bpmnProcessId(getBpmnProcessId(processInstanceKey))
+            .version(1)
+            .processDefinitionKey(getProcessDefinitionKey(processInstanceKey))
+            .processInstanceKey(processInstanceKey)
+            .elementId("task")
+            .flowScopeKey(processInstanceKey)
+            .bpmnElementType(BpmnElementType.SERVICE_TASK)
+            .parentProcessInstanceKey(-1)
+            .parentElementInstanceKey(-1)
+            .build();
+      case INCIDENT:
+        return ImmutableIncidentRecordValue.builder()
+            .errorType(ErrorType.JOB_NO_RETRIES)
+            .errorMessage("No more retries left.")
+            .bpmnProcessId(getBpmnProcessId(processInstanceKey))
+            .processDefinitionKey(getProcessDefinitionKey(processInstanceKey))
+            .processInstanceKey(processInstanceKey)
+            .elementId("task")
+            .elementInstanceKey(generateKey())
+            .jobKey(generateKey())
+            .variableScopeKey(processInstanceKey)
+            .build();
+      case MESSAGE:
+        return ImmutableMessageRecordValue.builder()
+            .name("message")
+            .correlationKey(generateString(8))
+            .messageId(generateString(8))
+            .timeToLive(60_000)
+            .deadline(timestamp + 60_000)
+            .variables(generateVariables())
+            .build();
+      case MESSAGE_SUBSCRIPTION:
+        return ImmutableMessageSubscriptionRecordValue.builder()
+            .processInstanceKey(processInstanceKey)
+            .elementInstanceKey(generateKey())
+            .bpmnProcessId(getBpmnProcessId(processInstanceKey))
+            .messageName("message")
+            .correlationKey(generateString(8))
+            .messageKey(-1)
+            .interrupting(true)
+            .variables(generateVariables())
+            .build();
+      case PROCESS_MESSAGE_SUBSCRIPTION:
+        return ImmutableProcessMessageSubscriptionRecordValue.builder()
+            .processInstanceKey(processInstanceKey)
+            .elementInstanceKey(generateKey())
+            .bpmnProcessId(getBpmnProcessId(processInstanceKey))
+            .messageKey(-1)
+            .messageName("message")
+            .correlationKey(generateString(8))
+            .elementId("catch")
+            .interrupting(true)
+            .variables(generateVariables())
+            .build();
+      case JOB_BATCH:
+        return generateJobBatch(processInstanceKey);
+      case TIMER:
+        return ImmutableTimerRecordValue.builder()
+            .processDefinitionKey(getProcessDefinitionKey(processInstanceKey))
+            .elementInstanceKey(generateKey())
+            .processInstanceKey(processInstanceKey)
+            .dueDate(timestamp + 30_000)
+            .targetElementId("timer")
+            .repetitions(1)
+            .build();
+      case MESSAGE_START_EVENT_SUBSCRIPTION:
+        return ImmutableMessageStartEventSubscriptionRecordValue.builder()
+            .processDefinitionKey(getProcessDefinitionKey(processInstanceKey))
+            .bpmnProcessId(getBpmnProcessId(processInstanceKey))
+            .startEventId("start")
+            .messageName("message")
+            .processInstanceKey(-1)
+            .correlationKey("")
+            .messageKey(-1)
+            .variables(generateVariables())
+            .build();
+      case VARIABLE:
+        return ImmutableVariableRecordValue.builder()
+            .name(generateString(8))
+            .value('"' + generateString(Math.max(0, config.getVariableValueSize() - 2)) + '"')
+            .scopeKey(processInstanceKey)
+            .processInstanceKey(processInstanceKey)
+            .processDefinitionKey(getProcessDefinitionKey(processInstanceKey))
+            .build();
+      case VARIABLE_DOCUMENT:
+        return ImmutableVariableDocumentRecordValue.builder()
+            .scopeKey(processInstanceKey)
+            .updateSemantics(VariableDocumentUpdateSemantic.PROPAGATE)
+            .variables(generateVariables())
+            .build();
+      case PROCESS_INSTANCE_CREATION:
+        return ImmutableProcessInstanceCreationRecordValue.builder()
+            .bpmnProcessId(getBpmnProcessId(processInstanceKey))
+            .version(1)
+            .processDefinitionKey(getProcessDefinitionKey(processInstanceKey))
+            .processInstanceKey(processInstanceKey)
+            .variables(generateVariables())
+            .build();
+      case ERROR:
+        return ImmutableErrorRecordValue.builder()
+            .exceptionMessage("Expected to process record, but an exception occurred")
+            .stacktrace("at io.camunda.zeebe.Foo.bar(Foo.java:42)\n".repeat(16))
+            .errorEventPosition(recordPosition - 1)
+            .processInstanceKey(processInstanceKey)
+            .build();
+      case PROCESS_INSTANCE_RESULT:
+        return ImmutableProcessInstanceResultRecordValue.builder()
+            .bpmnProcessId(getBpmnProcessId(processInstanceKey))
+            .version(1)
+            .processDefinitionKey(getProcessDefinitionKey(processInstanceKey))
+            .processInstanceKey(processInstanceKey)
+            .variables(generateVariables())
+            .build();
+      case PROCESS:
+        return generateProcess(random.nextInt(config.getProcessCount()));
+      case DEPLOYMENT_DISTRIBUTION:
+        return ImmutableDeploymentDistributionRecordValue.builder()
+            .partitionId(config.getPartitionId() + 1)
+            .build();
+      case PROCESS_EVENT:
+        return ImmutableProcessEventRecordValue.builder()
+            .scopeKey(processInstanceKey)
+            .targetElementId("start")
+            .processDefinitionKey(getProcessDefinitionKey(processInstanceKey))
+            .processInstanceKey(processInstanceKey)
+            .variables(generateVariables())
+            .build();
+      case SBE_UNKNOWN:
+      case NULL_VAL:
+      default:
+        throw new IllegalArgumentException("Unknown value type " + valueType);
+    }
+  }
+
+  private ImmutableJobRecordValue generateJob(final long processInstanceKey) {
+    final Map<String, String> customHeaders = new LinkedHashMap<>();
+    for (int i = 0; i < config.getCustomHeaderCount(); i++) {
+      customHeaders.put("header-" + i, generateString(8));
+    }
+
+    return ImmutableJobRecordValue.builder()
+        .type("task-" + getProcessIndex(processInstanceKey))
+        .customHeaders(customHeaders)
+        .worker("worker")
+        .retries(3)
+        .deadline(timestamp + 300_000)
+        .errorMessage("")
+        .elementId("task")
+        .elementInstanceKey(generateKey())
+        .bpmnProcessId(getBpmnProcessId(processInstanceKey))
+        .processDefinitionVersion(1)
+        .processDefinitionKey(getProcessDefinitionKey(processInstanceKey))
+        .processInstanceKey(processInstanceKey)
+        .variables(generateVariables())
+        .build();
+  }
+
+  private ImmutableJobBatchRecordValue generateJobBatch(final long processInstanceKey) {
+    final int jobCount = config.getJobBatchSize();
+    final ImmutableJobBatchRecordValue.Builder builder =
+        ImmutableJobBatchRecordValue.builder()
+            .type("task-" + getProcessIndex(processInstanceKey))
+            .worker("worker")
+            .timeout(300_000)
+            .maxJobsToActivate(jobCount)
+            .truncated(false);
+
+    for (int i = 0; i < jobCount; i++) {
+      builder.addJobKeys(generateKey()).addJobs(generateJob(nextProcessInstanceKey()));
+    }
+
+    return builder.build();
+  }
+
+  private ImmutableDeploymentRecordValue generateDeployment() {
+    final ImmutableDeploymentRecordValue.Builder builder = ImmutableDeploymentRecordValue.builder();
+    for (int i = 0; i < config.getDeploymentResourceCount(); i++) {
+      final ImmutableProcess process = generateProcess(random.nextInt(config.getProcessCount()));
+      builder
+          .addResources(
+              ImmutableDeploymentResource.builder()
+                  .resourceName(process.getResourceName())
+                  .resource(process.getResource())
+                  .build())
+          .addProcessesMetadata(ImmutableProcessMetadata.builder().from(process).build());
+    }
+
+    return builder.build();
+  }
+
+  /**
+   * Generates a process whose resource only depends on its index, such that deploying the same
+   * process again yields the same resource and checksum, just like a redeployment would.
+   */
+  private ImmutableProcess generateProcess(final int processIndex) {
+    final String bpmnProcessId = "process-" + processIndex;
+    final byte[] resource = generateResource(bpmnProcessId);
+
+    return ImmutableProcess.builder()
+        .bpmnProcessId(bpmnProcessId)
+        .version(1)
+        .processDefinitionKey(
+            Protocol.encodePartitionId(Protocol.DEPLOYMENT_PARTITION, processIndex))
+        .resourceName(bpmnProcessId + ".bpmn")
+        .checksum(checksum(resource))
+        .resource(resource)
+        .build();
+  }
+
+  private byte[] generateResource(final String bpmnProcessId) {
+    final byte[] pattern =
+        ("<bpmn:serviceTask id=\"" + bpmnProcessId + "-task\" />\n")
+            .getBytes(StandardCharsets.UTF_8);
+    final byte[] resource = new byte[config.getDeploymentResourceSize()];
+    for (int i = 0; i < resource.length; i += pattern.length) {
+      System.arraycopy(pattern, 0, resource, i, Math.min(pattern.length, resource.length - i));
+    }
+
+    return resource;
+  }
+
+  private Map<String, Object> generateVariables() {
+    final Map<String, Object> variables = new LinkedHashMap<>();
+    for (int i = 0; i < config.getVariableCount(); i++) {
+      variables.put("var-" + i, generateString(config.getVariableValueSize()));
+    }
+
+    return variables;
+  }
+
+  private String generateString(final int length) {
+    final char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      chars[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+    }
+
+    return new String(chars);
+  }
+
+  private long generateKey() {
+    return Protocol.encodePartitionId(config.getPartitionId(), nextKey++);
+  }
+
+  /**
+   * Returns the key of one of the currently active process instances, or starts a new one. This
+   * way, consecutive records refer to a small set of process instances, like they would in a real
+   * log.
+   */
+  private long nextProcessInstanceKey() {
+    if (activeProcessInstanceCount < ACTIVE_PROCESS_INSTANCES || random.nextInt(8) == 0) {
+      final long key = generateKey();
+      activeProcessInstances[nextActiveProcessInstance] = key;
+      nextActiveProcessInstance = (nextActiveProcessInstance + 1) & (ACTIVE_PROCESS_INSTANCES - 1);
+      activeProcessInstanceCount =
+          Math.min(activeProcessInstanceCount + 1, ACTIVE_PROCESS_INSTANCES);
+      return key;
+    }
+
+    return activeProcessInstances[random.nextInt(ACTIVE_PROCESS_INSTANCES)];
+  }
+
+  private int getProcessIndex(final long processInstanceKey) {
+    return (int) (Protocol.decodeKeyInPartition(processInstanceKey) % config.getProcessCount());
+  }
+
+  private String getBpmnProcessId(final long processInstanceKey) {
+    return "process-" + getProcessIndex(processInstanceKey);
+  }
+
+  private long getProcessDefinitionKey(final long processInstanceKey) {
+    return Protocol.encodePartitionId(
+        Protocol.DEPLOYMENT_PARTITION, getProcessIndex(processInstanceKey));
+  }
+
+  private static boolean isProcessInstanceScoped(final ValueType valueType) {
+    return valueType == ValueType.PROCESS_INSTANCE
+        || valueType == ValueType.PROCESS_INSTANCE_CREATION
+        || valueType == ValueType.PROCESS_INSTANCE_RESULT;
+  }
+
+  /**
+   * Zeebe intents have no notion of record type, but events are consistently named in the past
+   * (e.g. {@code CREATED}) or present continuous tense (e.g. {@code ELEMENT_ACTIVATING}), whereas
+   * commands are imperative (e.g. {@code CREATE}).
+   */
+  private static RecordType getRecordType(final Intent intent) {
+    final String name = intent.name();
+    return name.endsWith("ED") || name.endsWith("ING") ? RecordType.EVENT : RecordType.COMMAND;
+  }
+
+  private WeightedChoice<Intent> createIntentChoice(final ValueType valueType) {
+    final Map<Intent, Integer> weights = new LinkedHashMap<>();
+    final List<Intent> candidates = ValueTypeMapping.of(valueType).getIntents();
+    for (final Intent intent : candidates) {
+      final Integer weight = config.getIntentWeights().get(intent);
+      if (weight != null) {
+        weights.put(intent, weight);
+      }
+    }
+
+    if (weights.isEmpty()) {
+      for (final Intent intent : candidates) {
+        weights.put(intent, 1);
+      }
+    }
+
+    return new WeightedChoice<>(weights);
+  }
+
+  private static byte[] checksum(final byte[] resource) {
+    try {
+      return MessageDigest.getInstance("MD5").digest(resource);
+    } catch (final NoSuchAlgorithmException e) {
+      // every JVM is required to support MD5
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static final class WeightedChoice<T> {
+    private final List<T> choices = new ArrayList<>();
+    private final int[] cumulativeWeights;
+    private final int totalWeight;
+
+    private WeightedChoice(final Map<T, Integer> weights) {
+      cumulativeWeights = new int[weights.size()];
+
+      int total = 0;
+      for (final Map.Entry<T, Integer> entry : weights.entrySet()) {
+        if (entry.getValue() <= 0) {
+          continue;
+        }
+
+        total += entry.getValue();
+        cumulativeWeights[choices.size()] = total;
+        choices.add(entry.getKey());
+      }
+
+      if (choices.isEmpty()) {
+        throw new IllegalArgumentException("Expected at least one positive weight in " + weights);
+      }
+
+      totalWeight = total;
+    }
+
+    private T next(final SplittableRandom random) {
+      final int value = random.nextInt(totalWeight);
+      for (int i = 0; i < choices.size(); i++) {
+        if (value < cumulativeWeights[i]) {
+          return choices.get(i);
+        }
+      }
+
+      throw new IllegalStateException("Unreachable: weights are cumulative up to the total");
+    }
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.jfr;
+
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.zeebe.protocol.immutables.RetainedSize;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Emitted when the {@code ImmutableRecordCopier} copies a record or a record value which takes
+ * longer than the threshold. The payload size is the number of bytes retained by the copied value,
+ * as estimated by {@link RetainedSize}, which walks the copy without serializing it and is only
+ * computed for the events which are actually committed. Only use via {@link RecordEvents}.
+ */
+@Name("io.zeebe.protocol.immutables.RecordCopy")
+@Label("Record Copy")
+@Description("Deep copy of a record or record value into its immutable equivalent")
+@Category({"Zeebe", "Records"})
+@Enabled(false)
+@Threshold("1 ms")
+@StackTrace(false)
+public final class RecordCopyEvent extends Event {
+  private static final EventType TYPE = RecordEvents.register(RecordCopyEvent.class);
+
+  @Label("Value Type")
+  private String valueType;
+
+  @Label("Intent")
+  private String intent;
+
+  @Label("Partition ID")
+  private int partitionId;
+
+  @Label("Position")
+  private long position;
+
+  @Label("Payload Size")
+  @Description("Approximate number of bytes retained by the copied value, or -1 if unknown")
+  @DataAmount
+  private long payloadSize;
+
+  private RecordCopyEvent() {}
+
+  /** @return a started event, or null if the event is not enabled */
+  public static RecordCopyEvent beginIfEnabled() {
+    if (!TYPE.isEnabled()) {
+      return null;
+    }
+
+    final RecordCopyEvent event = new RecordCopyEvent();
+    event.begin();
+    return event;
+  }
+
+  /** Ends the event, and commits it with the properties of the given copy if it is slow. */
+  public void complete(final Record<?> copy) {
+    end();
+    if (shouldCommit()) {
+      valueType = String.valueOf(copy.getValueType());
+      intent = RecordEvents.nameOf(copy.getIntent());
+      partitionId = copy.getPartitionId();
+      position = copy.getPosition();
+      payloadSize = retainedSizeOf(copy.getValueType(), (RecordValue) copy.getValue());
+      commit();
+    }
+  }
+
+  /** Ends the event, and commits it with the given copied value if it is slow. */
+  public void complete(final ValueType valueType, final RecordValue copy) {
+    end();
+    if (shouldCommit()) {
+      this.valueType = String.valueOf(valueType);
+      payloadSize = retainedSizeOf(valueType, copy);
+      commit();
+    }
+  }
+
+  private static long retainedSizeOf(final ValueType valueType, final RecordValue copy) {
+    try {
+      return RetainedSize.ofValue(valueType, copy);
+    } catch (final RuntimeException e) {
+      return -1;
+    }
+  }
+}
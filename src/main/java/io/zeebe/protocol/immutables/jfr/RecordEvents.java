@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.jfr;
+
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Guards the Java Flight Recorder events of this library. With JDK 11, merely loading an event
+ * class initializes the whole flight recorder, which takes hundreds of milliseconds, so the events
+ * are only created if the flight recorder was already initialized, e.g. by {@code
+ * -XX:StartFlightRecording} or by starting a recording programmatically. Call sites must check
+ * {@link #isRecording()} before referencing any event class:
+ *
+ * <pre>{@code
+ * final RecordCopyEvent event = RecordEvents.isRecording() ? RecordCopyEvent.beginIfEnabled() : null;
+ * }</pre>
+ *
+ * <p>All events are disabled by default, and are enabled through the JFR configuration, e.g. a
+ * {@code .jfc} file, using their names, such as {@code io.zeebe.protocol.immutables.RecordCopy}.
+ */
+public final class RecordEvents {
+  private static final boolean AVAILABLE = isFlightRecorderPresent();
+
+  private RecordEvents() {}
+
+  /**
+   * @return true if the flight recorder is initialized, in which case the events may be enabled;
+   *     false if it is not, or if the runtime does not include the {@code jdk.jfr} module
+   */
+  public static boolean isRecording() {
+    return AVAILABLE && FlightRecorder.isInitialized();
+  }
+
+  static EventType register(final Class<? extends Event> eventClass) {
+    FlightRecorder.register(eventClass);
+    return EventType.getEventType(eventClass);
+  }
+
+  static String nameOf(final Intent intent) {
+    return intent == null ? null : intent.name();
+  }
+
+  private static boolean isFlightRecorderPresent() {
+    try {
+      Class.forName("jdk.jfr.FlightRecorder", false, RecordEvents.class.getClassLoader());
+      return true;
+    } catch (final ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.jfr;
+
+import io.camunda.zeebe.protocol.record.Record;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Emitted when serializing a record to JSON via the {@code RecordMapper}, e.g. by {@code toJson()},
+ * takes longer than the threshold. Only use via {@link RecordEvents}.
+ */
+@Name("io.zeebe.protocol.immutables.RecordSerialization")
+@Label("Record Serialization")
+@Description("Serialization of a record to JSON")
+@Category({"Zeebe", "Records"})
+@Enabled(false)
+@Threshold("1 ms")
+@StackTrace(false)
+public final class RecordSerializationEvent extends Event {
+  private static final EventType TYPE = RecordEvents.register(RecordSerializationEvent.class);
+
+  @Label("Value Type")
+  private String valueType;
+
+  @Label("Intent")
+  private String intent;
+
+  @Label("Partition ID")
+  private int partitionId;
+
+  @Label("Position")
+  private long position;
+
+  @Label("Payload Size")
+  @Description("Length of the JSON, in characters when written to a string or a writer")
+  @DataAmount
+  private long payloadSize;
+
+  private RecordSerializationEvent() {}
+
+  /** @return a started event, or null if the event is not enabled */
+  public static RecordSerializationEvent beginIfEnabled() {
+    if (!TYPE.isEnabled()) {
+      return null;
+    }
+
+    final RecordSerializationEvent event = new RecordSerializationEvent();
+    event.begin();
+    return event;
+  }
+
+  /** Ends the event, and commits it with the given record and JSON length if it is slow. */
+  public void complete(final Record<?> record, final long payloadSize) {
+    end();
+    if (shouldCommit()) {
+      valueType = String.valueOf(record.getValueType());
+      intent = RecordEvents.nameOf(record.getIntent());
+      partitionId = record.getPartitionId();
+      position = record.getPosition();
+      this.payloadSize = payloadSize;
+      commit();
+    }
+  }
+}
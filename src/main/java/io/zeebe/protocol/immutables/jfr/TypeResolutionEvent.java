@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Emitted when the deserializer resolves the Java type of the value or the intent of a record from
+ * its value type. Only the value type is known at that point, not the record's intent, partition or
+ * size. Only use via {@link RecordEvents}.
+ */
+@Name("io.zeebe.protocol.immutables.TypeResolution")
+@Label("Record Type Resolution")
+@Description("Resolution of the value or intent type of a record from its value type")
+@Category({"Zeebe", "Records"})
+@Enabled(false)
+@StackTrace(false)
+public final class TypeResolutionEvent extends Event {
+  private static final EventType TYPE = RecordEvents.register(TypeResolutionEvent.class);
+
+  @Label("Value Type")
+  private String valueType;
+
+  @Label("Property")
+  @Description("The resolved property, either value or intent")
+  private String property;
+
+  @Label("Resolved Type")
+  private String resolvedType;
+
+  private TypeResolutionEvent() {}
+
+  /** @return a started event, or null if the event is not enabled */
+  public static TypeResolutionEvent beginIfEnabled() {
+    if (!TYPE.isEnabled()) {
+      return null;
+    }
+
+    final TypeResolutionEvent event = new TypeResolutionEvent();
+    event.begin();
+    return event;
+  }
+
+  /** Ends the event, and commits it with the given resolution if it passes the threshold. */
+  public void complete(final String valueType, final String property, final Class<?> resolved) {
+    end();
+    if (shouldCommit()) {
+      this.valueType = valueType;
+      this.property = property;
+      resolvedType = resolved == null ? null : resolved.getName();
+      commit();
+    }
+  }
+}
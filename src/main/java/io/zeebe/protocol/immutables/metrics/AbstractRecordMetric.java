@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.metrics;
+
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import io.zeebe.protocol.immutables.ZeebeStyle;
+import org.immutables.value.Value;
+
+/** A snapshot of the metrics of one operation on the records of a value type and intent. */
+@Value.Immutable
+@ZeebeStyle
+public abstract class AbstractRecordMetric {
+
+  public abstract RecordOperation getOperation();
+
+  public abstract ValueType getValueType();
+
+  /** @return the intent, or {@link Intent#UNKNOWN} for all intents which are not known */
+  public abstract Intent getIntent();
+
+  /** @return the number of records */
+  public abstract long getCount();
+
+  /** @return the total time spent on the records, in nanoseconds */
+  public abstract long getNanos();
+
+  /** @return the total number of bytes written or read, see {@link RecordOperation} */
+  public abstract long getBytes();
+}
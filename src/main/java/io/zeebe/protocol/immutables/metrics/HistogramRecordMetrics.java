@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.metrics;
+
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongConsumer;
+
+/**
+ * Publishes the duration and the size of every operation to histograms of any metrics library, one
+ * per operation, value type and intent, without depending on any of them. The histograms are
+ * created by a {@link HistogramFactory} the first time a combination occurs, and are then given
+ * every measurement as a {@code long}, e.g. for HdrHistogram or Micrometer:
+ *
+ * <pre>{@code
+ * new HistogramRecordMetrics((operation, valueType, intent, measurement) -> new ConcurrentHistogram(3)::recordValue);
+ *
+ * new HistogramRecordMetrics((operation, valueType, intent, measurement) -> {
+ *   if (measurement == Measurement.SIZE) {
+ *     return DistributionSummary.builder("zeebe.record.bytes").tags(...).register(registry)::record;
+ *   }
+ *   final Timer timer = Timer.builder("zeebe.record.duration").tags(...).register(registry);
+ *   return nanos -> timer.record(nanos, TimeUnit.NANOSECONDS);
+ * });
+ * }</pre>
+ *
+ * <p>The histograms must be thread safe, as they are updated by any thread which copies, serializes
+ * or deserializes records.
+ */
+public final class HistogramRecordMetrics implements RecordMetricsListener {
+  private static final LongConsumer IGNORED = value -> {};
+
+  private final HistogramFactory factory;
+  private final AtomicReferenceArray<LongConsumer> durations =
+      new AtomicReferenceArray<>(MetricIndex.SIZE);
+  private final AtomicReferenceArray<LongConsumer> sizes =
+      new AtomicReferenceArray<>(MetricIndex.SIZE);
+
+  /** @param factory creates the histograms for each combination of the measurements */
+  public HistogramRecordMetrics(final HistogramFactory factory) {
+    this.factory = factory;
+  }
+
+  @Override
+  public void onRecord(
+      final RecordOperation operation,
+      final ValueType valueType,
+      final Intent intent,
+      final long nanos,
+      final long bytes) {
+    if (valueType == null) {
+      return;
+    }
+
+    final int index = MetricIndex.of(operation, valueType, intent);
+    histogramOf(durations, index, Measurement.DURATION).accept(nanos);
+    if (bytes > 0) {
+      histogramOf(sizes, index, Measurement.SIZE).accept(bytes);
+    }
+  }
+
+  private LongConsumer histogramOf(
+      final AtomicReferenceArray<LongConsumer> histograms,
+      final int index,
+      final Measurement measurement) {
+    final LongConsumer histogram = histograms.get(index);
+    return histogram != null ? histogram : createHistogram(histograms, index, measurement);
+  }
+
+  private synchronized LongConsumer createHistogram(
+      final AtomicReferenceArray<LongConsumer> histograms,
+      final int index,
+      final Measurement measurement) {
+    LongConsumer histogram = histograms.get(index);
+    if (histogram == null) {
+      histogram =
+          factory.create(
+              MetricIndex.operationOf(index),
+              MetricIndex.valueTypeOf(index),
+              MetricIndex.intentOf(index),
+              measurement);
+      histogram = histogram != null ? histogram : IGNORED;
+      histograms.set(index, histogram);
+    }
+
+    return histogram;
+  }
+
+  /** What a histogram records. */
+  public enum Measurement {
+    /** The duration of each operation, in nanoseconds. */
+    DURATION,
+
+    /** The bytes written or read by each operation, see {@link RecordOperation}. */
+    SIZE
+  }
+
+  /** Creates the histograms of a {@link HistogramRecordMetrics}. */
+  @FunctionalInterface
+  public interface HistogramFactory {
+
+    /**
+     * Called at most once for each combination of the arguments, the first time it occurs. The
+     * intent is {@link Intent#UNKNOWN} for all intents which are not known.
+     *
+     * @return the histogram to record the measurements of the given combination, or null to ignore
+     *     them
+     */
+    LongConsumer create(
+        RecordOperation operation, ValueType valueType, Intent intent, Measurement measurement);
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.metrics;
+
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+
+/**
+ * Maps each combination of operation, value type and intent to a dense index, such that metrics can
+ * be kept in flat arrays instead of maps. Intents which are unknown or out of range share one index
+ * per operation and value type.
+ */
+final class MetricIndex {
+  private static final RecordOperation[] OPERATIONS = RecordOperation.values();
+  private static final ValueType[] VALUE_TYPES = ValueType.values();
+  private static final int INTENTS = Intent.maxCardinality() + 1;
+  private static final int UNKNOWN_INTENT = INTENTS - 1;
+
+  static final int SIZE = OPERATIONS.length * VALUE_TYPES.length * INTENTS;
+
+  private MetricIndex() {}
+
+  static int of(final RecordOperation operation, final ValueType valueType, final Intent intent) {
+    final int intentIndex =
+        intent == null || intent.value() < 0 || intent.value() >= UNKNOWN_INTENT
+            ? UNKNOWN_INTENT
+            : intent.value();
+    return (operation.ordinal() * VALUE_TYPES.length + valueType.ordinal()) * INTENTS + intentIndex;
+  }
+
+  static RecordOperation operationOf(final int index) {
+    return OPERATIONS[index / (VALUE_TYPES.length * INTENTS)];
+  }
+
+  static ValueType valueTypeOf(final int index) {
+    return VALUE_TYPES[index / INTENTS % VALUE_TYPES.length];
+  }
+
+  static Intent intentOf(final int index) {
+    final int intentIndex = index % INTENTS;
+    if (intentIndex == UNKNOWN_INTENT) {
+      return Intent.UNKNOWN;
+    }
+
+    return Intent.fromProtocolValue(valueTypeOf(index), (short) intentIndex);
+  }
+}
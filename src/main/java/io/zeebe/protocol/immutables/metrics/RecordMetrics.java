@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.metrics;
+
+import java.util.Objects;
+
+/**
+ * Holds the {@link RecordMetricsListener} notified by the {@code ImmutableRecordCopier}, the {@code
+ * RecordMapper}, the {@link RecordMetricsModule} and the {@code RecordStreamReader}. It is {@link
+ * RecordMetricsListener#NONE} unless configured, in which case nothing is measured at all, e.g.
+ *
+ * <pre>{@code
+ * final StripedRecordMetrics metrics = new StripedRecordMetrics();
+ * RecordMetrics.setListener(metrics);
+ * }</pre>
+ */
+public final class RecordMetrics {
+  private static volatile RecordMetricsListener listener = RecordMetricsListener.NONE;
+
+  private RecordMetrics() {}
+
+  /** @return the listener notified by this library */
+  public static RecordMetricsListener getListener() {
+    return listener;
+  }
+
+  /**
+   * Replaces the listener notified by this library; use {@link RecordMetricsListener#NONE} to stop.
+   */
+  public static void setListener(final RecordMetricsListener listener) {
+    RecordMetrics.listener = Objects.requireNonNull(listener, "must specify a listener");
+  }
+}
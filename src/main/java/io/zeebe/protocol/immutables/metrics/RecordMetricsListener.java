@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.metrics;
+
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import java.util.List;
+
+/**
+ * Receives a measurement for every record which this library copies, serializes, or deserializes,
+ * while it is set via {@link RecordMetrics#setListener(RecordMetricsListener)}. Listeners are
+ * called on the thread which did the work, right after it, so they must be thread safe and cheap,
+ * e.g. by only incrementing counters as the {@link StripedRecordMetrics} do.
+ */
+@FunctionalInterface
+public interface RecordMetricsListener {
+
+  /** A listener which ignores everything; no measurement is taken while it is set. */
+  RecordMetricsListener NONE = (operation, valueType, intent, nanos, bytes) -> {};
+
+  /**
+   * Called after an operation on a single record.
+   *
+   * @param operation what was done with the record
+   * @param valueType the value type of the record
+   * @param intent the intent of the record
+   * @param nanos the time the operation took, in nanoseconds
+   * @param bytes the number of bytes written or read, see {@link RecordOperation}
+   */
+  void onRecord(
+      RecordOperation operation, ValueType valueType, Intent intent, long nanos, long bytes);
+
+  /** @return a listener which forwards every measurement to all the given listeners, in order */
+  static RecordMetricsListener compose(final RecordMetricsListener... listeners) {
+    final List<RecordMetricsListener> delegates = List.of(listeners);
+    return (operation, valueType, intent, nanos, bytes) -> {
+      for (final RecordMetricsListener delegate : delegates) {
+        delegate.onRecord(operation, valueType, intent, nanos, bytes);
+      }
+    };
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.metrics;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import io.zeebe.protocol.immutables.record.value.RecordJsonCodec;
+import java.io.IOException;
+
+/**
+ * Reports every {@link ImmutableRecord} deserialized by a mapper to the {@link
+ * RecordMetrics#getListener() current listener}. It must be registered after the {@code
+ * JsonCodecModule}, whose record deserializer it replaces, as done by {@code
+ * RecordMapper#newObjectMapper()}. While no listener is set, it only adds a volatile read per
+ * record.
+ */
+public final class RecordMetricsModule extends SimpleModule {
+  private static final long serialVersionUID = 1L;
+
+  public RecordMetricsModule() {
+    super(RecordMetricsModule.class.getSimpleName());
+    addDeserializer(ImmutableRecord.class, new MeasuredRecordDeserializer());
+  }
+
+  /**
+   * @return the offset of the given location in bytes, or in characters if the input is not read as
+   *     bytes, or -1 if neither is known
+   */
+  public static long offsetOf(final JsonLocation location) {
+    final long byteOffset = location.getByteOffset();
+    return byteOffset >= 0 ? byteOffset : location.getCharOffset();
+  }
+
+  private static final class MeasuredRecordDeserializer
+      extends StdDeserializer<ImmutableRecord<?>> {
+    private static final long serialVersionUID = 1L;
+
+    private MeasuredRecordDeserializer() {
+      super(ImmutableRecord.class);
+    }
+
+    @Override
+    public ImmutableRecord<?> deserialize(
+        final JsonParser parser, final DeserializationContext context) throws IOException {
+      final RecordMetricsListener listener = RecordMetrics.getListener();
+      if (listener == RecordMetricsListener.NONE) {
+        return RecordJsonCodec.read(parser, context);
+      }
+
+      final long start = System.nanoTime();
+      final long startOffset = offsetOf(parser.getTokenLocation());
+      final ImmutableRecord<?> record = RecordJsonCodec.read(parser, context);
+      final long nanos = System.nanoTime() - start;
+      final long bytes = startOffset < 0 ? 0 : offsetOf(parser.getCurrentLocation()) - startOffset;
+      listener.onRecord(
+          RecordOperation.DESERIALIZE, record.getValueType(), record.getIntent(), nanos, bytes);
+      return record;
+    }
+
+    @Override
+    public boolean isCachable() {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.metrics;
+
+/** The operations on records which are reported to a {@link RecordMetricsListener}. */
+public enum RecordOperation {
+  /** A deep copy by the {@code ImmutableRecordCopier}; no bytes are reported. */
+  COPY,
+
+  /**
+   * A record serialized to JSON via the {@code RecordMapper}, e.g. by {@code toJson()}; the bytes
+   * are the length of the JSON written, in characters when it is written to a string or a writer.
+   */
+  SERIALIZE,
+
+  /**
+   * A record deserialized from JSON, by a mapper with the {@link RecordMetricsModule} or by a
+   * {@code RecordStreamReader}; the bytes are the length of the JSON read, in characters when it is
+   * read from a string or a reader.
+   */
+  DESERIALIZE
+}
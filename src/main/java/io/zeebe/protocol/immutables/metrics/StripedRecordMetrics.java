@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.metrics;
+
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the records, the time and the bytes of every operation per value type and intent. The
+ * counters are {@link LongAdder}s, which are striped across threads under contention, so they can
+ * be updated from many threads at once, e.g. the consumers of a {@code RecordPipeline}, and are
+ * cheap enough to be left enabled. Counters are only allocated for the combinations which actually
+ * occur.
+ *
+ * <p>Reading the metrics while they are updated does not block the writers, but a {@link
+ * ImmutableRecordMetric} is not an atomic snapshot: its count, time and bytes may be off by the
+ * records which were measured while it was built.
+ */
+public final class StripedRecordMetrics implements RecordMetricsListener {
+  private final AtomicReferenceArray<Counters> counters =
+      new AtomicReferenceArray<>(MetricIndex.SIZE);
+
+  @Override
+  public void onRecord(
+      final RecordOperation operation,
+      final ValueType valueType,
+      final Intent intent,
+      final long nanos,
+      final long bytes) {
+    if (valueType == null) {
+      return;
+    }
+
+    final Counters record = countersOf(MetricIndex.of(operation, valueType, intent));
+    record.count.increment();
+    record.nanos.add(nanos);
+    if (bytes > 0) {
+      record.bytes.add(bytes);
+    }
+  }
+
+  /**
+   * @return the metrics of the given operation on the records with the given value type and intent,
+   *     all zero if there were none
+   */
+  public ImmutableRecordMetric get(
+      final RecordOperation operation, final ValueType valueType, final Intent intent) {
+    final int index = MetricIndex.of(operation, valueType, intent);
+    return toMetric(index, counters.get(index));
+  }
+
+  /**
+   * @return the metrics of the given operation on the records with the given value type, summed
+   *     over all intents; the intent of the result is {@link Intent#UNKNOWN}
+   */
+  public ImmutableRecordMetric get(final RecordOperation operation, final ValueType valueType) {
+    long count = 0;
+    long nanos = 0;
+    long bytes = 0;
+    for (int i = 0; i < counters.length(); i++) {
+      final Counters record = counters.get(i);
+      if (record != null
+          && MetricIndex.operationOf(i) == operation
+          && MetricIndex.valueTypeOf(i) == valueType) {
+        count += record.count.sum();
+        nanos += record.nanos.sum();
+        bytes += record.bytes.sum();
+      }
+    }
+
+    return ImmutableRecordMetric.builder()
+        .operation(operation)
+        .valueType(valueType)
+        .intent(Intent.UNKNOWN)
+        .count(count)
+        .nanos(nanos)
+        .bytes(bytes)
+        .build();
+  }
+
+  /** @return the metrics of every combination which occurred so far */
+  public List<ImmutableRecordMetric> getMetrics() {
+    final List<ImmutableRecordMetric> metrics = new ArrayList<>();
+    for (int i = 0; i < counters.length(); i++) {
+      final Counters record = counters.get(i);
+      if (record != null) {
+        metrics.add(toMetric(i, record));
+      }
+    }
+
+    return metrics;
+  }
+
+  /** Resets all counters to zero. */
+  public void reset() {
+    for (int i = 0; i < counters.length(); i++) {
+      final Counters record = counters.get(i);
+      if (record != null) {
+        record.count.reset();
+        record.nanos.reset();
+        record.bytes.reset();
+      }
+    }
+  }
+
+  private Counters countersOf(final int index) {
+    final Counters existing = counters.get(index);
+    if (existing != null) {
+      return existing;
+    }
+
+    final Counters created = new Counters();
+    return counters.compareAndSet(index, null, created) ? created : counters.get(index);
+  }
+
+  private static ImmutableRecordMetric toMetric(final int index, final Counters record) {
+    return ImmutableRecordMetric.builder()
+        .operation(MetricIndex.operationOf(index))
+        .valueType(MetricIndex.valueTypeOf(index))
+        .intent(MetricIndex.intentOf(index))
+        .count(record == null ? 0 : record.count.sum())
+        .nanos(record == null ? 0 : record.nanos.sum())
+        .bytes(record == null ? 0 : record.bytes.sum())
+        .build();
+  }
+
+  private static final class Counters {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+  }
+}
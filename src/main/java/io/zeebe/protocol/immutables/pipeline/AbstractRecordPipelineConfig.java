@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.pipeline;
+
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.zeebe.protocol.immutables.ZeebeStyle;
+import java.time.Duration;
+import java.util.function.Predicate;
+import org.immutables.value.Value;
+
+/**
+ * Configures a {@link RecordPipeline}. Every attribute has a default, so {@code
+ * ImmutableRecordPipelineConfig.builder().build()} describes a pipeline with a single consumer
+ * which handles every record.
+ */
+@Value.Immutable
+@ZeebeStyle
+public abstract class AbstractRecordPipelineConfig {
+
+  /**
+   * @return the number of slots of the ring buffer, which must be a power of two; the producer
+   *     cannot publish more records than this until the oldest ones are completed
+   */
+  @Value.Default
+  public int getCapacity() {
+    return 1024;
+  }
+
+  /** @return the maximum number of records a consumer claims and handles at once */
+  @Value.Default
+  public int getMaxBatchSize() {
+    return 64;
+  }
+
+  /** @return the number of consumer threads */
+  @Value.Default
+  public int getConsumerCount() {
+    return 1;
+  }
+
+  /** @return how consumers wait for new records */
+  @Value.Default
+  public WaitStrategy getConsumerWaitStrategy() {
+    return WaitStrategy.backoff(Duration.ofMillis(1));
+  }
+
+  /** @return how consumers wait before handling a failed batch again */
+  @Value.Default
+  public WaitStrategy getRetryWaitStrategy() {
+    return WaitStrategy.sleeping(Duration.ofMillis(1), Duration.ofSeconds(1));
+  }
+
+  /**
+   * @return notified of every failed attempt to handle a batch; by default failures are only
+   *     counted, see {@link RecordPipeline#getFailedBatchCount()}
+   */
+  @Value.Default
+  public BatchErrorListener getErrorListener() {
+    return (error, retrying) -> {};
+  }
+
+  /** @return how {@link RecordPipeline#publish(Record)} waits while the ring buffer is full */
+  @Value.Default
+  public WaitStrategy getProducerWaitStrategy() {
+    return WaitStrategy.yielding();
+  }
+
+  /**
+   * @return the records which are copied and handled; records which do not pass the filter are
+   *     completed right away. The filter is evaluated on the consumer threads.
+   */
+  @Value.Default
+  public Predicate<Record<RecordValue>> getFilter() {
+    return record -> true;
+  }
+
+  /**
+   * @return true if the producer copies the value of each record before publishing it, false if the
+   *     consumers copy it. Only disable it if the producer does not reuse or modify the published
+   *     values afterwards, which is not the case for the records passed to exporters by the broker.
+   */
+  @Value.Default
+  public boolean isCopyOnPublish() {
+    return true;
+  }
+
+  /** @return the prefix of the names of the consumer threads */
+  @Value.Default
+  public String getThreadNamePrefix() {
+    return "record-pipeline-";
+  }
+}
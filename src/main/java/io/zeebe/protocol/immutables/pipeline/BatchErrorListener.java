@@ -0,0 +1,32 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.pipeline;
+
+/**
+ * Is notified on the consumer threads of a {@link RecordPipeline} whenever handling a batch fails,
+ * e.g. to log the failure or to update metrics. It must not block, as the batch is only retried
+ * once it returns.
+ */
+@FunctionalInterface
+public interface BatchErrorListener {
+
+  /**
+   * @param error what the {@link RecordBatchHandler}, the filter or the copier threw
+   * @param retrying true if the same batch will be handled again, false if the batch is given up,
+   *     either because the pipeline is closing or because the error leaves the pipeline failed
+   */
+  void onError(Throwable error, boolean retrying);
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.pipeline;
+
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.util.List;
+
+/**
+ * Handles the records of a {@link RecordPipeline} on one of its consumer threads, e.g. by
+ * serializing them and sending them to some external system. Handlers of pipelines with more than
+ * one consumer are called concurrently, each time with a different batch.
+ */
+@FunctionalInterface
+public interface RecordBatchHandler {
+
+  /**
+   * Handles a batch of records, in the order in which they were published. The records are
+   * immutable copies, which the handler may keep. If the handler throws an exception, the same
+   * batch is handled again after a while, and the records are not completed until the handler
+   * succeeds; if it throws an {@link Error}, the pipeline fails.
+   *
+   * @param records the records which passed the pipeline's filter, never empty
+   * @throws Exception if the batch could not be handled, and should be retried
+   */
+  void handle(List<ImmutableRecord<RecordValue>> records) throws Exception;
+}
@@ -0,0 +1,380 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.pipeline;
+
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.zeebe.protocol.immutables.ImmutableRecordCopier;
+import io.zeebe.protocol.immutables.MutableRecord;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Hands records over from a single producer thread, typically the one calling an exporter, to a few
+ * consumer threads, which filter, copy and handle them in batches. It allows the producer to return
+ * quickly, while the expensive work, e.g. serializing the records, happens elsewhere.
+ *
+ * <p>The records are published into the pre-allocated slots of a bounded ring buffer, without any
+ * lock: the producer fills a slot and then advances the published sequence, while the consumers
+ * claim ranges of published sequences by compare-and-set, and mark each slot as completed once its
+ * batch was handled. A slot is only reused once its record, and all records published before it,
+ * are completed. Publishing does not allocate, except for the copy of the value when {@link
+ * AbstractRecordPipelineConfig#isCopyOnPublish()} is enabled.
+ *
+ * <p>All methods but {@link #getFailedBatchCount()} must be called from the producer thread. When
+ * the ring buffer is full, {@link #tryPublish(Record)} returns false, which the producer can use as
+ * a backpressure signal; {@link #getBacklog()} and {@link #getRemainingCapacity()} tell how close
+ * it is to that point. The position of the last record which was completed, along with all records
+ * before it, is returned by {@link #getCompletedPosition()}, and is the position which an exporter
+ * may acknowledge.
+ *
+ * <p>Batches whose handling throws an {@link Exception} are retried until they succeed. Anything
+ * else thrown on a consumer thread, e.g. an {@link Error}, fails the pipeline: all consumers stop,
+ * and {@link #tryPublish(Record)}, {@link #publish(Record)} and {@link #close()} throw an {@link
+ * IllegalStateException} caused by it. Every failure is passed to the configured {@link
+ * BatchErrorListener}.
+ *
+ * <pre>{@code
+ * final RecordPipeline pipeline = RecordPipeline.start(config, records -> send(records));
+ * pipeline.publish(record);
+ * controller.updateLastExportedRecordPosition(pipeline.getCompletedPosition());
+ * }</pre>
+ */
+public final class RecordPipeline implements AutoCloseable {
+  private static final long NONE = -1;
+
+  private final RecordBatchHandler handler;
+  private final Predicate<Record<RecordValue>> filter;
+  private final WaitStrategy consumerWaitStrategy;
+  private final WaitStrategy producerWaitStrategy;
+  private final WaitStrategy retryWaitStrategy;
+  private final BatchErrorListener errorListener;
+  private final boolean copyOnPublish;
+  private final int capacity;
+  private final int mask;
+  private final int maxBatchSize;
+
+  private final MutableRecord<RecordValue>[] slots;
+  private final AtomicLongArray completed;
+  private final AtomicLong published = new AtomicLong(NONE);
+  private final AtomicLong claimed = new AtomicLong(NONE);
+  private final LongAdder failedBatchCount = new LongAdder();
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+  private final Thread[] consumers;
+
+  // only accessed by the producer
+  private final long[] positions;
+  private long nextSequence;
+  private long released = NONE;
+  private long completedPosition = NONE;
+  private long rejectedCount;
+
+  private volatile boolean closed;
+
+  @SuppressWarnings("unchecked")
+  private RecordPipeline(
+      final AbstractRecordPipelineConfig config, final RecordBatchHandler handler) {
+    this.handler = handler;
+    filter = config.getFilter();
+    consumerWaitStrategy = config.getConsumerWaitStrategy();
+    producerWaitStrategy = config.getProducerWaitStrategy();
+    retryWaitStrategy = config.getRetryWaitStrategy();
+    errorListener = config.getErrorListener();
+    copyOnPublish = config.isCopyOnPublish();
+    capacity = config.getCapacity();
+    mask = capacity - 1;
+    maxBatchSize = config.getMaxBatchSize();
+
+    slots = new MutableRecord[capacity];
+    for (int i = 0; i < capacity; i++) {
+      slots[i] = new MutableRecord<>();
+    }
+    positions = new long[capacity];
+    completed = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      completed.set(i, NONE);
+    }
+
+    consumers = new Thread[config.getConsumerCount()];
+    for (int i = 0; i < consumers.length; i++) {
+      consumers[i] = new Thread(this::consume, config.getThreadNamePrefix() + i);
+      consumers[i].setDaemon(true);
+    }
+  }
+
+  /**
+   * Creates a pipeline and starts its consumer threads.
+   *
+   * @param config the configuration of the pipeline
+   * @param handler handles the records on the consumer threads
+   * @return the started pipeline, which must be closed to stop the consumers
+   * @throws IllegalArgumentException if the capacity is not a power of two, or if the batch size or
+   *     the number of consumers is not positive
+   */
+  public static RecordPipeline start(
+      final AbstractRecordPipelineConfig config, final RecordBatchHandler handler) {
+    final int capacity = config.getCapacity();
+    if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException(
+          "Expected the capacity to be a power of two, but was " + capacity);
+    }
+    if (config.getMaxBatchSize() <= 0 || config.getConsumerCount() <= 0) {
+      throw new IllegalArgumentException(
+          "Expected a positive batch size and consumer count, but got "
+              + config.getMaxBatchSize()
+              + " and "
+              + config.getConsumerCount());
+    }
+
+    final RecordPipeline pipeline = new RecordPipeline(config, handler);
+    for (final Thread consumer : pipeline.consumers) {
+      consumer.start();
+    }
+
+    return pipeline;
+  }
+
+  /**
+   * Publishes the given record if there is a free slot. Only the metadata of the record is copied
+   * into the slot right away; the value is either copied as well, or handed over as is to the
+   * consumers, depending on {@link AbstractRecordPipelineConfig#isCopyOnPublish()}.
+   *
+   * @param record the record to publish
+   * @return true if the record was published, false if the ring buffer is full
+   * @throws IllegalStateException if the pipeline is closed or failed
+   */
+  public boolean tryPublish(final Record<? extends RecordValue> record) {
+    if (closed) {
+      throw new IllegalStateException("Cannot publish record, the pipeline is closed");
+    }
+
+    final Throwable error = failure.get();
+    if (error != null) {
+      throw new IllegalStateException("Cannot publish record, the pipeline failed", error);
+    }
+
+    final long sequence = nextSequence;
+    if (sequence - capacity > released && !release(sequence - capacity)) {
+      rejectedCount++;
+      return false;
+    }
+
+    final int index = (int) (sequence & mask);
+    final MutableRecord<RecordValue> slot = slots[index].wrap(record);
+    if (copyOnPublish) {
+      slot.wrap(
+          slot, ImmutableRecordCopier.deepCopyOfRecordValue(slot.getValueType(), slot.getValue()));
+    }
+    positions[index] = record.getPosition();
+    nextSequence = sequence + 1;
+    published.lazySet(sequence);
+    return true;
+  }
+
+  /**
+   * Publishes the given record, waiting with the configured producer {@link WaitStrategy} as long
+   * as the ring buffer is full.
+   *
+   * @param record the record to publish
+   * @throws IllegalStateException if the pipeline is closed or failed, also while waiting
+   */
+  public void publish(final Record<? extends RecordValue> record) {
+    int attempt = 0;
+    while (!tryPublish(record)) {
+      producerWaitStrategy.idle(attempt++);
+    }
+  }
+
+  /**
+   * @return the position of the last completed record, such that all records published before it
+   *     are completed as well, or -1 if no record was completed yet
+   */
+  public long getCompletedPosition() {
+    release(released);
+    return completedPosition;
+  }
+
+  /** @return the number of published records which are not completed yet */
+  public int getBacklog() {
+    release(released);
+    return (int) (nextSequence - 1 - released);
+  }
+
+  /** @return the number of records which can be published before the ring buffer is full */
+  public int getRemainingCapacity() {
+    return capacity - getBacklog();
+  }
+
+  /** @return the number of slots of the ring buffer */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /** @return how often {@link #tryPublish(Record)} returned false because the buffer was full */
+  public long getRejectedCount() {
+    return rejectedCount;
+  }
+
+  /** @return how often the handler failed, including retries of the same batch */
+  public long getFailedBatchCount() {
+    return failedBatchCount.sum();
+  }
+
+  /**
+   * Stops accepting new records, waits until the consumers have handled all published records, and
+   * stops them. Batches which keep failing are given up after their current retry. If the calling
+   * thread is interrupted while waiting, it returns without waiting for the remaining consumers.
+   *
+   * @throws IllegalStateException if the pipeline failed, once the consumers are stopped
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+
+    closed = true;
+    for (final Thread consumer : consumers) {
+      try {
+        consumer.join();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+
+    final Throwable error = failure.get();
+    if (error != null) {
+      throw new IllegalStateException("The pipeline failed, not all records were handled", error);
+    }
+  }
+
+  private boolean release(final long target) {
+    long sequence = released;
+    while (sequence < nextSequence - 1 && completed.get(index(sequence + 1)) == sequence + 1) {
+      sequence++;
+    }
+
+    if (sequence != released) {
+      released = sequence;
+      completedPosition = positions[index(sequence)];
+    }
+
+    return sequence >= target;
+  }
+
+  private int index(final long sequence) {
+    return (int) (sequence & mask);
+  }
+
+  private void consume() {
+    try {
+      consumeUntilClosed();
+    } catch (final Throwable e) {
+      // the claimed batch is never completed, so the other consumers have to stop as well
+      if (failure.compareAndSet(null, e)) {
+        errorListener.onError(e, false);
+      }
+    }
+  }
+
+  private void consumeUntilClosed() {
+    final List<MutableRecord<RecordValue>> batch = new ArrayList<>(maxBatchSize);
+    int attempt = 0;
+
+    while (failure.get() == null) {
+      // read closed first: once it is set, nothing is published anymore
+      final boolean closing = closed;
+      final long available = published.get();
+      final long current = claimed.get();
+      if (current >= available) {
+        if (closing) {
+          return;
+        }
+
+        consumerWaitStrategy.idle(attempt++);
+        continue;
+      }
+
+      final long last = Math.min(available, current + maxBatchSize);
+      if (claimed.compareAndSet(current, last)) {
+        attempt = 0;
+        if (!handleWithRetries(current + 1, last, batch)) {
+          return;
+        }
+      }
+    }
+  }
+
+  private boolean handleWithRetries(
+      final long first, final long last, final List<MutableRecord<RecordValue>> batch) {
+    int attempt = 0;
+    while (true) {
+      try {
+        handle(first, last, batch);
+        break;
+      } catch (final Exception e) {
+        batch.clear();
+        failedBatchCount.increment();
+        final boolean retrying = !closed;
+        errorListener.onError(e, retrying);
+        if (!retrying) {
+          return false;
+        }
+
+        retryWaitStrategy.idle(attempt++);
+      } catch (final Error e) {
+        failedBatchCount.increment();
+        throw e;
+      }
+    }
+
+    for (long sequence = first; sequence <= last; sequence++) {
+      final int index = index(sequence);
+      slots[index].reset();
+      completed.set(index, sequence);
+    }
+
+    return true;
+  }
+
+  private void handle(
+      final long first, final long last, final List<MutableRecord<RecordValue>> batch)
+      throws Exception {
+    for (long sequence = first; sequence <= last; sequence++) {
+      final MutableRecord<RecordValue> slot = slots[index(sequence)];
+      if (filter.test(slot)) {
+        batch.add(slot);
+      }
+    }
+
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    final List<ImmutableRecord<RecordValue>> copies =
+        ImmutableRecordCopier.deepCopyOfRecords(batch);
+    batch.clear();
+    handler.handle(Collections.unmodifiableList(copies));
+  }
+}
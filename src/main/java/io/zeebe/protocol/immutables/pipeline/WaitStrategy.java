@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.pipeline;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decides what a thread of a {@link RecordPipeline} does when it cannot make progress, i.e. when a
+ * consumer finds no published record, or when the producer finds the ring buffer full. Strategies
+ * trade latency for CPU usage: spinning reacts fastest but burns a core, parking is cheap but
+ * delays the reaction by at least the park time.
+ */
+@FunctionalInterface
+public interface WaitStrategy {
+
+  /**
+   * Waits a little before the caller checks again for progress.
+   *
+   * @param attempt the number of consecutive calls without progress before this one, starting at 0
+   */
+  void idle(int attempt);
+
+  /** @return a strategy which only spins; use it only if each thread has a dedicated core */
+  static WaitStrategy busySpin() {
+    return attempt -> Thread.onSpinWait();
+  }
+
+  /** @return a strategy which spins a few times, and then yields to other threads */
+  static WaitStrategy yielding() {
+    return attempt -> {
+      if (attempt < BackoffWaitStrategy.SPINS) {
+        Thread.onSpinWait();
+      } else {
+        Thread.yield();
+      }
+    };
+  }
+
+  /**
+   * @param maxParkTime the longest time to park at once
+   * @return a strategy which spins, then yields, and then parks for exponentially longer times, up
+   *     to the given maximum
+   */
+  static WaitStrategy backoff(final Duration maxParkTime) {
+    return new BackoffWaitStrategy(maxParkTime.toNanos());
+  }
+
+  /**
+   * @param minParkTime the time to park on the first attempt
+   * @param maxParkTime the longest time to park at once
+   * @return a strategy which parks right away, for twice as long on every attempt, up to the given
+   *     maximum; useful before retrying a call to some external system
+   */
+  static WaitStrategy sleeping(final Duration minParkTime, final Duration maxParkTime) {
+    final long minParkNanos = minParkTime.toNanos();
+    final long maxParkNanos = maxParkTime.toNanos();
+    return attempt -> {
+      final int shift = Math.min(attempt, BackoffWaitStrategy.MAX_SHIFT);
+      LockSupport.parkNanos(Math.min(minParkNanos << shift, maxParkNanos));
+    };
+  }
+
+  final class BackoffWaitStrategy implements WaitStrategy {
+    private static final int SPINS = 100;
+    private static final int YIELDS = 10;
+    private static final int MAX_SHIFT = 30;
+
+    private final long maxParkNanos;
+
+    private BackoffWaitStrategy(final long maxParkNanos) {
+      this.maxParkNanos = maxParkNanos;
+    }
+
+    @Override
+    public void idle(final int attempt) {
+      if (attempt < SPINS) {
+        Thread.onSpinWait();
+      } else if (attempt < SPINS + YIELDS) {
+        Thread.yield();
+      } else {
+        final int shift = Math.min(attempt - SPINS - YIELDS, MAX_SHIFT);
+        LockSupport.parkNanos(Math.min(1_000L << shift, maxParkNanos));
+      }
+    }
+  }
+}
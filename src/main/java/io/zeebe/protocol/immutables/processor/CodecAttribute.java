@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.processor;
+
+import java.util.Objects;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+
+/** An attribute of a {@link CodecType}, i.e. a property of the JSON object. */
+final class CodecAttribute {
+  private final ExecutableElement accessor;
+  private final String name;
+  private final String jsonName;
+  private final Kind kind;
+  private final TypeElement typeElement;
+  private final TypeElement typeIdResolver;
+  private final String typeProperty;
+  private CodecType elementCodec;
+
+  private CodecAttribute(
+      final ExecutableElement accessor,
+      final String name,
+      final String jsonName,
+      final Kind kind,
+      final TypeElement typeElement,
+      final TypeElement typeIdResolver,
+      final String typeProperty) {
+    this.accessor = accessor;
+    this.name = name;
+    this.jsonName = jsonName;
+    this.kind = kind;
+    this.typeElement = typeElement;
+    this.typeIdResolver = typeIdResolver;
+    this.typeProperty = typeProperty;
+  }
+
+  static CodecAttribute of(
+      final ExecutableElement accessor,
+      final String name,
+      final String jsonName,
+      final Kind kind,
+      final TypeElement typeElement) {
+    return new CodecAttribute(accessor, name, jsonName, kind, typeElement, null, null);
+  }
+
+  static CodecAttribute typed(
+      final ExecutableElement accessor,
+      final String name,
+      final String jsonName,
+      final TypeElement typeElement,
+      final TypeElement typeIdResolver,
+      final String typeProperty) {
+    return new CodecAttribute(
+        accessor, name, jsonName, Kind.TYPED, typeElement, typeIdResolver, typeProperty);
+  }
+
+  ExecutableElement getAccessor() {
+    return accessor;
+  }
+
+  String getAccessorName() {
+    return accessor.getSimpleName().toString();
+  }
+
+  /** @return the name of the attribute, as used by the Immutables builder */
+  String getName() {
+    return name;
+  }
+
+  String getJsonName() {
+    return jsonName;
+  }
+
+  Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * @return the type of the attribute for enums and typed attributes, or the type of the elements
+   *     for lists of other codec types
+   */
+  TypeElement getTypeElement() {
+    return typeElement;
+  }
+
+  TypeElement getTypeIdResolver() {
+    return typeIdResolver;
+  }
+
+  String getTypeProperty() {
+    return typeProperty;
+  }
+
+  CodecType getElementCodec() {
+    return elementCodec;
+  }
+
+  void setElementCodec(final CodecType elementCodec) {
+    this.elementCodec = Objects.requireNonNull(elementCodec);
+  }
+
+  enum Kind {
+    BOOLEAN,
+    INT,
+    LONG,
+    STRING,
+    ENUM,
+    BYTES,
+    STRING_MAP,
+    OBJECT_MAP,
+    LONG_LIST,
+    CODEC_LIST,
+    TYPED
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * A type annotated with {@code GenerateJsonCodec}, i.e. an abstract Immutables type, along with the
+ * names of the classes generated for it.
+ */
+final class CodecType {
+  private static final String ABSTRACT_PREFIX = "Abstract";
+
+  private final TypeElement element;
+  private final String packageName;
+  private final String baseName;
+  private final TypeElement valueInterface;
+  private final List<TypeElement> typeParameterBounds;
+  private final boolean interned;
+  private final List<CodecAttribute> attributes = new ArrayList<>();
+
+  CodecType(
+      final TypeElement element,
+      final String packageName,
+      final TypeElement valueInterface,
+      final List<TypeElement> typeParameterBounds,
+      final boolean interned) {
+    this.element = element;
+    this.packageName = packageName;
+    this.valueInterface = valueInterface;
+    this.typeParameterBounds = typeParameterBounds;
+    this.interned = interned;
+
+    final String simpleName = element.getSimpleName().toString();
+    baseName =
+        simpleName.startsWith(ABSTRACT_PREFIX)
+            ? simpleName.substring(ABSTRACT_PREFIX.length())
+            : simpleName;
+  }
+
+  static boolean hasAbstractPrefix(final TypeElement element) {
+    return element.getSimpleName().toString().startsWith(ABSTRACT_PREFIX);
+  }
+
+  TypeElement getElement() {
+    return element;
+  }
+
+  String getPackageName() {
+    return packageName;
+  }
+
+  /** @return the simple name of the class generated by Immutables */
+  String getImmutableName() {
+    return "Immutable" + baseName;
+  }
+
+  String getCodecName() {
+    return baseName + "JsonCodec";
+  }
+
+  String getQualifiedCodecName() {
+    return packageName.isEmpty() ? getCodecName() : packageName + "." + getCodecName();
+  }
+
+  /** @return the interface implemented by the type, accepted by the generated writer */
+  TypeElement getValueInterface() {
+    return valueInterface;
+  }
+
+  /** @return the erased bounds of the type parameters, used to parameterize the builder */
+  List<TypeElement> getTypeParameterBounds() {
+    return typeParameterBounds;
+  }
+
+  /** @return true if read instances are passed through the {@code ResourceCache} */
+  boolean isInterned() {
+    return interned;
+  }
+
+  List<CodecAttribute> getAttributes() {
+    return Collections.unmodifiableList(attributes);
+  }
+
+  void addAttribute(final CodecAttribute attribute) {
+    attributes.add(attribute);
+  }
+}
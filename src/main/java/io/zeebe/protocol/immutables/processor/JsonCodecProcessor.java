@@ -0,0 +1,397 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.processor;
+
+import io.zeebe.protocol.immutables.processor.CodecAttribute.Kind;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates a streaming JSON codec for every type annotated with {@code GenerateJsonCodec}, and a
+ * Jackson module which registers all of them. This processor is compiled before the rest of the
+ * sources, and is not part of the published artifact.
+ *
+ * <p>The attributes are collected the same way Immutables does: the accessors of the super types
+ * come first, in declaration order, and an overridden accessor takes the position of its last
+ * declaration. The codecs thus write the properties in the same order as Jackson does when it
+ * introspects the immutable classes, and produce the exact same JSON.
+ */
+@SupportedAnnotationTypes(JsonCodecProcessor.ANNOTATION)
+public final class JsonCodecProcessor extends AbstractProcessor {
+  static final String ANNOTATION = "io.zeebe.protocol.immutables.GenerateJsonCodec";
+
+  private static final String VALUE_DEFAULT = "org.immutables.value.Value.Default";
+  private static final String JSON_IGNORE = "com.fasterxml.jackson.annotation.JsonIgnore";
+  private static final String JSON_PROPERTY = "com.fasterxml.jackson.annotation.JsonProperty";
+  private static final String JSON_TYPE_INFO = "com.fasterxml.jackson.annotation.JsonTypeInfo";
+  private static final String JSON_TYPE_ID_RESOLVER =
+      "com.fasterxml.jackson.databind.annotation.JsonTypeIdResolver";
+  private static final String EXTERNAL_PROPERTY = "EXTERNAL_PROPERTY";
+
+  private Elements elements;
+  private Types types;
+  private Messager messager;
+  private boolean generated;
+  private boolean failed;
+
+  @Override
+  public synchronized void init(final ProcessingEnvironment processingEnv) {
+    super.init(processingEnv);
+    elements = processingEnv.getElementUtils();
+    types = processingEnv.getTypeUtils();
+    messager = processingEnv.getMessager();
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(
+      final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+    // all annotated types are written by hand, so they are all known in the first round
+    if (generated || annotations.isEmpty()) {
+      return false;
+    }
+
+    generated = true;
+    final List<CodecType> codecTypes = new ArrayList<>();
+    final Map<String, CodecType> codecTypesByInterface = new HashMap<>();
+    for (final TypeElement annotation : annotations) {
+      for (final Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        final CodecType codecType = createCodecType(element);
+        if (codecType != null) {
+          codecTypes.add(codecType);
+          codecTypesByInterface.put(
+              codecType.getValueInterface().getQualifiedName().toString(), codecType);
+        }
+      }
+    }
+
+    for (final CodecType codecType : codecTypes) {
+      collectAttributes(codecType, codecTypesByInterface);
+    }
+
+    if (failed) {
+      return true;
+    }
+
+    final JsonCodecWriter writer = new JsonCodecWriter(processingEnv.getFiler());
+    try {
+      for (final CodecType codecType : codecTypes) {
+        writer.writeCodec(codecType);
+      }
+
+      writer.writeModule(codecTypes);
+    } catch (final IOException e) {
+      messager.printMessage(
+          Diagnostic.Kind.ERROR, "Failed to write the generated JSON codecs: " + e.getMessage());
+    }
+
+    return true;
+  }
+
+  private CodecType createCodecType(final Element element) {
+    if (element.getKind() != ElementKind.CLASS
+        || !element.getModifiers().contains(Modifier.ABSTRACT)
+        || !CodecType.hasAbstractPrefix((TypeElement) element)) {
+      return error(element, "Only abstract classes named Abstract* can generate a JSON codec");
+    }
+
+    final TypeElement type = (TypeElement) element;
+    if (type.getInterfaces().isEmpty()) {
+      return error(element, "Expected the type to implement the interface of its value");
+    }
+
+    final List<TypeElement> typeParameterBounds = new ArrayList<>();
+    for (final TypeParameterElement parameter : type.getTypeParameters()) {
+      typeParameterBounds.add(asTypeElement(types.erasure(parameter.asType())));
+    }
+
+    return new CodecType(
+        type,
+        elements.getPackageOf(type).getQualifiedName().toString(),
+        asTypeElement(type.getInterfaces().get(0)),
+        typeParameterBounds,
+        Boolean.TRUE.equals(getValue(findAnnotation(type, ANNOTATION), "interned")));
+  }
+
+  private void collectAttributes(
+      final CodecType codecType, final Map<String, CodecType> codecTypesByInterface) {
+    final Map<String, ExecutableElement> accessors = new LinkedHashMap<>();
+    collectAccessors(codecType.getElement(), accessors, new HashSet<>());
+
+    final DeclaredType owner = (DeclaredType) codecType.getElement().asType();
+    for (final ExecutableElement accessor : accessors.values()) {
+      if (!isAttribute(accessor)) {
+        continue;
+      }
+
+      final TypeMirror type = ((ExecutableType) types.asMemberOf(owner, accessor)).getReturnType();
+      final CodecAttribute attribute = createAttribute(accessor, type, codecTypesByInterface);
+      if (attribute != null) {
+        codecType.addAttribute(attribute);
+      }
+    }
+  }
+
+  private void collectAccessors(
+      final TypeElement type,
+      final Map<String, ExecutableElement> accessors,
+      final Set<String> visited) {
+    if (!visited.add(type.getQualifiedName().toString())) {
+      return;
+    }
+
+    final TypeMirror superclass = type.getSuperclass();
+    if (superclass.getKind() == TypeKind.DECLARED) {
+      final TypeElement superElement = asTypeElement(superclass);
+      if (!superElement.getQualifiedName().contentEquals(Object.class.getName())) {
+        collectAccessors(superElement, accessors, visited);
+      }
+    }
+
+    for (final TypeMirror superInterface : type.getInterfaces()) {
+      collectAccessors(asTypeElement(superInterface), accessors, visited);
+    }
+
+    for (final ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+      if (isAccessor(method)) {
+        final String name = method.getSimpleName().toString();
+        accessors.remove(name);
+        accessors.put(name, method);
+      }
+    }
+  }
+
+  private boolean isAccessor(final ExecutableElement method) {
+    return !method.getModifiers().contains(Modifier.STATIC)
+        && method.getParameters().isEmpty()
+        && method.getReturnType().getKind() != TypeKind.VOID
+        && stripAccessorPrefix(method.getSimpleName().toString()) != null;
+  }
+
+  private boolean isAttribute(final ExecutableElement accessor) {
+    return findAnnotation(accessor, JSON_IGNORE) == null
+        && (accessor.getModifiers().contains(Modifier.ABSTRACT)
+            || findAnnotation(accessor, VALUE_DEFAULT) != null);
+  }
+
+  private CodecAttribute createAttribute(
+      final ExecutableElement accessor,
+      final TypeMirror type,
+      final Map<String, CodecType> codecTypesByInterface) {
+    final String name = decapitalize(stripAccessorPrefix(accessor.getSimpleName().toString()));
+    final AnnotationMirror jsonProperty = findAnnotation(accessor, JSON_PROPERTY);
+    final String jsonName =
+        jsonProperty == null || getValue(jsonProperty, "value").toString().isEmpty()
+            ? name
+            : (String) getValue(jsonProperty, "value");
+
+    final AnnotationMirror typeInfo = findAnnotation(accessor, JSON_TYPE_INFO);
+    if (typeInfo != null) {
+      return createTypedAttribute(accessor, type, name, jsonName, typeInfo);
+    }
+
+    switch (type.getKind()) {
+      case BOOLEAN:
+        return CodecAttribute.of(accessor, name, jsonName, Kind.BOOLEAN, null);
+      case INT:
+        return CodecAttribute.of(accessor, name, jsonName, Kind.INT, null);
+      case LONG:
+        return CodecAttribute.of(accessor, name, jsonName, Kind.LONG, null);
+      case ARRAY:
+        if (((ArrayType) type).getComponentType().getKind() == TypeKind.BYTE) {
+          return CodecAttribute.of(accessor, name, jsonName, Kind.BYTES, null);
+        }
+        break;
+      case DECLARED:
+        final CodecAttribute attribute =
+            createDeclaredAttribute(
+                accessor, (DeclaredType) type, name, jsonName, codecTypesByInterface);
+        if (attribute != null) {
+          return attribute;
+        }
+        break;
+      default:
+        break;
+    }
+
+    return error(accessor, "Unsupported attribute type " + type + " for a generated JSON codec");
+  }
+
+  private CodecAttribute createDeclaredAttribute(
+      final ExecutableElement accessor,
+      final DeclaredType type,
+      final String name,
+      final String jsonName,
+      final Map<String, CodecType> codecTypesByInterface) {
+    final TypeElement element = asTypeElement(type);
+    final List<? extends TypeMirror> arguments = type.getTypeArguments();
+
+    if (element.getKind() == ElementKind.ENUM) {
+      return CodecAttribute.of(accessor, name, jsonName, Kind.ENUM, element);
+    }
+
+    if (isType(type, String.class.getName())) {
+      return CodecAttribute.of(accessor, name, jsonName, Kind.STRING, null);
+    }
+
+    if (isType(type, Map.class.getName())
+        && arguments.size() == 2
+        && isType(arguments.get(0), String.class.getName())) {
+      if (isType(arguments.get(1), String.class.getName())) {
+        return CodecAttribute.of(accessor, name, jsonName, Kind.STRING_MAP, null);
+      }
+
+      if (isType(arguments.get(1), Object.class.getName())) {
+        return CodecAttribute.of(accessor, name, jsonName, Kind.OBJECT_MAP, null);
+      }
+    }
+
+    if (isType(type, List.class.getName()) && arguments.size() == 1) {
+      final TypeMirror elementType = arguments.get(0);
+      if (isType(elementType, Long.class.getName())) {
+        return CodecAttribute.of(accessor, name, jsonName, Kind.LONG_LIST, null);
+      }
+
+      if (elementType.getKind() == TypeKind.DECLARED) {
+        final TypeElement elementTypeElement = asTypeElement(elementType);
+        final CodecType elementCodec =
+            codecTypesByInterface.get(elementTypeElement.getQualifiedName().toString());
+        if (elementCodec != null) {
+          final CodecAttribute attribute =
+              CodecAttribute.of(accessor, name, jsonName, Kind.CODEC_LIST, elementTypeElement);
+          attribute.setElementCodec(elementCodec);
+          return attribute;
+        }
+      }
+    }
+
+    return null;
+  }
+
+  private CodecAttribute createTypedAttribute(
+      final ExecutableElement accessor,
+      final TypeMirror type,
+      final String name,
+      final String jsonName,
+      final AnnotationMirror typeInfo) {
+    final AnnotationMirror typeIdResolver = findAnnotation(accessor, JSON_TYPE_ID_RESOLVER);
+    final Object include = getValue(typeInfo, "include");
+    final String property = getValue(typeInfo, "property").toString();
+    if (typeIdResolver == null
+        || !(include instanceof Element)
+        || !((Element) include).getSimpleName().contentEquals(EXTERNAL_PROPERTY)
+        || property.isEmpty()) {
+      return error(
+          accessor,
+          "Only typed attributes with an external type id property and a custom type id resolver"
+              + " are supported by a generated JSON codec");
+    }
+
+    return CodecAttribute.typed(
+        accessor,
+        name,
+        jsonName,
+        asTypeElement(types.erasure(type)),
+        asTypeElement((TypeMirror) getValue(typeIdResolver, "value")),
+        property);
+  }
+
+  private boolean isType(final TypeMirror type, final String qualifiedName) {
+    return type.getKind() == TypeKind.DECLARED
+        && asTypeElement(type).getQualifiedName().contentEquals(qualifiedName);
+  }
+
+  private TypeElement asTypeElement(final TypeMirror type) {
+    return (TypeElement) types.asElement(type);
+  }
+
+  private AnnotationMirror findAnnotation(final Element element, final String qualifiedName) {
+    for (final AnnotationMirror annotation : element.getAnnotationMirrors()) {
+      final TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+      if (annotationType.getQualifiedName().contentEquals(qualifiedName)) {
+        return annotation;
+      }
+    }
+
+    return null;
+  }
+
+  private Object getValue(final AnnotationMirror annotation, final String name) {
+    for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+        elements.getElementValuesWithDefaults(annotation).entrySet()) {
+      if (entry.getKey().getSimpleName().contentEquals(name)) {
+        return entry.getValue().getValue();
+      }
+    }
+
+    return null;
+  }
+
+  private <T> T error(final Element element, final String message) {
+    messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    failed = true;
+    return null;
+  }
+
+  private static String stripAccessorPrefix(final String name) {
+    for (final String prefix : new String[] {"get", "is"}) {
+      if (name.length() > prefix.length()
+          && name.startsWith(prefix)
+          && Character.isUpperCase(name.charAt(prefix.length()))) {
+        return name.substring(prefix.length());
+      }
+    }
+
+    return null;
+  }
+
+  private static String decapitalize(final String name) {
+    return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+  }
+}
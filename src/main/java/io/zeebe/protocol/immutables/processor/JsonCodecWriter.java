@@ -0,0 +1,986 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.processor;
+
+import io.zeebe.protocol.immutables.processor.CodecAttribute.Kind;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * Writes the source of the codec of a {@link CodecType}, and of the module registering all codecs.
+ * See {@link JsonCodecProcessor}.
+ */
+final class JsonCodecWriter {
+  private static final String GENERATOR = JsonCodecProcessor.class.getName();
+  private static final String MODULE_PACKAGE = "io.zeebe.protocol.immutables";
+  private static final String MODULE_NAME = "JsonCodecModule";
+  private static final String JSON_CODECS = MODULE_PACKAGE + ".JsonCodecs";
+  private static final String RESOURCE_CACHE = MODULE_PACKAGE + ".ResourceCache";
+  private static final String RETAINED_SIZE = MODULE_PACKAGE + ".RetainedSize";
+
+  private static final String GENERATED = "javax.annotation.processing.Generated";
+  private static final String IO_EXCEPTION = "java.io.IOException";
+  private static final String JSON_GENERATOR = "com.fasterxml.jackson.core.JsonGenerator";
+  private static final String JSON_PARSER = "com.fasterxml.jackson.core.JsonParser";
+  private static final String JSON_TOKEN = "com.fasterxml.jackson.core.JsonToken";
+  private static final String SERIALIZABLE_STRING = "com.fasterxml.jackson.core.SerializableString";
+  private static final String SERIALIZED_STRING = "com.fasterxml.jackson.core.io.SerializedString";
+  private static final String DESERIALIZATION_CONTEXT =
+      "com.fasterxml.jackson.databind.DeserializationContext";
+  private static final String SERIALIZER_PROVIDER =
+      "com.fasterxml.jackson.databind.SerializerProvider";
+  private static final String STD_DESERIALIZER =
+      "com.fasterxml.jackson.databind.deser.std.StdDeserializer";
+  private static final String STD_SERIALIZER =
+      "com.fasterxml.jackson.databind.ser.std.StdSerializer";
+  private static final String TYPE_ID_RESOLVER =
+      "com.fasterxml.jackson.databind.jsontype.TypeIdResolver";
+  private static final String TOKEN_BUFFER = "com.fasterxml.jackson.databind.util.TokenBuffer";
+  private static final String METHOD_HANDLE = "java.lang.invoke.MethodHandle";
+  private static final String CONSTRUCTOR = "CONSTRUCTOR";
+  private static final String SHALLOW_SIZE = "SHALLOW_SIZE";
+  private static final String SIMPLE_MODULE = "com.fasterxml.jackson.databind.module.SimpleModule";
+  private static final String LIST = "java.util.List";
+  private static final String RANDOM_ACCESS = "java.util.RandomAccess";
+
+  private final Filer filer;
+
+  JsonCodecWriter(final Filer filer) {
+    this.filer = filer;
+  }
+
+  void writeCodec(final CodecType type) throws IOException {
+    final Source source = new Source(type.getPackageName(), type.getCodecName());
+    final String immutable = type.getImmutableName() + typeArguments(source, type);
+    final String rawImmutable = type.getImmutableName();
+    final String value =
+        source.use(type.getValueInterface())
+            + (type.getTypeParameterBounds().isEmpty() ? "" : wildcards(type));
+    final String handledImmutable =
+        rawImmutable + (type.getTypeParameterBounds().isEmpty() ? "" : wildcards(type));
+
+    source.line("/**");
+    source.line(" * Reads and writes {@link %s} as JSON, without introspection.", rawImmutable);
+    source.line(" * Generated from {@link %s}.", source.use(type.getElement()));
+    source.line(" */");
+    source.line("@%s(\"%s\")", source.use(GENERATED), GENERATOR);
+    source.line("public final class %s {", type.getCodecName());
+    writeConstants(source, type);
+    source.line("");
+    source.line("  private %s() {}", type.getCodecName());
+    source.line("");
+    writeWriteMethod(source, type, value);
+    source.line("");
+    writeReadMethod(source, type, immutable, rawImmutable);
+    source.line("");
+    writeRetainedSizeMethod(source, type, value, rawImmutable);
+    source.line("");
+    source.line("  /** Writes {@link %s} via {@link #write}. */", rawImmutable);
+    source.line(
+        "  public static final class Serializer extends %s<%s> {",
+        source.use(STD_SERIALIZER), handledImmutable);
+    source.line("    private static final long serialVersionUID = 1L;");
+    source.line("");
+    source.line("    public Serializer() {");
+    source.line(
+        type.getTypeParameterBounds().isEmpty()
+            ? "      super(%s.class);"
+            : "      super(%s.class, false);",
+        rawImmutable);
+    source.line("    }");
+    source.line("");
+    source.line("    @Override");
+    source.line(
+        "    public void serialize(final %s value, final %s generator, final %s provider)",
+        handledImmutable, source.use(JSON_GENERATOR), source.use(SERIALIZER_PROVIDER));
+    source.line("        throws %s {", source.use(IO_EXCEPTION));
+    source.line("      write(generator, value, provider);");
+    source.line("    }");
+    source.line("  }");
+    source.line("");
+    source.line("  /** Reads {@link %s} via {@link #read}. */", rawImmutable);
+    source.line(
+        "  public static final class Deserializer extends %s<%s> {",
+        source.use(STD_DESERIALIZER), handledImmutable);
+    source.line("    private static final long serialVersionUID = 1L;");
+    source.line("");
+    source.line("    public Deserializer() {");
+    source.line("      super(%s.class);", rawImmutable);
+    source.line("    }");
+    source.line("");
+    source.line("    @Override");
+    source.line(
+        "    public %s deserialize(final %s parser, final %s context)",
+        handledImmutable, source.use(JSON_PARSER), source.use(DESERIALIZATION_CONTEXT));
+    source.line("        throws %s {", source.use(IO_EXCEPTION));
+    source.line("      return read(parser, context);");
+    source.line("    }");
+    source.line("");
+    source.line("    @Override");
+    source.line("    public boolean isCachable() {");
+    source.line("      return true;");
+    source.line("    }");
+    source.line("  }");
+    source.line("}");
+
+    source.writeTo(type.getQualifiedCodecName(), type.getElement());
+  }
+
+  void writeModule(final List<CodecType> types) throws IOException {
+    final Source source = new Source(MODULE_PACKAGE, MODULE_NAME);
+    source.line("/**");
+    source.line(" * Registers the JSON codecs generated for the types annotated with {@link");
+    source.line(
+        " * GenerateJsonCodec}, in place of the serializers and deserializers which Jackson");
+    source.line(" * would otherwise build by introspecting their immutable classes.");
+    source.line(" */");
+    source.line("@%s(\"%s\")", source.use(GENERATED), GENERATOR);
+    source.line("public final class %s extends %s {", MODULE_NAME, source.use(SIMPLE_MODULE));
+    source.line("  private static final long serialVersionUID = 1L;");
+    source.line("");
+    source.line("  public %s() {", MODULE_NAME);
+    source.line("    super(%s.class.getSimpleName());", MODULE_NAME);
+    for (final CodecType type : types) {
+      final String codec = source.use(type.getQualifiedCodecName());
+      final String immutable = source.use(qualify(type.getPackageName(), type.getImmutableName()));
+      source.line("    addSerializer(new %s.Serializer());", codec);
+      source.line("    addDeserializer(%s.class, new %s.Deserializer());", immutable, codec);
+    }
+    source.line("  }");
+    source.line("}");
+
+    final List<Element> originatingElements = new ArrayList<>();
+    for (final CodecType type : types) {
+      originatingElements.add(type.getElement());
+    }
+
+    source.writeTo(
+        qualify(MODULE_PACKAGE, MODULE_NAME), originatingElements.toArray(new Element[0]));
+  }
+
+  private void writeConstants(final Source source, final CodecType type) {
+    for (final CodecAttribute attribute : type.getAttributes()) {
+      source.line(
+          "  private static final %s %s = new %s(\"%s\");",
+          source.use(SERIALIZABLE_STRING),
+          constantName(attribute.getJsonName()),
+          source.use(SERIALIZED_STRING),
+          escape(attribute.getJsonName()));
+    }
+
+    for (final CodecAttribute attribute : type.getAttributes()) {
+      if (attribute.getKind() == Kind.TYPED) {
+        final String resolver = source.use(attribute.getTypeIdResolver());
+        source.line(
+            "  private static final %s %s = new %s();",
+            source.use(TYPE_ID_RESOLVER), resolverName(attribute), resolver);
+      }
+    }
+
+    source.line("");
+    source.line(
+        "  /** The size of {@link %s} itself, without the objects it references. */",
+        type.getImmutableName());
+    source.line("  private static final long %s = %s;", SHALLOW_SIZE, shallowSize(source, type));
+
+    for (final CodecAttribute attribute : type.getAttributes()) {
+      if (attribute.getKind() == Kind.BYTES) {
+        source.line("");
+        source.line("  /** Used to measure the array without the copy made by its getter. */");
+        source.line(
+            "  private static final %s %s =", source.use(METHOD_HANDLE), fieldName(attribute));
+        source.line(
+            "      %s.findBytesField(%s.class, \"%s\");",
+            source.use(JSON_CODECS), type.getImmutableName(), attribute.getName());
+      }
+    }
+
+    if (readsLazyMaps(type)) {
+      final List<String> parameterTypes = new ArrayList<>();
+      parameterTypes.add(type.getImmutableName());
+      final List<String> getters = new ArrayList<>();
+      for (final CodecAttribute attribute : type.getAttributes()) {
+        parameterTypes.add(parameterType(source, attribute));
+        getters.add("value." + attribute.getAccessorName() + "()");
+      }
+
+      source.line("");
+      source.line("  /**");
+      source.line(
+          "   * Used to hand over lazily read maps, which the builder would copy; null unless it");
+      source.line("   * takes the attributes in the order of their getters.");
+      source.line("   */");
+      source.line("  private static final %s %s =", source.use(METHOD_HANDLE), CONSTRUCTOR);
+      source.line("      %s.verifyConstructor(", source.use(JSON_CODECS));
+      source.line(
+          "          %s.findConstructor(%s.class),",
+          source.use(JSON_CODECS), String.join(".class, ", parameterTypes));
+      source.line("          %s.class,", type.getImmutableName());
+      source.line("          value -> new Object[] {%s});", String.join(", ", getters));
+    }
+  }
+
+  private void writeWriteMethod(final Source source, final CodecType type, final String value) {
+    source.line("  public static void write(");
+    source.line(
+        "      final %s generator, final %s value, final %s provider)",
+        source.use(JSON_GENERATOR), value, source.use(SERIALIZER_PROVIDER));
+    source.line("      throws %s {", source.use(IO_EXCEPTION));
+    source.line("    generator.writeStartObject(value);");
+    for (final CodecAttribute attribute : type.getAttributes()) {
+      final String getter = "value." + attribute.getAccessorName() + "()";
+      final String codecs = source.use(JSON_CODECS);
+      source.line("");
+      source.line("    generator.writeFieldName(%s);", constantName(attribute.getJsonName()));
+      switch (attribute.getKind()) {
+        case BOOLEAN:
+          source.line("    generator.writeBoolean(%s);", getter);
+          break;
+        case INT:
+        case LONG:
+          source.line("    generator.writeNumber(%s);", getter);
+          break;
+        case STRING:
+          source.line("    generator.writeString(%s);", getter);
+          break;
+        case ENUM:
+          source.line("    %s.writeEnum(generator, %s, provider);", codecs, getter);
+          break;
+        case BYTES:
+          source.line(
+              "    if (!%s.writeBufferedBytes(generator, value, \"%s\", provider)) {",
+              codecs, attribute.getName());
+          source.line("      %s.writeBytes(generator, %s, provider);", codecs, getter);
+          source.line("    }");
+          break;
+        case STRING_MAP:
+          source.line("    %s.writeStringMap(generator, %s);", codecs, getter);
+          break;
+        case OBJECT_MAP:
+          source.line("    %s.writeObjectMap(generator, %s, provider);", codecs, getter);
+          break;
+        case LONG_LIST:
+          source.line("    %s.writeLongList(generator, %s);", codecs, getter);
+          break;
+        case CODEC_LIST:
+          writeCodecList(source, attribute, getter);
+          break;
+        case TYPED:
+          source.line("    %s.writeTyped(generator, %s, provider);", codecs, getter);
+          break;
+        default:
+          throw new IllegalStateException("Unexpected attribute kind " + attribute.getKind());
+      }
+    }
+    source.line("");
+    source.line("    generator.writeEndObject();");
+    source.line("  }");
+  }
+
+  /**
+   * Lists of the generated types are random access lists, which are written by index: iterators of
+   * lists that were produced by different implementations are only scalar replaced when the JIT
+   * manages to inline them, which depends on everything else which ran in the same JVM.
+   */
+  private void writeCodecList(
+      final Source source, final CodecAttribute attribute, final String getter) {
+    final String elementType = source.use(attribute.getTypeElement());
+    final String codec = source.use(attribute.getElementCodec().getQualifiedCodecName());
+    final String list = attribute.getName() + "List";
+    source.line("    final %s<%s> %s = %s;", source.use(LIST), elementType, list, getter);
+    source.line("    generator.writeStartArray();");
+    source.line("    if (%s instanceof %s) {", list, source.use(RANDOM_ACCESS));
+    source.line("      for (int i = 0; i < %s.size(); i++) {", list);
+    source.line("        %s.write(generator, %s.get(i), provider);", codec, list);
+    source.line("      }");
+    source.line("    } else {");
+    source.line("      for (final %s element : %s) {", elementType, list);
+    source.line("        %s.write(generator, element, provider);", codec);
+    source.line("      }");
+    source.line("    }");
+    source.line("    generator.writeEndArray();");
+  }
+
+  private void writeReadMethod(
+      final Source source,
+      final CodecType type,
+      final String immutable,
+      final String rawImmutable) {
+    final String codecs = source.use(JSON_CODECS);
+    final String token = source.use(JSON_TOKEN);
+    final Set<String> typeProperties = new LinkedHashSet<>();
+    for (final CodecAttribute attribute : type.getAttributes()) {
+      if (attribute.getKind() == Kind.TYPED) {
+        typeProperties.add(attribute.getTypeProperty());
+      }
+    }
+
+    source.line(
+        "  public static %s read(final %s parser, final %s context)",
+        immutable, source.use(JSON_PARSER), source.use(DESERIALIZATION_CONTEXT));
+    source.line("      throws %s {", source.use(IO_EXCEPTION));
+    if (readsLazyMaps(type)) {
+      source.line(
+          "    if (%s != null && %s.readsObjectMapsLazily(context)) {", CONSTRUCTOR, codecs);
+      source.line("      return readLazily(parser, context);");
+      source.line("    }");
+      source.line("");
+    }
+    source.line(
+        "    final %s.Builder%s builder = %s.builder();",
+        rawImmutable, typeArguments(source, type), rawImmutable);
+    for (final String typeProperty : typeProperties) {
+      source.line("    String %s = null;", typeIdName(typeProperty));
+    }
+    for (final CodecAttribute attribute : type.getAttributes()) {
+      if (attribute.getKind() == Kind.TYPED) {
+        source.line("    %s %s = null;", source.use(TOKEN_BUFFER), bufferName(attribute));
+      }
+    }
+    source.line("");
+    source.line(
+        "    for (%s token = %s.startFields(parser, context, %s.class);",
+        token, codecs, rawImmutable);
+    source.line("        token == %s.FIELD_NAME;", token);
+    source.line("        token = parser.nextToken()) {");
+    source.line("      final String field = parser.currentName();");
+    source.line("      parser.nextToken();");
+    source.line("");
+    source.line("      switch (field) {");
+
+    final Set<String> handledTypeProperties = new LinkedHashSet<>();
+    for (final CodecAttribute attribute : type.getAttributes()) {
+      source.line("        case \"%s\":", escape(attribute.getJsonName()));
+      if (typeProperties.contains(attribute.getJsonName())) {
+        handledTypeProperties.add(attribute.getJsonName());
+        source.line(
+            "          %s = parser.getValueAsString();", typeIdName(attribute.getJsonName()));
+      }
+      writeReadAttribute(source, attribute, codecs, token);
+      source.line("          break;");
+    }
+
+    for (final String typeProperty : typeProperties) {
+      if (!handledTypeProperties.contains(typeProperty)) {
+        source.line("        case \"%s\":", escape(typeProperty));
+        source.line("          %s = parser.getValueAsString();", typeIdName(typeProperty));
+        source.line("          break;");
+      }
+    }
+
+    source.line("        default:");
+    source.line(
+        "          context.handleUnknownProperty(parser, null, %s.class, field);", rawImmutable);
+    source.line("          break;");
+    source.line("      }");
+    source.line("    }");
+
+    for (final CodecAttribute attribute : type.getAttributes()) {
+      if (attribute.getKind() == Kind.TYPED) {
+        source.line("");
+        source.line("    if (%s != null) {", bufferName(attribute));
+        source.line("      builder.%s(", attribute.getName());
+        source.line("          (%s)", source.use(attribute.getTypeElement()));
+        source.line(
+            "              %s.readBuffered(%s, parser, context, %s, \"%s\", %s));",
+            codecs,
+            bufferName(attribute),
+            resolverName(attribute),
+            escape(attribute.getTypeProperty()),
+            typeIdName(attribute.getTypeProperty()));
+        source.line("    }");
+      }
+    }
+
+    source.line("");
+    source.line("    try {");
+    if (type.isInterned()) {
+      source.line(
+          "      return %s.getDefault().intern(builder.build());", source.use(RESOURCE_CACHE));
+    } else {
+      source.line("      return builder.build();");
+    }
+    source.line("    } catch (final IllegalStateException e) {");
+    source.line("      throw context.instantiationException(%s.class, e);", rawImmutable);
+    source.line("    }");
+    source.line("  }");
+
+    if (readsLazyMaps(type)) {
+      source.line("");
+      writeReadLazilyMethod(source, type, rawImmutable);
+    }
+  }
+
+  /**
+   * Writes the method reading a value whose untyped maps are read lazily: the attributes are read
+   * into local variables, such that the instance is constructed once, with the lazy maps as is.
+   */
+  private void writeReadLazilyMethod(
+      final Source source, final CodecType type, final String rawImmutable) {
+    final String codecs = source.use(JSON_CODECS);
+    final String map = source.use(Map.class.getName());
+    final List<String> presentChecks = new ArrayList<>();
+    final List<String> arguments = new ArrayList<>();
+
+    source.line(
+        "  private static %s readLazily(final %s parser, final %s context)",
+        rawImmutable, source.use(JSON_PARSER), source.use(DESERIALIZATION_CONTEXT));
+    source.line("      throws %s {", source.use(IO_EXCEPTION));
+    for (final CodecAttribute attribute : type.getAttributes()) {
+      final String local = localName(attribute);
+      switch (attribute.getKind()) {
+        case BOOLEAN:
+        case INT:
+        case LONG:
+          source.line(
+              "    %s %s = %s;",
+              parameterType(source, attribute),
+              local,
+              attribute.getKind() == Kind.BOOLEAN ? "false" : "0");
+          source.line("    boolean %s = false;", presentName(attribute));
+          presentChecks.add(presentName(attribute));
+          arguments.add(local);
+          break;
+        case STRING_MAP:
+          source.line("    %s<String, String> %s = null;", map, local);
+          presentChecks.add(local + " != null");
+          arguments.add(map + ".copyOf(" + local + ")");
+          break;
+        case OBJECT_MAP:
+          source.line("    %s<String, Object> %s = null;", map, local);
+          presentChecks.add(local + " != null");
+          arguments.add(local);
+          break;
+        default:
+          source.line("    %s %s = null;", parameterType(source, attribute), local);
+          presentChecks.add(local + " != null");
+          arguments.add(local);
+          break;
+      }
+    }
+
+    source.line("");
+    source.line(
+        "    for (%s token = %s.startFields(parser, context, %s.class);",
+        source.use(JSON_TOKEN), codecs, rawImmutable);
+    source.line("        token == %s.FIELD_NAME;", source.use(JSON_TOKEN));
+    source.line("        token = parser.nextToken()) {");
+    source.line("      final String field = parser.currentName();");
+    source.line("      parser.nextToken();");
+    source.line("");
+    source.line("      switch (field) {");
+    for (final CodecAttribute attribute : type.getAttributes()) {
+      source.line("        case \"%s\":", escape(attribute.getJsonName()));
+      writeReadLocal(source, attribute, codecs);
+      source.line("          break;");
+    }
+    source.line("        default:");
+    source.line(
+        "          context.handleUnknownProperty(parser, null, %s.class, field);", rawImmutable);
+    source.line("          break;");
+    source.line("      }");
+    source.line("    }");
+    source.line("");
+
+    // invokeExact requires the arguments to have the exact static types of the parameters
+    source.line("    if (%s) {", String.join("\n        && ", presentChecks));
+    source.line("      try {");
+    source.line("        return (%s)", rawImmutable);
+    source.line("            %s.invokeExact(", CONSTRUCTOR);
+    for (int i = 0; i < arguments.size(); i++) {
+      source.line("                %s%s", arguments.get(i), i == arguments.size() - 1 ? ");" : ",");
+    }
+    source.line("      } catch (final RuntimeException | Error e) {");
+    source.line("        throw e;");
+    source.line("      } catch (final Throwable e) {");
+    source.line("        throw context.instantiationException(%s.class, e);", rawImmutable);
+    source.line("      }");
+    source.line("    }");
+    source.line("");
+    source.line("    // the builder applies the defaults of missing attributes, or rejects them");
+    source.line("    final %s.Builder builder = %s.builder();", rawImmutable, rawImmutable);
+    for (int i = 0; i < type.getAttributes().size(); i++) {
+      final CodecAttribute attribute = type.getAttributes().get(i);
+      source.line("    if (%s) {", presentChecks.get(i));
+      source.line("      builder.%s(%s);", attribute.getName(), localName(attribute));
+      source.line("    }");
+    }
+    source.line("");
+    source.line("    try {");
+    source.line("      return builder.build();");
+    source.line("    } catch (final IllegalStateException e) {");
+    source.line("      throw context.instantiationException(%s.class, e);", rawImmutable);
+    source.line("    }");
+    source.line("  }");
+  }
+
+  private void writeReadLocal(
+      final Source source, final CodecAttribute attribute, final String codecs) {
+    final String local = localName(attribute);
+    switch (attribute.getKind()) {
+      case BOOLEAN:
+      case INT:
+      case LONG:
+        source.line(
+            "          %s = %s.read%s(parser, context);",
+            local, codecs, capitalize(parameterType(source, attribute)));
+        source.line("          %s = true;", presentName(attribute));
+        break;
+      case STRING:
+        source.line("          %s = %s.readString(parser, context);", local, codecs);
+        break;
+      case BYTES:
+        source.line("          %s = %s.readBytes(parser, context);", local, codecs);
+        break;
+      case ENUM:
+        source.line(
+            "          %s = %s.readEnum(parser, context, %s.class);",
+            local, codecs, source.use(attribute.getTypeElement()));
+        break;
+      case STRING_MAP:
+        source.line(
+            "          if (%s.startObject(parser, context, %s.class)) {",
+            codecs, source.use(Map.class.getName()));
+        source.line("            if (%s == null) {", local);
+        source.line(
+            "              %s = new %s<>();", local, source.use(LinkedHashMap.class.getName()));
+        source.line("            }");
+        source.line(
+            "            for (String key = parser.nextFieldName(); key != null;"
+                + " key = parser.nextFieldName()) {");
+        source.line("              parser.nextToken();");
+        source.line("              %s.put(key, %s.readString(parser, context));", local, codecs);
+        source.line("            }");
+        source.line("          }");
+        break;
+      case OBJECT_MAP:
+        source.line(
+            "          if (%s.startObject(parser, context, %s.class)) {",
+            codecs, source.use(Map.class.getName()));
+        source.line("            %s = %s.readLazyObjectMap(parser);", local, codecs);
+        source.line("          }");
+        break;
+      default:
+        throw new IllegalStateException("Unexpected attribute kind " + attribute.getKind());
+    }
+  }
+
+  private void writeRetainedSizeMethod(
+      final Source source, final CodecType type, final String value, final String rawImmutable) {
+    final String retainedSize = source.use(RETAINED_SIZE);
+    source.line("  /**");
+    source.line(
+        "   * Estimates the number of bytes retained by the given value, assuming it is laid out as");
+    source.line("   * {@link %s}. See {@link %s}.", rawImmutable, retainedSize);
+    source.line("   */");
+    source.line("  public static long retainedSize(final %s value) {", value);
+    source.line("    if (value == null) {");
+    source.line("      return 0;");
+    source.line("    } else if (value instanceof %s.Estimable) {", retainedSize);
+    source.line("      return ((%s.Estimable) value).estimateRetainedSize();", retainedSize);
+    source.line("    }");
+    source.line("");
+    source.line("    long size = %s;", SHALLOW_SIZE);
+    for (final CodecAttribute attribute : type.getAttributes()) {
+      final String getter = "value." + attribute.getAccessorName() + "()";
+      switch (attribute.getKind()) {
+        case BOOLEAN:
+        case INT:
+        case LONG:
+        case ENUM:
+          break;
+        case STRING:
+          source.line("    size += %s.ofString(%s);", retainedSize, getter);
+          break;
+        case BYTES:
+          source.line("    size +=");
+          source.line("        %s.ofBytes(", retainedSize);
+          source.line(
+              "            %s != null && value instanceof %s", fieldName(attribute), rawImmutable);
+          source.line(
+              "                ? %s.readBytesField(%s, value)",
+              source.use(JSON_CODECS), fieldName(attribute));
+          source.line("                : %s);", getter);
+          break;
+        case STRING_MAP:
+        case OBJECT_MAP:
+          source.line("    size += %s.ofMap(%s);", retainedSize, getter);
+          break;
+        case LONG_LIST:
+          source.line("    size += %s.ofList(%s);", retainedSize, getter);
+          break;
+        case CODEC_LIST:
+          source.line("    size += %s.ofListStructure(%s);", retainedSize, getter);
+          source.line(
+              "    for (final %s element : %s) {", source.use(attribute.getTypeElement()), getter);
+          source.line(
+              "      size += %s.retainedSize(element);",
+              source.use(attribute.getElementCodec().getQualifiedCodecName()));
+          source.line("    }");
+          break;
+        case TYPED:
+          final CodecAttribute typeAttribute = typeAttribute(type, attribute);
+          source.line(
+              "    size += %s.ofTyped(%s, %s);",
+              retainedSize,
+              getter,
+              typeAttribute == null ? "null" : "value." + typeAttribute.getAccessorName() + "()");
+          break;
+        default:
+          throw new IllegalStateException("Unexpected attribute kind " + attribute.getKind());
+      }
+    }
+    source.line("    return size;");
+    source.line("  }");
+  }
+
+  /**
+   * @return the expression computing the shallow size of the immutable class, which holds a field
+   *     per attribute, its precomputed hash code, and a reference to the shim used to initialize
+   *     default attributes, if any
+   */
+  private static String shallowSize(final Source source, final CodecType type) {
+    int longs = 0;
+    int ints = 1;
+    int bytes = 0;
+    int references = 0;
+    boolean hasDefaults = false;
+    for (final CodecAttribute attribute : type.getAttributes()) {
+      switch (attribute.getKind()) {
+        case BOOLEAN:
+          bytes++;
+          break;
+        case INT:
+          ints++;
+          break;
+        case LONG:
+          longs++;
+          break;
+        default:
+          references++;
+          break;
+      }
+
+      hasDefaults |= !attribute.getAccessor().getModifiers().contains(Modifier.ABSTRACT);
+    }
+
+    if (hasDefaults) {
+      references++;
+    }
+
+    return String.format(
+        "%s.ofInstance(%d, %d, %d, %d)", source.use(RETAINED_SIZE), longs, ints, bytes, references);
+  }
+
+  /** @return the attribute holding the type of the given typed attribute, if any */
+  private static CodecAttribute typeAttribute(
+      final CodecType type, final CodecAttribute attribute) {
+    for (final CodecAttribute candidate : type.getAttributes()) {
+      if (candidate.getJsonName().equals(attribute.getTypeProperty())) {
+        return candidate;
+      }
+    }
+
+    return null;
+  }
+
+  private void writeReadAttribute(
+      final Source source,
+      final CodecAttribute attribute,
+      final String codecs,
+      final String token) {
+    final String name = attribute.getName();
+    switch (attribute.getKind()) {
+      case BOOLEAN:
+        source.line("          builder.%s(%s.readBoolean(parser, context));", name, codecs);
+        break;
+      case INT:
+        source.line("          builder.%s(%s.readInt(parser, context));", name, codecs);
+        break;
+      case LONG:
+        source.line("          builder.%s(%s.readLong(parser, context));", name, codecs);
+        break;
+      case STRING:
+        writeReadNullable(source, name, "String", codecs + ".readString(parser, context)");
+        break;
+      case BYTES:
+        writeReadNullable(source, name, "byte[]", codecs + ".readBytes(parser, context)");
+        break;
+      case ENUM:
+        final String enumType = source.use(attribute.getTypeElement());
+        writeReadNullable(
+            source,
+            name,
+            enumType,
+            String.format("%s.readEnum(parser, context, %s.class)", codecs, enumType));
+        break;
+      case STRING_MAP:
+      case OBJECT_MAP:
+        source.line(
+            "          if (%s.startObject(parser, context, %s.class)) {",
+            codecs, source.use(Map.class.getName()));
+        source.line(
+            "            for (String key = parser.nextFieldName(); key != null;"
+                + " key = parser.nextFieldName()) {");
+        source.line("              parser.nextToken();");
+        source.line(
+            "              builder.put%s(key, %s.%s(parser, context));",
+            capitalize(name),
+            codecs,
+            attribute.getKind() == Kind.STRING_MAP ? "readString" : "readObject");
+        source.line("            }");
+        source.line("          }");
+        break;
+      case LONG_LIST:
+      case CODEC_LIST:
+        source.line(
+            "          if (%s.startArray(parser, context, %s.class)) {",
+            codecs, source.use(List.class.getName()));
+        source.line("            while (parser.nextToken() != %s.END_ARRAY) {", token);
+        source.line(
+            "              builder.add%s(%s);",
+            capitalize(name),
+            attribute.getKind() == Kind.LONG_LIST
+                ? codecs + ".readLong(parser, context)"
+                : source.use(attribute.getElementCodec().getQualifiedCodecName())
+                    + ".read(parser, context)");
+        source.line("            }");
+        source.line("          }");
+        break;
+      case TYPED:
+        final String typeId = typeIdName(attribute.getTypeProperty());
+        source.line("          if (%s == null) {", typeId);
+        source.line("            %s = %s.buffer(parser, context);", bufferName(attribute), codecs);
+        source.line("          } else {");
+        source.line("            builder.%s(", name);
+        source.line("                (%s)", source.use(attribute.getTypeElement()));
+        source.line(
+            "                    %s.readTyped(parser, context, %s, %s));",
+            codecs, resolverName(attribute), typeId);
+        source.line("          }");
+        break;
+      default:
+        throw new IllegalStateException("Unexpected attribute kind " + attribute.getKind());
+    }
+  }
+
+  private void writeReadNullable(
+      final Source source, final String name, final String type, final String read) {
+    source.line("          {");
+    source.line("            final %s value = %s;", type, read);
+    source.line("            if (value != null) {");
+    source.line("              builder.%s(value);", name);
+    source.line("            }");
+    source.line("          }");
+  }
+
+  /**
+   * Maps of untyped values are read as {@link io.zeebe.protocol.immutables.LazyJsonMap}, which are
+   * handed over to the private constructor of the immutable class, as the builders would copy them.
+   * Generic types are never read lazily, as their constructor cannot be invoked exactly, nor are
+   * types with lists or typed attributes, which would have to be wrapped like the builder does, or
+   * types which are interned.
+   */
+  private static boolean readsLazyMaps(final CodecType type) {
+    return type.getTypeParameterBounds().isEmpty()
+        && !type.isInterned()
+        && type.getAttributes().stream().anyMatch(a -> a.getKind() == Kind.OBJECT_MAP)
+        && type.getAttributes().stream().noneMatch(JsonCodecWriter::isListOrTyped);
+  }
+
+  private static boolean isListOrTyped(final CodecAttribute attribute) {
+    return attribute.getKind() == Kind.LONG_LIST
+        || attribute.getKind() == Kind.CODEC_LIST
+        || attribute.getKind() == Kind.TYPED;
+  }
+
+  /** @return the erased type of the attribute, as declared by the immutable constructor */
+  private static String parameterType(final Source source, final CodecAttribute attribute) {
+    switch (attribute.getKind()) {
+      case BOOLEAN:
+        return "boolean";
+      case INT:
+        return "int";
+      case LONG:
+        return "long";
+      case STRING:
+        return "String";
+      case BYTES:
+        return "byte[]";
+      case STRING_MAP:
+      case OBJECT_MAP:
+        return source.use(Map.class.getName());
+      case LONG_LIST:
+      case CODEC_LIST:
+        return source.use(List.class.getName());
+      case ENUM:
+      case TYPED:
+        return source.use(attribute.getTypeElement());
+      default:
+        throw new IllegalStateException("Unexpected attribute kind " + attribute.getKind());
+    }
+  }
+
+  private String typeArguments(final Source source, final CodecType type) {
+    if (type.getTypeParameterBounds().isEmpty()) {
+      return "";
+    }
+
+    final List<String> arguments = new ArrayList<>();
+    for (final TypeElement bound : type.getTypeParameterBounds()) {
+      arguments.add(source.use(bound));
+    }
+
+    return "<" + String.join(", ", arguments) + ">";
+  }
+
+  private String wildcards(final CodecType type) {
+    final List<String> arguments = new ArrayList<>();
+    for (int i = 0; i < type.getTypeParameterBounds().size(); i++) {
+      arguments.add("?");
+    }
+
+    return "<" + String.join(", ", arguments) + ">";
+  }
+
+  private static String constantName(final String jsonName) {
+    final StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < jsonName.length(); i++) {
+      final char character = jsonName.charAt(i);
+      if (Character.isUpperCase(character) && i > 0) {
+        builder.append('_');
+      }
+
+      builder.append(
+          Character.isJavaIdentifierPart(character) ? Character.toUpperCase(character) : '_');
+    }
+
+    return builder.toString();
+  }
+
+  private static String resolverName(final CodecAttribute attribute) {
+    return constantName(attribute.getJsonName()) + "_TYPE_ID_RESOLVER";
+  }
+
+  private static String typeIdName(final String typeProperty) {
+    return sanitize(typeProperty) + "Id";
+  }
+
+  private static String fieldName(final CodecAttribute attribute) {
+    return constantName(attribute.getJsonName()) + "_FIELD";
+  }
+
+  private static String localName(final CodecAttribute attribute) {
+    return attribute.getName() + "Value";
+  }
+
+  private static String presentName(final CodecAttribute attribute) {
+    return "has" + capitalize(attribute.getName());
+  }
+
+  private static String bufferName(final CodecAttribute attribute) {
+    return attribute.getName() + "Buffer";
+  }
+
+  private static String sanitize(final String name) {
+    final StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < name.length(); i++) {
+      final char character = name.charAt(i);
+      builder.append(Character.isJavaIdentifierPart(character) ? character : '_');
+    }
+
+    return builder.toString();
+  }
+
+  private static String capitalize(final String name) {
+    return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+  }
+
+  private static String escape(final String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+
+  private static String qualify(final String packageName, final String simpleName) {
+    return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+  }
+
+  /** The source of a single generated class, which keeps track of its imports. */
+  private final class Source {
+    private final String packageName;
+    // the simple names which are taken, mapped to the type they refer to, if any
+    private final Map<String, String> importsBySimpleName = new HashMap<>();
+    private final Set<String> imports = new TreeSet<>();
+    private final StringBuilder body = new StringBuilder();
+
+    private Source(final String packageName, final String className) {
+      this.packageName = packageName;
+      importsBySimpleName.put(className, qualify(packageName, className));
+      importsBySimpleName.put("Builder", null);
+      importsBySimpleName.put("Serializer", null);
+      importsBySimpleName.put("Deserializer", null);
+    }
+
+    private String use(final TypeElement type) {
+      return use(type.getQualifiedName().toString());
+    }
+
+    /** @return the name by which the given type can be referenced in this source */
+    private String use(final String qualifiedName) {
+      final String simpleName = qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+      if (!importsBySimpleName.containsKey(simpleName)) {
+        importsBySimpleName.put(simpleName, qualifiedName);
+        if (!qualifiedName.equals(qualify(packageName, simpleName))) {
+          imports.add(qualifiedName);
+        }
+      }
+
+      return qualifiedName.equals(importsBySimpleName.get(simpleName)) ? simpleName : qualifiedName;
+    }
+
+    private void line(final String format, final Object... arguments) {
+      body.append(arguments.length == 0 ? format : String.format(format, arguments)).append('\n');
+    }
+
+    private void writeTo(final String qualifiedName, final Element... originatingElements)
+        throws IOException {
+      try (final Writer writer =
+          filer.createSourceFile(qualifiedName, originatingElements).openWriter()) {
+        if (!packageName.isEmpty()) {
+          writer.write("package " + packageName + ";\n\n");
+        }
+
+        for (final String qualifiedImport : imports) {
+          writer.write("import " + qualifiedImport + ";\n");
+        }
+
+        writer.write("\n");
+        writer.write(body.toString());
+      }
+    }
+  }
+}
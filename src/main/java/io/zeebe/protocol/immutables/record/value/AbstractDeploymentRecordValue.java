@@ -19,6 +19,7 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import io.camunda.zeebe.protocol.record.value.DeploymentRecordValue;
 import io.camunda.zeebe.protocol.record.value.deployment.DeploymentResource;
 import io.camunda.zeebe.protocol.record.value.deployment.ProcessMetadataValue;
+import io.zeebe.protocol.immutables.GenerateJsonCodec;
 import io.zeebe.protocol.immutables.ZeebeStyle;
 import io.zeebe.protocol.immutables.record.value.deployment.ImmutableDeploymentResource;
 import io.zeebe.protocol.immutables.record.value.deployment.ImmutableProcessMetadata;
@@ -28,6 +29,7 @@ import org.immutables.value.Value;
 
 @Value.Immutable
 @ZeebeStyle
+@GenerateJsonCodec
 public abstract class AbstractDeploymentRecordValue extends AbstractJsonSerializable
     implements DeploymentRecordValue {
 
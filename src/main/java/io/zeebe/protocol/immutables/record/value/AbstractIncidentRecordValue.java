@@ -17,11 +17,13 @@ package io.zeebe.protocol.immutables.record.value;
 
 import io.camunda.zeebe.protocol.record.value.ErrorType;
 import io.camunda.zeebe.protocol.record.value.IncidentRecordValue;
+import io.zeebe.protocol.immutables.GenerateJsonCodec;
 import io.zeebe.protocol.immutables.ZeebeStyle;
 import org.immutables.value.Value;
 
 @Value.Immutable
 @ZeebeStyle
+@GenerateJsonCodec
 public abstract class AbstractIncidentRecordValue extends AbstractJsonSerializable
     implements IncidentRecordValue {
 
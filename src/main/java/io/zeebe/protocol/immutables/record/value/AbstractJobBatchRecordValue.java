@@ -18,6 +18,7 @@ package io.zeebe.protocol.immutables.record.value;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import io.camunda.zeebe.protocol.record.value.JobBatchRecordValue;
 import io.camunda.zeebe.protocol.record.value.JobRecordValue;
+import io.zeebe.protocol.immutables.GenerateJsonCodec;
 import io.zeebe.protocol.immutables.ZeebeStyle;
 import java.util.Collections;
 import java.util.List;
@@ -25,6 +26,7 @@ import org.immutables.value.Value;
 
 @Value.Immutable
 @ZeebeStyle
+@GenerateJsonCodec
 public abstract class AbstractJobBatchRecordValue extends AbstractJsonSerializable
     implements JobBatchRecordValue {
 
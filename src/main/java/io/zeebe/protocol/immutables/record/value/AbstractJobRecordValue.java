@@ -17,6 +17,7 @@ package io.zeebe.protocol.immutables.record.value;
 
 import io.camunda.zeebe.protocol.record.ErrorCode;
 import io.camunda.zeebe.protocol.record.value.JobRecordValue;
+import io.zeebe.protocol.immutables.GenerateJsonCodec;
 import io.zeebe.protocol.immutables.ZeebeStyle;
 import java.util.Collections;
 import java.util.Map;
@@ -24,6 +25,7 @@ import org.immutables.value.Value;
 
 @Value.Immutable
 @ZeebeStyle
+@GenerateJsonCodec
 public abstract class AbstractJobRecordValue extends AbstractJsonSerializable
     implements JobRecordValue {
 
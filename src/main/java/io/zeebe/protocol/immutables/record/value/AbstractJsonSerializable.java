@@ -15,20 +15,44 @@
  */
 package io.zeebe.protocol.immutables.record.value;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.camunda.zeebe.protocol.record.JsonSerializable;
-import java.io.UncheckedIOException;
+import io.zeebe.protocol.immutables.RecordMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 
 public abstract class AbstractJsonSerializable implements JsonSerializable {
-  private static final ObjectMapper MAPPER = new ObjectMapper();
 
   @Override
   public String toJson() {
-    try {
-      return MAPPER.writeValueAsString(this);
-    } catch (final JsonProcessingException e) {
-      throw new UncheckedIOException(e);
-    }
+    return RecordMapper.getDefault().toJson(this);
+  }
+
+  /**
+   * Writes the same JSON as {@link #toJson()}, UTF-8 encoded, to the given stream, which is flushed
+   * but not closed.
+   */
+  public void toJson(final OutputStream output) throws IOException {
+    RecordMapper.getDefault().writeJson(this, output);
+  }
+
+  /**
+   * Writes the same JSON as {@link #toJson()} to the given writer, which is flushed but not closed.
+   */
+  public void toJson(final Writer output) throws IOException {
+    RecordMapper.getDefault().writeJson(this, output);
+  }
+
+  /**
+   * Writes the same JSON as {@link #toJson()}, UTF-8 encoded, into the given buffer at its
+   * position, and advances the position past the JSON.
+   *
+   * @throws BufferOverflowException if the JSON does not fit the remaining space of the buffer, in
+   *     which case its position is left unchanged
+   */
+  public void toJson(final ByteBuffer buffer) {
+    RecordMapper.getDefault().writeJson(this, buffer);
   }
 }
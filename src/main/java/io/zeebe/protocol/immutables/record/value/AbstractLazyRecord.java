@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.record.value;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonTypeInfo.As;
+import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.annotation.JsonTypeIdResolver;
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordType;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.RejectionType;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import io.zeebe.protocol.immutables.RecordMapper;
+import io.zeebe.protocol.immutables.ZeebeStyle;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import org.immutables.value.Value;
+
+/**
+ * A {@link Record} which keeps the raw JSON of its value, and only deserializes it into the
+ * matching {@code Immutable*RecordValue} the first time {@link #getValue()} is called. Use it when
+ * most records are filtered out based on their metadata (e.g. value type, intent, position), to
+ * avoid paying for building values which are never looked at.
+ *
+ * <p>It serializes to the same JSON as {@link ImmutableRecord}, and can be converted to one with
+ * {@link io.zeebe.protocol.immutables.ImmutableRecordCopier#deepCopyOfRecord(Record)}. Note that
+ * two lazy records are only equal if their raw values are byte for byte the same.
+ */
+@Value.Immutable
+@ZeebeStyle
+public abstract class AbstractLazyRecord<T extends RecordValue> extends AbstractJsonSerializable
+    implements Record<T> {
+  @Value.Default
+  @JsonTypeInfo(use = Id.CUSTOM, include = As.EXTERNAL_PROPERTY, property = "valueType")
+  @JsonTypeIdResolver(IntentTypeIdResolver.class)
+  @Override
+  public Intent getIntent() {
+    return Intent.UNKNOWN;
+  }
+
+  @Value.Default
+  @Override
+  public RecordType getRecordType() {
+    return RecordType.NULL_VAL;
+  }
+
+  @Value.Default
+  @Override
+  public RejectionType getRejectionType() {
+    return RejectionType.NULL_VAL;
+  }
+
+  /** @return the UTF-8 encoded JSON of the value, as read from the source */
+  @JsonProperty("value")
+  @JsonSerialize(using = RawJsonSerializer.class)
+  @JsonDeserialize(using = RawJsonDeserializer.class)
+  public abstract byte[] getRawValue();
+
+  @Value.Lazy
+  @JsonIgnore
+  @Override
+  public T getValue() {
+    try {
+      return RecordMapper.getDefault().getValueReader(getValueType()).readValue(getRawValue());
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @SuppressWarnings({"MethodDoesntCallSuperMethod", "squid:S2975", "squid:S1182"})
+  @Override
+  public Record<T> clone() {
+    return ImmutableLazyRecord.copyOf(this);
+  }
+}
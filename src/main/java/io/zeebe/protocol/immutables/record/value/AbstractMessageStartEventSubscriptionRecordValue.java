@@ -16,10 +16,12 @@
 package io.zeebe.protocol.immutables.record.value;
 
 import io.camunda.zeebe.protocol.record.value.MessageStartEventSubscriptionRecordValue;
+import io.zeebe.protocol.immutables.GenerateJsonCodec;
 import io.zeebe.protocol.immutables.ZeebeStyle;
 import org.immutables.value.Value;
 
 @Value.Immutable
 @ZeebeStyle
+@GenerateJsonCodec
 public abstract class AbstractMessageStartEventSubscriptionRecordValue
-    implements MessageStartEventSubscriptionRecordValue {}
+    extends AbstractJsonSerializable implements MessageStartEventSubscriptionRecordValue {}
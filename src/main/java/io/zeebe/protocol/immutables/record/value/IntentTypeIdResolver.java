@@ -19,28 +19,17 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
 import com.fasterxml.jackson.databind.DatabindContext;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.jsontype.impl.TypeIdResolverBase;
+import com.fasterxml.jackson.databind.type.TypeFactory;
 import io.camunda.zeebe.protocol.record.ValueType;
-import io.camunda.zeebe.protocol.record.intent.DeploymentDistributionIntent;
-import io.camunda.zeebe.protocol.record.intent.DeploymentIntent;
-import io.camunda.zeebe.protocol.record.intent.ErrorIntent;
-import io.camunda.zeebe.protocol.record.intent.IncidentIntent;
 import io.camunda.zeebe.protocol.record.intent.Intent;
-import io.camunda.zeebe.protocol.record.intent.JobBatchIntent;
-import io.camunda.zeebe.protocol.record.intent.JobIntent;
-import io.camunda.zeebe.protocol.record.intent.MessageIntent;
-import io.camunda.zeebe.protocol.record.intent.MessageStartEventSubscriptionIntent;
-import io.camunda.zeebe.protocol.record.intent.MessageSubscriptionIntent;
-import io.camunda.zeebe.protocol.record.intent.ProcessEventIntent;
-import io.camunda.zeebe.protocol.record.intent.ProcessInstanceCreationIntent;
-import io.camunda.zeebe.protocol.record.intent.ProcessInstanceIntent;
-import io.camunda.zeebe.protocol.record.intent.ProcessInstanceResultIntent;
-import io.camunda.zeebe.protocol.record.intent.ProcessIntent;
-import io.camunda.zeebe.protocol.record.intent.ProcessMessageSubscriptionIntent;
-import io.camunda.zeebe.protocol.record.intent.TimerIntent;
-import io.camunda.zeebe.protocol.record.intent.VariableDocumentIntent;
-import io.camunda.zeebe.protocol.record.intent.VariableIntent;
+import io.zeebe.protocol.immutables.ValueTypeMapping;
+import io.zeebe.protocol.immutables.jfr.RecordEvents;
+import io.zeebe.protocol.immutables.jfr.TypeResolutionEvent;
 
 final class IntentTypeIdResolver extends TypeIdResolverBase {
+  private static final JavaType UNKNOWN_INTENT_TYPE =
+      TypeFactory.defaultInstance().constructType(UnknownIntent.class);
+
   @Override
   public String idFromValue(final Object value) {
     return ((ValueType) value).name();
@@ -58,57 +47,28 @@ final class IntentTypeIdResolver extends TypeIdResolverBase {
 
   @Override
   public JavaType typeFromId(final DatabindContext context, final String id) {
-    final var valueType = ValueType.valueOf(id);
-    final var typeFactory = context.getTypeFactory();
-    return typeFactory.constructType(mapValueTypeToIntentClass(valueType));
+    if (!RecordEvents.isRecording()) {
+      return resolveType(id);
+    }
+
+    final TypeResolutionEvent event = TypeResolutionEvent.beginIfEnabled();
+    final JavaType type = resolveType(id);
+    if (event != null) {
+      event.complete(id, "intent", type.getRawClass());
+    }
+
+    return type;
   }
 
-  // allow  high cyclomatic complexity due to large switch case which is still easy to reason about
-  @SuppressWarnings({"java:S138", "java:S1541"})
-  private Class<? extends Enum<? extends Intent>> mapValueTypeToIntentClass(
-      final ValueType valueType) {
-    switch (valueType) {
-      case JOB:
-        return JobIntent.class;
-      case DEPLOYMENT:
-        return DeploymentIntent.class;
-      case PROCESS_INSTANCE:
-        return ProcessInstanceIntent.class;
-      case INCIDENT:
-        return IncidentIntent.class;
-      case MESSAGE:
-        return MessageIntent.class;
-      case MESSAGE_SUBSCRIPTION:
-        return MessageSubscriptionIntent.class;
-      case PROCESS_MESSAGE_SUBSCRIPTION:
-        return ProcessMessageSubscriptionIntent.class;
-      case JOB_BATCH:
-        return JobBatchIntent.class;
-      case TIMER:
-        return TimerIntent.class;
-      case MESSAGE_START_EVENT_SUBSCRIPTION:
-        return MessageStartEventSubscriptionIntent.class;
-      case VARIABLE:
-        return VariableIntent.class;
-      case VARIABLE_DOCUMENT:
-        return VariableDocumentIntent.class;
-      case PROCESS_INSTANCE_CREATION:
-        return ProcessInstanceCreationIntent.class;
-      case ERROR:
-        return ErrorIntent.class;
-      case PROCESS_INSTANCE_RESULT:
-        return ProcessInstanceResultIntent.class;
-      case PROCESS:
-        return ProcessIntent.class;
-      case PROCESS_EVENT:
-        return ProcessEventIntent.class;
-      case DEPLOYMENT_DISTRIBUTION:
-        return DeploymentDistributionIntent.class;
-      case SBE_UNKNOWN:
-      case NULL_VAL:
-      default:
-        return UnknownIntent.class;
+  private JavaType resolveType(final String id) {
+    final ValueTypeMapping mapping = ValueTypeMapping.ofName(id);
+    if (mapping != null) {
+      return mapping.getIntentJavaType();
     }
+
+    // only special value types such as SBE_UNKNOWN have no mapping; anything else is invalid
+    ValueType.valueOf(id);
+    return UNKNOWN_INTENT_TYPE;
   }
 
   private enum UnknownIntent implements Intent {
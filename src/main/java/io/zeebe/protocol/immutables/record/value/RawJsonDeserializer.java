@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.record.value;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import java.io.IOException;
+
+/**
+ * Reads the current JSON value, whatever its structure, as UTF-8 encoded JSON. The tokens are
+ * copied as they are parsed, without building any intermediate object or tree.
+ */
+final class RawJsonDeserializer extends StdDeserializer<byte[]> {
+  private static final JsonFactory FACTORY = new JsonFactory();
+
+  RawJsonDeserializer() {
+    super(byte[].class);
+  }
+
+  @Override
+  public byte[] deserialize(final JsonParser parser, final DeserializationContext context)
+      throws IOException {
+    try (final ByteArrayBuilder buffer = new ByteArrayBuilder();
+        final JsonGenerator generator = FACTORY.createGenerator(buffer)) {
+      generator.copyCurrentStructure(parser);
+      generator.flush();
+      return buffer.toByteArray();
+    }
+  }
+}
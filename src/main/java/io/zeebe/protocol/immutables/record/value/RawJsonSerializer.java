@@ -0,0 +1,37 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.record.value;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/** Writes UTF-8 encoded JSON as is, as read by the {@link RawJsonDeserializer}. */
+final class RawJsonSerializer extends StdSerializer<byte[]> {
+
+  RawJsonSerializer() {
+    super(byte[].class);
+  }
+
+  @Override
+  public void serialize(
+      final byte[] value, final JsonGenerator generator, final SerializerProvider provider)
+      throws IOException {
+    generator.writeRawValue(new String(value, StandardCharsets.UTF_8));
+  }
+}
@@ -19,9 +19,10 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
 import com.fasterxml.jackson.databind.DatabindContext;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.jsontype.impl.TypeIdResolverBase;
-import io.camunda.zeebe.protocol.record.RecordValue;
 import io.camunda.zeebe.protocol.record.ValueType;
-import io.zeebe.protocol.immutables.record.value.deployment.ImmutableProcess;
+import io.zeebe.protocol.immutables.ValueTypeMapping;
+import io.zeebe.protocol.immutables.jfr.RecordEvents;
+import io.zeebe.protocol.immutables.jfr.TypeResolutionEvent;
 
 final class ValueTypeIdResolver extends TypeIdResolverBase {
 
@@ -42,55 +43,25 @@ final class ValueTypeIdResolver extends TypeIdResolverBase {
 
   @Override
   public JavaType typeFromId(final DatabindContext context, final String id) {
-    final var valueType = ValueType.valueOf(id);
-    final var typeFactory = context.getTypeFactory();
-    return typeFactory.constructType(mapValueTypeToRecordValue(valueType));
+    if (!RecordEvents.isRecording()) {
+      return resolveType(id);
+    }
+
+    final TypeResolutionEvent event = TypeResolutionEvent.beginIfEnabled();
+    final JavaType type = resolveType(id);
+    if (event != null) {
+      event.complete(id, "value", type.getRawClass());
+    }
+
+    return type;
   }
 
-  // allow  high cyclomatic complexity due to large switch case which is still easy to reason about
-  @SuppressWarnings({"java:S138", "java:S1541"})
-  private Class<? extends RecordValue> mapValueTypeToRecordValue(final ValueType valueType) {
-    switch (valueType) {
-      case JOB:
-        return ImmutableJobRecordValue.class;
-      case DEPLOYMENT:
-        return ImmutableDeploymentRecordValue.class;
-      case PROCESS_INSTANCE:
-        return ImmutableProcessInstanceRecordValue.class;
-      case INCIDENT:
-        return ImmutableIncidentRecordValue.class;
-      case MESSAGE:
-        return ImmutableMessageRecordValue.class;
-      case MESSAGE_SUBSCRIPTION:
-        return ImmutableMessageSubscriptionRecordValue.class;
-      case PROCESS_MESSAGE_SUBSCRIPTION:
-        return ImmutableProcessMessageSubscriptionRecordValue.class;
-      case JOB_BATCH:
-        return ImmutableJobBatchRecordValue.class;
-      case TIMER:
-        return ImmutableTimerRecordValue.class;
-      case MESSAGE_START_EVENT_SUBSCRIPTION:
-        return ImmutableMessageStartEventSubscriptionRecordValue.class;
-      case VARIABLE:
-        return ImmutableVariableRecordValue.class;
-      case VARIABLE_DOCUMENT:
-        return ImmutableVariableDocumentRecordValue.class;
-      case PROCESS_INSTANCE_CREATION:
-        return ImmutableProcessInstanceCreationRecordValue.class;
-      case ERROR:
-        return ImmutableErrorRecordValue.class;
-      case PROCESS_INSTANCE_RESULT:
-        return ImmutableProcessInstanceResultRecordValue.class;
-      case PROCESS_EVENT:
-        return ImmutableProcessEventRecordValue.class;
-      case PROCESS:
-        return ImmutableProcess.class;
-      case DEPLOYMENT_DISTRIBUTION:
-        return ImmutableDeploymentDistributionRecordValue.class;
-      case SBE_UNKNOWN:
-      case NULL_VAL:
-      default:
-        throw new IllegalArgumentException("Unknown value type " + valueType);
+  private JavaType resolveType(final String id) {
+    final ValueTypeMapping mapping = ValueTypeMapping.ofName(id);
+    if (mapping == null) {
+      throw new IllegalArgumentException("Unknown value type " + id);
     }
+
+    return mapping.getImmutableJavaType();
   }
 }
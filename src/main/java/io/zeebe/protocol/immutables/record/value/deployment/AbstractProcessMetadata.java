@@ -16,11 +16,13 @@
 package io.zeebe.protocol.immutables.record.value.deployment;
 
 import io.camunda.zeebe.protocol.record.value.deployment.ProcessMetadataValue;
+import io.zeebe.protocol.immutables.GenerateJsonCodec;
 import io.zeebe.protocol.immutables.ZeebeStyle;
 import io.zeebe.protocol.immutables.record.value.AbstractJsonSerializable;
 import org.immutables.value.Value;
 
 @Value.Immutable
 @ZeebeStyle
+@GenerateJsonCodec(interned = true)
 public abstract class AbstractProcessMetadata extends AbstractJsonSerializable
     implements ProcessMetadataValue {}
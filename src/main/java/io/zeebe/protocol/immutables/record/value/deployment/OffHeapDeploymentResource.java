@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.record.value.deployment;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.camunda.zeebe.protocol.record.value.deployment.DeploymentResource;
+import io.zeebe.protocol.immutables.JsonCodecs;
+import io.zeebe.protocol.immutables.RetainedSize;
+import io.zeebe.protocol.immutables.record.value.AbstractJsonSerializable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * An immutable {@link DeploymentResource} whose bytes are held outside of the Java heap, see {@link
+ * io.zeebe.protocol.immutables.OffHeapResources}. It serializes to the same JSON as {@link
+ * ImmutableDeploymentResource}, but is only ever equal to other off-heap resources.
+ */
+@JsonSerialize(using = OffHeapDeploymentResource.Serializer.class)
+public final class OffHeapDeploymentResource extends AbstractJsonSerializable
+    implements DeploymentResource, RetainedSize.Estimable, JsonCodecs.BufferedBytes {
+  private static final long SHALLOW_SIZE = RetainedSize.ofInstance(0, 1, 0, 2);
+
+  private final ByteBuffer resource;
+  private final String resourceName;
+  private final int hashCode;
+
+  private OffHeapDeploymentResource(final ByteBuffer resource, final String resourceName) {
+    this.resource = resource;
+    this.resourceName = resourceName;
+    hashCode = 31 * resource.hashCode() + Objects.hashCode(resourceName);
+  }
+
+  /**
+   * Returns a resource backed by the remaining bytes of the given buffer, which are not copied and
+   * must not be modified afterwards.
+   */
+  public static OffHeapDeploymentResource of(final ByteBuffer resource, final String resourceName) {
+    return new OffHeapDeploymentResource(resource.slice().asReadOnlyBuffer(), resourceName);
+  }
+
+  /** Returns a heap copy of the resource; prefer {@link #getResourceBuffer()} to avoid it. */
+  @Override
+  public byte[] getResource() {
+    return OffHeapProcess.toArray(resource);
+  }
+
+  /** @return a read-only view of the resource, which shares its bytes without copying them */
+  public ByteBuffer getResourceBuffer() {
+    return resource.duplicate();
+  }
+
+  /** Lets the codec stream the resource from its buffer instead of copying it into an array. */
+  @Override
+  public ByteBuffer getBytesBuffer(final String attribute) {
+    return "resource".equals(attribute) ? resource.duplicate() : null;
+  }
+
+  @Override
+  public long estimateRetainedSize() {
+    return SHALLOW_SIZE + RetainedSize.ofBuffer(resource) + RetainedSize.ofString(resourceName);
+  }
+
+  @Override
+  public String getResourceName() {
+    return resourceName;
+  }
+
+  @Override
+  public boolean equals(final Object other) {
+    if (this == other) {
+      return true;
+    }
+
+    if (!(other instanceof OffHeapDeploymentResource)) {
+      return false;
+    }
+
+    final OffHeapDeploymentResource that = (OffHeapDeploymentResource) other;
+    return hashCode == that.hashCode
+        && Objects.equals(resourceName, that.resourceName)
+        && resource.equals(that.resource);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public String toString() {
+    return "DeploymentResource{resource=<"
+        + resource.capacity()
+        + " bytes off-heap>, resourceName="
+        + resourceName
+        + "}";
+  }
+
+  public static final class Serializer extends StdSerializer<OffHeapDeploymentResource> {
+    private static final long serialVersionUID = 1L;
+
+    public Serializer() {
+      super(OffHeapDeploymentResource.class);
+    }
+
+    @Override
+    public void serialize(
+        final OffHeapDeploymentResource value,
+        final JsonGenerator generator,
+        final SerializerProvider provider)
+        throws IOException {
+      DeploymentResourceJsonCodec.write(generator, value, provider);
+    }
+  }
+}
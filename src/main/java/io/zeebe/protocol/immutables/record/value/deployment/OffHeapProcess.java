@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.record.value.deployment;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.camunda.zeebe.protocol.record.value.deployment.Process;
+import io.zeebe.protocol.immutables.JsonCodecs;
+import io.zeebe.protocol.immutables.RetainedSize;
+import io.zeebe.protocol.immutables.record.value.AbstractJsonSerializable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An immutable {@link Process} whose resource is held outside of the Java heap, see {@link
+ * io.zeebe.protocol.immutables.OffHeapResources}. It serializes to the same JSON as {@link
+ * ImmutableProcess}, but is only ever equal to other off-heap processes.
+ */
+@JsonSerialize(using = OffHeapProcess.Serializer.class)
+public final class OffHeapProcess extends AbstractJsonSerializable
+    implements Process, RetainedSize.Estimable, JsonCodecs.BufferedBytes {
+  private static final long SHALLOW_SIZE = RetainedSize.ofInstance(1, 2, 0, 4);
+
+  private final String bpmnProcessId;
+  private final int version;
+  private final long processDefinitionKey;
+  private final String resourceName;
+  private final byte[] checksum;
+  private final ByteBuffer resource;
+  private final int hashCode;
+
+  private OffHeapProcess(final Process metadata, final ByteBuffer resource) {
+    bpmnProcessId = metadata.getBpmnProcessId();
+    version = metadata.getVersion();
+    processDefinitionKey = metadata.getProcessDefinitionKey();
+    resourceName = metadata.getResourceName();
+    checksum = metadata.getChecksum() == null ? null : metadata.getChecksum().clone();
+    this.resource = resource;
+    hashCode = computeHashCode();
+  }
+
+  /**
+   * Returns a copy of the given process whose resource is backed by the remaining bytes of the
+   * given buffer, which are not copied and must not be modified afterwards. The resource of the
+   * given process itself is ignored.
+   */
+  public static OffHeapProcess of(final Process metadata, final ByteBuffer resource) {
+    return new OffHeapProcess(metadata, resource.slice().asReadOnlyBuffer());
+  }
+
+  @Override
+  public String getBpmnProcessId() {
+    return bpmnProcessId;
+  }
+
+  @Override
+  public int getVersion() {
+    return version;
+  }
+
+  @Override
+  public long getProcessDefinitionKey() {
+    return processDefinitionKey;
+  }
+
+  @Override
+  public String getResourceName() {
+    return resourceName;
+  }
+
+  @Override
+  public byte[] getChecksum() {
+    return checksum == null ? null : checksum.clone();
+  }
+
+  /** Returns a heap copy of the resource; prefer {@link #getResourceBuffer()} to avoid it. */
+  @Override
+  public byte[] getResource() {
+    return toArray(resource);
+  }
+
+  /** @return a read-only view of the resource, which shares its bytes without copying them */
+  public ByteBuffer getResourceBuffer() {
+    return resource.duplicate();
+  }
+
+  /** Lets the codec stream the resource from its buffer instead of copying it into an array. */
+  @Override
+  public ByteBuffer getBytesBuffer(final String attribute) {
+    return "resource".equals(attribute) ? resource.duplicate() : null;
+  }
+
+  @Override
+  public long estimateRetainedSize() {
+    return SHALLOW_SIZE
+        + RetainedSize.ofString(bpmnProcessId)
+        + RetainedSize.ofString(resourceName)
+        + RetainedSize.ofBytes(checksum)
+        + RetainedSize.ofBuffer(resource);
+  }
+
+  @Override
+  public boolean equals(final Object other) {
+    if (this == other) {
+      return true;
+    }
+
+    if (!(other instanceof OffHeapProcess)) {
+      return false;
+    }
+
+    final OffHeapProcess that = (OffHeapProcess) other;
+    return hashCode == that.hashCode
+        && version == that.version
+        && processDefinitionKey == that.processDefinitionKey
+        && Objects.equals(bpmnProcessId, that.bpmnProcessId)
+        && Objects.equals(resourceName, that.resourceName)
+        && Arrays.equals(checksum, that.checksum)
+        && resource.equals(that.resource);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public String toString() {
+    return "Process{bpmnProcessId="
+        + bpmnProcessId
+        + ", version="
+        + version
+        + ", processDefinitionKey="
+        + processDefinitionKey
+        + ", resourceName="
+        + resourceName
+        + ", checksum="
+        + Arrays.toString(checksum)
+        + ", resource=<"
+        + resource.capacity()
+        + " bytes off-heap>}";
+  }
+
+  private int computeHashCode() {
+    int h = Objects.hashCode(bpmnProcessId);
+    h = 31 * h + version;
+    h = 31 * h + Long.hashCode(processDefinitionKey);
+    h = 31 * h + Objects.hashCode(resourceName);
+    h = 31 * h + Arrays.hashCode(checksum);
+    return 31 * h + resource.hashCode();
+  }
+
+  static byte[] toArray(final ByteBuffer buffer) {
+    final byte[] bytes = new byte[buffer.remaining()];
+    buffer.duplicate().get(bytes);
+    return bytes;
+  }
+
+  public static final class Serializer extends StdSerializer<OffHeapProcess> {
+    private static final long serialVersionUID = 1L;
+
+    public Serializer() {
+      super(OffHeapProcess.class);
+    }
+
+    @Override
+    public void serialize(
+        final OffHeapProcess value,
+        final JsonGenerator generator,
+        final SerializerProvider provider)
+        throws IOException {
+      ProcessJsonCodec.write(generator, value, provider);
+    }
+  }
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.zeebe.protocol.immutables.benchmark.PlainRecords;
+import io.zeebe.protocol.immutables.generator.ImmutableRecordGeneratorConfig;
+import io.zeebe.protocol.immutables.generator.RecordGenerator;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.EnumSource.Mode;
+
+/**
+ * Guards against allocation regressions in the copier and the serialization of the generated {@code
+ * Immutable*} classes. The budgets are the median of the average number of bytes allocated per
+ * operation on a warmed up JVM for a record with the default shape of the {@link RecordGenerator},
+ * with some headroom to absorb differences between JVM versions. The copy budgets are measured on
+ * records copied into {@link PlainRecords}, such that the whole graph is copied like for the
+ * records passed to an exporter.
+ *
+ * <p>Copying a graph which is already immutable, wrapping a record with a {@link MutableRecord}, or
+ * resolving a {@link ValueTypeMapping} when deserializing a record, must not allocate at all.
+ *
+ * <p>If a change legitimately increases the allocations, measure them again (e.g. with the {@code
+ * ImmutableRecordCopierBenchmark} or {@code ImmutableRecordSerializationBenchmark} and {@code -prof
+ * gc}) and update the budgets accordingly.
+ */
+final class AllocationBudgetTest {
+
+  private static final int WARMUP_ITERATIONS = 5_000;
+  private static final int MIN_WARMUP_PASSES = 2;
+  private static final int MAX_WARMUP_PASSES = 20;
+  private static final int MEASURED_ITERATIONS = 1_000;
+  private static final int MEASUREMENT_ROUNDS = 5;
+
+  // writing JSON into a pre-allocated buffer only allocates the generator and its serializers,
+  // also for job batches, whose nested jobs are written without iterators
+  private static final long WRITE_JSON_BUDGET = 800L;
+
+  // reading a record into a mutable one only creates the strings of its metadata, as the value is
+  // kept as raw JSON until accessed
+  private static final long READ_NEXT_BUDGET = 400L;
+
+  private static final Map<ValueType, Long> COPY_BUDGETS = new EnumMap<>(ValueType.class);
+  private static final Map<ValueType, Long> TO_JSON_BUDGETS = new EnumMap<>(ValueType.class);
+
+  static {
+    COPY_BUDGETS.put(ValueType.JOB, 1_800L);
+    COPY_BUDGETS.put(ValueType.DEPLOYMENT, 700L);
+    COPY_BUDGETS.put(ValueType.PROCESS_INSTANCE, 450L);
+    COPY_BUDGETS.put(ValueType.INCIDENT, 450L);
+    COPY_BUDGETS.put(ValueType.MESSAGE, 1_100L);
+    COPY_BUDGETS.put(ValueType.MESSAGE_SUBSCRIPTION, 1_100L);
+    COPY_BUDGETS.put(ValueType.PROCESS_MESSAGE_SUBSCRIPTION, 1_100L);
+    COPY_BUDGETS.put(ValueType.JOB_BATCH, 16_000L);
+    COPY_BUDGETS.put(ValueType.TIMER, 400L);
+    COPY_BUDGETS.put(ValueType.MESSAGE_START_EVENT_SUBSCRIPTION, 1_100L);
+    COPY_BUDGETS.put(ValueType.VARIABLE, 400L);
+    COPY_BUDGETS.put(ValueType.VARIABLE_DOCUMENT, 1_100L);
+    COPY_BUDGETS.put(ValueType.PROCESS_INSTANCE_CREATION, 1_100L);
+    COPY_BUDGETS.put(ValueType.ERROR, 400L);
+    COPY_BUDGETS.put(ValueType.PROCESS_INSTANCE_RESULT, 1_100L);
+    COPY_BUDGETS.put(ValueType.PROCESS, 400L);
+    COPY_BUDGETS.put(ValueType.DEPLOYMENT_DISTRIBUTION, 300L);
+    COPY_BUDGETS.put(ValueType.PROCESS_EVENT, 1_100L);
+
+    TO_JSON_BUDGETS.put(ValueType.JOB, 2_500L);
+    TO_JSON_BUDGETS.put(ValueType.DEPLOYMENT, 10_000L);
+    TO_JSON_BUDGETS.put(ValueType.PROCESS_INSTANCE, 1_800L);
+    TO_JSON_BUDGETS.put(ValueType.INCIDENT, 1_800L);
+    TO_JSON_BUDGETS.put(ValueType.MESSAGE, 1_700L);
+    TO_JSON_BUDGETS.put(ValueType.MESSAGE_SUBSCRIPTION, 1_900L);
+    TO_JSON_BUDGETS.put(ValueType.PROCESS_MESSAGE_SUBSCRIPTION, 1_900L);
+    TO_JSON_BUDGETS.put(ValueType.JOB_BATCH, 10_700L);
+    TO_JSON_BUDGETS.put(ValueType.TIMER, 1_700L);
+    TO_JSON_BUDGETS.put(ValueType.MESSAGE_START_EVENT_SUBSCRIPTION, 2_100L);
+    TO_JSON_BUDGETS.put(ValueType.VARIABLE, 1_600L);
+    TO_JSON_BUDGETS.put(ValueType.VARIABLE_DOCUMENT, 1_700L);
+    TO_JSON_BUDGETS.put(ValueType.PROCESS_INSTANCE_CREATION, 1_800L);
+    TO_JSON_BUDGETS.put(ValueType.ERROR, 2_600L);
+    TO_JSON_BUDGETS.put(ValueType.PROCESS_INSTANCE_RESULT, 1_800L);
+    TO_JSON_BUDGETS.put(ValueType.PROCESS, 9_800L);
+    TO_JSON_BUDGETS.put(ValueType.DEPLOYMENT_DISTRIBUTION, 1_300L);
+    TO_JSON_BUDGETS.put(ValueType.PROCESS_EVENT, 1_900L);
+  }
+
+  private static com.sun.management.ThreadMXBean threadBean;
+
+  @BeforeAll
+  static void beforeAll() {
+    assumeTrue(
+        ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+        "expected the JVM to support measuring allocations per thread");
+    threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+    assumeTrue(
+        ManagementFactory.getCompilationMXBean() != null
+            && ManagementFactory.getCompilationMXBean().isCompilationTimeMonitoringSupported(),
+        "expected the JVM to support monitoring the JIT compilation time");
+  }
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"NULL_VAL", "SBE_UNKNOWN"},
+      mode = Mode.EXCLUDE)
+  @ParameterizedTest
+  void shouldNotExceedCopyBudget(final ValueType type) {
+    // given
+    final Record<RecordValue> record = PlainRecords.copyOf(generateRecord(type));
+
+    // when
+    final long allocatedBytes =
+        measureAllocatedBytesPerOperation(() -> ImmutableRecordCopier.deepCopyOfRecord(record));
+
+    // then
+    assertThat(allocatedBytes)
+        .as("bytes allocated per deepCopyOfRecord for %s", type)
+        .isLessThanOrEqualTo(COPY_BUDGETS.get(type));
+  }
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"NULL_VAL", "SBE_UNKNOWN"},
+      mode = Mode.EXCLUDE)
+  @ParameterizedTest
+  void shouldNotAllocateWhenCopyingImmutableRecord(final ValueType type) {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(type);
+
+    // when
+    final long allocatedBytes =
+        measureAllocatedBytesPerOperation(() -> ImmutableRecordCopier.deepCopyOfRecord(record));
+
+    // then
+    assertThat(allocatedBytes).as("bytes allocated per deepCopyOfRecord for %s", type).isZero();
+  }
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"NULL_VAL", "SBE_UNKNOWN"},
+      mode = Mode.EXCLUDE)
+  @ParameterizedTest
+  void shouldNotExceedToJsonBudget(final ValueType type) {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(type);
+
+    // when
+    final long allocatedBytes = measureAllocatedBytesPerOperation(record::toJson);
+
+    // then
+    assertThat(allocatedBytes)
+        .as("bytes allocated per toJson for %s", type)
+        .isLessThanOrEqualTo(TO_JSON_BUDGETS.get(type));
+  }
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"NULL_VAL", "SBE_UNKNOWN"},
+      mode = Mode.EXCLUDE)
+  @ParameterizedTest
+  void shouldNotExceedWriteJsonToBufferBudget(final ValueType type) {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(type);
+    final ByteBuffer buffer = ByteBuffer.allocate(record.toJson().length() * 2);
+
+    // when
+    final long allocatedBytes =
+        measureAllocatedBytesPerOperation(() -> record.toJson(buffer.clear()));
+
+    // then
+    assertThat(allocatedBytes)
+        .as("bytes allocated per toJson(ByteBuffer) for %s", type)
+        .isLessThanOrEqualTo(WRITE_JSON_BUDGET);
+  }
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"DEPLOYMENT", "PROCESS"})
+  @ParameterizedTest
+  void shouldNotCopyOffHeapResourcesWhenWritingJson(final ValueType type) {
+    // given
+    final ImmutableRecord<RecordValue> record =
+        OffHeapResources.of(ResourceStore.direct(), 0).offload(generateRecord(type));
+    final ByteBuffer buffer = ByteBuffer.allocate(record.toJson().length() * 2);
+
+    // when
+    final long allocatedBytes =
+        measureAllocatedBytesPerOperation(() -> record.toJson(buffer.clear()));
+
+    // then
+    assertThat(allocatedBytes)
+        .as("bytes allocated per toJson(ByteBuffer) for off-heap %s", type)
+        .isLessThanOrEqualTo(WRITE_JSON_BUDGET);
+  }
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"NULL_VAL", "SBE_UNKNOWN"},
+      mode = Mode.EXCLUDE)
+  @ParameterizedTest
+  void shouldNotAllocateWhenResolvingValueTypeByName(final ValueType type) {
+    // given
+    final String name = type.name();
+
+    // when
+    final long allocatedBytes =
+        measureAllocatedBytesPerOperation(
+            () -> ValueTypeMapping.ofName(name).getImmutableJavaType());
+
+    // then
+    assertThat(allocatedBytes).as("bytes allocated per lookup of %s", type).isZero();
+  }
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"NULL_VAL", "SBE_UNKNOWN"},
+      mode = Mode.EXCLUDE)
+  @ParameterizedTest
+  void shouldNotExceedReadNextBudget(final ValueType type) throws IOException {
+    // given
+    final byte[] json = (generateRecord(type).toJson() + "\n").getBytes(StandardCharsets.UTF_8);
+    final MutableRecord<RecordValue> record = new MutableRecord<>();
+
+    // when
+    final long allocatedBytes;
+    try (final RecordStreamReader reader =
+        new RecordStreamReader(new RepeatingInputStream(json), metadata -> true)) {
+      allocatedBytes =
+          measureAllocatedBytesPerOperation(
+              () -> {
+                try {
+                  reader.readNext(record);
+                } catch (final IOException e) {
+                  throw new UncheckedIOException(e);
+                }
+              });
+    }
+
+    // then
+    assertThat(allocatedBytes)
+        .as("bytes allocated per readNext(MutableRecord) for %s", type)
+        .isLessThanOrEqualTo(READ_NEXT_BUDGET);
+  }
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"NULL_VAL", "SBE_UNKNOWN"},
+      mode = Mode.EXCLUDE)
+  @ParameterizedTest
+  void shouldNotAllocateWhenWrappingRecord(final ValueType type) {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(type);
+    final MutableRecord<RecordValue> mutableRecord = new MutableRecord<>();
+
+    // when
+    final long allocatedBytes = measureAllocatedBytesPerOperation(() -> mutableRecord.wrap(record));
+
+    // then
+    assertThat(allocatedBytes).as("bytes allocated per wrap of %s", type).isZero();
+  }
+
+  private ImmutableRecord<RecordValue> generateRecord(final ValueType type) {
+    final ImmutableRecordGeneratorConfig config =
+        ImmutableRecordGeneratorConfig.builder().valueTypeWeights(Map.of(type, 1)).build();
+    return new RecordGenerator(config).next();
+  }
+
+  /**
+   * Returns the median of the average number of bytes allocated by the current thread per
+   * invocation of the given operation, over a fixed number of measured rounds.
+   *
+   * <p>Before measuring, the operation is warmed up in passes until a whole pass ran without the
+   * JIT compiling anything, such that the measured rounds run the final compiled code (e.g. with
+   * escape analysis) no matter what ran before in the same JVM. The median then ignores a single
+   * round disturbed by a late compilation, while an operation which allocates more in most rounds
+   * still exceeds its budget.
+   */
+  private long measureAllocatedBytesPerOperation(final Runnable operation) {
+    final long threadId = Thread.currentThread().getId();
+    warmUp(operation);
+
+    final long[] averages = new long[MEASUREMENT_ROUNDS];
+    for (int round = 0; round < MEASUREMENT_ROUNDS; round++) {
+      final long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+      for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+        operation.run();
+      }
+
+      averages[round] =
+          (threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore) / MEASURED_ITERATIONS;
+    }
+
+    Arrays.sort(averages);
+    return averages[MEASUREMENT_ROUNDS / 2];
+  }
+
+  private void warmUp(final Runnable operation) {
+    final CompilationMXBean compilationBean = ManagementFactory.getCompilationMXBean();
+    for (int pass = 0; pass < MAX_WARMUP_PASSES; pass++) {
+      final long compilationTimeBefore = compilationBean.getTotalCompilationTime();
+      for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+        operation.run();
+      }
+
+      if (pass >= MIN_WARMUP_PASSES - 1
+          && compilationBean.getTotalCompilationTime() == compilationTimeBefore) {
+        return;
+      }
+    }
+  }
+
+  /** Endlessly repeats the given bytes, e.g. to read the same record over and over again. */
+  private static final class RepeatingInputStream extends InputStream {
+    private final byte[] bytes;
+    private int position;
+
+    private RepeatingInputStream(final byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    @Override
+    public int read() {
+      final int value = bytes[position] & 0xFF;
+      position = (position + 1) % bytes.length;
+      return value;
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int length) {
+      final int count = Math.min(length, bytes.length - position);
+      System.arraycopy(bytes, position, buffer, offset, count);
+      position = (position + count) % bytes.length;
+      return count;
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.zeebe.protocol.immutables.record.value.ImmutableMessageRecordValue;
+import io.zeebe.protocol.immutables.record.value.deployment.ImmutableProcess;
+import java.lang.invoke.MethodHandle;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+final class ImmutableInstantiatorTest {
+
+  private static final MethodHandle MESSAGE_CONSTRUCTOR =
+      ImmutableInstantiator.findConstructor(
+          ImmutableMessageRecordValue.class,
+          Map.class,
+          String.class,
+          String.class,
+          String.class,
+          long.class,
+          long.class);
+
+  @Test
+  void shouldAcceptConstructorTakingAttributesInOrder() {
+    // when
+    final MethodHandle constructor =
+        ImmutableInstantiator.verifyConstructor(
+            MESSAGE_CONSTRUCTOR,
+            ImmutableMessageRecordValue.class,
+            value ->
+                new Object[] {
+                  value.getVariables(),
+                  value.getName(),
+                  value.getCorrelationKey(),
+                  value.getMessageId(),
+                  value.getTimeToLive(),
+                  value.getDeadline()
+                });
+
+    // then
+    assertThat(constructor).isNotNull().isSameAs(MESSAGE_CONSTRUCTOR);
+  }
+
+  @Test
+  void shouldRejectConstructorSwappingAttributesOfSameType() {
+    // when - the constructor would take the correlation key before the name
+    final MethodHandle constructor =
+        ImmutableInstantiator.verifyConstructor(
+            MESSAGE_CONSTRUCTOR,
+            ImmutableMessageRecordValue.class,
+            value ->
+                new Object[] {
+                  value.getVariables(),
+                  value.getCorrelationKey(),
+                  value.getName(),
+                  value.getMessageId(),
+                  value.getTimeToLive(),
+                  value.getDeadline()
+                });
+
+    // then
+    assertThat(constructor).isNull();
+  }
+
+  @Test
+  void shouldUseVerifiedHandles() {
+    // then - the handles of the generated classes this library is built with are all valid
+    assertThat(ImmutableInstantiator.isConstructingDirectly()).isTrue();
+    assertThat(ImmutableInstantiator.isSharingResources()).isTrue();
+  }
+
+  @Test
+  void shouldRejectGetterOfOtherField() {
+    // given
+    final MethodHandle checksumGetter =
+        ImmutableInstantiator.findGetter(ImmutableProcess.class, "checksum", byte[].class);
+
+    // when
+    final MethodHandle getter =
+        ImmutableInstantiator.verifyBytesGetter(
+            checksumGetter,
+            resource ->
+                ImmutableProcess.builder()
+                    .bpmnProcessId("process")
+                    .resourceName("process.bpmn")
+                    .checksum(new byte[] {1})
+                    .resource(resource)
+                    .build());
+
+    // then
+    assertThat(checksumGetter).isNotNull();
+    assertThat(getter).isNull();
+  }
+
+  @Test
+  void shouldRejectMissingConstructor() {
+    // when
+    final MethodHandle constructor =
+        ImmutableInstantiator.verifyConstructor(
+            null, ImmutableMessageRecordValue.class, value -> new Object[0]);
+
+    // then
+    assertThat(constructor).isNull();
+  }
+}
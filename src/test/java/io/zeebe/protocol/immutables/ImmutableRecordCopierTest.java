@@ -15,9 +15,34 @@
  */
 package io.zeebe.protocol.immutables;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
 import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.value.DeploymentRecordValue;
+import io.camunda.zeebe.protocol.record.value.JobBatchRecordValue;
+import io.camunda.zeebe.protocol.record.value.JobRecordValue;
+import io.camunda.zeebe.protocol.record.value.deployment.DeploymentResource;
+import io.zeebe.protocol.immutables.benchmark.PlainRecords;
+import io.zeebe.protocol.immutables.generator.ImmutableRecordGeneratorConfig;
+import io.zeebe.protocol.immutables.generator.RecordGenerator;
+import io.zeebe.protocol.immutables.record.value.ImmutableDeploymentRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableJobBatchRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableJobRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import io.zeebe.protocol.immutables.record.value.deployment.ImmutableDeploymentResource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
 import org.junit.jupiter.params.provider.EnumSource.Mode;
@@ -38,4 +63,293 @@ final class ImmutableRecordCopierTest {
     assertThatCode(() -> ImmutableRecordCopier.deepCopyOfRecordValue(type, null))
         .isNotInstanceOf(IllegalArgumentException.class);
   }
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"NULL_VAL", "SBE_UNKNOWN"},
+      mode = Mode.EXCLUDE)
+  @ParameterizedTest
+  void shouldReturnSameInstanceForImmutableRecord(final ValueType type) {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(type);
+
+    // when
+    final ImmutableRecord<RecordValue> copy = ImmutableRecordCopier.deepCopyOfRecord(record);
+
+    // then
+    assertThat(copy).isSameAs(record);
+  }
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"NULL_VAL", "SBE_UNKNOWN"},
+      mode = Mode.EXCLUDE)
+  @ParameterizedTest
+  void shouldReuseImmutableValueOfMutableRecord(final ValueType type) {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(type);
+    @SuppressWarnings("unchecked")
+    final Record<RecordValue> mutableRecord = forward(Record.class, record);
+
+    // when
+    final ImmutableRecord<RecordValue> copy = ImmutableRecordCopier.deepCopyOfRecord(mutableRecord);
+
+    // then
+    assertThat(copy).isNotSameAs(record).isEqualTo(record);
+    assertThat(copy.getValue()).isSameAs(record.getValue());
+  }
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"NULL_VAL", "SBE_UNKNOWN"},
+      mode = Mode.EXCLUDE)
+  @ParameterizedTest
+  void shouldCopyWholeGraphOfPlainRecord(final ValueType type) {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(type);
+    final Record<RecordValue> plainRecord = PlainRecords.copyOf(record);
+
+    // when
+    final ImmutableRecord<RecordValue> copy = ImmutableRecordCopier.deepCopyOfRecord(plainRecord);
+
+    // then
+    assertThat(copy).isNotSameAs(record).isEqualTo(record);
+    assertThat(copy.getValue()).isNotSameAs(record.getValue());
+  }
+
+  @Test
+  void shouldCopyOnlyMutableJobsOfImmutableJobBatch() {
+    // given
+    final ImmutableJobBatchRecordValue batch =
+        (ImmutableJobBatchRecordValue) generateRecord(ValueType.JOB_BATCH).getValue();
+    final JobRecordValue immutableJob = batch.getJobs().get(0);
+    final JobRecordValue mutableJob = forward(JobRecordValue.class, batch.getJobs().get(1));
+    final ImmutableJobBatchRecordValue partiallyMutableBatch =
+        batch.withJobs(List.of(immutableJob, mutableJob));
+
+    // when
+    final JobBatchRecordValue copy =
+        ImmutableRecordCopier.deepCopyOfRecordValue(ValueType.JOB_BATCH, partiallyMutableBatch);
+
+    // then
+    assertThat(copy)
+        .isNotSameAs(partiallyMutableBatch)
+        .isEqualTo(batch.withJobs(List.of(immutableJob, batch.getJobs().get(1))));
+    assertThat(copy.getJobs().get(0)).isSameAs(immutableJob);
+    assertThat(copy.getJobs().get(1)).isInstanceOf(ImmutableJobRecordValue.class);
+  }
+
+  @Test
+  void shouldReuseImmutableJobsOfMutableJobBatch() {
+    // given
+    final ImmutableJobBatchRecordValue batch =
+        (ImmutableJobBatchRecordValue) generateRecord(ValueType.JOB_BATCH).getValue();
+    final JobBatchRecordValue mutableBatch = forward(JobBatchRecordValue.class, batch);
+
+    // when
+    final JobBatchRecordValue copy =
+        ImmutableRecordCopier.deepCopyOfRecordValue(ValueType.JOB_BATCH, mutableBatch);
+
+    // then
+    assertThat(copy).isNotSameAs(batch).isEqualTo(batch);
+    for (int i = 0; i < batch.getJobs().size(); i++) {
+      assertThat(copy.getJobs().get(i)).isSameAs(batch.getJobs().get(i));
+    }
+  }
+
+  @Test
+  void shouldConstructCopiesWithoutBuilders() {
+    assertThat(ImmutableInstantiator.isConstructingDirectly())
+        .as("expected the private constructors of the generated classes to be accessible")
+        .isTrue();
+  }
+
+  @Test
+  void shouldNotShareListsOfMutableJobBatch() {
+    // given
+    final ImmutableJobBatchRecordValue batch =
+        (ImmutableJobBatchRecordValue) generateRecord(ValueType.JOB_BATCH).getValue();
+    final List<Long> jobKeys = new ArrayList<>(batch.getJobKeys());
+    final JobBatchRecordValue mutableBatch =
+        (JobBatchRecordValue)
+            Proxy.newProxyInstance(
+                JobBatchRecordValue.class.getClassLoader(),
+                new Class<?>[] {JobBatchRecordValue.class},
+                (instance, method, args) ->
+                    method.getName().equals("getJobKeys") ? jobKeys : method.invoke(batch, args));
+
+    // when
+    final JobBatchRecordValue copy =
+        ImmutableRecordCopier.deepCopyOfRecordValue(ValueType.JOB_BATCH, mutableBatch);
+    jobKeys.add(1L);
+
+    // then
+    assertThat(copy).isEqualTo(batch).hasSameHashCodeAs(batch);
+    assertThatThrownBy(() -> copy.getJobKeys().add(1L))
+        .isInstanceOf(UnsupportedOperationException.class);
+    assertThatThrownBy(() -> copy.getJobs().add(batch.getJobs().get(0)))
+        .isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  void shouldCopyMutableDeployment() {
+    // given
+    final ImmutableDeploymentRecordValue deployment =
+        (ImmutableDeploymentRecordValue) generateRecord(ValueType.DEPLOYMENT).getValue();
+    final DeploymentRecordValue mutableDeployment =
+        forward(DeploymentRecordValue.class, deployment);
+
+    // when
+    final DeploymentRecordValue copy =
+        ImmutableRecordCopier.deepCopyOfRecordValue(ValueType.DEPLOYMENT, mutableDeployment);
+
+    // then
+    assertThat(copy).isEqualTo(deployment).hasSameHashCodeAs(deployment);
+    assertThat(copy.getResources()).isNotSameAs(deployment.getResources());
+    assertThatThrownBy(() -> copy.getResources().clear())
+        .isInstanceOf(UnsupportedOperationException.class);
+    assertThatThrownBy(() -> copy.getProcessesMetadata().clear())
+        .isInstanceOf(UnsupportedOperationException.class);
+  }
+
+  @Test
+  void shouldCopyOnlyMutableResourcesOfImmutableDeployment() {
+    // given
+    final ImmutableDeploymentRecordValue deployment =
+        (ImmutableDeploymentRecordValue)
+            new RecordGenerator(
+                    ImmutableRecordGeneratorConfig.builder()
+                        .valueTypeWeights(Map.of(ValueType.DEPLOYMENT, 1))
+                        .deploymentResourceCount(2)
+                        .build())
+                .next()
+                .getValue();
+    final DeploymentResource immutableResource = deployment.getResources().get(0);
+    final DeploymentResource mutableResource =
+        forward(DeploymentResource.class, deployment.getResources().get(1));
+
+    // when
+    final DeploymentRecordValue copy =
+        ImmutableRecordCopier.deepCopyOfRecordValue(
+            ValueType.DEPLOYMENT,
+            deployment.withResources(List.of(immutableResource, mutableResource)));
+
+    // then
+    assertThat(copy).isEqualTo(deployment);
+    assertThat(copy.getResources().get(0)).isSameAs(immutableResource);
+    assertThat(copy.getResources().get(1)).isInstanceOf(ImmutableDeploymentResource.class);
+    assertThat(copy.getProcessesMetadata()).isSameAs(deployment.getProcessesMetadata());
+  }
+
+  @Test
+  void shouldCopyRecordsInOrder() {
+    // given
+    final List<ImmutableRecord<RecordValue>> records =
+        new RecordGenerator(ImmutableRecordGeneratorConfig.builder().build())
+            .stream(500).collect(Collectors.toList());
+    final List<Record<RecordValue>> mutableRecords = forwardAll(records);
+
+    // when
+    final List<ImmutableRecord<RecordValue>> copies =
+        ImmutableRecordCopier.deepCopyOfRecords(mutableRecords);
+
+    // then
+    assertThat(copies).isEqualTo(records);
+  }
+
+  @Test
+  void shouldCopyRecordsInParallelInOrder() {
+    // given
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    final List<ImmutableRecord<RecordValue>> records =
+        new RecordGenerator(ImmutableRecordGeneratorConfig.builder().build())
+            .stream(500).collect(Collectors.toList());
+    final List<Record<RecordValue>> mutableRecords = forwardAll(records);
+
+    // when
+    final List<ImmutableRecord<RecordValue>> copies;
+    try {
+      copies = ImmutableRecordCopier.deepCopyOfRecords(mutableRecords, executor);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // then
+    assertThat(copies).isEqualTo(records);
+  }
+
+  @Test
+  void shouldCopySharedNestedObjectsOnlyOnceWithinBatch() {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(ValueType.JOB_BATCH);
+    final ImmutableJobBatchRecordValue batch = (ImmutableJobBatchRecordValue) record.getValue();
+    final JobRecordValue mutableJob = forward(JobRecordValue.class, batch.getJobs().get(0));
+    final List<Record<RecordValue>> records = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      records.add(record.withPosition(i).withValue(batch.withJobs(List.of(mutableJob))));
+    }
+
+    // when
+    final List<ImmutableRecord<RecordValue>> copies =
+        ImmutableRecordCopier.deepCopyOfRecordsInParallel(records);
+
+    // then
+    final JobRecordValue copiedJob =
+        ((JobBatchRecordValue) copies.get(0).getValue()).getJobs().get(0);
+    assertThat(copiedJob).isInstanceOf(ImmutableJobRecordValue.class);
+    assertThat(copies)
+        .hasSize(200)
+        .allSatisfy(
+            copy ->
+                assertThat(((JobBatchRecordValue) copy.getValue()).getJobs().get(0))
+                    .isSameAs(copiedJob));
+  }
+
+  @Test
+  void shouldRethrowFailureWhenCopyingInParallel() {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(ValueType.JOB);
+    final List<Record<RecordValue>> records = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      records.add(record.withPosition(i));
+    }
+    records.add(record.withValueType(ValueType.SBE_UNKNOWN));
+
+    // then
+    assertThatThrownBy(() -> ImmutableRecordCopier.deepCopyOfRecordsInParallel(records))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static ImmutableRecord<RecordValue> generateRecord(final ValueType type) {
+    final ImmutableRecordGeneratorConfig config =
+        ImmutableRecordGeneratorConfig.builder().valueTypeWeights(Map.of(type, 1)).build();
+    return new RecordGenerator(config).next();
+  }
+
+  /**
+   * Returns an implementation of the given interface which is not one of the {@code Immutable*}
+   * types, and which simply delegates every call to the given instance.
+   */
+  private static <T> T forward(final Class<T> type, final T delegate) {
+    final Object proxy =
+        Proxy.newProxyInstance(
+            type.getClassLoader(),
+            new Class<?>[] {type},
+            (instance, method, args) -> {
+              try {
+                return method.invoke(delegate, args);
+              } catch (final InvocationTargetException e) {
+                throw e.getCause();
+              }
+            });
+    return type.cast(proxy);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Record<RecordValue>> forwardAll(
+      final List<ImmutableRecord<RecordValue>> records) {
+    return records.stream()
+        .map(record -> (Record<RecordValue>) forward(Record.class, record))
+        .collect(Collectors.toList());
+  }
 }
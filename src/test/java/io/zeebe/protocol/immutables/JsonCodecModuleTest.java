@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.zeebe.protocol.immutables.generator.ImmutableRecordGeneratorConfig;
+import io.zeebe.protocol.immutables.generator.RecordGenerator;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.io.IOException;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.EnumSource.Mode;
+
+final class JsonCodecModuleTest {
+
+  private static final ImmutableRecordGeneratorConfig CONFIG =
+      ImmutableRecordGeneratorConfig.builder().seed(13).build();
+
+  private final ObjectMapper plainMapper = new ObjectMapper();
+  private final ObjectMapper codecMapper = new ObjectMapper().registerModule(new JsonCodecModule());
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"NULL_VAL", "SBE_UNKNOWN"},
+      mode = Mode.EXCLUDE)
+  @ParameterizedTest
+  void shouldUseGeneratedCodecs(final ValueType type) throws IOException {
+    // given
+    final Class<?> immutableClass = ValueTypeMapping.of(type).getImmutableClass();
+
+    // when
+    final Class<?> serializerClass =
+        codecMapper.getSerializerProviderInstance().findValueSerializer(immutableClass).getClass();
+
+    // then
+    assertThat(serializerClass.getEnclosingClass().getSimpleName()).endsWith("JsonCodec");
+  }
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"NULL_VAL", "SBE_UNKNOWN"},
+      mode = Mode.EXCLUDE)
+  @ParameterizedTest
+  void shouldBeCompatibleWithIntrospection(final ValueType type) throws IOException {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(type);
+
+    // when
+    final String json = codecMapper.writeValueAsString(record);
+    final Record<?> readByCodec =
+        codecMapper.readValue(
+            plainMapper.writeValueAsString(record), new ImmutableRecordTypeReference<>());
+    final Record<?> readByIntrospection =
+        plainMapper.readValue(json, new ImmutableRecordTypeReference<>());
+
+    // then
+    assertThat(json).isEqualTo(plainMapper.writeValueAsString(record));
+    assertThat(readByCodec).isEqualTo(record);
+    assertThat(readByIntrospection).isEqualTo(record);
+  }
+
+  @Test
+  void shouldReadValueAndIntentBeforeValueType() throws IOException {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(ValueType.JOB_BATCH);
+    final ObjectNode json = plainMapper.valueToTree(record);
+    final ObjectNode reordered = plainMapper.createObjectNode();
+    reordered.set("value", json.get("value"));
+    reordered.set("intent", json.get("intent"));
+    reordered.setAll(json);
+
+    // when
+    final Record<?> readRecord =
+        codecMapper.readValue(reordered.toString(), new ImmutableRecordTypeReference<>());
+
+    // then
+    assertThat(reordered.fieldNames().next()).isEqualTo("value");
+    assertThat(readRecord).isEqualTo(record);
+  }
+
+  @Test
+  void shouldCoerceScalarsLikeIntrospection() throws IOException {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(ValueType.JOB);
+    final ObjectNode json = plainMapper.valueToTree(record);
+    json.put("position", String.valueOf(record.getPosition()));
+    json.put("partitionId", String.valueOf(record.getPartitionId()));
+
+    // when
+    final Record<?> readRecord =
+        codecMapper.readValue(json.toString(), new ImmutableRecordTypeReference<>());
+
+    // then
+    assertThat(readRecord).isEqualTo(record);
+  }
+
+  @Test
+  void shouldWriteEnumsAsConfigured() throws IOException {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(ValueType.PROCESS_INSTANCE);
+    plainMapper.enable(SerializationFeature.WRITE_ENUMS_USING_INDEX);
+    codecMapper.enable(SerializationFeature.WRITE_ENUMS_USING_INDEX);
+
+    // when
+    final String json = codecMapper.writeValueAsString(record);
+
+    // then
+    assertThat(json).isEqualTo(plainMapper.writeValueAsString(record));
+  }
+
+  @Test
+  void shouldFailOnUnknownPropertyIfConfigured() {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(ValueType.JOB);
+    final ObjectNode json = plainMapper.valueToTree(record);
+    json.put("addedInNewerVersion", true);
+    codecMapper.enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    // when - then
+    assertThatThrownBy(
+            () -> codecMapper.readValue(json.toString(), new ImmutableRecordTypeReference<>()))
+        .isInstanceOf(UnrecognizedPropertyException.class)
+        .hasMessageContaining("addedInNewerVersion");
+  }
+
+  @Test
+  void shouldReadMissingAttributesLikeIntrospection() throws IOException {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(ValueType.PROCESS_INSTANCE);
+    final ObjectNode json = plainMapper.valueToTree(record);
+    json.remove("rejectionType");
+    ((ObjectNode) json.get("value")).remove("bpmnProcessId");
+    ((ObjectNode) json.get("value")).remove("bpmnElementType");
+
+    // when
+    final Record<?> readRecord =
+        codecMapper.readValue(json.toString(), new ImmutableRecordTypeReference<>());
+
+    // then
+    assertThat(readRecord)
+        .isEqualTo(plainMapper.readValue(json.toString(), new ImmutableRecordTypeReference<>()));
+  }
+
+  @Test
+  void shouldFailOnMissingValueType() {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(ValueType.JOB);
+    final ObjectNode json = plainMapper.valueToTree(record);
+    json.remove("valueType");
+
+    // when - then
+    assertThatThrownBy(
+            () -> codecMapper.readValue(json.toString(), new ImmutableRecordTypeReference<>()))
+        .isInstanceOf(JsonMappingException.class)
+        .hasMessageContaining("valueType");
+  }
+
+  private ImmutableRecord<RecordValue> generateRecord(final ValueType type) {
+    return new RecordGenerator(
+            ImmutableRecordGeneratorConfig.builder()
+                .from(CONFIG)
+                .valueTypeWeights(Map.of(type, 1))
+                .build())
+        .next();
+  }
+}
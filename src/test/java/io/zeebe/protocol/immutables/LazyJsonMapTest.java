@@ -0,0 +1,209 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.camunda.zeebe.protocol.record.ErrorCode;
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.value.JobRecordValue;
+import io.camunda.zeebe.protocol.record.value.VariableDocumentRecordValue;
+import io.zeebe.protocol.immutables.generator.ImmutableRecordGeneratorConfig;
+import io.zeebe.protocol.immutables.generator.RecordGenerator;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+final class LazyJsonMapTest {
+
+  private final ObjectMapper plainMapper = new ObjectMapper();
+
+  @ValueSource(
+      strings = {
+        "{}",
+        "{\"a\":null,\"b\":true,\"c\":false}",
+        "{\"int\":-1,\"zero\":0,\"max\":2147483647,\"min\":-2147483648}",
+        "{\"long\":-2147483649,\"big\":123456789012345678901234567890,\"neg\":-9223372036854775808}",
+        "{\"double\":-0.5,\"exp\":1.5e300,\"negZero\":-0.0,\"tiny\":4.9E-324}",
+        "{\"text\":\"h\\u00e9llo \\\"w\\u00f6rld\\\"\\n\",\"emoji\":\"\\ud83d\\ude00\",\"empty\":\"\"}",
+        "{\"list\":[],\"nested\":{\"list\":[1,[2,{\"x\":[null]}],\"3\"],\"map\":{}}}",
+        " { \"spaced\" : [ 1 , 2 ] } "
+      })
+  @ParameterizedTest
+  void shouldHaveSameHashCodeAsParsedMap(final String json) throws IOException {
+    // given
+    final Map<String, Object> expected =
+        plainMapper.readValue(json, new TypeReference<LinkedHashMap<String, Object>>() {});
+
+    // when
+    final LazyJsonMap map = LazyJsonMap.ofJson(json.getBytes(StandardCharsets.UTF_8));
+
+    // then
+    assertThat(map.hashCode()).isEqualTo(expected.hashCode());
+    assertThat(map.isParsed()).isFalse();
+    assertThat(map).isEqualTo(expected);
+    assertThat(expected).isEqualTo(map);
+    assertThat(map.toJson()).isEqualTo(plainMapper.writeValueAsBytes(expected));
+  }
+
+  @Test
+  void shouldParseRightAwayIfKeysAreDuplicated() throws IOException {
+    // given
+    final String json = "{\"a\":1,\"nested\":{\"b\":1,\"b\":2},\"a\":3}";
+
+    // when
+    final LazyJsonMap map = LazyJsonMap.ofJson(json.getBytes(StandardCharsets.UTF_8));
+
+    // then
+    assertThat(map.isParsed()).isTrue();
+    assertThat(map).containsExactly(Map.entry("a", 3), Map.entry("nested", Map.of("b", 2)));
+    assertThat(map.hashCode()).isEqualTo(Map.of("a", 3, "nested", Map.of("b", 2)).hashCode());
+  }
+
+  @Test
+  void shouldNotParseVariablesWhenForwardingRecord() throws IOException {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(ValueType.VARIABLE_DOCUMENT);
+    final String json = record.toJson();
+
+    // when
+    final Record<VariableDocumentRecordValue> readRecord =
+        RecordMapper.getDefault().getRecordReader().readValue(json);
+    final String forwardedJson = readRecord.toJson();
+
+    // then
+    final Map<String, Object> variables = readRecord.getValue().getVariables();
+    assertThat(variables).isInstanceOf(LazyJsonMap.class);
+    assertThat(forwardedJson).isEqualTo(json);
+    assertThat(((LazyJsonMap) variables).isParsed()).isFalse();
+    assertThat(readRecord).isEqualTo(record).hasSameHashCodeAs(record);
+    assertThat(((LazyJsonMap) variables).isParsed()).isTrue();
+  }
+
+  @Test
+  void shouldReadVariablesOfBatchedJobsLazily() throws IOException {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(ValueType.JOB);
+    final String json = record.toJson();
+
+    // when
+    final Record<JobRecordValue> readRecord =
+        RecordMapper.getDefault().getRecordReader().readValue(json);
+
+    // then
+    assertThat(readRecord.getValue().getVariables()).isInstanceOf(LazyJsonMap.class);
+    assertThat(readRecord).isEqualTo(record);
+  }
+
+  @Test
+  void shouldApplyDefaultsOfMissingAttributesWhenReadingLazily() throws IOException {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(ValueType.JOB);
+    final ObjectNode json = (ObjectNode) plainMapper.readTree(record.toJson());
+    ((ObjectNode) json.get("value")).remove("errorCode");
+
+    // when
+    final Record<JobRecordValue> readRecord =
+        RecordMapper.getDefault().getRecordReader().readValue(json);
+
+    // then
+    assertThat(readRecord.getValue().getErrorCode()).isEqualTo(ErrorCode.NULL_VAL.name());
+    assertThat(readRecord.getValue().getVariables())
+        .isEqualTo(((JobRecordValue) record.getValue()).getVariables());
+  }
+
+  @Test
+  void shouldReadEagerlyIfUntypedValuesAreConfigured() throws IOException {
+    // given
+    final ObjectMapper mapper =
+        RecordMapper.newObjectMapper().enable(DeserializationFeature.USE_LONG_FOR_INTS);
+    final String json = generateRecord(ValueType.VARIABLE_DOCUMENT).toJson();
+
+    // when
+    final Record<VariableDocumentRecordValue> readRecord =
+        mapper.readValue(json, new ImmutableRecordTypeReference<>());
+
+    // then
+    assertThat(readRecord.getValue().getVariables()).isNotInstanceOf(LazyJsonMap.class);
+  }
+
+  @Test
+  void shouldSerializeLikeParsedMapIfConfigured() throws IOException {
+    // given
+    final LazyJsonMap map =
+        LazyJsonMap.ofJson("{\"b\":{\"y\":1,\"x\":2},\"a\":[1]}".getBytes(StandardCharsets.UTF_8));
+    final Map<String, Object> parsed = new LinkedHashMap<>(map);
+    final ObjectMapper mapper =
+        new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+    // when
+    final String json = mapper.writeValueAsString(map);
+
+    // then
+    assertThat(json).isEqualTo(mapper.writeValueAsString(parsed));
+  }
+
+  @Test
+  void shouldWriteRawJsonToCharacterBasedGenerator() throws IOException {
+    // given
+    final String json = "{\"text\":\"h\\u00e9llo\",\"list\":[1,2.5,null]}";
+    final LazyJsonMap map = LazyJsonMap.ofJson(json.getBytes(StandardCharsets.UTF_8));
+    final StringWriter writer = new StringWriter();
+
+    // when
+    plainMapper.writeValue(writer, Map.of("variables", map));
+
+    // then
+    assertThat(writer.toString())
+        .isEqualTo("{\"variables\":{\"text\":\"h\u00e9llo\",\"list\":[1,2.5,null]}}");
+    assertThat(map.isParsed()).isFalse();
+  }
+
+  @Test
+  void shouldConvertToTree() throws IOException {
+    // given
+    final LazyJsonMap map =
+        LazyJsonMap.ofJson("{\"a\":{\"b\":[1,true]}}".getBytes(StandardCharsets.UTF_8));
+
+    // when
+    final Map<String, Object> converted =
+        plainMapper.convertValue(map, new TypeReference<Map<String, Object>>() {});
+
+    // then
+    assertThat(converted).isEqualTo(map);
+  }
+
+  private ImmutableRecord<RecordValue> generateRecord(final ValueType type) {
+    return new RecordGenerator(
+            ImmutableRecordGeneratorConfig.builder().valueTypeWeights(Map.of(type, 1)).build())
+        .next();
+  }
+}
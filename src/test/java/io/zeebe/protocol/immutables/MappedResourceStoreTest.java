@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+final class MappedResourceStoreTest {
+
+  @Test
+  void shouldStoreResourcesAcrossSegments(@TempDir final Path directory) throws IOException {
+    // given
+    try (final MappedResourceStore store = ResourceStore.mapped(directory, 8, Long.MAX_VALUE)) {
+      final ByteBuffer first = store.store(bytes("first"));
+
+      // when
+      final ByteBuffer second = store.store(bytes("second"));
+
+      // then
+      assertThat(first).isEqualTo(ByteBuffer.wrap(bytes("first")));
+      assertThat(second).isEqualTo(ByteBuffer.wrap(bytes("second")));
+      assertThat(store.size()).isEqualTo(11);
+    }
+  }
+
+  @Test
+  void shouldFallBackToDirectBuffersWhenFull(@TempDir final Path directory) throws IOException {
+    // given
+    try (final MappedResourceStore store = ResourceStore.mapped(directory, 64, 8)) {
+      store.store(bytes("first"));
+
+      // when
+      final ByteBuffer second = store.store(bytes("second"));
+
+      // then
+      assertThat(second.isDirect()).isTrue();
+      assertThat(second.isReadOnly()).isTrue();
+      assertThat(second).isEqualTo(ByteBuffer.wrap(bytes("second")));
+      assertThat(store.size()).isEqualTo(5);
+    }
+  }
+
+  @Test
+  void shouldReclaimClosedSegmentsOnceTheirMappingsAreCollected(@TempDir final Path directory)
+      throws IOException {
+    // given
+    try (final MappedResourceStore store = ResourceStore.mapped(directory, 5, Long.MAX_VALUE)) {
+      store.store(bytes("first"));
+
+      // when
+      final ByteBuffer second = store.store(bytes("other"));
+
+      // then
+      Awaitility.await()
+          .atMost(Duration.ofSeconds(30))
+          .untilAsserted(
+              () -> {
+                System.gc();
+                assertThat(store.size()).isEqualTo(5);
+              });
+      assertThat(second).isEqualTo(ByteBuffer.wrap(bytes("other")));
+    }
+  }
+
+  @Test
+  void shouldRejectResourcesAfterClose(@TempDir final Path directory) throws IOException {
+    // given
+    final MappedResourceStore store = ResourceStore.mapped(directory);
+
+    // when
+    store.close();
+
+    // then
+    assertThat(directory).isEmptyDirectory();
+    assertThatThrownBy(() -> store.store(bytes("resource")))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  private static byte[] bytes(final String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.camunda.zeebe.protocol.record.RecordType;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import io.zeebe.protocol.immutables.generator.ImmutableRecordGeneratorConfig;
+import io.zeebe.protocol.immutables.generator.RecordGenerator;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import org.junit.jupiter.api.Test;
+
+final class MutableRecordTest {
+  private static final ImmutableRecordGeneratorConfig CONFIG =
+      ImmutableRecordGeneratorConfig.builder().seed(5).build();
+
+  @Test
+  void shouldWrapRecordWithoutCopyingValue() {
+    // given
+    final RecordGenerator generator = new RecordGenerator(CONFIG);
+    final ImmutableRecord<RecordValue> first = generator.next();
+    final ImmutableRecord<RecordValue> second = generator.next();
+    final MutableRecord<RecordValue> record = new MutableRecord<>();
+
+    // when
+    record.wrap(first).wrap(second);
+
+    // then
+    assertThat(record.getValue()).isSameAs(second.getValue());
+    assertThat(record.toImmutable()).isEqualTo(second);
+  }
+
+  @Test
+  void shouldSerializeLikeImmutableRecord() {
+    // given
+    final ImmutableRecord<RecordValue> source = new RecordGenerator(CONFIG).next();
+
+    // when
+    final String json = new MutableRecord<>().wrap(source).toJson();
+
+    // then
+    assertThat(json).isEqualTo(source.toJson());
+  }
+
+  @Test
+  void shouldNotBeAffectedByRefillingAfterCopy() {
+    // given
+    final RecordGenerator generator = new RecordGenerator(CONFIG);
+    final ImmutableRecord<RecordValue> source = generator.next();
+    final MutableRecord<RecordValue> record = new MutableRecord<>().wrap(source);
+
+    // when
+    final ImmutableRecord<RecordValue> copy = record.toImmutable();
+    record.wrap(generator.next());
+
+    // then
+    assertThat(copy).isEqualTo(source);
+  }
+
+  @Test
+  void shouldResetToDefaults() {
+    // given
+    final MutableRecord<RecordValue> record =
+        new MutableRecord<>().wrap(new RecordGenerator(CONFIG).next());
+
+    // when
+    record.reset();
+
+    // then
+    assertThat(record.getValue()).isNull();
+    assertThat(record.getValueType()).isNull();
+    assertThat(record.getIntent()).isEqualTo(Intent.UNKNOWN);
+    assertThat(record.getRecordType()).isEqualTo(RecordType.NULL_VAL);
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.value.DeploymentRecordValue;
+import io.camunda.zeebe.protocol.record.value.deployment.DeploymentResource;
+import io.camunda.zeebe.protocol.record.value.deployment.Process;
+import io.zeebe.protocol.immutables.benchmark.PlainRecords;
+import io.zeebe.protocol.immutables.generator.ImmutableRecordGeneratorConfig;
+import io.zeebe.protocol.immutables.generator.RecordGenerator;
+import io.zeebe.protocol.immutables.record.value.ImmutableDeploymentRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import io.zeebe.protocol.immutables.record.value.deployment.ImmutableDeploymentResource;
+import io.zeebe.protocol.immutables.record.value.deployment.OffHeapDeploymentResource;
+import io.zeebe.protocol.immutables.record.value.deployment.OffHeapProcess;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+final class OffHeapResourcesTest {
+
+  @Test
+  void shouldOffloadDeploymentResources() {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(ValueType.DEPLOYMENT);
+    final OffHeapResources resources = OffHeapResources.of(ResourceStore.direct(), 0);
+
+    // when
+    final ImmutableRecord<RecordValue> offloaded = resources.offload(record);
+
+    // then
+    final List<DeploymentResource> original =
+        ((DeploymentRecordValue) record.getValue()).getResources();
+    final List<DeploymentResource> copies =
+        ((DeploymentRecordValue) offloaded.getValue()).getResources();
+    assertThat(copies)
+        .hasSameSizeAs(original)
+        .allSatisfy(
+            resource ->
+                assertThat(((OffHeapDeploymentResource) resource).getResourceBuffer())
+                    .satisfies(buffer -> assertThat(buffer.isDirect()).isTrue())
+                    .satisfies(buffer -> assertThat(buffer.isReadOnly()).isTrue()));
+    for (int i = 0; i < original.size(); i++) {
+      assertThat(copies.get(i).getResource()).isEqualTo(original.get(i).getResource());
+      assertThat(copies.get(i).getResourceName()).isEqualTo(original.get(i).getResourceName());
+    }
+    assertThat(offloaded.toJson()).isEqualTo(record.toJson());
+  }
+
+  @Test
+  void shouldOffloadProcessToMappedFile(@TempDir final Path directory) throws IOException {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(ValueType.PROCESS);
+    final Process process = (Process) record.getValue();
+
+    try (final MappedResourceStore store = ResourceStore.mapped(directory)) {
+      final OffHeapResources resources = OffHeapResources.of(store, 0);
+
+      // when
+      final ImmutableRecord<RecordValue> offloaded = resources.offload(record);
+
+      // then
+      assertThat(offloaded.getValue()).isInstanceOf(OffHeapProcess.class);
+      final OffHeapProcess copy = (OffHeapProcess) offloaded.getValue();
+      assertThat(copy.getResource()).isEqualTo(process.getResource());
+      assertThat(copy.getResourceBuffer().isReadOnly()).isTrue();
+      assertThat(copy.getChecksum()).isEqualTo(process.getChecksum());
+      assertThat(store.size()).isEqualTo(process.getResource().length);
+      assertThat(offloaded.toJson()).isEqualTo(record.toJson());
+    }
+  }
+
+  @Test
+  void shouldKeepMappedResourcesReadableAfterClosingStore(@TempDir final Path directory)
+      throws IOException {
+    // given
+    final byte[] bytes = "<definitions/>".getBytes(StandardCharsets.UTF_8);
+    final MappedResourceStore store = ResourceStore.mapped(directory);
+    final DeploymentResource resource =
+        OffHeapResources.of(store, 0)
+            .offload(
+                ImmutableDeploymentResource.builder()
+                    .resource(bytes)
+                    .resourceName("process.bpmn")
+                    .build());
+
+    // when
+    store.close();
+
+    // then
+    assertThat(directory).isEmptyDirectory();
+    assertThat(resource.getResource()).isEqualTo(bytes);
+  }
+
+  @Test
+  void shouldKeepSmallResourcesOnHeap() {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(ValueType.DEPLOYMENT);
+    final OffHeapResources resources =
+        OffHeapResources.of(ResourceStore.direct(), Integer.MAX_VALUE);
+
+    // when
+    final ImmutableRecord<RecordValue> offloaded = resources.offload(record);
+
+    // then
+    assertThat(offloaded).isSameAs(record);
+  }
+
+  @Test
+  void shouldShareOffloadedValuesWhenCopying() {
+    // given
+    final OffHeapResources resources = OffHeapResources.of(ResourceStore.direct(), 0);
+    final ImmutableRecord<RecordValue> deployment =
+        resources.offload(generateRecord(ValueType.DEPLOYMENT));
+    final ImmutableRecord<RecordValue> process =
+        resources.offload(generateRecord(ValueType.PROCESS));
+
+    // when
+    final ImmutableRecord<RecordValue> deploymentCopy =
+        ImmutableRecordCopier.deepCopyOfRecord(deployment);
+    final ImmutableRecord<RecordValue> processCopy =
+        ImmutableRecordCopier.deepCopyOfRecord(process);
+
+    // then
+    assertThat(deploymentCopy).isSameAs(deployment);
+    assertThat(processCopy).isSameAs(process);
+  }
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"DEPLOYMENT", "PROCESS"})
+  @ParameterizedTest
+  void shouldOffloadMutableRecordWithoutCachingResources(final ValueType type) {
+    // given
+    final ImmutableRecord<RecordValue> record = withoutProcessesMetadata(generateRecord(type));
+    final ResourceCache cache = ResourceCache.bounded(1024 * 1024);
+    final OffHeapResources resources = OffHeapResources.of(ResourceStore.direct(), 0);
+    ResourceCache.setDefault(cache);
+
+    // when
+    final ImmutableRecord<RecordValue> offloaded;
+    try {
+      offloaded = resources.offload(PlainRecords.copyOf(record));
+    } finally {
+      ResourceCache.setDefault(ResourceCache.disabled());
+    }
+
+    // then
+    assertThat(cache.size()).isZero();
+    assertThat(offloaded.toJson()).isEqualTo(record.toJson());
+  }
+
+  @Test
+  void shouldCompareOffloadedValuesByContent() {
+    // given
+    final byte[] bytes = "<definitions/>".getBytes(StandardCharsets.UTF_8);
+    final ByteBuffer buffer = ResourceStore.direct().store(bytes);
+
+    // when
+    final OffHeapDeploymentResource resource = OffHeapDeploymentResource.of(buffer, "a.bpmn");
+    final OffHeapDeploymentResource other =
+        OffHeapDeploymentResource.of(ByteBuffer.wrap(bytes.clone()), "a.bpmn");
+
+    // then
+    assertThat(resource).isEqualTo(other).hasSameHashCodeAs(other);
+    assertThat(resource.getResource()).isNotSameAs(resource.getResource());
+    assertThat(resource.getResourceBuffer().remaining()).isEqualTo(bytes.length);
+  }
+
+  // processes metadata holds no resource, but is interned when copied from a mutable record
+  private static ImmutableRecord<RecordValue> withoutProcessesMetadata(
+      final ImmutableRecord<RecordValue> record) {
+    if (!(record.getValue() instanceof ImmutableDeploymentRecordValue)) {
+      return record;
+    }
+
+    return record.withValue(
+        ((ImmutableDeploymentRecordValue) record.getValue()).withProcessesMetadata(List.of()));
+  }
+
+  private static ImmutableRecord<RecordValue> generateRecord(final ValueType type) {
+    final ImmutableRecordGeneratorConfig config =
+        ImmutableRecordGeneratorConfig.builder().valueTypeWeights(Map.of(type, 1)).build();
+    return new RecordGenerator(config).next();
+  }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceRelated;
+import io.zeebe.protocol.immutables.generator.ImmutableRecordGeneratorConfig;
+import io.zeebe.protocol.immutables.generator.RecordGenerator;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+final class RecordBatchTest {
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final ImmutableRecordGeneratorConfig CONFIG =
+      ImmutableRecordGeneratorConfig.builder().seed(7).build();
+
+  @Test
+  void shouldStoreRecordsInColumns() {
+    // given
+    final List<ImmutableRecord<RecordValue>> records =
+        new RecordGenerator(CONFIG).stream(200).collect(Collectors.toList());
+
+    // when
+    final RecordBatch batch = RecordBatch.of(records);
+
+    // then
+    assertThat(batch.size()).isEqualTo(records.size());
+    for (int i = 0; i < records.size(); i++) {
+      final ImmutableRecord<RecordValue> record = records.get(i);
+      assertThat(batch.getPosition(i)).isEqualTo(record.getPosition());
+      assertThat(batch.getKey(i)).isEqualTo(record.getKey());
+      assertThat(batch.getTimestamp(i)).isEqualTo(record.getTimestamp());
+      assertThat(batch.getValueType(i)).isEqualTo(record.getValueType());
+      assertThat(batch.getIntent(i)).isEqualTo(record.getIntent());
+      assertThat(batch.getProcessInstanceKey(i)).isEqualTo(processInstanceKeyOf(record));
+      assertThat(batch.getValue(i)).isSameAs(record.getValue());
+    }
+    assertThat(batch).containsExactlyElementsOf(records);
+  }
+
+  @Test
+  void shouldReadBatchesWithRawValues() throws IOException {
+    // given
+    final List<ImmutableRecord<RecordValue>> records =
+        new RecordGenerator(CONFIG).stream(250).collect(Collectors.toList());
+    final String json = MAPPER.writeValueAsString(records);
+
+    // when
+    final List<RecordBatch> batches = new ArrayList<>();
+    try (final RecordStreamReader reader =
+        new RecordStreamReader(new StringReader(json), metadata -> true)) {
+      for (RecordBatch batch = reader.readBatch(100); !batch.isEmpty(); ) {
+        batches.add(batch);
+        batch = reader.readBatch(100);
+      }
+    }
+
+    // then
+    assertThat(batches).extracting(RecordBatch::size).containsExactly(100, 100, 50);
+    final List<ImmutableRecord<RecordValue>> read = new ArrayList<>();
+    for (final RecordBatch batch : batches) {
+      for (int i = 0; i < batch.size(); i++) {
+        assertThat(batch.getProcessInstanceKey(i))
+            .isEqualTo(processInstanceKeyOf(records.get(read.size())));
+        read.add(batch.getRecord(i));
+      }
+    }
+    assertThat(read).isEqualTo(records);
+  }
+
+  @Test
+  void shouldOnlyReadMatchingRecordsIntoBatch() throws IOException {
+    // given
+    final List<ImmutableRecord<RecordValue>> records =
+        new RecordGenerator(CONFIG).stream(100).collect(Collectors.toList());
+    final String json = MAPPER.writeValueAsString(records);
+
+    // when
+    final RecordBatch batch;
+    try (final RecordStreamReader reader =
+        new RecordStreamReader(
+            new StringReader(json), metadata -> metadata.getValueType() == ValueType.JOB)) {
+      batch = reader.readBatch(Integer.MAX_VALUE);
+    }
+
+    // then
+    assertThat(batch)
+        .containsExactlyElementsOf(
+            records.stream()
+                .filter(r -> r.getValueType() == ValueType.JOB)
+                .collect(Collectors.toList()));
+  }
+
+  @Test
+  void shouldKeepUnknownIntent() {
+    // given
+    final ImmutableRecord<RecordValue> record =
+        new RecordGenerator(CONFIG).next().withIntent(Intent.UNKNOWN);
+
+    // when
+    final RecordBatch batch = RecordBatch.of(List.of(record));
+
+    // then
+    assertThat(batch.getIntent(0)).isEqualTo(Intent.UNKNOWN);
+  }
+
+  private static long processInstanceKeyOf(final ImmutableRecord<RecordValue> record) {
+    return record.getValue() instanceof ProcessInstanceRelated
+        ? ((ProcessInstanceRelated) record.getValue()).getProcessInstanceKey()
+        : RecordBatch.NO_PROCESS_INSTANCE_KEY;
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.zeebe.protocol.immutables.generator.ImmutableRecordGeneratorConfig;
+import io.zeebe.protocol.immutables.generator.RecordGenerator;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.io.IOException;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.EnumSource.Mode;
+
+final class RecordMapperTest {
+
+  private static final ObjectMapper PLAIN_MAPPER = new ObjectMapper();
+  private static final ImmutableRecordGeneratorConfig CONFIG =
+      ImmutableRecordGeneratorConfig.builder().seed(11).build();
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"NULL_VAL", "SBE_UNKNOWN"},
+      mode = Mode.EXCLUDE)
+  @ParameterizedTest
+  void shouldSerializeLikePlainMapper(final ValueType type) throws IOException {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(type);
+
+    // when
+    final String json = RecordMapper.getDefault().toJson(record);
+
+    // then
+    assertThat(json).isEqualTo(PLAIN_MAPPER.writeValueAsString(record)).isEqualTo(record.toJson());
+  }
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"NULL_VAL", "SBE_UNKNOWN"},
+      mode = Mode.EXCLUDE)
+  @ParameterizedTest
+  void shouldReadRecordsAndValues(final ValueType type) throws IOException {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(type);
+    final RecordMapper mapper = RecordMapper.getDefault();
+
+    // when
+    final Record<?> readRecord = mapper.getRecordReader().readValue(record.toJson());
+    final Record<?> readLazyRecord = mapper.getLazyRecordReader().readValue(record.toJson());
+    final RecordValue readValue = mapper.getValueReader(type).readValue(record.getValue().toJson());
+
+    // then
+    assertThat(readRecord).isEqualTo(record);
+    assertThat(readLazyRecord.getValue()).isEqualTo(record.getValue());
+    assertThat(readValue).isEqualTo(record.getValue());
+  }
+
+  @Test
+  void shouldIgnoreUnknownProperties() throws IOException {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(ValueType.JOB);
+    final ObjectNode json = PLAIN_MAPPER.valueToTree(record);
+    json.put("addedInNewerVersion", true);
+    ((ObjectNode) json.get("value")).put("addedInNewerVersion", 1);
+
+    // when
+    final Record<?> readRecord =
+        RecordMapper.getDefault().getRecordReader().readValue(json.toString());
+
+    // then
+    assertThat(readRecord).isEqualTo(record);
+  }
+
+  @Test
+  void shouldRejectUnsupportedValueType() {
+    assertThatThrownBy(() -> RecordMapper.getDefault().getValueReader(ValueType.SBE_UNKNOWN))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void shouldUseReplacedDefaultForToJson() {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(ValueType.JOB);
+    final RecordMapper previous = RecordMapper.getDefault();
+    final ObjectMapper indenting = RecordMapper.newObjectMapper();
+    indenting.enable(SerializationFeature.INDENT_OUTPUT);
+
+    // when
+    final String json;
+    try {
+      RecordMapper.setDefault(new RecordMapper(indenting));
+      json = record.toJson();
+    } finally {
+      RecordMapper.setDefault(previous);
+    }
+
+    // then
+    assertThat(json).contains("\n").isNotEqualTo(record.toJson());
+  }
+
+  private ImmutableRecord<RecordValue> generateRecord(final ValueType type) {
+    return new RecordGenerator(
+            ImmutableRecordGeneratorConfig.builder()
+                .from(CONFIG)
+                .valueTypeWeights(Map.of(type, 1))
+                .build())
+        .next();
+  }
+}
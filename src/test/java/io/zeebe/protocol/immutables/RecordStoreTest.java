@@ -0,0 +1,160 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import io.camunda.zeebe.protocol.record.value.JobRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceRelated;
+import io.zeebe.protocol.immutables.generator.ImmutableRecordGeneratorConfig;
+import io.zeebe.protocol.immutables.generator.RecordGenerator;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+final class RecordStoreTest {
+  private static final ImmutableRecordGeneratorConfig CONFIG =
+      ImmutableRecordGeneratorConfig.builder().seed(11).build();
+
+  private List<ImmutableRecord<RecordValue>> records;
+  private RecordStore store;
+
+  @BeforeEach
+  void setUp() {
+    records = new RecordGenerator(CONFIG).stream(2_000).collect(Collectors.toList());
+    store = new RecordStore();
+    store.addAll(records);
+  }
+
+  @Test
+  void shouldFindRecordsByIndexedProperties() {
+    // given
+    final ImmutableRecord<RecordValue> record = records.get(1234);
+
+    // then
+    assertThat(store.size()).isEqualTo(records.size());
+    assertThat(store.get(1234)).isSameAs(record);
+    assertThat(store.findByPosition(record.getPosition()))
+        .isEqualTo(scan(r -> r.getPosition() == record.getPosition()));
+    assertThat(store.findByKey(record.getKey()))
+        .isEqualTo(scan(r -> r.getKey() == record.getKey()));
+    assertThat(store.findByValueType(record.getValueType()))
+        .isEqualTo(scan(r -> r.getValueType() == record.getValueType()));
+    assertThat(store.findByIntent(record.getIntent()))
+        .isEqualTo(scan(r -> r.getIntent() == record.getIntent()));
+    assertThat(store.countByIntent(record.getIntent()))
+        .isEqualTo(store.findByIntent(record.getIntent()).size());
+  }
+
+  @Test
+  void shouldFindRecordsByProcessInstanceKey() {
+    // given
+    final ImmutableRecord<RecordValue> record =
+        records.stream()
+            .filter(r -> r.getValue() instanceof ProcessInstanceRelated)
+            .findFirst()
+            .orElseThrow();
+    final long processInstanceKey =
+        ((ProcessInstanceRelated) record.getValue()).getProcessInstanceKey();
+
+    // when
+    final List<ImmutableRecord<RecordValue>> found =
+        store.findByProcessInstanceKey(processInstanceKey);
+
+    // then
+    assertThat(found)
+        .contains(record)
+        .isEqualTo(
+            scan(
+                r ->
+                    r.getValue() instanceof ProcessInstanceRelated
+                        && ((ProcessInstanceRelated) r.getValue()).getProcessInstanceKey()
+                            == processInstanceKey));
+  }
+
+  @Test
+  void shouldFindRecordsByElementInstanceKey() {
+    // given
+    final ImmutableRecord<RecordValue> job =
+        records.stream().filter(r -> r.getValueType() == ValueType.JOB).findFirst().orElseThrow();
+    final long elementInstanceKey = ((JobRecordValue) job.getValue()).getElementInstanceKey();
+
+    // when
+    final List<ImmutableRecord<RecordValue>> found =
+        store.findByElementInstanceKey(elementInstanceKey);
+
+    // then
+    assertThat(found).contains(job);
+  }
+
+  @Test
+  void shouldScanRangeOfPositions() {
+    // given
+    final List<Long> positions =
+        records.stream().map(ImmutableRecord::getPosition).sorted().collect(Collectors.toList());
+    final long from = positions.get(500);
+    final long to = positions.get(1500);
+
+    // when
+    final List<ImmutableRecord<RecordValue>> found = store.findByPositionRange(from, to);
+
+    // then
+    assertThat(found)
+        .isEqualTo(
+            records.stream()
+                .filter(r -> r.getPosition() >= from && r.getPosition() < to)
+                .sorted(Comparator.comparingLong(ImmutableRecord::getPosition))
+                .collect(Collectors.toList()));
+  }
+
+  @Test
+  void shouldScanRangeOfPositionsAddedInOrder() {
+    // given
+    final RecordStore orderedStore = new RecordStore();
+    IntStream.range(0, records.size())
+        .forEach(i -> orderedStore.add(records.get(i).withPosition(i * 2L)));
+
+    // when
+    final List<ImmutableRecord<RecordValue>> found = orderedStore.findByPositionRange(11, 21);
+
+    // then
+    assertThat(found)
+        .extracting(ImmutableRecord::getPosition)
+        .containsExactly(12L, 14L, 16L, 18L, 20L);
+    assertThat(orderedStore.findByPositionRange(5_000, 6_000)).isEmpty();
+  }
+
+  @Test
+  void shouldNotFindUnknownKeys() {
+    assertThat(store.findByKey(Long.MIN_VALUE)).isEmpty();
+    assertThat(store.findByIntent(Intent.UNKNOWN))
+        .isEqualTo(scan(r -> r.getIntent() == Intent.UNKNOWN));
+    assertThat(new RecordStore().findByPositionRange(Long.MIN_VALUE, Long.MAX_VALUE)).isEmpty();
+  }
+
+  private List<ImmutableRecord<RecordValue>> scan(
+      final Predicate<ImmutableRecord<RecordValue>> filter) {
+    return records.stream().filter(filter).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.camunda.zeebe.protocol.record.RecordType;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.zeebe.protocol.immutables.generator.ImmutableRecordGeneratorConfig;
+import io.zeebe.protocol.immutables.generator.RecordGenerator;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+final class RecordStreamReaderTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final ImmutableRecordGeneratorConfig CONFIG =
+      ImmutableRecordGeneratorConfig.builder().seed(3).build();
+
+  @Test
+  void shouldReadOnlyMatchingRecordsOfNewlineDelimitedStream() throws IOException {
+    // given
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    new RecordGenerator(CONFIG).writeJson(output, 500);
+    final Predicate<RecordMetadata> filter =
+        metadata ->
+            metadata.getValueType() == ValueType.JOB
+                && metadata.getRecordType() == RecordType.EVENT;
+
+    // when
+    final List<ImmutableRecord<RecordValue>> records;
+    final long skippedCount;
+    try (final RecordStreamReader reader =
+        new RecordStreamReader(new ByteArrayInputStream(output.toByteArray()), filter)) {
+      records = reader.stream().collect(Collectors.toList());
+      skippedCount = reader.getSkippedCount();
+    }
+
+    // then
+    final List<ImmutableRecord<RecordValue>> expected =
+        new RecordGenerator(CONFIG)
+            .stream(500)
+                .filter(
+                    r -> r.getValueType() == ValueType.JOB && r.getRecordType() == RecordType.EVENT)
+                .collect(Collectors.toList());
+    assertThat(records).isNotEmpty().isEqualTo(expected);
+    assertThat(skippedCount).isEqualTo(500 - expected.size());
+  }
+
+  @Test
+  void shouldRefillMutableRecord() throws IOException {
+    // given
+    final List<ImmutableRecord<RecordValue>> generated =
+        new RecordGenerator(CONFIG).stream(100).collect(Collectors.toList());
+    final String json = MAPPER.writeValueAsString(generated);
+    final MutableRecord<RecordValue> record = new MutableRecord<>();
+
+    // when
+    final List<ImmutableRecord<RecordValue>> records = new ArrayList<>();
+    try (final RecordStreamReader reader =
+        new RecordStreamReader(new StringReader(json), metadata -> true)) {
+      while (reader.readNext(record)) {
+        records.add(record.toImmutable());
+      }
+    }
+
+    // then
+    assertThat(records).isEqualTo(generated);
+  }
+
+  @Test
+  void shouldKeepValuesOfRecordsRefilledByTheSameReader() throws IOException {
+    // given
+    final List<ImmutableRecord<RecordValue>> generated =
+        new RecordGenerator(CONFIG).stream(2).collect(Collectors.toList());
+    final String json = MAPPER.writeValueAsString(generated);
+    final MutableRecord<RecordValue> first = new MutableRecord<>();
+    final MutableRecord<RecordValue> second = new MutableRecord<>();
+
+    // when
+    try (final RecordStreamReader reader =
+        new RecordStreamReader(new StringReader(json), metadata -> true)) {
+      reader.readNext(first);
+      reader.readNext(second);
+    }
+
+    // then
+    assertThat(first.toImmutable()).isEqualTo(generated.get(0));
+    assertThat(second.toImmutable()).isEqualTo(generated.get(1));
+    assertThat(first.getValue()).isSameAs(first.getValue());
+  }
+
+  @Test
+  void shouldReadRecordsOfArray() throws IOException {
+    // given
+    final List<ImmutableRecord<RecordValue>> generated =
+        new RecordGenerator(CONFIG).stream(100).collect(Collectors.toList());
+    final String json = MAPPER.writeValueAsString(generated);
+
+    // when
+    final List<ImmutableRecord<RecordValue>> records;
+    try (final RecordStreamReader reader =
+        new RecordStreamReader(new StringReader(json), metadata -> true)) {
+      records = reader.stream().collect(Collectors.toList());
+    }
+
+    // then
+    assertThat(records).isEqualTo(generated);
+  }
+
+  @Test
+  void shouldFilterByIntent() throws IOException {
+    // given
+    final ImmutableRecord<RecordValue> record = new RecordGenerator(CONFIG).next();
+    final String json = record.toJson() + record.withPosition(2).toJson();
+
+    // when
+    final List<ImmutableRecord<RecordValue>> records;
+    try (final RecordStreamReader reader =
+        new RecordStreamReader(
+            new StringReader(json),
+            metadata ->
+                metadata.getIntent() == record.getIntent() && metadata.getPosition() == 2)) {
+      records = reader.stream().collect(Collectors.toList());
+    }
+
+    // then
+    assertThat(records).containsExactly(record.withPosition(2));
+  }
+
+  @Test
+  void shouldFilterRecordWhoseValueComesFirst() throws IOException {
+    // given
+    final ImmutableRecord<RecordValue> record = new RecordGenerator(CONFIG).next();
+    final ObjectNode valueFirst = MAPPER.createObjectNode();
+    valueFirst.set("value", MAPPER.valueToTree(record.getValue()));
+    valueFirst.setAll((ObjectNode) MAPPER.readTree(record.toJson()));
+    final String json = MAPPER.writeValueAsString(valueFirst);
+
+    // when
+    final List<ImmutableRecord<RecordValue>> accepted;
+    final List<ImmutableRecord<RecordValue>> rejected;
+    try (final RecordStreamReader reader =
+        new RecordStreamReader(new StringReader(json), metadata -> true)) {
+      accepted = reader.stream().collect(Collectors.toList());
+    }
+    try (final RecordStreamReader reader =
+        new RecordStreamReader(new StringReader(json), metadata -> false)) {
+      rejected = reader.stream().collect(Collectors.toList());
+    }
+
+    // then
+    assertThat(accepted).containsExactly(record);
+    assertThat(rejected).isEmpty();
+  }
+
+  @Test
+  void shouldFailOnRecordWithoutValue() throws IOException {
+    // given
+    final ObjectNode record =
+        (ObjectNode) MAPPER.readTree(new RecordGenerator(CONFIG).next().toJson());
+    record.remove("value");
+
+    // when
+    try (final RecordStreamReader reader =
+        new RecordStreamReader(new StringReader(record.toString()), metadata -> true)) {
+      // then
+      assertThatThrownBy(reader::hasNext).isInstanceOf(UncheckedIOException.class);
+    }
+  }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.value.DeploymentRecordValue;
+import io.camunda.zeebe.protocol.record.value.deployment.Process;
+import io.zeebe.protocol.immutables.record.value.ImmutableDeploymentRecordValue;
+import io.zeebe.protocol.immutables.record.value.deployment.ImmutableDeploymentResource;
+import io.zeebe.protocol.immutables.record.value.deployment.ImmutableProcess;
+import io.zeebe.protocol.immutables.record.value.deployment.ImmutableProcessMetadata;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+final class ResourceCacheTest {
+  private static final byte[] RESOURCE =
+      "<definitions><process id=\"process\"/></definitions>".getBytes(StandardCharsets.UTF_8);
+
+  @AfterEach
+  void resetDefault() {
+    ResourceCache.setDefault(ResourceCache.disabled());
+  }
+
+  @Test
+  void shouldReturnValuesAsIsWhenDisabled() throws NoSuchAlgorithmException {
+    // given
+    final ResourceCache cache = ResourceCache.disabled();
+
+    // when
+    final ImmutableProcess process = cache.intern(newProcess(RESOURCE, md5(RESOURCE)));
+    final ImmutableProcess other = cache.intern(newProcess(RESOURCE, md5(RESOURCE)));
+
+    // then
+    assertThat(process).isNotSameAs(other);
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  void shouldInternEqualValues() {
+    // given
+    final ResourceCache cache = ResourceCache.bounded(1024 * 1024);
+    final ImmutableProcessMetadata metadata = newProcessMetadata("process");
+
+    // when
+    final ImmutableProcessMetadata interned = cache.intern(metadata);
+    final ImmutableProcessMetadata other = cache.intern(newProcessMetadata("process"));
+
+    // then
+    assertThat(interned).isSameAs(metadata);
+    assertThat(other).isSameAs(metadata);
+  }
+
+  @Test
+  void shouldShareResourceBetweenDeploymentResourceAndProcess() throws NoSuchAlgorithmException {
+    // given
+    final ResourceCache cache = ResourceCache.bounded(1024 * 1024);
+    final ImmutableDeploymentResource resource =
+        cache.intern(
+            ImmutableDeploymentResource.builder()
+                .resource(RESOURCE)
+                .resourceName("process.bpmn")
+                .build());
+
+    // when
+    final ImmutableProcess process = cache.intern(newProcess(RESOURCE, md5(RESOURCE)));
+
+    // then
+    assertThat(process).isEqualTo(newProcess(RESOURCE, md5(RESOURCE)));
+    assertThat(ImmutableInstantiator.resourceOf(process))
+        .isSameAs(ImmutableInstantiator.resourceOf(resource));
+  }
+
+  @Test
+  void shouldNotShareResourceWithMismatchingChecksum() throws NoSuchAlgorithmException {
+    // given
+    final ResourceCache cache = ResourceCache.bounded(1024 * 1024);
+    final byte[] otherResource = "<definitions/>".getBytes(StandardCharsets.UTF_8);
+    final ImmutableProcess process = cache.intern(newProcess(RESOURCE, md5(RESOURCE)));
+
+    // when
+    final ImmutableProcess other = cache.intern(newProcess(otherResource, md5(RESOURCE)));
+
+    // then
+    assertThat(other.getResource()).isEqualTo(otherResource);
+    assertThat(ImmutableInstantiator.resourceOf(other))
+        .isNotSameAs(ImmutableInstantiator.resourceOf(process));
+  }
+
+  @Test
+  void shouldCountSharedResourceOnce() throws NoSuchAlgorithmException {
+    // given
+    final ResourceCache cache = ResourceCache.bounded(1024 * 1024);
+    cache.intern(
+        ImmutableDeploymentResource.builder()
+            .resource(RESOURCE)
+            .resourceName("process.bpmn")
+            .build());
+
+    // when
+    cache.intern(newProcess(RESOURCE, md5(RESOURCE)));
+
+    // then
+    assertThat(cache.size()).isEqualTo(3);
+    assertThat(cache.weight()).isEqualTo(3 * 64 + RESOURCE.length);
+  }
+
+  @Test
+  void shouldReleaseSharedResourceWithLastValue() throws NoSuchAlgorithmException {
+    // given
+    final ResourceCache cache = ResourceCache.bounded(3 * 64 + RESOURCE.length);
+    cache.intern(
+        ImmutableDeploymentResource.builder()
+            .resource(RESOURCE)
+            .resourceName("process.bpmn")
+            .build());
+    cache.intern(newProcess(RESOURCE, md5(RESOURCE)));
+
+    // when
+    cache.intern(newProcessMetadata("first"));
+    final long weightAfterFirstEviction = cache.weight();
+    cache.intern(newProcessMetadata("second"));
+
+    // then
+    assertThat(weightAfterFirstEviction).isEqualTo(3 * 64 + RESOURCE.length);
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.weight()).isEqualTo(2 * 64);
+  }
+
+  @Test
+  void shouldNotInternDeploymentResourceWithOtherBytesOfSameHash() {
+    // given
+    final ResourceCache cache = ResourceCache.bounded(1024 * 1024);
+    // "Aa" and "BB" have the same hash code, and so do the arrays of their bytes
+    final ImmutableDeploymentResource resource =
+        cache.intern(newDeploymentResource(new byte[] {'A', 'a'}));
+
+    // when
+    final ImmutableDeploymentResource other =
+        cache.intern(newDeploymentResource(new byte[] {'B', 'B'}));
+
+    // then
+    assertThat(resource.hashCode()).isEqualTo(other.hashCode());
+    assertThat(other.getResource()).containsExactly('B', 'B');
+    assertThat(cache.intern(newDeploymentResource(new byte[] {'A', 'a'}))).isSameAs(resource);
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedValues() {
+    // given
+    final ResourceCache cache = ResourceCache.bounded(100);
+    final ImmutableProcessMetadata first = cache.intern(newProcessMetadata("first"));
+
+    // when
+    final ImmutableProcessMetadata second = cache.intern(newProcessMetadata("second"));
+
+    // then
+    assertThat(cache.size()).isOne();
+    assertThat(cache.weight()).isLessThanOrEqualTo(100);
+    assertThat(cache.intern(newProcessMetadata("second"))).isSameAs(second);
+    assertThat(cache.intern(newProcessMetadata("first"))).isNotSameAs(first);
+  }
+
+  @Test
+  void shouldInternDeserializedValues() throws IOException, NoSuchAlgorithmException {
+    // given
+    ResourceCache.setDefault(ResourceCache.bounded(1024 * 1024));
+    final String json = newProcess(RESOURCE, md5(RESOURCE)).toJson();
+
+    // when
+    final Process process =
+        RecordMapper.getDefault().getValueReader(ValueType.PROCESS).readValue(json);
+    final Process other =
+        RecordMapper.getDefault().getValueReader(ValueType.PROCESS).readValue(json);
+
+    // then
+    assertThat(other).isSameAs(process);
+  }
+
+  @Test
+  void shouldInternCopiedValues() {
+    // given
+    ResourceCache.setDefault(ResourceCache.bounded(1024 * 1024));
+    final DeploymentRecordValue deployment =
+        forward(
+            DeploymentRecordValue.class,
+            ImmutableDeploymentRecordValue.builder()
+                .addResources(
+                    ImmutableDeploymentResource.builder()
+                        .resource(RESOURCE)
+                        .resourceName("process.bpmn")
+                        .build())
+                .addProcessesMetadata(newProcessMetadata("process"))
+                .build());
+
+    // when
+    final DeploymentRecordValue copy =
+        ImmutableRecordCopier.deepCopyOfRecordValue(ValueType.DEPLOYMENT, deployment);
+    final DeploymentRecordValue otherCopy =
+        ImmutableRecordCopier.deepCopyOfRecordValue(ValueType.DEPLOYMENT, deployment);
+
+    // then
+    assertThat(otherCopy).isNotSameAs(copy);
+    assertThat(otherCopy.getResources().get(0)).isSameAs(copy.getResources().get(0));
+    assertThat(otherCopy.getProcessesMetadata().get(0))
+        .isSameAs(copy.getProcessesMetadata().get(0));
+  }
+
+  private static ImmutableProcessMetadata newProcessMetadata(final String bpmnProcessId) {
+    return ImmutableProcessMetadata.builder()
+        .bpmnProcessId(bpmnProcessId)
+        .version(1)
+        .processDefinitionKey(1L)
+        .resourceName("process.bpmn")
+        .checksum(new byte[] {1, 2, 3})
+        .build();
+  }
+
+  private static ImmutableDeploymentResource newDeploymentResource(final byte[] resource) {
+    return ImmutableDeploymentResource.builder()
+        .resource(resource)
+        .resourceName("process.bpmn")
+        .build();
+  }
+
+  private static ImmutableProcess newProcess(final byte[] resource, final byte[] checksum) {
+    return ImmutableProcess.builder()
+        .bpmnProcessId("process")
+        .version(1)
+        .processDefinitionKey(1L)
+        .resourceName("process.bpmn")
+        .checksum(checksum)
+        .resource(resource)
+        .build();
+  }
+
+  private static byte[] md5(final byte[] resource) throws NoSuchAlgorithmException {
+    return MessageDigest.getInstance("MD5").digest(resource);
+  }
+
+  private static <T> T forward(final Class<T> type, final T delegate) {
+    final Object proxy =
+        Proxy.newProxyInstance(
+            type.getClassLoader(),
+            new Class<?>[] {type},
+            (instance, method, args) -> {
+              try {
+                return method.invoke(delegate, args);
+              } catch (final InvocationTargetException e) {
+                throw e.getCause();
+              }
+            });
+    return type.cast(proxy);
+  }
+}
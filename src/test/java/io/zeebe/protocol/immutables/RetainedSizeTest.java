@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.value.JobRecordValue;
+import io.zeebe.protocol.immutables.generator.ImmutableRecordGeneratorConfig;
+import io.zeebe.protocol.immutables.generator.RecordGenerator;
+import io.zeebe.protocol.immutables.record.value.deployment.DeploymentResourceJsonCodec;
+import io.zeebe.protocol.immutables.record.value.deployment.OffHeapDeploymentResource;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.EnumSource.Mode;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Compares the estimates of {@link RetainedSize} with the sizes measured by JOL, ignoring the
+ * objects which are shared by all records, e.g. enum constants, as the estimates do.
+ */
+final class RetainedSizeTest {
+
+  private static final double TOLERANCE = 0.05;
+  private static final ObjectMapper MAPPER = RecordMapper.newObjectMapper();
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"NULL_VAL", "SBE_UNKNOWN"},
+      mode = Mode.EXCLUDE)
+  @ParameterizedTest
+  void shouldEstimateRecordsOfEveryKnownValueType(final ValueType type) throws IOException {
+    // given
+    final RecordGenerator generator =
+        new RecordGenerator(
+            ImmutableRecordGeneratorConfig.builder().valueTypeWeights(Map.of(type, 1)).build());
+
+    // when
+    final List<Record<RecordValue>> records = readRecords(generator, 20);
+
+    // then
+    records.forEach(RetainedSizeTest::assertEstimated);
+  }
+
+  @Test
+  void shouldEstimateLargeRecords() throws IOException {
+    // given
+    final RecordGenerator generator =
+        new RecordGenerator(
+            ImmutableRecordGeneratorConfig.builder()
+                .valueTypeWeights(
+                    Map.of(ValueType.JOB_BATCH, 1, ValueType.DEPLOYMENT, 1, ValueType.JOB, 1))
+                .jobBatchSize(50)
+                .variableCount(100)
+                .variableValueSize(64)
+                .customHeaderCount(20)
+                .deploymentResourceCount(5)
+                .deploymentResourceSize(64 * 1024)
+                .build());
+
+    // when
+    final List<Record<RecordValue>> records = readRecords(generator, 20);
+
+    // then
+    records.forEach(RetainedSizeTest::assertEstimated);
+  }
+
+  @Test
+  void shouldEstimateParsedVariables() throws IOException {
+    // given
+    final RecordGenerator generator =
+        new RecordGenerator(
+            ImmutableRecordGeneratorConfig.builder()
+                .valueTypeWeights(Map.of(ValueType.JOB, 1))
+                .variableCount(50)
+                .build());
+    final Record<RecordValue> record = readRecords(generator, 1).get(0);
+    final long unparsed = RetainedSize.of(record);
+
+    // when
+    final int variableCount = ((JobRecordValue) record.getValue()).getVariables().size();
+
+    // then
+    assertThat(variableCount).isEqualTo(50);
+    assertThat(RetainedSize.of(record)).isGreaterThan(unparsed);
+    assertEstimated(record);
+  }
+
+  @Test
+  void shouldNotCountOffHeapResources() {
+    // given
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    final OffHeapDeploymentResource resource = OffHeapDeploymentResource.of(buffer, "process.bpmn");
+
+    // when
+    final long size = DeploymentResourceJsonCodec.retainedSize(resource);
+
+    // then
+    assertThat(size).isPositive().isLessThan(1024);
+  }
+
+  /**
+   * Generated records share some of their strings, e.g. the worker of all jobs, whereas the records
+   * read from JSON do not, just like the records received by an exporter.
+   */
+  private static List<Record<RecordValue>> readRecords(
+      final RecordGenerator generator, final int count) throws IOException {
+    final List<Record<RecordValue>> records = new ArrayList<>();
+    for (final Record<RecordValue> record : generator.stream(count).collect(Collectors.toList())) {
+      records.add(RecordMapper.getDefault().getRecordReader().readValue(record.toJson()));
+    }
+
+    return records;
+  }
+
+  private static void assertEstimated(final Record<?> record) {
+    final long measured = measure(record);
+    assertThat(RetainedSize.of(record))
+        .as("estimated size of a %s %s record", record.getValueType(), record.getIntent())
+        .isCloseTo(measured, within((long) (measured * TOLERANCE)));
+  }
+
+  /** @return the size measured by JOL, without the objects which the estimate ignores */
+  private static long measure(final Record<?> record) {
+    final GraphLayout layout = GraphLayout.parseInstance(record);
+    final List<Object> shared = sharedObjects();
+    for (final Class<?> type : layout.getClasses()) {
+      final Class<?> enumType = type.isEnum() ? type : type.getSuperclass();
+      if (enumType != null && enumType.isEnum()) {
+        Collections.addAll(shared, enumType.getEnumConstants());
+      }
+    }
+
+    // the keys of maps are the field names interned by Jackson
+    collectFieldNames(MAPPER.valueToTree(record), shared);
+    return layout.subtract(GraphLayout.parseInstance(shared.toArray())).totalSize();
+  }
+
+  private static void collectFieldNames(final JsonNode node, final List<Object> names) {
+    node.fieldNames().forEachRemaining(name -> names.add(name.intern()));
+    node.elements().forEachRemaining(element -> collectFieldNames(element, names));
+  }
+
+  private static List<Object> sharedObjects() {
+    final List<Object> shared = new ArrayList<>();
+    Collections.addAll(
+        shared, "", Boolean.TRUE, Boolean.FALSE, Map.of(), List.of(), Collections.emptyMap());
+    for (int i = -128; i <= 127; i++) {
+      shared.add(Integer.valueOf(i));
+      shared.add(Long.valueOf(i));
+    }
+
+    return shared;
+  }
+}
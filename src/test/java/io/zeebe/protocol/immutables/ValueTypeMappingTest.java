@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.camunda.zeebe.protocol.record.ValueType;
+import java.util.EnumSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.EnumSource.Mode;
+
+final class ValueTypeMappingTest {
+
+  /**
+   * This test checks that every known value type has a consistent mapping. This is a smoke test
+   * when updating Zeebe versions to detect new {@link ValueType} instances.
+   */
+  @EnumSource(
+      value = ValueType.class,
+      names = {"NULL_VAL", "SBE_UNKNOWN"},
+      mode = Mode.EXCLUDE)
+  @ParameterizedTest
+  void shouldMapEveryKnownValueType(final ValueType type) {
+    // when
+    final ValueTypeMapping mapping = ValueTypeMapping.of(type);
+
+    // then
+    assertThat(mapping.getValueType()).isEqualTo(type);
+    assertThat(ValueTypeMapping.ofName(type.name())).isSameAs(mapping);
+    assertThat(mapping.getImmutableJavaType().getRawClass()).isEqualTo(mapping.getImmutableClass());
+    assertThat(mapping.getIntentJavaType().getRawClass()).isEqualTo(mapping.getIntentClass());
+    assertThat(mapping.getIntents())
+        .isNotEmpty()
+        .allSatisfy(intent -> assertThat(intent).isInstanceOf(mapping.getIntentClass()));
+  }
+
+  @Test
+  void shouldSupportEveryValueTypeExceptSpecialOnes() {
+    assertThat(ValueTypeMapping.getSupportedValueTypes())
+        .isEqualTo(EnumSet.complementOf(EnumSet.of(ValueType.NULL_VAL, ValueType.SBE_UNKNOWN)));
+  }
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"NULL_VAL", "SBE_UNKNOWN"})
+  @ParameterizedTest
+  void shouldNotMapSpecialValueTypes(final ValueType type) {
+    assertThat(ValueTypeMapping.ofName(type.name())).isNull();
+    assertThatThrownBy(() -> ValueTypeMapping.of(type))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  @Test
+  void shouldNotMapUnknownName() {
+    assertThat(ValueTypeMapping.ofName("FOO")).isNull();
+  }
+}
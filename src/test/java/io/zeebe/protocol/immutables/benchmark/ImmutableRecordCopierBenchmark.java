@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.benchmark;
+
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.zeebe.protocol.immutables.ImmutableRecordCopier;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of {@link ImmutableRecordCopier} for every {@link RecordFixture}. Run with
+ * {@code -prof gc} (the default arguments of the {@code benchmark} profile) to get the allocation
+ * rate alongside the throughput and average time.
+ *
+ * <p>The copied records are {@link RecordFixture#createMutableRecord() mutable}, like the ones
+ * passed to an exporter, so the whole graph is copied; {@link #deepCopyOfImmutableRecord()}
+ * measures the short-circuit path for records which are already immutable, which should not
+ * allocate anything.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImmutableRecordCopierBenchmark {
+
+  @Param private RecordFixture fixture;
+
+  private Record<RecordValue> record;
+  private Record<RecordValue> immutableRecord;
+
+  @Setup
+  public void setup() {
+    record = fixture.createMutableRecord();
+    immutableRecord = fixture.createRecord();
+  }
+
+  @Benchmark
+  public ImmutableRecord<RecordValue> deepCopyOfRecord() {
+    return ImmutableRecordCopier.deepCopyOfRecord(record);
+  }
+
+  @Benchmark
+  public RecordValue deepCopyOfRecordValue() {
+    return ImmutableRecordCopier.deepCopyOfRecordValue(record.getValueType(), record.getValue());
+  }
+
+  @Benchmark
+  public ImmutableRecord<RecordValue> deepCopyOfImmutableRecord() {
+    return ImmutableRecordCopier.deepCopyOfRecord(immutableRecord);
+  }
+}
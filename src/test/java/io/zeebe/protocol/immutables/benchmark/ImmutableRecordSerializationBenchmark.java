@@ -0,0 +1,175 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.zeebe.protocol.immutables.ImmutableRecordTypeReference;
+import io.zeebe.protocol.immutables.RecordMapper;
+import io.zeebe.protocol.immutables.RecordStreamReader;
+import io.zeebe.protocol.immutables.codec.BinaryRecordReader;
+import io.zeebe.protocol.immutables.codec.BinaryRecordWriter;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures JSON serialization via {@link ImmutableRecord#toJson()}, and deserialization of single
+ * records via the readers of the default {@link RecordMapper} (compared to a default configured
+ * {@link ObjectMapper}) as well as of lists of records, for every {@link RecordFixture}. The
+ * payload size can be varied by picking either the regular or the {@code LARGE_*} fixtures; for
+ * lists, the number of records per document is controlled by {@code listSize}. Lists are also read
+ * through a {@link RecordStreamReader} which filters out every record, to measure the cost of
+ * skipping values. Finally, lists are written and read with the {@link BinaryRecordWriter} and
+ * {@link BinaryRecordReader} for comparison.
+ *
+ * <p>Run with {@code -prof gc} (the default arguments of the {@code benchmark} profile) to get the
+ * allocated bytes per operation ({@code gc.alloc.rate.norm}) alongside the throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImmutableRecordSerializationBenchmark {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  @Param private RecordFixture fixture;
+
+  @Param({"10"})
+  private int listSize;
+
+  private ImmutableRecord<RecordValue> record;
+  private ObjectReader recordReader;
+  private ObjectReader plainRecordReader;
+  private ObjectReader lazyRecordReader;
+  private ObjectReader recordListReader;
+  private byte[] recordJson;
+  private byte[] recordListJson;
+  private byte[] recordListBinary;
+  private ByteBuffer jsonBuffer;
+
+  @Setup
+  public void setup() throws IOException {
+    record = fixture.createRecord();
+    recordReader = RecordMapper.getDefault().getRecordReader();
+    lazyRecordReader = RecordMapper.getDefault().getLazyRecordReader();
+    plainRecordReader = MAPPER.readerFor(new ImmutableRecordTypeReference<>());
+    recordListReader = MAPPER.readerFor(new TypeReference<List<ImmutableRecord<?>>>() {});
+    recordJson = MAPPER.writeValueAsBytes(record);
+    recordListJson = MAPPER.writeValueAsBytes(Collections.nCopies(listSize, record));
+    recordListBinary = writeBinaryRecordList();
+    jsonBuffer = ByteBuffer.allocate(recordJson.length * 2);
+  }
+
+  @Benchmark
+  public String toJson() {
+    return record.toJson();
+  }
+
+  @Benchmark
+  public ByteBuffer toJsonToBuffer() {
+    jsonBuffer.clear();
+    record.toJson(jsonBuffer);
+    return jsonBuffer;
+  }
+
+  /** Serializes with a default configured mapper, for comparison with {@link #toJson()}. */
+  @Benchmark
+  public String toJsonWithPlainMapper() throws IOException {
+    return MAPPER.writeValueAsString(record);
+  }
+
+  @Benchmark
+  public Record<?> readRecord() throws IOException {
+    return recordReader.readValue(recordJson);
+  }
+
+  /** Reads with a default configured mapper, for comparison with {@link #readRecord()}. */
+  @Benchmark
+  public Record<?> readRecordWithPlainMapper() throws IOException {
+    return plainRecordReader.readValue(recordJson);
+  }
+
+  /** Reads a record as a filtering consumer would, i.e. without ever accessing its value. */
+  @Benchmark
+  public Record<?> readLazyRecord() throws IOException {
+    return lazyRecordReader.readValue(recordJson);
+  }
+
+  @Benchmark
+  public List<ImmutableRecord<?>> readRecordList() throws IOException {
+    return recordListReader.readValue(recordListJson);
+  }
+
+  /** Reads a list of records with a filter which rejects all of them, i.e. skips every value. */
+  @Benchmark
+  public long filterRecordList() throws IOException {
+    try (final RecordStreamReader reader =
+        new RecordStreamReader(new ByteArrayInputStream(recordListJson), metadata -> false)) {
+      while (reader.hasNext()) {
+        reader.next();
+      }
+
+      return reader.getSkippedCount();
+    }
+  }
+
+  @Benchmark
+  public byte[] writeBinaryRecordList() throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (final BinaryRecordWriter writer = new BinaryRecordWriter(output)) {
+      for (int i = 0; i < listSize; i++) {
+        writer.write(record);
+      }
+    }
+
+    return output.toByteArray();
+  }
+
+  @Benchmark
+  public List<ImmutableRecord<RecordValue>> readBinaryRecordList() throws IOException {
+    final List<ImmutableRecord<RecordValue>> records = new ArrayList<>(listSize);
+    try (final BinaryRecordReader reader =
+        new BinaryRecordReader(new ByteArrayInputStream(recordListBinary))) {
+      reader.forEachRemaining(records::add);
+    }
+
+    return records;
+  }
+}
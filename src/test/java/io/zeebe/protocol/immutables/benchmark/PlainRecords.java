@@ -0,0 +1,1287 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.benchmark;
+
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordType;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.RejectionType;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import io.camunda.zeebe.protocol.record.value.BpmnElementType;
+import io.camunda.zeebe.protocol.record.value.DeploymentDistributionRecordValue;
+import io.camunda.zeebe.protocol.record.value.DeploymentRecordValue;
+import io.camunda.zeebe.protocol.record.value.ErrorRecordValue;
+import io.camunda.zeebe.protocol.record.value.ErrorType;
+import io.camunda.zeebe.protocol.record.value.IncidentRecordValue;
+import io.camunda.zeebe.protocol.record.value.JobBatchRecordValue;
+import io.camunda.zeebe.protocol.record.value.JobRecordValue;
+import io.camunda.zeebe.protocol.record.value.MessageRecordValue;
+import io.camunda.zeebe.protocol.record.value.MessageStartEventSubscriptionRecordValue;
+import io.camunda.zeebe.protocol.record.value.MessageSubscriptionRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessEventRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceCreationRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceResultRecordValue;
+import io.camunda.zeebe.protocol.record.value.ProcessMessageSubscriptionRecordValue;
+import io.camunda.zeebe.protocol.record.value.TimerRecordValue;
+import io.camunda.zeebe.protocol.record.value.VariableDocumentRecordValue;
+import io.camunda.zeebe.protocol.record.value.VariableDocumentUpdateSemantic;
+import io.camunda.zeebe.protocol.record.value.VariableRecordValue;
+import io.camunda.zeebe.protocol.record.value.deployment.DeploymentResource;
+import io.camunda.zeebe.protocol.record.value.deployment.Process;
+import io.camunda.zeebe.protocol.record.value.deployment.ProcessMetadataValue;
+import io.zeebe.protocol.immutables.ImmutableRecordCopier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Copies records into plain, mutable implementations of the protocol interfaces which are not
+ * {@code Immutable*} types, like the records passed to exporters by the broker, such that the
+ * {@link ImmutableRecordCopier} has to copy the whole graph instead of returning it as is.
+ *
+ * <p>Every attribute is copied once up front, into a {@link HashMap} or {@link ArrayList} for
+ * collections, and the getters only return fields. They neither allocate nor box, so benchmarks and
+ * allocation budgets measure the copier alone.
+ */
+public final class PlainRecords {
+  private static final String ONLY_COPIED = "Plain records are only meant to be copied";
+
+  private PlainRecords() {}
+
+  public static Record<RecordValue> copyOf(final Record<RecordValue> record) {
+    return new PlainRecord(record);
+  }
+
+  private static RecordValue copyValue(final ValueType valueType, final RecordValue value) {
+    switch (valueType) {
+      case DEPLOYMENT_DISTRIBUTION:
+        return new PlainDeploymentDistribution((DeploymentDistributionRecordValue) value);
+      case DEPLOYMENT:
+        return new PlainDeployment((DeploymentRecordValue) value);
+      case ERROR:
+        return new PlainError((ErrorRecordValue) value);
+      case INCIDENT:
+        return new PlainIncident((IncidentRecordValue) value);
+      case JOB_BATCH:
+        return new PlainJobBatch((JobBatchRecordValue) value);
+      case JOB:
+        return new PlainJob((JobRecordValue) value);
+      case MESSAGE:
+        return new PlainMessage((MessageRecordValue) value);
+      case MESSAGE_START_EVENT_SUBSCRIPTION:
+        return new PlainMessageStartEventSubscription(
+            (MessageStartEventSubscriptionRecordValue) value);
+      case MESSAGE_SUBSCRIPTION:
+        return new PlainMessageSubscription((MessageSubscriptionRecordValue) value);
+      case PROCESS_EVENT:
+        return new PlainProcessEvent((ProcessEventRecordValue) value);
+      case PROCESS_INSTANCE_CREATION:
+        return new PlainProcessInstanceCreation((ProcessInstanceCreationRecordValue) value);
+      case PROCESS_INSTANCE:
+        return new PlainProcessInstance((ProcessInstanceRecordValue) value);
+      case PROCESS_INSTANCE_RESULT:
+        return new PlainProcessInstanceResult((ProcessInstanceResultRecordValue) value);
+      case PROCESS_MESSAGE_SUBSCRIPTION:
+        return new PlainProcessMessageSubscription((ProcessMessageSubscriptionRecordValue) value);
+      case TIMER:
+        return new PlainTimer((TimerRecordValue) value);
+      case VARIABLE_DOCUMENT:
+        return new PlainVariableDocument((VariableDocumentRecordValue) value);
+      case VARIABLE:
+        return new PlainVariable((VariableRecordValue) value);
+      case PROCESS:
+        return new PlainProcess((Process) value);
+      default:
+        throw new IllegalArgumentException("Unexpected value type " + valueType);
+    }
+  }
+
+  private static <K, V> Map<K, V> copyMap(final Map<K, V> map) {
+    return map == null ? null : new HashMap<>(map);
+  }
+
+  private static <T, U> List<U> copyList(
+      final List<? extends T> list, final Function<? super T, ? extends U> copy) {
+    if (list == null) {
+      return null;
+    }
+
+    final List<U> copies = new ArrayList<>(list.size());
+    for (final T element : list) {
+      copies.add(copy.apply(element));
+    }
+
+    return copies;
+  }
+
+  private static final class PlainRecord implements Record<RecordValue> {
+    private final long position;
+    private final long sourceRecordPosition;
+    private final long key;
+    private final long timestamp;
+    private final Intent intent;
+    private final int partitionId;
+    private final RecordType recordType;
+    private final RejectionType rejectionType;
+    private final String rejectionReason;
+    private final String brokerVersion;
+    private final ValueType valueType;
+    private final RecordValue value;
+
+    private PlainRecord(final Record<RecordValue> source) {
+      position = source.getPosition();
+      sourceRecordPosition = source.getSourceRecordPosition();
+      key = source.getKey();
+      timestamp = source.getTimestamp();
+      intent = source.getIntent();
+      partitionId = source.getPartitionId();
+      recordType = source.getRecordType();
+      rejectionType = source.getRejectionType();
+      rejectionReason = source.getRejectionReason();
+      brokerVersion = source.getBrokerVersion();
+      valueType = source.getValueType();
+      value = copyValue(source.getValueType(), source.getValue());
+    }
+
+    @Override
+    public long getPosition() {
+      return position;
+    }
+
+    @Override
+    public long getSourceRecordPosition() {
+      return sourceRecordPosition;
+    }
+
+    @Override
+    public long getKey() {
+      return key;
+    }
+
+    @Override
+    public long getTimestamp() {
+      return timestamp;
+    }
+
+    @Override
+    public Intent getIntent() {
+      return intent;
+    }
+
+    @Override
+    public int getPartitionId() {
+      return partitionId;
+    }
+
+    @Override
+    public RecordType getRecordType() {
+      return recordType;
+    }
+
+    @Override
+    public RejectionType getRejectionType() {
+      return rejectionType;
+    }
+
+    @Override
+    public String getRejectionReason() {
+      return rejectionReason;
+    }
+
+    @Override
+    public String getBrokerVersion() {
+      return brokerVersion;
+    }
+
+    @Override
+    public ValueType getValueType() {
+      return valueType;
+    }
+
+    @Override
+    public RecordValue getValue() {
+      return value;
+    }
+
+    @Override
+    public Record<RecordValue> clone() {
+      return new PlainRecord(this);
+    }
+
+    @Override
+    public String toJson() {
+      return ImmutableRecordCopier.deepCopyOfRecord(this).toJson();
+    }
+  }
+
+  private static final class PlainDeploymentDistribution
+      implements DeploymentDistributionRecordValue {
+    private final int partitionId;
+
+    private PlainDeploymentDistribution(final DeploymentDistributionRecordValue source) {
+      partitionId = source.getPartitionId();
+    }
+
+    @Override
+    public int getPartitionId() {
+      return partitionId;
+    }
+
+    @Override
+    public String toJson() {
+      throw new UnsupportedOperationException(ONLY_COPIED);
+    }
+  }
+
+  private static final class PlainDeployment implements DeploymentRecordValue {
+    private final List<DeploymentResource> resources;
+    private final List<ProcessMetadataValue> processesMetadata;
+
+    private PlainDeployment(final DeploymentRecordValue source) {
+      resources = copyList(source.getResources(), PlainDeploymentResource::new);
+      processesMetadata = copyList(source.getProcessesMetadata(), PlainProcessMetadata::new);
+    }
+
+    @Override
+    public List<DeploymentResource> getResources() {
+      return resources;
+    }
+
+    @Override
+    public List<ProcessMetadataValue> getProcessesMetadata() {
+      return processesMetadata;
+    }
+
+    @Override
+    public String toJson() {
+      throw new UnsupportedOperationException(ONLY_COPIED);
+    }
+  }
+
+  private static final class PlainError implements ErrorRecordValue {
+    private final String exceptionMessage;
+    private final String stacktrace;
+    private final long errorEventPosition;
+    private final long processInstanceKey;
+
+    private PlainError(final ErrorRecordValue source) {
+      exceptionMessage = source.getExceptionMessage();
+      stacktrace = source.getStacktrace();
+      errorEventPosition = source.getErrorEventPosition();
+      processInstanceKey = source.getProcessInstanceKey();
+    }
+
+    @Override
+    public String getExceptionMessage() {
+      return exceptionMessage;
+    }
+
+    @Override
+    public String getStacktrace() {
+      return stacktrace;
+    }
+
+    @Override
+    public long getErrorEventPosition() {
+      return errorEventPosition;
+    }
+
+    @Override
+    public long getProcessInstanceKey() {
+      return processInstanceKey;
+    }
+
+    @Override
+    public String toJson() {
+      throw new UnsupportedOperationException(ONLY_COPIED);
+    }
+  }
+
+  private static final class PlainIncident implements IncidentRecordValue {
+    private final ErrorType errorType;
+    private final String errorMessage;
+    private final String bpmnProcessId;
+    private final long processDefinitionKey;
+    private final long processInstanceKey;
+    private final String elementId;
+    private final long elementInstanceKey;
+    private final long jobKey;
+    private final long variableScopeKey;
+
+    private PlainIncident(final IncidentRecordValue source) {
+      errorType = source.getErrorType();
+      errorMessage = source.getErrorMessage();
+      bpmnProcessId = source.getBpmnProcessId();
+      processDefinitionKey = source.getProcessDefinitionKey();
+      processInstanceKey = source.getProcessInstanceKey();
+      elementId = source.getElementId();
+      elementInstanceKey = source.getElementInstanceKey();
+      jobKey = source.getJobKey();
+      variableScopeKey = source.getVariableScopeKey();
+    }
+
+    @Override
+    public ErrorType getErrorType() {
+      return errorType;
+    }
+
+    @Override
+    public String getErrorMessage() {
+      return errorMessage;
+    }
+
+    @Override
+    public String getBpmnProcessId() {
+      return bpmnProcessId;
+    }
+
+    @Override
+    public long getProcessDefinitionKey() {
+      return processDefinitionKey;
+    }
+
+    @Override
+    public long getProcessInstanceKey() {
+      return processInstanceKey;
+    }
+
+    @Override
+    public String getElementId() {
+      return elementId;
+    }
+
+    @Override
+    public long getElementInstanceKey() {
+      return elementInstanceKey;
+    }
+
+    @Override
+    public long getJobKey() {
+      return jobKey;
+    }
+
+    @Override
+    public long getVariableScopeKey() {
+      return variableScopeKey;
+    }
+
+    @Override
+    public String toJson() {
+      throw new UnsupportedOperationException(ONLY_COPIED);
+    }
+  }
+
+  private static final class PlainJobBatch implements JobBatchRecordValue {
+    private final String type;
+    private final String worker;
+    private final long timeout;
+    private final int maxJobsToActivate;
+    private final List<Long> jobKeys;
+    private final List<JobRecordValue> jobs;
+    private final boolean truncated;
+
+    private PlainJobBatch(final JobBatchRecordValue source) {
+      type = source.getType();
+      worker = source.getWorker();
+      timeout = source.getTimeout();
+      maxJobsToActivate = source.getMaxJobsToActivate();
+      jobKeys = copyList(source.getJobKeys(), Function.identity());
+      jobs = copyList(source.getJobs(), PlainJob::new);
+      truncated = source.isTruncated();
+    }
+
+    @Override
+    public String getType() {
+      return type;
+    }
+
+    @Override
+    public String getWorker() {
+      return worker;
+    }
+
+    @Override
+    public long getTimeout() {
+      return timeout;
+    }
+
+    @Override
+    public int getMaxJobsToActivate() {
+      return maxJobsToActivate;
+    }
+
+    @Override
+    public List<Long> getJobKeys() {
+      return jobKeys;
+    }
+
+    @Override
+    public List<JobRecordValue> getJobs() {
+      return jobs;
+    }
+
+    @Override
+    public boolean isTruncated() {
+      return truncated;
+    }
+
+    @Override
+    public String toJson() {
+      throw new UnsupportedOperationException(ONLY_COPIED);
+    }
+  }
+
+  private static final class PlainJob implements JobRecordValue {
+    private final String type;
+    private final Map<String, String> customHeaders;
+    private final String worker;
+    private final int retries;
+    private final long deadline;
+    private final String errorMessage;
+    private final String errorCode;
+    private final String elementId;
+    private final long elementInstanceKey;
+    private final String bpmnProcessId;
+    private final int processDefinitionVersion;
+    private final long processDefinitionKey;
+    private final Map<String, Object> variables;
+    private final long processInstanceKey;
+
+    private PlainJob(final JobRecordValue source) {
+      type = source.getType();
+      customHeaders = copyMap(source.getCustomHeaders());
+      worker = source.getWorker();
+      retries = source.getRetries();
+      deadline = source.getDeadline();
+      errorMessage = source.getErrorMessage();
+      errorCode = source.getErrorCode();
+      elementId = source.getElementId();
+      elementInstanceKey = source.getElementInstanceKey();
+      bpmnProcessId = source.getBpmnProcessId();
+      processDefinitionVersion = source.getProcessDefinitionVersion();
+      processDefinitionKey = source.getProcessDefinitionKey();
+      variables = copyMap(source.getVariables());
+      processInstanceKey = source.getProcessInstanceKey();
+    }
+
+    @Override
+    public String getType() {
+      return type;
+    }
+
+    @Override
+    public Map<String, String> getCustomHeaders() {
+      return customHeaders;
+    }
+
+    @Override
+    public String getWorker() {
+      return worker;
+    }
+
+    @Override
+    public int getRetries() {
+      return retries;
+    }
+
+    @Override
+    public long getDeadline() {
+      return deadline;
+    }
+
+    @Override
+    public String getErrorMessage() {
+      return errorMessage;
+    }
+
+    @Override
+    public String getErrorCode() {
+      return errorCode;
+    }
+
+    @Override
+    public String getElementId() {
+      return elementId;
+    }
+
+    @Override
+    public long getElementInstanceKey() {
+      return elementInstanceKey;
+    }
+
+    @Override
+    public String getBpmnProcessId() {
+      return bpmnProcessId;
+    }
+
+    @Override
+    public int getProcessDefinitionVersion() {
+      return processDefinitionVersion;
+    }
+
+    @Override
+    public long getProcessDefinitionKey() {
+      return processDefinitionKey;
+    }
+
+    @Override
+    public Map<String, Object> getVariables() {
+      return variables;
+    }
+
+    @Override
+    public long getProcessInstanceKey() {
+      return processInstanceKey;
+    }
+
+    @Override
+    public String toJson() {
+      throw new UnsupportedOperationException(ONLY_COPIED);
+    }
+  }
+
+  private static final class PlainMessage implements MessageRecordValue {
+    private final String name;
+    private final String correlationKey;
+    private final String messageId;
+    private final long timeToLive;
+    private final long deadline;
+    private final Map<String, Object> variables;
+
+    private PlainMessage(final MessageRecordValue source) {
+      name = source.getName();
+      correlationKey = source.getCorrelationKey();
+      messageId = source.getMessageId();
+      timeToLive = source.getTimeToLive();
+      deadline = source.getDeadline();
+      variables = copyMap(source.getVariables());
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public String getCorrelationKey() {
+      return correlationKey;
+    }
+
+    @Override
+    public String getMessageId() {
+      return messageId;
+    }
+
+    @Override
+    public long getTimeToLive() {
+      return timeToLive;
+    }
+
+    @Override
+    public long getDeadline() {
+      return deadline;
+    }
+
+    @Override
+    public Map<String, Object> getVariables() {
+      return variables;
+    }
+
+    @Override
+    public String toJson() {
+      throw new UnsupportedOperationException(ONLY_COPIED);
+    }
+  }
+
+  private static final class PlainMessageStartEventSubscription
+      implements MessageStartEventSubscriptionRecordValue {
+    private final long processDefinitionKey;
+    private final String bpmnProcessId;
+    private final String startEventId;
+    private final String messageName;
+    private final long processInstanceKey;
+    private final String correlationKey;
+    private final long messageKey;
+    private final Map<String, Object> variables;
+
+    private PlainMessageStartEventSubscription(
+        final MessageStartEventSubscriptionRecordValue source) {
+      processDefinitionKey = source.getProcessDefinitionKey();
+      bpmnProcessId = source.getBpmnProcessId();
+      startEventId = source.getStartEventId();
+      messageName = source.getMessageName();
+      processInstanceKey = source.getProcessInstanceKey();
+      correlationKey = source.getCorrelationKey();
+      messageKey = source.getMessageKey();
+      variables = copyMap(source.getVariables());
+    }
+
+    @Override
+    public long getProcessDefinitionKey() {
+      return processDefinitionKey;
+    }
+
+    @Override
+    public String getBpmnProcessId() {
+      return bpmnProcessId;
+    }
+
+    @Override
+    public String getStartEventId() {
+      return startEventId;
+    }
+
+    @Override
+    public String getMessageName() {
+      return messageName;
+    }
+
+    @Override
+    public long getProcessInstanceKey() {
+      return processInstanceKey;
+    }
+
+    @Override
+    public String getCorrelationKey() {
+      return correlationKey;
+    }
+
+    @Override
+    public long getMessageKey() {
+      return messageKey;
+    }
+
+    @Override
+    public Map<String, Object> getVariables() {
+      return variables;
+    }
+
+    @Override
+    public String toJson() {
+      throw new UnsupportedOperationException(ONLY_COPIED);
+    }
+  }
+
+  private static final class PlainMessageSubscription implements MessageSubscriptionRecordValue {
+    private final long processInstanceKey;
+    private final long elementInstanceKey;
+    private final String bpmnProcessId;
+    private final String messageName;
+    private final String correlationKey;
+    private final long messageKey;
+    private final boolean interrupting;
+    private final Map<String, Object> variables;
+
+    private PlainMessageSubscription(final MessageSubscriptionRecordValue source) {
+      processInstanceKey = source.getProcessInstanceKey();
+      elementInstanceKey = source.getElementInstanceKey();
+      bpmnProcessId = source.getBpmnProcessId();
+      messageName = source.getMessageName();
+      correlationKey = source.getCorrelationKey();
+      messageKey = source.getMessageKey();
+      interrupting = source.isInterrupting();
+      variables = copyMap(source.getVariables());
+    }
+
+    @Override
+    public long getProcessInstanceKey() {
+      return processInstanceKey;
+    }
+
+    @Override
+    public long getElementInstanceKey() {
+      return elementInstanceKey;
+    }
+
+    @Override
+    public String getBpmnProcessId() {
+      return bpmnProcessId;
+    }
+
+    @Override
+    public String getMessageName() {
+      return messageName;
+    }
+
+    @Override
+    public String getCorrelationKey() {
+      return correlationKey;
+    }
+
+    @Override
+    public long getMessageKey() {
+      return messageKey;
+    }
+
+    @Override
+    public boolean isInterrupting() {
+      return interrupting;
+    }
+
+    @Override
+    public Map<String, Object> getVariables() {
+      return variables;
+    }
+
+    @Override
+    public String toJson() {
+      throw new UnsupportedOperationException(ONLY_COPIED);
+    }
+  }
+
+  private static final class PlainProcessEvent implements ProcessEventRecordValue {
+    private final long scopeKey;
+    private final String targetElementId;
+    private final long processDefinitionKey;
+    private final Map<String, Object> variables;
+    private final long processInstanceKey;
+
+    private PlainProcessEvent(final ProcessEventRecordValue source) {
+      scopeKey = source.getScopeKey();
+      targetElementId = source.getTargetElementId();
+      processDefinitionKey = source.getProcessDefinitionKey();
+      variables = copyMap(source.getVariables());
+      processInstanceKey = source.getProcessInstanceKey();
+    }
+
+    @Override
+    public long getScopeKey() {
+      return scopeKey;
+    }
+
+    @Override
+    public String getTargetElementId() {
+      return targetElementId;
+    }
+
+    @Override
+    public long getProcessDefinitionKey() {
+      return processDefinitionKey;
+    }
+
+    @Override
+    public Map<String, Object> getVariables() {
+      return variables;
+    }
+
+    @Override
+    public long getProcessInstanceKey() {
+      return processInstanceKey;
+    }
+
+    @Override
+    public String toJson() {
+      throw new UnsupportedOperationException(ONLY_COPIED);
+    }
+  }
+
+  private static final class PlainProcessInstanceCreation
+      implements ProcessInstanceCreationRecordValue {
+    private final String bpmnProcessId;
+    private final int version;
+    private final long processDefinitionKey;
+    private final Map<String, Object> variables;
+    private final long processInstanceKey;
+
+    private PlainProcessInstanceCreation(final ProcessInstanceCreationRecordValue source) {
+      bpmnProcessId = source.getBpmnProcessId();
+      version = source.getVersion();
+      processDefinitionKey = source.getProcessDefinitionKey();
+      variables = copyMap(source.getVariables());
+      processInstanceKey = source.getProcessInstanceKey();
+    }
+
+    @Override
+    public String getBpmnProcessId() {
+      return bpmnProcessId;
+    }
+
+    @Override
+    public int getVersion() {
+      return version;
+    }
+
+    @Override
+    public long getProcessDefinitionKey() {
+      return processDefinitionKey;
+    }
+
+    @Override
+    public Map<String, Object> getVariables() {
+      return variables;
+    }
+
+    @Override
+    public long getProcessInstanceKey() {
+      return processInstanceKey;
+    }
+
+    @Override
+    public String toJson() {
+      throw new UnsupportedOperationException(ONLY_COPIED);
+    }
+  }
+
+  private static final class PlainProcessInstance implements ProcessInstanceRecordValue {
+    private final String bpmnProcessId;
+    private final int version;
+    private final long processDefinitionKey;
+    private final long processInstanceKey;
+    private final String elementId;
+    private final long flowScopeKey;
+    private final BpmnElementType bpmnElementType;
+    private final long parentProcessInstanceKey;
+    private final long parentElementInstanceKey;
+
+    private PlainProcessInstance(final ProcessInstanceRecordValue source) {
+      bpmnProcessId = source.getBpmnProcessId();
+      version = source.getVersion();
+      processDefinitionKey = source.getProcessDefinitionKey();
+      processInstanceKey = source.getProcessInstanceKey();
+      elementId = source.getElementId();
+      flowScopeKey = source.getFlowScopeKey();
+      bpmnElementType = source.getBpmnElementType();
+      parentProcessInstanceKey = source.getParentProcessInstanceKey();
+      parentElementInstanceKey = source.getParentElementInstanceKey();
+    }
+
+    @Override
+    public String getBpmnProcessId() {
+      return bpmnProcessId;
+    }
+
+    @Override
+    public int getVersion() {
+      return version;
+    }
+
+    @Override
+    public long getProcessDefinitionKey() {
+      return processDefinitionKey;
+    }
+
+    @Override
+    public long getProcessInstanceKey() {
+      return processInstanceKey;
+    }
+
+    @Override
+    public String getElementId() {
+      return elementId;
+    }
+
+    @Override
+    public long getFlowScopeKey() {
+      return flowScopeKey;
+    }
+
+    @Override
+    public BpmnElementType getBpmnElementType() {
+      return bpmnElementType;
+    }
+
+    @Override
+    public long getParentProcessInstanceKey() {
+      return parentProcessInstanceKey;
+    }
+
+    @Override
+    public long getParentElementInstanceKey() {
+      return parentElementInstanceKey;
+    }
+
+    @Override
+    public String toJson() {
+      throw new UnsupportedOperationException(ONLY_COPIED);
+    }
+  }
+
+  private static final class PlainProcessInstanceResult
+      implements ProcessInstanceResultRecordValue {
+    private final String bpmnProcessId;
+    private final int version;
+    private final long processDefinitionKey;
+    private final long processInstanceKey;
+    private final Map<String, Object> variables;
+
+    private PlainProcessInstanceResult(final ProcessInstanceResultRecordValue source) {
+      bpmnProcessId = source.getBpmnProcessId();
+      version = source.getVersion();
+      processDefinitionKey = source.getProcessDefinitionKey();
+      processInstanceKey = source.getProcessInstanceKey();
+      variables = copyMap(source.getVariables());
+    }
+
+    @Override
+    public String getBpmnProcessId() {
+      return bpmnProcessId;
+    }
+
+    @Override
+    public int getVersion() {
+      return version;
+    }
+
+    @Override
+    public long getProcessDefinitionKey() {
+      return processDefinitionKey;
+    }
+
+    @Override
+    public long getProcessInstanceKey() {
+      return processInstanceKey;
+    }
+
+    @Override
+    public Map<String, Object> getVariables() {
+      return variables;
+    }
+
+    @Override
+    public String toJson() {
+      throw new UnsupportedOperationException(ONLY_COPIED);
+    }
+  }
+
+  private static final class PlainProcessMessageSubscription
+      implements ProcessMessageSubscriptionRecordValue {
+    private final long processInstanceKey;
+    private final long elementInstanceKey;
+    private final String bpmnProcessId;
+    private final long messageKey;
+    private final String messageName;
+    private final String correlationKey;
+    private final String elementId;
+    private final boolean interrupting;
+    private final Map<String, Object> variables;
+
+    private PlainProcessMessageSubscription(final ProcessMessageSubscriptionRecordValue source) {
+      processInstanceKey = source.getProcessInstanceKey();
+      elementInstanceKey = source.getElementInstanceKey();
+      bpmnProcessId = source.getBpmnProcessId();
+      messageKey = source.getMessageKey();
+      messageName = source.getMessageName();
+      correlationKey = source.getCorrelationKey();
+      elementId = source.getElementId();
+      interrupting = source.isInterrupting();
+      variables = copyMap(source.getVariables());
+    }
+
+    @Override
+    public long getProcessInstanceKey() {
+      return processInstanceKey;
+    }
+
+    @Override
+    public long getElementInstanceKey() {
+      return elementInstanceKey;
+    }
+
+    @Override
+    public String getBpmnProcessId() {
+      return bpmnProcessId;
+    }
+
+    @Override
+    public long getMessageKey() {
+      return messageKey;
+    }
+
+    @Override
+    public String getMessageName() {
+      return messageName;
+    }
+
+    @Override
+    public String getCorrelationKey() {
+      return correlationKey;
+    }
+
+    @Override
+    public String getElementId() {
+      return elementId;
+    }
+
+    @Override
+    public boolean isInterrupting() {
+      return interrupting;
+    }
+
+    @Override
+    public Map<String, Object> getVariables() {
+      return variables;
+    }
+
+    @Override
+    public String toJson() {
+      throw new UnsupportedOperationException(ONLY_COPIED);
+    }
+  }
+
+  private static final class PlainTimer implements TimerRecordValue {
+    private final long processDefinitionKey;
+    private final long elementInstanceKey;
+    private final long processInstanceKey;
+    private final long dueDate;
+    private final String targetElementId;
+    private final int repetitions;
+
+    private PlainTimer(final TimerRecordValue source) {
+      processDefinitionKey = source.getProcessDefinitionKey();
+      elementInstanceKey = source.getElementInstanceKey();
+      processInstanceKey = source.getProcessInstanceKey();
+      dueDate = source.getDueDate();
+      targetElementId = source.getTargetElementId();
+      repetitions = source.getRepetitions();
+    }
+
+    @Override
+    public long getProcessDefinitionKey() {
+      return processDefinitionKey;
+    }
+
+    @Override
+    public long getElementInstanceKey() {
+      return elementInstanceKey;
+    }
+
+    @Override
+    public long getProcessInstanceKey() {
+      return processInstanceKey;
+    }
+
+    @Override
+    public long getDueDate() {
+      return dueDate;
+    }
+
+    @Override
+    public String getTargetElementId() {
+      return targetElementId;
+    }
+
+    @Override
+    public int getRepetitions() {
+      return repetitions;
+    }
+
+    @Override
+    public String toJson() {
+      throw new UnsupportedOperationException(ONLY_COPIED);
+    }
+  }
+
+  private static final class PlainVariableDocument implements VariableDocumentRecordValue {
+    private final long scopeKey;
+    private final VariableDocumentUpdateSemantic updateSemantics;
+    private final Map<String, Object> variables;
+
+    private PlainVariableDocument(final VariableDocumentRecordValue source) {
+      scopeKey = source.getScopeKey();
+      updateSemantics = source.getUpdateSemantics();
+      variables = copyMap(source.getVariables());
+    }
+
+    @Override
+    public long getScopeKey() {
+      return scopeKey;
+    }
+
+    @Override
+    public VariableDocumentUpdateSemantic getUpdateSemantics() {
+      return updateSemantics;
+    }
+
+    @Override
+    public Map<String, Object> getVariables() {
+      return variables;
+    }
+
+    @Override
+    public String toJson() {
+      throw new UnsupportedOperationException(ONLY_COPIED);
+    }
+  }
+
+  private static final class PlainVariable implements VariableRecordValue {
+    private final String name;
+    private final String value;
+    private final long scopeKey;
+    private final long processInstanceKey;
+    private final long processDefinitionKey;
+
+    private PlainVariable(final VariableRecordValue source) {
+      name = source.getName();
+      value = source.getValue();
+      scopeKey = source.getScopeKey();
+      processInstanceKey = source.getProcessInstanceKey();
+      processDefinitionKey = source.getProcessDefinitionKey();
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public String getValue() {
+      return value;
+    }
+
+    @Override
+    public long getScopeKey() {
+      return scopeKey;
+    }
+
+    @Override
+    public long getProcessInstanceKey() {
+      return processInstanceKey;
+    }
+
+    @Override
+    public long getProcessDefinitionKey() {
+      return processDefinitionKey;
+    }
+
+    @Override
+    public String toJson() {
+      throw new UnsupportedOperationException(ONLY_COPIED);
+    }
+  }
+
+  private static final class PlainProcess implements Process {
+    private final byte[] resource;
+    private final String bpmnProcessId;
+    private final int version;
+    private final long processDefinitionKey;
+    private final String resourceName;
+    private final byte[] checksum;
+
+    private PlainProcess(final Process source) {
+      resource = source.getResource();
+      bpmnProcessId = source.getBpmnProcessId();
+      version = source.getVersion();
+      processDefinitionKey = source.getProcessDefinitionKey();
+      resourceName = source.getResourceName();
+      checksum = source.getChecksum();
+    }
+
+    @Override
+    public byte[] getResource() {
+      return resource;
+    }
+
+    @Override
+    public String getBpmnProcessId() {
+      return bpmnProcessId;
+    }
+
+    @Override
+    public int getVersion() {
+      return version;
+    }
+
+    @Override
+    public long getProcessDefinitionKey() {
+      return processDefinitionKey;
+    }
+
+    @Override
+    public String getResourceName() {
+      return resourceName;
+    }
+
+    @Override
+    public byte[] getChecksum() {
+      return checksum;
+    }
+
+    @Override
+    public String toJson() {
+      throw new UnsupportedOperationException(ONLY_COPIED);
+    }
+  }
+
+  private static final class PlainDeploymentResource implements DeploymentResource {
+    private final byte[] resource;
+    private final String resourceName;
+
+    private PlainDeploymentResource(final DeploymentResource source) {
+      resource = source.getResource();
+      resourceName = source.getResourceName();
+    }
+
+    @Override
+    public byte[] getResource() {
+      return resource;
+    }
+
+    @Override
+    public String getResourceName() {
+      return resourceName;
+    }
+  }
+
+  private static final class PlainProcessMetadata implements ProcessMetadataValue {
+    private final String bpmnProcessId;
+    private final int version;
+    private final long processDefinitionKey;
+    private final String resourceName;
+    private final byte[] checksum;
+
+    private PlainProcessMetadata(final ProcessMetadataValue source) {
+      bpmnProcessId = source.getBpmnProcessId();
+      version = source.getVersion();
+      processDefinitionKey = source.getProcessDefinitionKey();
+      resourceName = source.getResourceName();
+      checksum = source.getChecksum();
+    }
+
+    @Override
+    public String getBpmnProcessId() {
+      return bpmnProcessId;
+    }
+
+    @Override
+    public int getVersion() {
+      return version;
+    }
+
+    @Override
+    public long getProcessDefinitionKey() {
+      return processDefinitionKey;
+    }
+
+    @Override
+    public String getResourceName() {
+      return resourceName;
+    }
+
+    @Override
+    public byte[] getChecksum() {
+      return checksum;
+    }
+
+    @Override
+    public String toJson() {
+      throw new UnsupportedOperationException(ONLY_COPIED);
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.benchmark;
+
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.zeebe.protocol.immutables.generator.ImmutableRecordGeneratorConfig;
+import io.zeebe.protocol.immutables.generator.RecordGenerator;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Sample records used as benchmark input. There is one fixture per supported {@link ValueType},
+ * using the default shape of the {@link RecordGenerator}, plus a few fixtures with large payloads
+ * which stress the collection and byte array handling.
+ */
+public enum RecordFixture {
+  JOB(ValueType.JOB),
+  DEPLOYMENT(ValueType.DEPLOYMENT),
+  PROCESS_INSTANCE(ValueType.PROCESS_INSTANCE),
+  INCIDENT(ValueType.INCIDENT),
+  MESSAGE(ValueType.MESSAGE),
+  MESSAGE_SUBSCRIPTION(ValueType.MESSAGE_SUBSCRIPTION),
+  PROCESS_MESSAGE_SUBSCRIPTION(ValueType.PROCESS_MESSAGE_SUBSCRIPTION),
+  JOB_BATCH(ValueType.JOB_BATCH),
+  TIMER(ValueType.TIMER),
+  MESSAGE_START_EVENT_SUBSCRIPTION(ValueType.MESSAGE_START_EVENT_SUBSCRIPTION),
+  VARIABLE(ValueType.VARIABLE),
+  VARIABLE_DOCUMENT(ValueType.VARIABLE_DOCUMENT),
+  PROCESS_INSTANCE_CREATION(ValueType.PROCESS_INSTANCE_CREATION),
+  ERROR(ValueType.ERROR),
+  PROCESS_INSTANCE_RESULT(ValueType.PROCESS_INSTANCE_RESULT),
+  PROCESS(ValueType.PROCESS),
+  DEPLOYMENT_DISTRIBUTION(ValueType.DEPLOYMENT_DISTRIBUTION),
+  PROCESS_EVENT(ValueType.PROCESS_EVENT),
+
+  /** A job batch activating as many jobs as a busy worker would typically request. */
+  LARGE_JOB_BATCH(ValueType.JOB_BATCH, config -> config.jobBatchSize(500)),
+
+  /** A deployment of several big models, e.g. a project with many generated BPMN files. */
+  LARGE_DEPLOYMENT(
+      ValueType.DEPLOYMENT,
+      config -> config.deploymentResourceCount(4).deploymentResourceSize(2 * 1024 * 1024)),
+
+  /** A variable holding a big JSON document, e.g. a list of order items. */
+  LARGE_VARIABLE(ValueType.VARIABLE, config -> config.variableValueSize(1024 * 1024));
+
+  private final ValueType valueType;
+  private final UnaryOperator<ImmutableRecordGeneratorConfig.Builder> shape;
+
+  RecordFixture(final ValueType valueType) {
+    this(valueType, UnaryOperator.identity());
+  }
+
+  RecordFixture(
+      final ValueType valueType,
+      final UnaryOperator<ImmutableRecordGeneratorConfig.Builder> shape) {
+    this.valueType = valueType;
+    this.shape = shape;
+  }
+
+  public ValueType getValueType() {
+    return valueType;
+  }
+
+  public ImmutableRecord<RecordValue> createRecord() {
+    return createGenerator().next();
+  }
+
+  /**
+   * @return the same record as {@link #createRecord()}, but copied such that it is not an {@code
+   *     Immutable*} type anymore, like the records passed to an exporter
+   */
+  public Record<RecordValue> createMutableRecord() {
+    return PlainRecords.copyOf(createRecord());
+  }
+
+  /** @return a generator which only produces records with the shape of this fixture */
+  public RecordGenerator createGenerator() {
+    final ImmutableRecordGeneratorConfig.Builder config =
+        ImmutableRecordGeneratorConfig.builder().valueTypeWeights(Map.of(valueType, 1));
+    return new RecordGenerator(shape.apply(config).build());
+  }
+}
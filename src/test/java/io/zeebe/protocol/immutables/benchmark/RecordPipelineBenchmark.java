@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.benchmark;
+
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.zeebe.protocol.immutables.pipeline.ImmutableRecordPipelineConfig;
+import io.zeebe.protocol.immutables.pipeline.RecordPipeline;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time the producer of a {@link RecordPipeline} spends publishing a record, i.e. the
+ * time an exporter would block, while two consumers copy and serialize the records to JSON. When
+ * the consumers cannot keep up, this includes the time waiting for a free slot.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecordPipelineBenchmark {
+
+  @Param private RecordFixture fixture;
+
+  @Param({"false", "true"})
+  private boolean copyOnPublish;
+
+  private Record<RecordValue> record;
+  private RecordPipeline pipeline;
+
+  @Setup
+  public void setup() {
+    record = fixture.createRecord();
+    pipeline =
+        RecordPipeline.start(
+            ImmutableRecordPipelineConfig.builder()
+                .capacity(8192)
+                .consumerCount(2)
+                .copyOnPublish(copyOnPublish)
+                .build(),
+            records -> records.forEach(Record::toJson));
+  }
+
+  @TearDown
+  public void tearDown() {
+    pipeline.close();
+  }
+
+  @Benchmark
+  public void publish() {
+    pipeline.publish(record);
+  }
+}
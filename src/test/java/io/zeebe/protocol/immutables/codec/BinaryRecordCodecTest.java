@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.JobIntent;
+import io.zeebe.protocol.immutables.ImmutableRecordTypeReference;
+import io.zeebe.protocol.immutables.generator.ImmutableRecordGeneratorConfig;
+import io.zeebe.protocol.immutables.generator.RecordGenerator;
+import io.zeebe.protocol.immutables.record.value.ImmutableJobRecordValue;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.EnumSource.Mode;
+
+final class BinaryRecordCodecTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final ImmutableRecordGeneratorConfig CONFIG =
+      ImmutableRecordGeneratorConfig.builder().seed(5).build();
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"NULL_VAL", "SBE_UNKNOWN"},
+      mode = Mode.EXCLUDE)
+  @ParameterizedTest
+  void shouldReadRecordsEqualToJsonDeserializedRecords(final ValueType type) throws IOException {
+    // given
+    final List<ImmutableRecord<RecordValue>> generated =
+        new RecordGenerator(
+                ImmutableRecordGeneratorConfig.builder()
+                    .from(CONFIG)
+                    .valueTypeWeights(Map.of(type, 1))
+                    .build())
+            .stream(20).collect(Collectors.toList());
+
+    // when
+    final List<ImmutableRecord<RecordValue>> records = readAll(writeAll(generated));
+
+    // then
+    final List<Object> expected =
+        generated.stream().map(this::readFromJson).collect(Collectors.toList());
+    assertThat(records).isEqualTo(expected).isEqualTo(generated);
+  }
+
+  @Test
+  void shouldReadMixedStream() throws IOException {
+    // given
+    final List<ImmutableRecord<RecordValue>> generated =
+        new RecordGenerator(CONFIG).stream(500).collect(Collectors.toList());
+
+    // when
+    final List<ImmutableRecord<RecordValue>> records = readAll(writeAll(generated));
+
+    // then
+    assertThat(records).isEqualTo(generated);
+  }
+
+  @Test
+  void shouldBeSmallerThanJson() throws IOException {
+    // given - deployments are left out, as their size is mostly made of their resources
+    final List<ImmutableRecord<RecordValue>> generated =
+        new RecordGenerator(
+                ImmutableRecordGeneratorConfig.builder()
+                    .from(CONFIG)
+                    .valueTypeWeights(
+                        Map.of(
+                            ValueType.PROCESS_INSTANCE,
+                            8,
+                            ValueType.JOB,
+                            4,
+                            ValueType.VARIABLE,
+                            4,
+                            ValueType.JOB_BATCH,
+                            1))
+                    .build())
+            .stream(500).collect(Collectors.toList());
+    final int jsonSize =
+        generated.stream().mapToInt(record -> record.toJson().getBytes().length).sum();
+
+    // when
+    final byte[] binary = writeAll(generated);
+
+    // then
+    assertThat(binary.length).isLessThan(jsonSize / 4);
+  }
+
+  @Test
+  void shouldRoundTripArbitraryVariables() throws IOException {
+    // given
+    final Map<String, Object> nested = new HashMap<>();
+    nested.put("null", null);
+    nested.put("list", Arrays.asList(1, 2L, null, "a", List.of(true, false)));
+    final Map<String, Object> variables =
+        Map.of(
+            "int",
+            Integer.MIN_VALUE,
+            "long",
+            Long.MAX_VALUE,
+            "double",
+            -0.5D,
+            "float",
+            1.5F,
+            "bigInteger",
+            BigInteger.TEN.pow(30),
+            "bigDecimal",
+            new BigDecimal("1.000000000000000000001"),
+            "string",
+            "x".repeat(StringTable.MAX_STRING_LENGTH + 1),
+            "nested",
+            nested);
+    final ImmutableRecord<RecordValue> record =
+        ImmutableRecord.<RecordValue>builder()
+            .from(new RecordGenerator(CONFIG).next())
+            .valueType(ValueType.JOB)
+            .intent(JobIntent.CREATED)
+            .value(ImmutableJobRecordValue.builder().variables(variables).build())
+            .build();
+
+    // when
+    final List<ImmutableRecord<RecordValue>> records = readAll(writeAll(List.of(record, record)));
+
+    // then
+    assertThat(records).containsExactly(record, record);
+  }
+
+  @Test
+  void shouldRejectUnknownInput() {
+    // given
+    final byte[] input = "{\"valueType\":\"JOB\"}".getBytes();
+
+    // when - then
+    assertThatThrownBy(() -> new BinaryRecordReader(new ByteArrayInputStream(input)))
+        .isInstanceOf(IOException.class);
+  }
+
+  @Test
+  void shouldRejectUnsupportedVariables() throws IOException {
+    // given
+    final ImmutableRecord<RecordValue> record =
+        ImmutableRecord.<RecordValue>builder()
+            .from(new RecordGenerator(CONFIG).next())
+            .valueType(ValueType.JOB)
+            .intent(JobIntent.CREATED)
+            .value(ImmutableJobRecordValue.builder().putVariables("foo", new Object()).build())
+            .build();
+
+    // when - then
+    try (final BinaryRecordWriter writer = new BinaryRecordWriter(new ByteArrayOutputStream())) {
+      assertThatThrownBy(() -> writer.write(record)).isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+
+  private byte[] writeAll(final List<ImmutableRecord<RecordValue>> records) throws IOException {
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (final BinaryRecordWriter writer = new BinaryRecordWriter(output)) {
+      for (final ImmutableRecord<RecordValue> record : records) {
+        writer.write(record);
+      }
+    }
+
+    return output.toByteArray();
+  }
+
+  private List<ImmutableRecord<RecordValue>> readAll(final byte[] bytes) throws IOException {
+    try (final BinaryRecordReader reader =
+        new BinaryRecordReader(new ByteArrayInputStream(bytes))) {
+      return reader.stream().collect(Collectors.toList());
+    }
+  }
+
+  private Object readFromJson(final ImmutableRecord<RecordValue> record) {
+    try {
+      return MAPPER.readValue(record.toJson(), new ImmutableRecordTypeReference<>());
+    } catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
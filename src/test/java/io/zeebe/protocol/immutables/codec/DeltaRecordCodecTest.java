@@ -0,0 +1,202 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.codec;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.camunda.zeebe.protocol.Protocol;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.value.BpmnElementType;
+import io.camunda.zeebe.protocol.record.value.ProcessInstanceRecordValue;
+import io.zeebe.protocol.immutables.generator.ImmutableRecordGeneratorConfig;
+import io.zeebe.protocol.immutables.generator.RecordGenerator;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+final class DeltaRecordCodecTest {
+
+  private static final ImmutableRecordGeneratorConfig CONFIG =
+      ImmutableRecordGeneratorConfig.builder().seed(7).build();
+
+  @Test
+  void shouldReadWrittenRecords() throws IOException {
+    // given
+    final List<ImmutableRecord<RecordValue>> generated =
+        new RecordGenerator(CONFIG).stream(2_000).collect(Collectors.toList());
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    // when
+    try (final DeltaRecordWriter writer = new DeltaRecordWriter(output, 300)) {
+      for (final ImmutableRecord<RecordValue> record : generated) {
+        writer.write(record);
+      }
+    }
+
+    // then
+    assertThat(readAll(output.toByteArray())).isEqualTo(generated);
+  }
+
+  @Test
+  void shouldBeSmallerThanBinaryFormat() throws IOException {
+    // given - without variables, as the generated ones are random and cannot be delta encoded
+    final List<ImmutableRecord<RecordValue>> generated =
+        new RecordGenerator(
+                ImmutableRecordGeneratorConfig.builder()
+                    .from(CONFIG)
+                    .variableCount(0)
+                    .valueTypeWeights(
+                        Map.of(
+                            ValueType.PROCESS_INSTANCE,
+                            8,
+                            ValueType.JOB,
+                            4,
+                            ValueType.VARIABLE,
+                            4,
+                            ValueType.INCIDENT,
+                            1))
+                    .build())
+            .stream(2_000).collect(Collectors.toList());
+    final ByteArrayOutputStream binaryOutput = new ByteArrayOutputStream();
+    final ByteArrayOutputStream deltaOutput = new ByteArrayOutputStream();
+
+    // when
+    try (final BinaryRecordWriter binaryWriter = new BinaryRecordWriter(binaryOutput);
+        final DeltaRecordWriter deltaWriter = new DeltaRecordWriter(deltaOutput)) {
+      for (final ImmutableRecord<RecordValue> record : generated) {
+        binaryWriter.write(record);
+        deltaWriter.write(record);
+      }
+    }
+
+    // then
+    assertThat(deltaOutput.size()).isLessThan(binaryOutput.size() * 2 / 3);
+  }
+
+  @Test
+  void shouldResyncFromSnapshot() throws IOException {
+    // given
+    final List<ImmutableRecord<RecordValue>> generated =
+        new RecordGenerator(CONFIG).stream(500).collect(Collectors.toList());
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    final long offset;
+    try (final DeltaRecordWriter writer = new DeltaRecordWriter(output)) {
+      generated.subList(0, 200).forEach(record -> write(writer, record));
+      offset = writer.snapshot();
+      generated.subList(200, 500).forEach(record -> write(writer, record));
+    }
+
+    // when
+    final byte[] bytes = output.toByteArray();
+    final List<ImmutableRecord<RecordValue>> records =
+        readAll(Arrays.copyOfRange(bytes, (int) offset, bytes.length));
+
+    // then
+    assertThat(records).isEqualTo(generated.subList(200, 500));
+  }
+
+  @Test
+  void shouldNotStartNewSegmentWithoutRecords() throws IOException {
+    // given
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (final DeltaRecordWriter writer = new DeltaRecordWriter(output)) {
+      // when
+      final long firstOffset = writer.snapshot();
+      final long secondOffset = writer.snapshot();
+
+      // then
+      assertThat(firstOffset).isZero();
+      assertThat(secondOffset).isZero();
+    }
+  }
+
+  @Test
+  void shouldWriteEnumsByName() throws IOException {
+    // given
+    final ImmutableRecord<RecordValue> record =
+        new RecordGenerator(
+                ImmutableRecordGeneratorConfig.builder()
+                    .from(CONFIG)
+                    .valueTypeWeights(Map.of(ValueType.PROCESS_INSTANCE, 1))
+                    .build())
+            .next();
+    final BpmnElementType elementType =
+        ((ProcessInstanceRecordValue) record.getValue()).getBpmnElementType();
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    // when
+    try (final DeltaRecordWriter writer = new DeltaRecordWriter(output)) {
+      writer.write(record);
+    }
+
+    // then
+    assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8))
+        .contains(elementType.name());
+    assertThat(readAll(output.toByteArray())).containsExactly(record);
+  }
+
+  @Test
+  void shouldRecordProtocolVersion() throws IOException {
+    // given
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (final DeltaRecordWriter writer = new DeltaRecordWriter(output)) {
+      writer.write(new RecordGenerator(CONFIG).next());
+    }
+
+    // when
+    try (final DeltaRecordReader reader =
+        new DeltaRecordReader(new ByteArrayInputStream(output.toByteArray()))) {
+      // then
+      assertThat(reader.getProtocolVersion()).isEqualTo(Protocol.PROTOCOL_VERSION);
+    }
+  }
+
+  @Test
+  void shouldRejectUnknownInput() throws IOException {
+    // given
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (final BinaryRecordWriter writer = new BinaryRecordWriter(output)) {
+      writer.write(new RecordGenerator(CONFIG).next());
+    }
+
+    // when - then
+    assertThatThrownBy(() -> new DeltaRecordReader(new ByteArrayInputStream(output.toByteArray())))
+        .isInstanceOf(IOException.class);
+  }
+
+  private List<ImmutableRecord<RecordValue>> readAll(final byte[] bytes) throws IOException {
+    try (final DeltaRecordReader reader = new DeltaRecordReader(new ByteArrayInputStream(bytes))) {
+      return reader.stream().collect(Collectors.toList());
+    }
+  }
+
+  private void write(final DeltaRecordWriter writer, final ImmutableRecord<RecordValue> record) {
+    try {
+      writer.write(record);
+    } catch (final IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.generator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.JobBatchIntent;
+import io.camunda.zeebe.protocol.record.value.ErrorRecordValue;
+import io.camunda.zeebe.protocol.record.value.JobBatchRecordValue;
+import io.camunda.zeebe.protocol.record.value.JobRecordValue;
+import io.zeebe.protocol.immutables.ImmutableRecordCopier;
+import io.zeebe.protocol.immutables.ImmutableRecordTypeReference;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.EnumSource.Mode;
+
+final class RecordGeneratorTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  @Test
+  void shouldGenerateSameRecordsForSameSeed() {
+    // given
+    final ImmutableRecordGeneratorConfig config =
+        ImmutableRecordGeneratorConfig.builder().seed(42).build();
+
+    // when
+    final List<ImmutableRecord<RecordValue>> first =
+        new RecordGenerator(config).stream(500).collect(Collectors.toList());
+    final List<ImmutableRecord<RecordValue>> second =
+        new RecordGenerator(config).stream(500).collect(Collectors.toList());
+
+    // then
+    assertThat(first).isEqualTo(second);
+  }
+
+  @Test
+  void shouldGenerateSameValueTypesInEveryJvm() {
+    // given - the iteration order of Map.of differs from one JVM to the next
+    final RecordGenerator generator =
+        new RecordGenerator(
+            ImmutableRecordGeneratorConfig.builder()
+                .valueTypeWeights(
+                    Map.of(ValueType.JOB, 1, ValueType.MESSAGE, 1, ValueType.TIMER, 1))
+                .build());
+
+    // when
+    final List<ValueType> valueTypes =
+        generator.stream(10).map(Record::getValueType).collect(Collectors.toList());
+
+    // then
+    assertThat(valueTypes)
+        .containsExactly(
+            ValueType.MESSAGE,
+            ValueType.TIMER,
+            ValueType.JOB,
+            ValueType.MESSAGE,
+            ValueType.MESSAGE,
+            ValueType.JOB,
+            ValueType.TIMER,
+            ValueType.MESSAGE,
+            ValueType.MESSAGE,
+            ValueType.JOB);
+  }
+
+  @Test
+  void shouldGenerateDifferentRecordsForDifferentSeeds() {
+    // given
+    final RecordGenerator first =
+        new RecordGenerator(ImmutableRecordGeneratorConfig.builder().seed(1).build());
+    final RecordGenerator second =
+        new RecordGenerator(ImmutableRecordGeneratorConfig.builder().seed(2).build());
+
+    // then
+    assertThat(first.stream(100).collect(Collectors.toList()))
+        .isNotEqualTo(second.stream(100).collect(Collectors.toList()));
+  }
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"NULL_VAL", "SBE_UNKNOWN"},
+      mode = Mode.EXCLUDE)
+  @ParameterizedTest
+  void shouldGenerateCopyableRecordsOfEveryKnownValueType(final ValueType type) {
+    // given
+    final RecordGenerator generator =
+        new RecordGenerator(
+            ImmutableRecordGeneratorConfig.builder().valueTypeWeights(Map.of(type, 1)).build());
+
+    // when
+    final ImmutableRecord<RecordValue> record = generator.next();
+
+    // then
+    assertThat(record.getValueType()).isEqualTo(type);
+    assertThat(record.getIntent()).isNotNull();
+    assertThat(ImmutableRecordCopier.deepCopyOfRecord(record)).isEqualTo(record);
+  }
+
+  @Test
+  void shouldApplyConfiguredShape() {
+    // given
+    final RecordGenerator generator =
+        new RecordGenerator(
+            ImmutableRecordGeneratorConfig.builder()
+                .valueTypeWeights(Map.of(ValueType.JOB_BATCH, 1))
+                .intentWeights(Map.of(JobBatchIntent.ACTIVATED, 1))
+                .jobBatchSize(3)
+                .customHeaderCount(5)
+                .variableCount(7)
+                .variableValueSize(11)
+                .build());
+
+    // when
+    final ImmutableRecord<RecordValue> record = generator.next();
+
+    // then
+    assertThat(record.getIntent()).isEqualTo(JobBatchIntent.ACTIVATED);
+    final JobBatchRecordValue value = (JobBatchRecordValue) record.getValue();
+    assertThat(value.getJobs()).hasSize(3).hasSameSizeAs(value.getJobKeys());
+    for (final JobRecordValue job : value.getJobs()) {
+      assertThat(job.getCustomHeaders()).hasSize(5);
+      assertThat(job.getVariables())
+          .hasSize(7)
+          .allSatisfy((name, variable) -> assertThat((String) variable).hasSize(11));
+    }
+  }
+
+  @Test
+  void shouldReferToEarlierRecordFromErrors() {
+    // given
+    final RecordGenerator generator =
+        new RecordGenerator(
+            ImmutableRecordGeneratorConfig.builder()
+                .valueTypeWeights(Map.of(ValueType.ERROR, 1))
+                .build());
+
+    // when
+    final List<ImmutableRecord<RecordValue>> records =
+        generator.stream(10).collect(Collectors.toList());
+
+    // then
+    assertThat(records)
+        .allSatisfy(
+            record ->
+                assertThat(((ErrorRecordValue) record.getValue()).getErrorEventPosition())
+                    .isEqualTo(record.getPosition() - 1));
+  }
+
+  @Test
+  void shouldWriteRecordsAsNewlineDelimitedJson() throws IOException {
+    // given
+    final ImmutableRecordGeneratorConfig config =
+        ImmutableRecordGeneratorConfig.builder().seed(7).build();
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    final ObjectReader reader = MAPPER.readerFor(new ImmutableRecordTypeReference<>());
+
+    // when
+    new RecordGenerator(config).writeJson(output, 100);
+
+    // then
+    final List<Record<?>> records =
+        output
+            .toString()
+            .lines()
+            .map(
+                line -> {
+                  try {
+                    return reader.<Record<?>>readValue(line);
+                  } catch (final IOException e) {
+                    throw new AssertionError(e);
+                  }
+                })
+            .collect(Collectors.toList());
+    assertThat(records)
+        .isEqualTo(new RecordGenerator(config).stream(100).collect(Collectors.toList()));
+  }
+}
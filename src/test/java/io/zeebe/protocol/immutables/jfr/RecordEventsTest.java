@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.JobIntent;
+import io.zeebe.protocol.immutables.ImmutableRecordCopier;
+import io.zeebe.protocol.immutables.MutableRecord;
+import io.zeebe.protocol.immutables.RecordMapper;
+import io.zeebe.protocol.immutables.RetainedSize;
+import io.zeebe.protocol.immutables.generator.ImmutableRecordGeneratorConfig;
+import io.zeebe.protocol.immutables.generator.RecordGenerator;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+final class RecordEventsTest {
+  @TempDir Path tempDir;
+
+  private ImmutableRecord<RecordValue> record;
+
+  @BeforeEach
+  void setUp() {
+    record =
+        new RecordGenerator(
+                ImmutableRecordGeneratorConfig.builder()
+                    .valueTypeWeights(Map.of(ValueType.JOB, 1))
+                    .intentWeights(Map.of(JobIntent.CREATED, 1))
+                    .build())
+            .next();
+  }
+
+  @Test
+  void shouldEmitCopyEvent() throws IOException {
+    // given
+    final MutableRecord<RecordValue> mutableRecord = new MutableRecord<>();
+
+    // when
+    final List<RecordedEvent> events =
+        record(
+            "io.zeebe.protocol.immutables.RecordCopy",
+            () -> ImmutableRecordCopier.deepCopyOfRecord(mutableRecord.wrap(record)));
+
+    // then
+    assertThat(events).hasSize(1);
+    final RecordedEvent event = events.get(0);
+    assertThat(event.getString("valueType")).isEqualTo("JOB");
+    assertThat(event.getString("intent")).isEqualTo("CREATED");
+    assertThat(event.getInt("partitionId")).isEqualTo(record.getPartitionId());
+    assertThat(event.getLong("position")).isEqualTo(record.getPosition());
+    assertThat(event.getLong("payloadSize"))
+        .isEqualTo(RetainedSize.ofValue(ValueType.JOB, record.getValue()));
+  }
+
+  @Test
+  void shouldEmitSerializationEvent() throws IOException {
+    // given
+    final int length = record.toJson().length();
+
+    // when
+    final List<RecordedEvent> events =
+        record("io.zeebe.protocol.immutables.RecordSerialization", record::toJson);
+
+    // then
+    assertThat(events).hasSize(1);
+    final RecordedEvent event = events.get(0);
+    assertThat(event.getString("valueType")).isEqualTo("JOB");
+    assertThat(event.getString("intent")).isEqualTo("CREATED");
+    assertThat(event.getLong("position")).isEqualTo(record.getPosition());
+    assertThat(event.getLong("payloadSize")).isEqualTo(length);
+  }
+
+  @Test
+  void shouldEmitTypeResolutionEvents() throws IOException {
+    // given
+    final String json = record.toJson();
+
+    // when
+    final List<RecordedEvent> events =
+        record(
+            "io.zeebe.protocol.immutables.TypeResolution",
+            () -> RecordMapper.getDefault().getRecordReader().readValue(json));
+
+    // then
+    assertThat(events)
+        .extracting(event -> event.getString("valueType") + " " + event.getString("property"))
+        .containsExactlyInAnyOrder("JOB value", "JOB intent");
+  }
+
+  @Test
+  void shouldNotEmitDisabledEvents() throws IOException {
+    // when
+    final List<RecordedEvent> events;
+    try (final Recording recording = new Recording()) {
+      recording.start();
+      ImmutableRecordCopier.deepCopyOfRecord(new MutableRecord<>().wrap(record));
+      record.toJson();
+      recording.stop();
+      events = readEvents(recording);
+    }
+
+    // then
+    assertThat(events)
+        .extracting(event -> event.getEventType().getName())
+        .noneMatch(name -> name.startsWith("io.zeebe.protocol.immutables"));
+  }
+
+  private List<RecordedEvent> record(final String eventName, final ThrowingRunnable operation)
+      throws IOException {
+    try (final Recording recording = new Recording()) {
+      recording.enable(eventName).withoutThreshold();
+      recording.start();
+      operation.run();
+      recording.stop();
+      return readEvents(recording).stream()
+          .filter(event -> event.getEventType().getName().equals(eventName))
+          .collect(Collectors.toList());
+    }
+  }
+
+  private List<RecordedEvent> readEvents(final Recording recording) throws IOException {
+    final Path file = tempDir.resolve("recording.jfr");
+    recording.dump(file);
+    return RecordingFile.readAllEvents(file);
+  }
+
+  @FunctionalInterface
+  private interface ThrowingRunnable {
+    void run() throws IOException;
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.Intent;
+import io.camunda.zeebe.protocol.record.intent.JobIntent;
+import io.zeebe.protocol.immutables.metrics.HistogramRecordMetrics.Measurement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.Test;
+
+final class HistogramRecordMetricsTest {
+  private final Map<String, List<Long>> histograms = new ConcurrentHashMap<>();
+
+  @Test
+  void shouldRecordIntoHistogramPerCombination() {
+    // given
+    final HistogramRecordMetrics metrics =
+        new HistogramRecordMetrics(
+            (operation, valueType, intent, measurement) -> {
+              final List<Long> values = new ArrayList<>();
+              histograms.put(name(operation, valueType, intent, measurement), values);
+              return values::add;
+            });
+
+    // when
+    metrics.onRecord(RecordOperation.SERIALIZE, ValueType.JOB, JobIntent.CREATED, 100, 10);
+    metrics.onRecord(RecordOperation.SERIALIZE, ValueType.JOB, JobIntent.CREATED, 200, 20);
+    metrics.onRecord(RecordOperation.COPY, ValueType.JOB, JobIntent.COMPLETED, 300, 0);
+
+    // then
+    assertThat(histograms)
+        .containsOnly(
+            Map.entry("SERIALIZE JOB CREATED DURATION", List.of(100L, 200L)),
+            Map.entry("SERIALIZE JOB CREATED SIZE", List.of(10L, 20L)),
+            Map.entry("COPY JOB COMPLETED DURATION", List.of(300L)));
+  }
+
+  @Test
+  void shouldIgnoreCombinationsWithoutHistogram() {
+    // given
+    final List<String> created = new ArrayList<>();
+    final HistogramRecordMetrics metrics =
+        new HistogramRecordMetrics(
+            (operation, valueType, intent, measurement) -> {
+              created.add(name(operation, valueType, intent, measurement));
+              return null;
+            });
+
+    // when
+    metrics.onRecord(RecordOperation.COPY, ValueType.JOB, JobIntent.CREATED, 100, 0);
+    metrics.onRecord(RecordOperation.COPY, ValueType.JOB, JobIntent.CREATED, 200, 0);
+
+    // then
+    assertThat(created).containsExactly("COPY JOB CREATED DURATION");
+  }
+
+  private static String name(
+      final RecordOperation operation,
+      final ValueType valueType,
+      final Intent intent,
+      final Measurement measurement) {
+    return operation + " " + valueType + " " + intent.name() + " " + measurement;
+  }
+}
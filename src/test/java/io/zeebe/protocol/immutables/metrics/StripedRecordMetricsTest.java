@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.camunda.zeebe.protocol.record.intent.JobIntent;
+import io.zeebe.protocol.immutables.ImmutableRecordCopier;
+import io.zeebe.protocol.immutables.MutableRecord;
+import io.zeebe.protocol.immutables.RecordMapper;
+import io.zeebe.protocol.immutables.RecordStreamReader;
+import io.zeebe.protocol.immutables.generator.ImmutableRecordGeneratorConfig;
+import io.zeebe.protocol.immutables.generator.RecordGenerator;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+final class StripedRecordMetricsTest {
+  private final StripedRecordMetrics metrics = new StripedRecordMetrics();
+
+  private ImmutableRecord<RecordValue> record;
+
+  @BeforeEach
+  void setUp() {
+    record =
+        new RecordGenerator(
+                ImmutableRecordGeneratorConfig.builder()
+                    .valueTypeWeights(Map.of(ValueType.JOB, 1))
+                    .intentWeights(Map.of(JobIntent.CREATED, 1))
+                    .build())
+            .next();
+    RecordMetrics.setListener(metrics);
+  }
+
+  @AfterEach
+  void tearDown() {
+    RecordMetrics.setListener(RecordMetricsListener.NONE);
+  }
+
+  @Test
+  void shouldMeasureCopies() {
+    // given
+    final MutableRecord<RecordValue> mutableRecord = new MutableRecord<>();
+
+    // when
+    ImmutableRecordCopier.deepCopyOfRecord(mutableRecord.wrap(record));
+    ImmutableRecordCopier.deepCopyOfRecord(record);
+
+    // then
+    final ImmutableRecordMetric metric =
+        metrics.get(RecordOperation.COPY, ValueType.JOB, JobIntent.CREATED);
+    assertThat(metric.getCount()).isEqualTo(2);
+    assertThat(metric.getNanos()).isPositive();
+    assertThat(metric.getBytes()).isZero();
+  }
+
+  @Test
+  void shouldMeasureSerializedBytes() throws IOException {
+    // given
+    final int length = RecordMapper.getDefault().getWriter().writeValueAsBytes(record).length;
+
+    // when
+    record.toJson();
+    record.toJson(new ByteArrayOutputStream());
+    record.toJson(new StringWriter());
+    record.toJson(ByteBuffer.allocate(length));
+
+    // then
+    final ImmutableRecordMetric metric =
+        metrics.get(RecordOperation.SERIALIZE, ValueType.JOB, JobIntent.CREATED);
+    assertThat(metric.getCount()).isEqualTo(4);
+    assertThat(metric.getNanos()).isPositive();
+    assertThat(metric.getBytes()).isEqualTo(4L * length);
+  }
+
+  @Test
+  void shouldMeasureDeserializedBytes() throws IOException {
+    // given
+    final byte[] json = record.toJson().getBytes(StandardCharsets.UTF_8);
+    metrics.reset();
+
+    // when
+    RecordMapper.getDefault().getRecordReader().readValue(json);
+    try (final RecordStreamReader reader =
+        new RecordStreamReader(new ByteArrayInputStream(json), metadata -> true)) {
+      reader.next();
+    }
+
+    // then
+    final ImmutableRecordMetric metric =
+        metrics.get(RecordOperation.DESERIALIZE, ValueType.JOB, JobIntent.CREATED);
+    assertThat(metric.getCount()).isEqualTo(2);
+    assertThat(metric.getNanos()).isPositive();
+    assertThat(metric.getBytes()).isEqualTo(2L * json.length);
+  }
+
+  @Test
+  void shouldSumMetricsOverIntents() {
+    // given
+    final ImmutableRecord<RecordValue> completed = record.withIntent(JobIntent.COMPLETED);
+
+    // when
+    ImmutableRecordCopier.deepCopyOfRecord(record);
+    ImmutableRecordCopier.deepCopyOfRecord(completed);
+
+    // then
+    assertThat(metrics.get(RecordOperation.COPY, ValueType.JOB).getCount()).isEqualTo(2);
+    assertThat(metrics.getMetrics())
+        .extracting(ImmutableRecordMetric::getIntent)
+        .containsExactlyInAnyOrder(JobIntent.CREATED, JobIntent.COMPLETED);
+  }
+
+  @Test
+  void shouldNotMeasureAnythingOnceRemoved() {
+    // given
+    RecordMetrics.setListener(RecordMetricsListener.NONE);
+
+    // when
+    ImmutableRecordCopier.deepCopyOfRecord(record);
+    record.toJson();
+
+    // then
+    assertThat(metrics.getMetrics()).isEmpty();
+  }
+}
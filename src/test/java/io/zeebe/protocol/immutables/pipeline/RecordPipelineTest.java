@@ -0,0 +1,275 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.pipeline;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.zeebe.protocol.immutables.MutableRecord;
+import io.zeebe.protocol.immutables.generator.ImmutableRecordGeneratorConfig;
+import io.zeebe.protocol.immutables.generator.RecordGenerator;
+import io.zeebe.protocol.immutables.record.value.ImmutableRecord;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+final class RecordPipelineTest {
+  private static final ImmutableRecordGeneratorConfig GENERATOR_CONFIG =
+      ImmutableRecordGeneratorConfig.builder().seed(5).build();
+
+  private final Queue<ImmutableRecord<RecordValue>> handled = new ConcurrentLinkedQueue<>();
+  private List<ImmutableRecord<RecordValue>> records;
+
+  @BeforeEach
+  void setUp() {
+    records = new RecordGenerator(GENERATOR_CONFIG).stream(2_000).collect(Collectors.toList());
+  }
+
+  @Test
+  void shouldHandleEveryPublishedRecord() {
+    // given
+    final ImmutableRecordPipelineConfig config =
+        ImmutableRecordPipelineConfig.builder()
+            .capacity(64)
+            .maxBatchSize(8)
+            .consumerCount(4)
+            .build();
+    final RecordPipeline pipeline = RecordPipeline.start(config, handled::addAll);
+
+    // when
+    records.forEach(pipeline::publish);
+    pipeline.close();
+
+    // then
+    assertThat(handled).containsExactlyInAnyOrderElementsOf(records);
+    assertThat(pipeline.getBacklog()).isZero();
+    assertThat(pipeline.getCompletedPosition())
+        .isEqualTo(records.get(records.size() - 1).getPosition());
+  }
+
+  @Test
+  void shouldRejectRecordsWhileFull() throws InterruptedException {
+    // given
+    final CountDownLatch blocked = new CountDownLatch(1);
+    final ImmutableRecordPipelineConfig config =
+        ImmutableRecordPipelineConfig.builder().capacity(4).build();
+    try (final RecordPipeline pipeline =
+        RecordPipeline.start(
+            config,
+            batch -> {
+              blocked.await();
+              handled.addAll(batch);
+            })) {
+      for (int i = 0; i < 4; i++) {
+        assertThat(pipeline.tryPublish(records.get(i))).isTrue();
+      }
+
+      // when
+      final boolean published = pipeline.tryPublish(records.get(4));
+
+      // then
+      assertThat(published).isFalse();
+      assertThat(pipeline.getRejectedCount()).isOne();
+      assertThat(pipeline.getRemainingCapacity()).isZero();
+      assertThat(pipeline.getCompletedPosition()).isEqualTo(-1);
+
+      blocked.countDown();
+      Awaitility.await("until a slot is released")
+          .atMost(Duration.ofSeconds(10))
+          .until(() -> pipeline.tryPublish(records.get(4)));
+    }
+
+    assertThat(handled).containsExactlyInAnyOrderElementsOf(records.subList(0, 5));
+  }
+
+  @Test
+  void shouldOnlyHandleFilteredRecords() {
+    // given
+    final ImmutableRecordPipelineConfig config =
+        ImmutableRecordPipelineConfig.builder()
+            .capacity(16)
+            .consumerCount(2)
+            .filter(record -> record.getValueType() == ValueType.JOB)
+            .build();
+    final RecordPipeline pipeline = RecordPipeline.start(config, handled::addAll);
+
+    // when
+    records.forEach(pipeline::publish);
+    pipeline.close();
+
+    // then
+    assertThat(handled)
+        .isNotEmpty()
+        .containsExactlyInAnyOrderElementsOf(
+            records.stream()
+                .filter(record -> record.getValueType() == ValueType.JOB)
+                .collect(Collectors.toList()));
+    assertThat(pipeline.getCompletedPosition())
+        .isEqualTo(records.get(records.size() - 1).getPosition());
+  }
+
+  @Test
+  void shouldRetryFailedBatch() {
+    // given
+    final AtomicBoolean failed = new AtomicBoolean();
+    final ImmutableRecordPipelineConfig config =
+        ImmutableRecordPipelineConfig.builder()
+            .retryWaitStrategy(WaitStrategy.busySpin())
+            .threadNamePrefix("failing-pipeline-")
+            .build();
+    final RecordPipeline pipeline =
+        RecordPipeline.start(
+            config,
+            batch -> {
+              if (failed.compareAndSet(false, true)) {
+                throw new IllegalStateException("expected failure");
+              }
+              handled.addAll(batch);
+            });
+
+    // when
+    records.subList(0, 100).forEach(pipeline::publish);
+    Awaitility.await("until the failed batch was retried")
+        .atMost(Duration.ofSeconds(10))
+        .until(() -> handled.size() == 100);
+    pipeline.close();
+
+    // then
+    assertThat(pipeline.getFailedBatchCount()).isOne();
+    assertThat(handled).containsExactlyElementsOf(records.subList(0, 100));
+  }
+
+  @Test
+  void shouldNotifyErrorListenerOfRetriedFailure() {
+    // given
+    final IllegalStateException failure = new IllegalStateException("expected failure");
+    final Queue<Boolean> retries = new ConcurrentLinkedQueue<>();
+    final AtomicBoolean failed = new AtomicBoolean();
+    final ImmutableRecordPipelineConfig config =
+        ImmutableRecordPipelineConfig.builder()
+            .retryWaitStrategy(WaitStrategy.busySpin())
+            .errorListener(
+                (error, retrying) -> {
+                  assertThat(error).isSameAs(failure);
+                  retries.add(retrying);
+                })
+            .build();
+    final RecordPipeline pipeline =
+        RecordPipeline.start(
+            config,
+            batch -> {
+              if (failed.compareAndSet(false, true)) {
+                throw failure;
+              }
+              handled.addAll(batch);
+            });
+
+    // when
+    pipeline.publish(records.get(0));
+    Awaitility.await("until the failed batch was retried")
+        .atMost(Duration.ofSeconds(10))
+        .until(() -> handled.size() == 1);
+    pipeline.close();
+
+    // then
+    assertThat(retries).containsExactly(true);
+  }
+
+  @Test
+  void shouldFailOnError() {
+    // given
+    final Error error = new Error("expected error");
+    final Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+    final ImmutableRecordPipelineConfig config =
+        ImmutableRecordPipelineConfig.builder()
+            .capacity(1)
+            .errorListener((failure, retrying) -> errors.add(failure))
+            .threadNamePrefix("erroneous-pipeline-")
+            .build();
+    final RecordPipeline pipeline =
+        RecordPipeline.start(
+            config,
+            batch -> {
+              throw error;
+            });
+
+    // when
+    pipeline.publish(records.get(0));
+    Awaitility.await("until the pipeline failed")
+        .atMost(Duration.ofSeconds(10))
+        .until(() -> !errors.isEmpty());
+
+    // then
+    assertThat(errors).containsExactly(error);
+    assertThat(pipeline.getFailedBatchCount()).isOne();
+    assertThatThrownBy(() -> pipeline.publish(records.get(1)))
+        .isInstanceOf(IllegalStateException.class)
+        .hasCause(error);
+    assertThatThrownBy(pipeline::close).isInstanceOf(IllegalStateException.class).hasCause(error);
+  }
+
+  @Test
+  void shouldCaptureMetadataOfReusedRecord() {
+    // given
+    final MutableRecord<RecordValue> reused = new MutableRecord<>();
+    final ImmutableRecordPipelineConfig config =
+        ImmutableRecordPipelineConfig.builder().copyOnPublish(false).build();
+    final RecordPipeline pipeline = RecordPipeline.start(config, handled::addAll);
+
+    // when
+    for (final ImmutableRecord<RecordValue> record : records) {
+      pipeline.publish(reused.wrap(record));
+    }
+    pipeline.close();
+
+    // then
+    assertThat(handled).containsExactlyElementsOf(records);
+  }
+
+  @Test
+  void shouldNotPublishOnceClosed() {
+    // given
+    final RecordPipeline pipeline =
+        RecordPipeline.start(ImmutableRecordPipelineConfig.builder().build(), handled::addAll);
+
+    // when
+    pipeline.close();
+
+    // then
+    assertThatThrownBy(() -> pipeline.tryPublish(records.get(0)))
+        .isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  void shouldRejectCapacityWhichIsNotPowerOfTwo() {
+    // given
+    final ImmutableRecordPipelineConfig config =
+        ImmutableRecordPipelineConfig.builder().capacity(100).build();
+
+    // then
+    assertThatThrownBy(() -> RecordPipeline.start(config, handled::addAll))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
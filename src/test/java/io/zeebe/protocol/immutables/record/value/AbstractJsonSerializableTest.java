@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.record.value;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.zeebe.protocol.immutables.generator.ImmutableRecordGeneratorConfig;
+import io.zeebe.protocol.immutables.generator.RecordGenerator;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+final class AbstractJsonSerializableTest {
+
+  private final ImmutableRecord<RecordValue> record =
+      new RecordGenerator(
+              ImmutableRecordGeneratorConfig.builder()
+                  .seed(13)
+                  .valueTypeWeights(Map.of(ValueType.JOB, 1))
+                  .build())
+          .next();
+  private final byte[] expected = record.toJson().getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  void shouldWriteToOutputStreamWithoutClosingIt() throws IOException {
+    // given
+    final CloseTrackingOutputStream output = new CloseTrackingOutputStream();
+
+    // when
+    record.toJson(output);
+
+    // then
+    assertThat(output.toByteArray()).isEqualTo(expected);
+    assertThat(output.closed).isFalse();
+  }
+
+  @Test
+  void shouldWriteToWriter() throws IOException {
+    // given
+    final StringWriter writer = new StringWriter();
+
+    // when
+    record.toJson(writer);
+
+    // then
+    assertThat(writer.toString()).isEqualTo(record.toJson());
+  }
+
+  @Test
+  void shouldWriteToHeapBuffer() {
+    // given
+    final ByteBuffer buffer = ByteBuffer.allocate(expected.length + 10).position(4);
+
+    // when
+    record.toJson(buffer);
+
+    // then
+    assertThat(buffer.position()).isEqualTo(4 + expected.length);
+    assertThat(readBytes(buffer, 4, expected.length)).isEqualTo(expected);
+  }
+
+  @Test
+  void shouldWriteToDirectBuffer() {
+    // given
+    final ByteBuffer buffer = ByteBuffer.allocateDirect(expected.length);
+
+    // when
+    record.toJson(buffer);
+
+    // then
+    assertThat(buffer.hasRemaining()).isFalse();
+    assertThat(readBytes(buffer, 0, expected.length)).isEqualTo(expected);
+  }
+
+  @Test
+  void shouldNotMovePositionIfBufferIsTooSmall() {
+    // given
+    final ByteBuffer buffer = ByteBuffer.allocate(expected.length - 1).position(2);
+
+    // when - then
+    assertThatThrownBy(() -> record.toJson(buffer)).isInstanceOf(BufferOverflowException.class);
+    assertThat(buffer.position()).isEqualTo(2);
+  }
+
+  private byte[] readBytes(final ByteBuffer buffer, final int offset, final int length) {
+    final byte[] bytes = new byte[length];
+    buffer.duplicate().position(offset).get(bytes);
+    return bytes;
+  }
+
+  private static final class CloseTrackingOutputStream extends ByteArrayOutputStream {
+    private boolean closed;
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
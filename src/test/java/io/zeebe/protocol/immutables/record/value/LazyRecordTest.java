@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2020 camunda services GmbH (info@camunda.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.zeebe.protocol.immutables.record.value;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.camunda.zeebe.protocol.record.Record;
+import io.camunda.zeebe.protocol.record.RecordValue;
+import io.camunda.zeebe.protocol.record.ValueType;
+import io.zeebe.protocol.immutables.ImmutableRecordCopier;
+import io.zeebe.protocol.immutables.LazyRecordTypeReference;
+import io.zeebe.protocol.immutables.generator.ImmutableRecordGeneratorConfig;
+import io.zeebe.protocol.immutables.generator.RecordGenerator;
+import java.util.Map;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.EnumSource.Mode;
+
+final class LazyRecordTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final ObjectReader READER = MAPPER.readerFor(new LazyRecordTypeReference<>());
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"NULL_VAL", "SBE_UNKNOWN"},
+      mode = Mode.EXCLUDE)
+  @ParameterizedTest
+  void shouldDeserializeValueOnlyWhenAccessed(final ValueType type) throws JsonProcessingException {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(type);
+
+    // when
+    final Record<RecordValue> lazyRecord = READER.readValue(record.toJson());
+
+    // then
+    assertThat(lazyRecord).isInstanceOf(ImmutableLazyRecord.class);
+    assertThat(lazyRecord.getPosition()).isEqualTo(record.getPosition());
+    assertThat(lazyRecord.getKey()).isEqualTo(record.getKey());
+    assertThat(lazyRecord.getIntent()).isEqualTo(record.getIntent());
+    assertThat(lazyRecord.getValueType()).isEqualTo(type);
+    assertThat(lazyRecord.getValue()).isEqualTo(record.getValue()).isSameAs(lazyRecord.getValue());
+  }
+
+  @EnumSource(
+      value = ValueType.class,
+      names = {"NULL_VAL", "SBE_UNKNOWN"},
+      mode = Mode.EXCLUDE)
+  @ParameterizedTest
+  void shouldSerializeToSameJsonAsImmutableRecord(final ValueType type)
+      throws JsonProcessingException {
+    // given
+    final ImmutableRecord<RecordValue> record = generateRecord(type);
+    final Record<RecordValue> lazyRecord = READER.readValue(record.toJson());
+
+    // when
+    final String json = lazyRecord.toJson();
+
+    // then
+    assertThat(MAPPER.readTree(json)).isEqualTo(MAPPER.readTree(record.toJson()));
+    assertThat(ImmutableRecordCopier.deepCopyOfRecord(lazyRecord)).isEqualTo(record);
+  }
+
+  private static ImmutableRecord<RecordValue> generateRecord(final ValueType type) {
+    final ImmutableRecordGeneratorConfig config =
+        ImmutableRecordGeneratorConfig.builder().valueTypeWeights(Map.of(type, 1)).build();
+    return new RecordGenerator(config).next();
+  }
+}